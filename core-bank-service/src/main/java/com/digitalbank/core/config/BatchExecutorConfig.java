@@ -0,0 +1,45 @@
+package com.digitalbank.core.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 批量任务执行器配置：许可数 = min(max-concurrency, 连接池大小 - 在线流量预留连接数)，至少为 1。
+ * 暴露 corebank.batch.executor.queued / in_flight / permits 指标。
+ *
+ * @author Digital Bank POC Team
+ */
+@Configuration
+public class BatchExecutorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchExecutorConfig.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public ConnectionAwareExecutor batchTransferExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${transaction.batch-transfer.executor.reserved-connections:10}") int reservedConnections,
+            @Value("${transaction.batch-transfer.executor.max-concurrency:16}") int maxConcurrency,
+            @Value("${transaction.batch-transfer.executor.virtual-threads:false}") boolean virtualThreads,
+            @Value("${transaction.batch-transfer.executor.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        int permits = Math.max(1, Math.min(maxConcurrency, poolSize - reservedConnections));
+        log.info("批量任务执行器: poolSize={}, reserved={}, permits={}", poolSize, reservedConnections, permits);
+
+        ConnectionAwareExecutor executor = new ConnectionAwareExecutor("batch-transfer", permits, virtualThreads, shutdownTimeoutMs);
+        Gauge.builder("corebank.batch.executor.queued", executor, ConnectionAwareExecutor::getQueued)
+                .description("已提交、等待执行许可的批量任务数")
+                .register(meterRegistry);
+        Gauge.builder("corebank.batch.executor.in_flight", executor, ConnectionAwareExecutor::getInFlight)
+                .description("正在执行的批量任务数")
+                .register(meterRegistry);
+        Gauge.builder("corebank.batch.executor.permits", executor, ConnectionAwareExecutor::getPermits)
+                .description("批量任务并发许可数（连接预算）")
+                .register(meterRegistry);
+        return executor;
+    }
+}
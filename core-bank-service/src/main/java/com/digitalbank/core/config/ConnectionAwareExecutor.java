@@ -0,0 +1,145 @@
+package com.digitalbank.core.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按数据库连接预算限流的任务执行器（批量转账等后台并行任务共用）。
+ * <ul>
+ *   <li>并发上限由信号量控制，许可数由连接池大小扣除在线流量预留得出，避免批量任务占满连接池</li>
+ *   <li>可运行在虚拟线程上（JDK 21+ 可用时）；否则使用与许可数等大的平台线程池</li>
+ *   <li>提交时捕获 MDC（traceId/requestId 等），在工作线程中恢复，执行后清理</li>
+ *   <li>关闭时不再接收新任务，等待已提交任务在超时内完成</li>
+ * </ul>
+ * queued 为已提交但未取得许可的任务数，inFlight 为正在执行的任务数。
+ */
+public class ConnectionAwareExecutor implements Executor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionAwareExecutor.class);
+
+    private final String name;
+    private final int permits;
+    private final Semaphore semaphore;
+    private final ExecutorService delegate;
+    private final boolean virtualThreads;
+    private final long shutdownTimeoutMs;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ConnectionAwareExecutor(String name, int permits, boolean preferVirtualThreads, long shutdownTimeoutMs) {
+        this.name = name;
+        this.permits = Math.max(1, permits);
+        this.semaphore = new Semaphore(this.permits, true);
+        this.shutdownTimeoutMs = Math.max(0, shutdownTimeoutMs);
+        ExecutorService virtual = preferVirtualThreads ? newVirtualThreadExecutor() : null;
+        this.virtualThreads = virtual != null;
+        this.delegate = virtual != null ? virtual : Executors.newFixedThreadPool(this.permits, platformThreads(name));
+        log.info("执行器 {} 启动, permits={}, virtualThreads={}", name, this.permits, virtualThreads);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        queued.incrementAndGet();
+        try {
+            delegate.execute(() -> runWithPermit(task, mdc));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void runWithPermit(Runnable task, Map<String, String> mdc) {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            queued.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(name + " 等待执行许可时被中断", e);
+        }
+        queued.decrementAndGet();
+        inFlight.incrementAndGet();
+        Map<String, String> previous = MDC.getCopyOfContextMap();
+        try {
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            } else {
+                MDC.clear();
+            }
+            task.run();
+        } finally {
+            if (previous != null) {
+                MDC.setContextMap(previous);
+            } else {
+                MDC.clear();
+            }
+            inFlight.decrementAndGet();
+            semaphore.release();
+        }
+    }
+
+    /**
+     * 优雅关闭：停止接收新任务，等待已提交任务完成，超时后中断剩余任务
+     */
+    public void shutdown() {
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("执行器 {} 关闭超时, 中断剩余任务, queued={}, inFlight={}", name, queued.get(), inFlight.get());
+                delegate.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            delegate.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * JDK 21+ 的 Executors.newVirtualThreadPerTaskExecutor()；当前运行时不支持时返回 null。
+     * 通过反射调用，以便在 Java 17 目标下编译。
+     */
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("执行器 {} 当前 JDK 不支持虚拟线程, 使用平台线程池", name);
+            return null;
+        }
+    }
+
+    private static ThreadFactory platformThreads(String name) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
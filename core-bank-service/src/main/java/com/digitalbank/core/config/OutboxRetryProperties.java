@@ -0,0 +1,179 @@
+package com.digitalbank.core.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Outbox 投递重试策略（outbox.publisher.retry.*）：defaults 为全局策略，event-types.{eventType} 按事件类型覆盖其中任意项。
+ * <p>
+ * 第 n 次失败后的等待 = min(max-backoff-ms, initial-backoff-ms × multiplier^(n-1))，
+ * 再在 [等待 × (1 - jitter), 等待] 内均匀随机，避免下游恢复时同一时刻失败的事件集中重试。
+ * 失败次数达到 max-attempts 后标记 failed。
+ *
+ * @author Digital Bank POC Team
+ */
+@Component
+@ConfigurationProperties(prefix = "outbox.publisher.retry")
+public class OutboxRetryProperties {
+
+    private Settings defaults = new Settings();
+
+    /**
+     * 按事件类型覆盖，未设置的项沿用 defaults。
+     * 匹配时忽略大小写与非字母数字字符：未加方括号的 Map 键在绑定时会被去掉下划线（PAYMENT_DEBIT_COMPLETED → PAYMENTDEBITCOMPLETED）
+     */
+    private Map<String, Settings> eventTypes = new LinkedHashMap<>();
+
+    public Settings getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Settings defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Settings> getEventTypes() {
+        return eventTypes;
+    }
+
+    public void setEventTypes(Map<String, Settings> eventTypes) {
+        this.eventTypes = eventTypes;
+    }
+
+    /**
+     * 解析事件类型的生效策略
+     */
+    public Policy policyFor(String eventType) {
+        Settings override = null;
+        if (eventType != null) {
+            String key = normalize(eventType);
+            for (Map.Entry<String, Settings> e : eventTypes.entrySet()) {
+                if (normalize(e.getKey()).equals(key)) {
+                    override = e.getValue();
+                    break;
+                }
+            }
+        }
+        Settings d = defaults;
+        return new Policy(
+                pick(override != null ? override.maxAttempts : null, d.maxAttempts, 10),
+                pick(override != null ? override.initialBackoffMs : null, d.initialBackoffMs, 1000L),
+                pick(override != null ? override.multiplier : null, d.multiplier, 2.0),
+                pick(override != null ? override.maxBackoffMs : null, d.maxBackoffMs, 300_000L),
+                pick(override != null ? override.jitter : null, d.jitter, 0.2));
+    }
+
+    /**
+     * 各覆盖事件类型生效的 max-attempts，键为归一化后的事件类型（大写、仅字母数字）；
+     * 未列出的事件类型取 {@code policyFor(null).maxAttempts()}。供领取时在 SQL 内判断租约过期重领是否已用尽重试
+     */
+    public Map<String, Integer> maxAttemptsByEventType() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String eventType : eventTypes.keySet()) {
+            result.put(normalize(eventType), policyFor(eventType).maxAttempts());
+        }
+        return result;
+    }
+
+    private static String normalize(String eventType) {
+        return eventType.replaceAll("[^A-Za-z0-9]", "").toUpperCase(Locale.ROOT);
+    }
+
+    private static <T> T pick(T override, T defaultValue, T fallback) {
+        return override != null ? override : defaultValue != null ? defaultValue : fallback;
+    }
+
+    /**
+     * 生效的重试策略
+     */
+    public record Policy(int maxAttempts, long initialBackoffMs, double multiplier, long maxBackoffMs, double jitter) {
+
+        public Policy {
+            maxAttempts = Math.max(1, Math.min(100, maxAttempts));
+            initialBackoffMs = Math.max(0, initialBackoffMs);
+            multiplier = Math.max(1.0, multiplier);
+            maxBackoffMs = Math.max(initialBackoffMs, maxBackoffMs);
+            jitter = Math.max(0.0, Math.min(1.0, jitter));
+        }
+
+        /**
+         * 第 failures 次失败后是否已用尽重试
+         */
+        public boolean exhausted(int failures) {
+            return failures >= maxAttempts;
+        }
+
+        /**
+         * 第 failures 次失败后的等待时长
+         *
+         * @param random [0, 1) 随机数
+         */
+        public Duration backoff(int failures, double random) {
+            double exp = initialBackoffMs * Math.pow(multiplier, Math.max(0, failures - 1));
+            double capped = Math.min(maxBackoffMs, exp);
+            return Duration.ofMillis((long) (capped * (1.0 - jitter * random)));
+        }
+
+        public Instant nextAttemptAt(Instant now, int failures, double random) {
+            return now.plus(backoff(failures, random));
+        }
+    }
+
+    /**
+     * 一组可覆盖的策略项，未设置为 null
+     */
+    public static class Settings {
+
+        private Integer maxAttempts;
+        private Long initialBackoffMs;
+        private Double multiplier;
+        private Long maxBackoffMs;
+        private Double jitter;
+
+        public Integer getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(Integer maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Long getInitialBackoffMs() {
+            return initialBackoffMs;
+        }
+
+        public void setInitialBackoffMs(Long initialBackoffMs) {
+            this.initialBackoffMs = initialBackoffMs;
+        }
+
+        public Double getMultiplier() {
+            return multiplier;
+        }
+
+        public void setMultiplier(Double multiplier) {
+            this.multiplier = multiplier;
+        }
+
+        public Long getMaxBackoffMs() {
+            return maxBackoffMs;
+        }
+
+        public void setMaxBackoffMs(Long maxBackoffMs) {
+            this.maxBackoffMs = maxBackoffMs;
+        }
+
+        public Double getJitter() {
+            return jitter;
+        }
+
+        public void setJitter(Double jitter) {
+            this.jitter = jitter;
+        }
+    }
+}
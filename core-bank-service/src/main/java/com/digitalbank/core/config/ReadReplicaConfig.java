@@ -0,0 +1,97 @@
+package com.digitalbank.core.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读副本路由配置（datasource.read-replica.enabled=true 时生效）。
+ * <ul>
+ *   <li>主库连接池沿用 spring.datasource.*，每个副本 URL 建立一个只读连接池</li>
+ *   <li>对外暴露的 DataSource 为 LazyConnectionDataSourceProxy(ReplicaRoutingDataSource)</li>
+ *   <li>只有标注 {@link ReplicaRead} 的端点中的只读事务读副本，其余全部走主库</li>
+ * </ul>
+ *
+ * @author Digital Bank POC Team
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.read-replica.enabled", havingValue = "true")
+public class ReadReplicaConfig implements WebMvcConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaConfig.class);
+
+    private final long defaultMaxLagMs;
+
+    public ReadReplicaConfig(@Value("${datasource.read-replica.max-lag-ms:1000}") long defaultMaxLagMs) {
+        this.defaultMaxLagMs = defaultMaxLagMs;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ReplicaLagMonitor replicaLagMonitor(
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${datasource.read-replica.urls:}") List<String> urls,
+            @Value("${datasource.read-replica.username:}") String username,
+            @Value("${datasource.read-replica.password:}") String password,
+            @Value("${datasource.read-replica.pool-size:10}") int poolSize,
+            @Value("${datasource.read-replica.lag-check-interval-ms:1000}") long lagCheckIntervalMs,
+            @Value("${datasource.read-replica.receiver-timeout-ms:45000}") long receiverTimeoutMs) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            String key = "replica-" + replicas.size();
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("CoreBankReplicaPool-" + replicas.size());
+            replica.setJdbcUrl(url.trim());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(StringUtils.hasText(username) ? username : properties.determineUsername());
+            replica.setPassword(StringUtils.hasText(password) ? password : properties.determinePassword());
+            replica.setMaximumPoolSize(Math.max(1, poolSize));
+            replica.setMinimumIdle(1);
+            replica.setReadOnly(true);
+            replicas.put(key, replica);
+        }
+        log.info("读副本路由启用: replicas={}, defaultMaxLagMs={}", replicas.size(), defaultMaxLagMs);
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicas, lagCheckIntervalMs, receiverTimeoutMs, meterRegistry);
+        monitor.start();
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor,
+                                 MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaLagMonitor, meterRegistry));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReplicaReadInterceptor(defaultMaxLagMs));
+    }
+}
@@ -0,0 +1,190 @@
+package com.digitalbank.core.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读副本复制延迟监控：后台按固定间隔在每个副本上测量回放延迟，供路由数据源选择副本。
+ * <ul>
+ *   <li>已回放到接收位点（无待回放 WAL）视为延迟 0，否则取 now - 最后回放事务提交时间</li>
+ *   <li>接收位点等于回放位点也可能是 WAL 接收进程已与主库断开（之后两者都不再前进），因此先检查
+ *       pg_stat_wal_receiver：无接收进程、status 不是 streaming、或超过 receiver-timeout-ms 未收到主库消息
+ *       （主库空闲时约每 wal_receiver_timeout/2 一次保活）时视为不可用。status 与最后消息时间只对
+ *       pg_read_all_stats 角色可见，监控所用账号没有该权限时只检查接收进程是否存在</li>
+ *   <li>查询失败、节点不处于恢复模式（已提升为主库）或测量结果超过 3 个检查间隔未刷新时视为不可用</li>
+ *   <li>选择时在延迟不超过预算的副本间轮询，无可用副本返回 null（调用方回落主库）</li>
+ * </ul>
+ * 暴露 corebank.datasource.replica.lag{replica} 指标（毫秒，不可用为 -1）。
+ *
+ * @author Digital Bank POC Team
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    static final String LAG_SQL = """
+            SELECT CASE
+                     WHEN NOT pg_is_in_recovery() THEN NULL
+                     WHEN r.pid IS NULL THEN NULL
+                     WHEN r.status IS NOT NULL AND r.status <> 'streaming' THEN NULL
+                     WHEN r.last_msg_receipt_time IS NOT NULL
+                          AND EXTRACT(EPOCH FROM (clock_timestamp() - r.last_msg_receipt_time)) * 1000 > ? THEN NULL
+                     WHEN pg_last_wal_receive_lsn() IS NOT DISTINCT FROM pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM (clock_timestamp() - pg_last_xact_replay_timestamp())) * 1000, 0)
+                   END
+            FROM (SELECT 1) AS one
+            LEFT JOIN pg_stat_wal_receiver r ON TRUE
+            """;
+
+    static final long DEFAULT_RECEIVER_TIMEOUT_MS = 45_000;
+
+    private static final long UNAVAILABLE = -1;
+
+    private final Map<String, DataSource> replicas;
+    private final Map<String, ReplicaState> states = new LinkedHashMap<>();
+    private final List<String> keys;
+    private final long checkIntervalMs;
+    private final long receiverTimeoutMs;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(Map<String, DataSource> replicas, long checkIntervalMs, MeterRegistry meterRegistry) {
+        this(replicas, checkIntervalMs, DEFAULT_RECEIVER_TIMEOUT_MS, meterRegistry);
+    }
+
+    public ReplicaLagMonitor(Map<String, DataSource> replicas, long checkIntervalMs, long receiverTimeoutMs,
+                             MeterRegistry meterRegistry) {
+        this.replicas = Collections.unmodifiableMap(new LinkedHashMap<>(replicas));
+        this.keys = List.copyOf(this.replicas.keySet());
+        this.checkIntervalMs = Math.max(100, checkIntervalMs);
+        this.receiverTimeoutMs = Math.max(1000, receiverTimeoutMs);
+        for (String key : keys) {
+            ReplicaState state = new ReplicaState();
+            states.put(key, state);
+            Gauge.builder("corebank.datasource.replica.lag", state, s -> s.lagMs)
+                    .description("读副本复制延迟（毫秒，-1 表示不可用）")
+                    .baseUnit("milliseconds")
+                    .tag("replica", key)
+                    .register(meterRegistry);
+        }
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null || keys.isEmpty()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-lag-monitor");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkNow, 0, checkIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("读副本延迟监控启动: replicas={}, intervalMs={}", keys, checkIntervalMs);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        for (DataSource dataSource : replicas.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("关闭读副本连接池失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 立即测量所有副本的延迟。
+     */
+    public void checkNow() {
+        for (String key : keys) {
+            record(key, measure(key, replicas.get(key)));
+        }
+    }
+
+    /**
+     * 选择延迟不超过 maxLagMs 的副本。
+     *
+     * @return 副本 key；无可用副本时返回 null
+     */
+    public String pick(long maxLagMs) {
+        int size = keys.size();
+        if (size == 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        int start = Math.floorMod(cursor.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            String key = keys.get((start + i) % size);
+            ReplicaState state = states.get(key);
+            long lag = state.lagMs;
+            if (lag != UNAVAILABLE && lag <= maxLagMs && now - state.measuredAt <= checkIntervalMs * 3) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 记录一次测量结果，lagMs 为 null 表示不可用。
+     */
+    void record(String key, Long lagMs) {
+        ReplicaState state = states.get(key);
+        if (state == null) {
+            return;
+        }
+        long previous = state.lagMs;
+        state.lagMs = lagMs == null ? UNAVAILABLE : Math.max(0, lagMs);
+        state.measuredAt = System.currentTimeMillis();
+        if ((previous == UNAVAILABLE) != (state.lagMs == UNAVAILABLE)) {
+            log.info("读副本 {} {}", key, state.lagMs == UNAVAILABLE ? "不可用" : "恢复可用, lagMs=" + state.lagMs);
+        }
+    }
+
+    private Long measure(String key, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(LAG_SQL)) {
+            statement.setQueryTimeout((int) Math.max(1, checkIntervalMs / 1000));
+            statement.setLong(1, receiverTimeoutMs);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                double lag = rs.getDouble(1);
+                return rs.wasNull() ? null : (long) Math.ceil(lag);
+            }
+        } catch (Exception e) {
+            log.debug("读副本 {} 延迟测量失败: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class ReplicaState {
+        private volatile long lagMs = UNAVAILABLE;
+        private volatile long measuredAt;
+    }
+}
@@ -0,0 +1,29 @@
+package com.digitalbank.core.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注允许读副本的查询端点。仅在开启 datasource.read-replica.enabled 时生效，
+ * 且只有端点内的只读事务（@Transactional(readOnly = true)）会路由到副本；
+ * 副本复制延迟超过 maxLagMs 或全部不可用时回落主库。
+ * 未标注的端点（如余额查询）始终读主库，保证读己之写。
+ * 只读查询端点（列表、历史、导出、按 id 查询客户/预约/批量任务、时点余额）均已标注；按 id 查询刚创建的记录
+ * 在延迟预算内可能短暂返回不存在，创建接口的响应已带回完整记录。
+ * 账户详情与余额不标注：扣款/转账后的读取需看到自己的写入。
+ *
+ * @author Digital Bank POC Team
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaRead {
+
+    /**
+     * 可接受的最大复制延迟（毫秒），-1 表示使用 datasource.read-replica.max-lag-ms。
+     */
+    long maxLagMs() default -1;
+}
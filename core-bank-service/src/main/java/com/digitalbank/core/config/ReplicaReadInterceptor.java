@@ -0,0 +1,41 @@
+package com.digitalbank.core.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 根据处理方法（或其所在类）上的 {@link ReplicaRead} 设置当前请求的副本读取预算，请求完成后清理。
+ *
+ * @author Digital Bank POC Team
+ */
+public class ReplicaReadInterceptor implements HandlerInterceptor {
+
+    private final long defaultMaxLagMs;
+
+    public ReplicaReadInterceptor(long defaultMaxLagMs) {
+        this.defaultMaxLagMs = defaultMaxLagMs;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaRoutingContext.clear();
+        if (handler instanceof HandlerMethod method) {
+            ReplicaRead replicaRead = AnnotatedElementUtils.findMergedAnnotation(method.getMethod(), ReplicaRead.class);
+            if (replicaRead == null) {
+                replicaRead = AnnotatedElementUtils.findMergedAnnotation(method.getBeanType(), ReplicaRead.class);
+            }
+            if (replicaRead != null) {
+                ReplicaRoutingContext.allowReplica(replicaRead.maxLagMs() >= 0 ? replicaRead.maxLagMs() : defaultMaxLagMs);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaRoutingContext.clear();
+    }
+}
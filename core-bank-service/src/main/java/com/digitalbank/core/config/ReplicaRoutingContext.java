@@ -0,0 +1,33 @@
+package com.digitalbank.core.config;
+
+/**
+ * 当前线程的副本读取预算（由 {@link ReplicaReadInterceptor} 按端点设置，请求结束清理）。
+ * 未设置时所有连接走主库。
+ *
+ * @author Digital Bank POC Team
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Long> MAX_LAG_MS = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    /**
+     * 允许当前线程的只读事务读副本，复制延迟不超过 maxLagMs。
+     */
+    public static void allowReplica(long maxLagMs) {
+        MAX_LAG_MS.set(Math.max(0, maxLagMs));
+    }
+
+    /**
+     * @return 可接受的最大复制延迟；未允许读副本时为 null
+     */
+    public static Long maxLagMs() {
+        return MAX_LAG_MS.get();
+    }
+
+    public static void clear() {
+        MAX_LAG_MS.remove();
+    }
+}
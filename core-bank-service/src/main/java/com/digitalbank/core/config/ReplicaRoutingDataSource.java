@@ -0,0 +1,64 @@
+package com.digitalbank.core.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 主从路由数据源：当前请求允许读副本（{@link ReplicaRoutingContext}）且处于只读事务时，
+ * 选择延迟在预算内的副本；其余情况（写事务、无事务、未标注端点、副本全部超预算）一律走主库。
+ * 需包在 LazyConnectionDataSourceProxy 内使用，使事务的只读标记在真正取连接前已确定。
+ * 暴露 corebank.datasource.routing{target=primary|replica|fallback} 计数。
+ *
+ * @author Digital Bank POC Team
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter primaryCounter;
+    private final Counter replicaCounter;
+    private final Counter fallbackCounter;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        Map<Object, Object> targets = new HashMap<>(lagMonitor.getReplicas());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        this.primaryCounter = routingCounter(meterRegistry, "primary");
+        this.replicaCounter = routingCounter(meterRegistry, "replica");
+        this.fallbackCounter = routingCounter(meterRegistry, "fallback");
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long maxLagMs = ReplicaRoutingContext.maxLagMs();
+        if (maxLagMs == null || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryCounter.increment();
+            return PRIMARY;
+        }
+        String replica = lagMonitor.pick(maxLagMs);
+        if (replica == null) {
+            fallbackCounter.increment();
+            return PRIMARY;
+        }
+        replicaCounter.increment();
+        return replica;
+    }
+
+    private static Counter routingCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("corebank.datasource.routing")
+                .description("按路由目标统计的连接获取次数（fallback 为允许读副本但回落主库）")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -1,12 +1,19 @@
 package com.digitalbank.core.controller;
 
+import com.digitalbank.core.config.ReplicaRead;
 import com.digitalbank.core.dto.*;
 import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.exception.BusinessException;
 import com.digitalbank.core.service.AccountService;
+import com.digitalbank.core.service.BalanceSnapshotService;
+import com.digitalbank.core.service.ShardedAccountService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.DateTimeException;
+import java.time.Instant;
+
 /**
  * 账户 REST API：/api/v1/accounts。
  * 遵循 OpenAPI、api-design-spec：路径 kebab-case，统一 { code, message, data, timestamp }。
@@ -18,9 +25,14 @@ import org.springframework.web.bind.annotation.*;
 public class AccountController {
 
     private final AccountService accountService;
+    private final ShardedAccountService shardedAccountService;
+    private final BalanceSnapshotService balanceSnapshotService;
 
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, ShardedAccountService shardedAccountService,
+                             BalanceSnapshotService balanceSnapshotService) {
         this.accountService = accountService;
+        this.shardedAccountService = shardedAccountService;
+        this.balanceSnapshotService = balanceSnapshotService;
     }
 
     /**
@@ -35,6 +47,7 @@ public class AccountController {
     /**
      * 查询账户列表。GET /api/v1/accounts?customerId=&status=&page=1&pageSize=20
      */
+    @ReplicaRead
     @GetMapping
     public ResponseEntity<ApiResponse<AccountListResponse>> listAccounts(
             @RequestParam(required = false) Long customerId,
@@ -51,7 +64,7 @@ public class AccountController {
     @GetMapping("/{account-id}")
     public ResponseEntity<ApiResponse<AccountResponse>> getAccount(@PathVariable("account-id") Long accountId) {
         Account a = accountService.getAccountById(accountId);
-        return ResponseEntity.ok(ApiResponse.ok(AccountResponse.from(a)));
+        return ResponseEntity.ok(ApiResponse.ok(accountService.toResponse(a)));
     }
 
     /**
@@ -62,4 +75,33 @@ public class AccountController {
         BalanceResponse data = accountService.getBalance(accountId);
         return ResponseEntity.ok(ApiResponse.ok(data));
     }
+
+    /**
+     * 历史时点余额（含 at 时刻的交易），由日终快照 + 增量扫描得出。
+     * GET /api/v1/accounts/{account-id}/balance/as-of?at=2026-01-31T16:00:00Z
+     * 期初余额取区间起点前一刻、期末余额取区间终点。
+     */
+    @ReplicaRead
+    @GetMapping("/{account-id}/balance/as-of")
+    public ResponseEntity<ApiResponse<BalanceAsOfResponse>> getBalanceAsOf(@PathVariable("account-id") Long accountId,
+                                                                           @RequestParam String at) {
+        Instant asOf;
+        try {
+            asOf = Instant.parse(at);
+        } catch (DateTimeException e) {
+            throw new BusinessException("CBV003", "at 格式需为 ISO 8601", 400);
+        }
+        return ResponseEntity.ok(ApiResponse.ok(balanceSnapshotService.balanceAsOf(accountId, asOf)));
+    }
+
+    /**
+     * 开启热点账户余额分片（商户/清算账户）。PUT /api/v1/accounts/{account-id}/sharding
+     */
+    @PutMapping("/{account-id}/sharding")
+    public ResponseEntity<ApiResponse<AccountResponse>> enableSharding(@PathVariable("account-id") Long accountId,
+                                                                       @Valid @RequestBody AccountShardingRequest request) {
+        shardedAccountService.enableSharding(accountId, request.getShardCount());
+        Account a = accountService.getAccountById(accountId);
+        return ResponseEntity.ok(ApiResponse.ok(accountService.toResponse(a)));
+    }
 }
@@ -0,0 +1,68 @@
+package com.digitalbank.core.controller;
+
+import com.digitalbank.core.config.ReplicaRead;
+import com.digitalbank.core.dto.ApiResponse;
+import com.digitalbank.core.dto.BulkTransferItemPageResponse;
+import com.digitalbank.core.dto.BulkTransferJobResponse;
+import com.digitalbank.core.service.BulkTransferService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+/**
+ * 大批量文件转账 REST API：/api/v1/transactions/bulk-transfers。
+ * 上传 NDJSON/CSV 文件创建任务（请求体流式读取，不经 multipart），查询进度与逐笔结果。
+ *
+ * @author Digital Bank POC Team
+ */
+@RestController
+@RequestMapping("/api/v1/transactions/bulk-transfers")
+public class BulkTransferController {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private final BulkTransferService bulkTransferService;
+
+    public BulkTransferController(BulkTransferService bulkTransferService) {
+        this.bulkTransferService = bulkTransferService;
+    }
+
+    /**
+     * 上传批量文件。Content-Type 为 application/x-ndjson 或 text/csv；jobId 可选，用于幂等重传。
+     * 返回 202，任务由后台执行器异步执行。
+     */
+    @PostMapping(consumes = {NDJSON, "text/csv"})
+    public ResponseEntity<ApiResponse<BulkTransferJobResponse>> upload(
+            @RequestParam(required = false) String jobId,
+            @RequestHeader("Content-Type") String contentType,
+            InputStream body) {
+        String format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(NDJSON))
+                ? "ndjson" : "csv";
+        BulkTransferJobResponse data = bulkTransferService.submit(jobId, format, body);
+        return ResponseEntity.status(202).body(ApiResponse.ok(data));
+    }
+
+    /**
+     * 任务状态与进度
+     */
+    @ReplicaRead
+    @GetMapping("/{job-id}")
+    public ResponseEntity<ApiResponse<BulkTransferJobResponse>> getJob(@PathVariable("job-id") String jobId) {
+        return ResponseEntity.ok(ApiResponse.ok(bulkTransferService.getJob(jobId)));
+    }
+
+    /**
+     * 逐笔结果，按 seq 键集分页：首页 afterSeq=0，之后传上一页返回的 nextAfterSeq；status 可选（如 failed）
+     */
+    @ReplicaRead
+    @GetMapping("/{job-id}/items")
+    public ResponseEntity<ApiResponse<BulkTransferItemPageResponse>> listItems(
+            @PathVariable("job-id") String jobId,
+            @RequestParam(defaultValue = "0") long afterSeq,
+            @RequestParam(defaultValue = "200") int limit,
+            @RequestParam(required = false) String status) {
+        return ResponseEntity.ok(ApiResponse.ok(bulkTransferService.listItems(jobId, afterSeq, limit, status)));
+    }
+}
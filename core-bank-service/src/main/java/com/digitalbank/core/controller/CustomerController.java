@@ -1,5 +1,6 @@
 package com.digitalbank.core.controller;
 
+import com.digitalbank.core.config.ReplicaRead;
 import com.digitalbank.core.dto.ApiResponse;
 import com.digitalbank.core.dto.CreateCustomerRequest;
 import com.digitalbank.core.dto.CustomerResponse;
@@ -32,6 +33,7 @@ public class CustomerController {
         return ResponseEntity.status(201).body(ApiResponse.created(CustomerResponse.from(created)));
     }
 
+    @ReplicaRead
     @GetMapping("/{customer-id}")
     public ResponseEntity<ApiResponse<CustomerResponse>> getCustomer(@PathVariable("customer-id") Long customerId) {
         Customer c = customerService.getCustomerById(customerId);
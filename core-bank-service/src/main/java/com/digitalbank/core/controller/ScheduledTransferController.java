@@ -1,5 +1,6 @@
 package com.digitalbank.core.controller;
 
+import com.digitalbank.core.config.ReplicaRead;
 import com.digitalbank.core.dto.*;
 import com.digitalbank.core.service.ScheduledTransferService;
 import jakarta.validation.Valid;
@@ -35,6 +36,7 @@ public class ScheduledTransferController {
     /**
      * 查询预约转账列表
      */
+    @ReplicaRead
     @GetMapping
     public ResponseEntity<ApiResponse<ScheduledTransferListResponse>> listScheduledTransfers(
             @RequestParam Long accountId,
@@ -48,6 +50,7 @@ public class ScheduledTransferController {
     /**
      * 查询单个预约转账
      */
+    @ReplicaRead
     @GetMapping("/{scheduledId}")
     public ResponseEntity<ApiResponse<ScheduledTransferResponse>> getScheduledTransfer(
             @PathVariable String scheduledId) {
@@ -1,18 +1,28 @@
 package com.digitalbank.core.controller;
 
+import com.digitalbank.core.config.ReplicaRead;
+import com.digitalbank.core.config.ReplicaRoutingContext;
 import com.digitalbank.core.dto.*;
 import com.digitalbank.core.exception.BusinessException;
 import com.digitalbank.core.service.BatchTransferService;
+import com.digitalbank.core.service.DebitGroupCommitter;
+import com.digitalbank.core.service.TransactionExportService;
 import com.digitalbank.core.service.TransactionService;
 import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Locale;
 
 /**
  * 交易 REST API：/api/v1/transactions。
- * 支付扣款（debit）、行内转账（transfer）、批量转账（batch-transfer）、交易查询、交易历史。
+ * 支付扣款（debit）、行内转账（transfer）、批量转账（batch-transfer）、交易查询、交易历史、交易导出。
  * 遵循 ADR-005、ADR-008、OpenAPI。
  *
  * @author Digital Bank POC Team
@@ -23,19 +33,26 @@ public class TransactionController {
 
     private final TransactionService transactionService;
     private final BatchTransferService batchTransferService;
+    private final DebitGroupCommitter debitGroupCommitter;
+    private final TransactionExportService transactionExportService;
 
     public TransactionController(TransactionService transactionService,
-                                  BatchTransferService batchTransferService) {
+                                  BatchTransferService batchTransferService,
+                                  DebitGroupCommitter debitGroupCommitter,
+                                  TransactionExportService transactionExportService) {
         this.transactionService = transactionService;
         this.batchTransferService = batchTransferService;
+        this.debitGroupCommitter = debitGroupCommitter;
+        this.transactionExportService = transactionExportService;
     }
 
     /**
      * 支付扣款，ADR-005。幂等：同一 refId 返回同一 transactionId。供 Agent 2 支付服务调用。
+     * 启用 transaction.group-commit 时并发请求合并为一个事务提交。
      */
     @PostMapping("/debit")
     public ResponseEntity<ApiResponse<DebitResponse>> debit(@Valid @RequestBody DebitRequest request) {
-        DebitResponse data = transactionService.debit(request);
+        DebitResponse data = debitGroupCommitter.debit(request);
         return ResponseEntity.status(201).body(ApiResponse.created(data));
     }
 
@@ -60,39 +77,84 @@ public class TransactionController {
 
     /**
      * 交易查询，accountId、status 可选，分页。
+     * 传 cursor（上一页返回的 nextCursor）时按 (createdAt, id) 键集翻页；includeTotal=false 时不统计总数。
      */
+    @ReplicaRead
     @GetMapping
     public ResponseEntity<ApiResponse<TransactionListResponse>> listTransactions(
             @RequestParam(required = false) Long accountId,
             @RequestParam(required = false) String status,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "20") int pageSize) {
-        TransactionListResponse data = transactionService.listTransactions(accountId, status, page, pageSize);
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+        TransactionListResponse data = transactionService.listTransactions(accountId, status, page, pageSize, cursor, includeTotal);
         return ResponseEntity.ok(ApiResponse.ok(data));
     }
 
     /**
      * 交易历史，accountId 必填，from、to 可选时间范围，分页。
+     * 传 cursor 时按 (createdAt, id) 键集翻页；includeTotal=false 时不统计总数。
      */
+    @ReplicaRead
     @GetMapping("/history")
     public ResponseEntity<ApiResponse<TransactionListResponse>> getTransactionHistory(
             @RequestParam Long accountId,
             @RequestParam(required = false) String from,
             @RequestParam(required = false) String to,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "20") int pageSize) {
-        Instant fromInst = null, toInst = null;
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+        TransactionListResponse data = transactionService.getTransactionHistory(
+                accountId, parseInstant(from), parseInstant(to), page, pageSize, cursor, includeTotal);
+        return ResponseEntity.ok(ApiResponse.ok(data));
+    }
+
+    /**
+     * 账户交易导出，accountId 必填，from/to 可选（ISO 8601），按时间正序流式输出全部匹配交易。
+     * format=csv|ndjson；mask=true 时交易号、账户 ID、备注脱敏；请求头 Accept-Encoding 含 gzip 时压缩输出。
+     * 参数在开始输出前校验，错误按标准错误响应返回。
+     * 开启读副本时在副本上导出（长事务不占主库连接），副本不可用时回落主库；行数与时长上限见 transaction.export.*。
+     */
+    @ReplicaRead
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam Long accountId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean mask,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Instant fromInst = parseInstant(from);
+        Instant toInst = parseInstant(to);
+        String fmt = transactionExportService.validate(accountId, fromInst, toInst, format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType("ndjson".equals(fmt)
+                        ? MediaType.parseMediaType("application/x-ndjson")
+                        : new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("transactions-" + accountId + "." + fmt).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        // 响应体在异步线程写出，副本预算需从请求线程带过去
+        Long replicaMaxLagMs = ReplicaRoutingContext.maxLagMs();
+        return response.body(out -> transactionExportService.export(accountId, fromInst, toInst, fmt, mask, gzip,
+                replicaMaxLagMs, out));
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
         try {
-            if (from != null && !from.isBlank()) {
-                fromInst = Instant.parse(from);
-            }
-            if (to != null && !to.isBlank()) {
-                toInst = Instant.parse(to);
-            }
+            return Instant.parse(value);
         } catch (Exception e) {
             throw new BusinessException("CBV003", "from/to 格式需为 ISO 8601", 400);
         }
-        TransactionListResponse data = transactionService.getTransactionHistory(accountId, fromInst, toInst, page, pageSize);
-        return ResponseEntity.ok(ApiResponse.ok(data));
     }
 }
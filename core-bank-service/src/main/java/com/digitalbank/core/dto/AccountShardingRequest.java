@@ -0,0 +1,26 @@
+package com.digitalbank.core.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * 开启热点账户余额分片请求。
+ *
+ * @author Digital Bank POC Team
+ */
+public class AccountShardingRequest {
+
+    @NotNull(message = "shardCount 不能为空")
+    @Min(value = 2, message = "shardCount 最小为 2")
+    @Max(value = 64, message = "shardCount 最大为 64")
+    private Integer shardCount;
+
+    public Integer getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(Integer shardCount) {
+        this.shardCount = shardCount;
+    }
+}
@@ -0,0 +1,41 @@
+package com.digitalbank.core.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * 历史时点余额响应：/accounts/{account-id}/balance/as-of。
+ * snapshotDate 为计算所基于的日终快照营业日（无快照或直接取自流水 balance_after 时为空），其后的交易由增量扫描补齐。
+ *
+ * @author Digital Bank POC Team
+ */
+public class BalanceAsOfResponse {
+
+    private Long accountId;
+    private Instant asOf;
+    private BigDecimal balance;
+    private String currency;
+    private LocalDate snapshotDate;
+
+    public BalanceAsOfResponse() {}
+
+    public BalanceAsOfResponse(Long accountId, Instant asOf, BigDecimal balance, String currency, LocalDate snapshotDate) {
+        this.accountId = accountId;
+        this.asOf = asOf;
+        this.balance = balance;
+        this.currency = currency;
+        this.snapshotDate = snapshotDate;
+    }
+
+    public Long getAccountId() { return accountId; }
+    public void setAccountId(Long accountId) { this.accountId = accountId; }
+    public Instant getAsOf() { return asOf; }
+    public void setAsOf(Instant asOf) { this.asOf = asOf; }
+    public BigDecimal getBalance() { return balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+    public LocalDate getSnapshotDate() { return snapshotDate; }
+    public void setSnapshotDate(LocalDate snapshotDate) { this.snapshotDate = snapshotDate; }
+}
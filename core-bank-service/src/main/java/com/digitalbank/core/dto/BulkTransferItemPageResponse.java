@@ -0,0 +1,25 @@
+package com.digitalbank.core.dto;
+
+import java.util.List;
+
+/**
+ * 大批量文件转账逐笔结果分页（键集分页）。nextAfterSeq 为空表示没有下一页。
+ *
+ * @author Digital Bank POC Team
+ */
+public class BulkTransferItemPageResponse {
+
+    private String jobId;
+    private List<BulkTransferItemResponse> items;
+    private Long nextAfterSeq;
+
+    public BulkTransferItemPageResponse(String jobId, List<BulkTransferItemResponse> items, Long nextAfterSeq) {
+        this.jobId = jobId;
+        this.items = items;
+        this.nextAfterSeq = nextAfterSeq;
+    }
+
+    public String getJobId() { return jobId; }
+    public List<BulkTransferItemResponse> getItems() { return items; }
+    public Long getNextAfterSeq() { return nextAfterSeq; }
+}
@@ -0,0 +1,44 @@
+package com.digitalbank.core.dto;
+
+import com.digitalbank.core.entity.BulkTransferItem;
+
+import java.math.BigDecimal;
+
+/**
+ * 大批量文件转账逐笔结果。seq 为文件内数据行序号（从 1 开始）。
+ *
+ * @author Digital Bank POC Team
+ */
+public class BulkTransferItemResponse {
+
+    private long seq;
+    private Long fromAccountId;
+    private Long toAccountId;
+    private BigDecimal amount;
+    private String status;
+    private String transactionId;
+    private String errorCode;
+    private String message;
+
+    public static BulkTransferItemResponse from(BulkTransferItem item) {
+        BulkTransferItemResponse r = new BulkTransferItemResponse();
+        r.seq = item.getSeq();
+        r.fromAccountId = item.getFromAccountId();
+        r.toAccountId = item.getToAccountId();
+        r.amount = item.getAmount();
+        r.status = item.getStatus();
+        r.transactionId = item.getTransactionId();
+        r.errorCode = item.getErrorCode();
+        r.message = item.getMessage();
+        return r;
+    }
+
+    public long getSeq() { return seq; }
+    public Long getFromAccountId() { return fromAccountId; }
+    public Long getToAccountId() { return toAccountId; }
+    public BigDecimal getAmount() { return amount; }
+    public String getStatus() { return status; }
+    public String getTransactionId() { return transactionId; }
+    public String getErrorCode() { return errorCode; }
+    public String getMessage() { return message; }
+}
@@ -0,0 +1,53 @@
+package com.digitalbank.core.dto;
+
+import com.digitalbank.core.entity.BulkTransferJob;
+
+import java.time.Instant;
+
+/**
+ * 大批量文件转账任务状态/进度响应。
+ *
+ * @author Digital Bank POC Team
+ */
+public class BulkTransferJobResponse {
+
+    private String jobId;
+    private String format;
+    private String status;
+    private long totalCount;
+    private long processedCount;
+    private long successCount;
+    private long failedCount;
+    private String errorMessage;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant completedAt;
+
+    public static BulkTransferJobResponse from(BulkTransferJob job) {
+        BulkTransferJobResponse r = new BulkTransferJobResponse();
+        r.jobId = job.getJobId();
+        r.format = job.getFormat();
+        r.status = job.getStatus();
+        r.totalCount = job.getTotalCount();
+        r.processedCount = job.getProcessedCount();
+        r.successCount = job.getSuccessCount();
+        r.failedCount = job.getFailedCount();
+        r.errorMessage = job.getErrorMessage();
+        r.createdAt = job.getCreatedAt();
+        r.updatedAt = job.getUpdatedAt();
+        r.completedAt = job.getCompletedAt();
+        return r;
+    }
+
+    public String getJobId() { return jobId; }
+    public String getFormat() { return format; }
+    public String getStatus() { return status; }
+    public long getTotalCount() { return totalCount; }
+    public long getProcessedCount() { return processedCount; }
+    public long getSuccessCount() { return successCount; }
+    public long getFailedCount() { return failedCount; }
+    public String getErrorMessage() { return errorMessage; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public Instant getCompletedAt() { return completedAt; }
+}
@@ -4,25 +4,34 @@ import java.util.List;
 
 /**
  * 交易列表响应，与 OpenAPI TransactionListResponse 一致。
+ * 键集分页时 page 为空，total 仅在 includeTotal=true 时返回；nextCursor 为空表示没有下一页。
  *
  * @author Digital Bank POC Team
  */
 public class TransactionListResponse {
 
     private List<TransactionResponse> items;
-    private long total;
-    private int page;
+    private Long total;
+    private Integer page;
     private int pageSize;
+    private String nextCursor;
 
     public TransactionListResponse(List<TransactionResponse> items, long total, int page, int pageSize) {
+        this(items, total, page, pageSize, null);
+    }
+
+    public TransactionListResponse(List<TransactionResponse> items, Long total, Integer page, int pageSize,
+                                   String nextCursor) {
         this.items = items;
         this.total = total;
         this.page = page;
         this.pageSize = pageSize;
+        this.nextCursor = nextCursor;
     }
 
     public List<TransactionResponse> getItems() { return items; }
-    public long getTotal() { return total; }
-    public int getPage() { return page; }
+    public Long getTotal() { return total; }
+    public Integer getPage() { return page; }
     public int getPageSize() { return pageSize; }
+    public String getNextCursor() { return nextCursor; }
 }
@@ -1,6 +1,7 @@
 package com.digitalbank.core.dto;
 
 import com.digitalbank.core.entity.Transaction;
+import com.digitalbank.core.repository.TransactionView;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -16,6 +17,8 @@ public class TransactionResponse {
     private Long accountId;
     private Long counterAccountId;
     private BigDecimal amount;
+    /** 本笔记账后余额，未记录时为 null */
+    private BigDecimal balanceAfter;
     private String transactionType;
     private String status;
     private String remark;
@@ -27,6 +30,7 @@ public class TransactionResponse {
         r.setAccountId(t.getAccountId());
         r.setCounterAccountId(t.getCounterAccountId());
         r.setAmount(t.getAmount());
+        r.setBalanceAfter(t.getBalanceAfter());
         r.setTransactionType(t.getTransactionType());
         r.setStatus(t.getStatus());
         r.setRemark(t.getRemark());
@@ -34,6 +38,20 @@ public class TransactionResponse {
         return r;
     }
 
+    public static TransactionResponse from(TransactionView v) {
+        TransactionResponse r = new TransactionResponse();
+        r.setTransactionId(v.transactionId());
+        r.setAccountId(v.accountId());
+        r.setCounterAccountId(v.counterAccountId());
+        r.setAmount(v.amount());
+        r.setBalanceAfter(v.balanceAfter());
+        r.setTransactionType(v.transactionType());
+        r.setStatus(v.status());
+        r.setRemark(v.remark());
+        r.setCreatedAt(v.createdAt());
+        return r;
+    }
+
     public String getTransactionId() { return transactionId; }
     public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
     public Long getAccountId() { return accountId; }
@@ -42,6 +60,8 @@ public class TransactionResponse {
     public void setCounterAccountId(Long counterAccountId) { this.counterAccountId = counterAccountId; }
     public BigDecimal getAmount() { return amount; }
     public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public BigDecimal getBalanceAfter() { return balanceAfter; }
+    public void setBalanceAfter(BigDecimal balanceAfter) { this.balanceAfter = balanceAfter; }
     public String getTransactionType() { return transactionType; }
     public void setTransactionType(String transactionType) { this.transactionType = transactionType; }
     public String getStatus() { return status; }
@@ -44,6 +44,12 @@ public class Account {
     @Column(name = "status", nullable = false, length = 20)
     private String status = "active";
 
+    /**
+     * 余额分片数（V10），0 表示未分片；分片账户总余额 = balance + 各分片余额。
+     */
+    @Column(name = "shard_count", nullable = false)
+    private int shardCount = 0;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -108,6 +114,14 @@ public class Account {
         this.status = status;
     }
 
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
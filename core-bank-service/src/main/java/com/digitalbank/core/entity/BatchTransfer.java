@@ -14,7 +14,8 @@ import java.time.Instant;
 public class BatchTransfer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "batch_transfers_id_seq")
+    @SequenceGenerator(name = "batch_transfers_id_seq", sequenceName = "batch_transfers_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "batch_id", unique = true, nullable = false, length = 36)
@@ -0,0 +1,173 @@
+package com.digitalbank.core.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * 大批量文件转账暂存行与逐笔结果，表 bulk_transfer_items，主键 (job_id, seq)。
+ * 行由 COPY 批量写入；seq 为文件内数据行序号（从 1 开始），执行顺序即 seq 顺序。
+ *
+ * @author Digital Bank POC Team
+ */
+@Entity
+@Table(name = "bulk_transfer_items")
+@IdClass(BulkTransferItem.Key.class)
+public class BulkTransferItem {
+
+    @Id
+    @Column(name = "job_id")
+    private Long jobId;
+
+    @Id
+    @Column(name = "seq")
+    private Long seq;
+
+    @Column(name = "from_account_id")
+    private Long fromAccountId;
+
+    @Column(name = "to_account_id")
+    private Long toAccountId;
+
+    @Column(name = "amount", precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "remark", columnDefinition = "TEXT")
+    private String remark;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status = "pending";
+
+    @Column(name = "transaction_id", length = 32)
+    private String transactionId;
+
+    @Column(name = "error_code", length = 20)
+    private String errorCode;
+
+    @Column(name = "message", columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public Long getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public void setFromAccountId(Long fromAccountId) {
+        this.fromAccountId = fromAccountId;
+    }
+
+    public Long getToAccountId() {
+        return toAccountId;
+    }
+
+    public void setToAccountId(Long toAccountId) {
+        this.toAccountId = toAccountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+
+    public void setRemark(String remark) {
+        this.remark = remark;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Instant getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(Instant processedAt) {
+        this.processedAt = processedAt;
+    }
+
+    /**
+     * 复合主键 (jobId, seq)
+     */
+    public static class Key implements Serializable {
+
+        private Long jobId;
+        private Long seq;
+
+        public Key() {
+        }
+
+        public Key(Long jobId, Long seq) {
+            this.jobId = jobId;
+            this.seq = seq;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(jobId, key.jobId) && Objects.equals(seq, key.seq);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(jobId, seq);
+        }
+    }
+}
@@ -15,7 +15,8 @@ import java.time.Instant;
 public class ScheduledTransfer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "scheduled_transfers_id_seq")
+    @SequenceGenerator(name = "scheduled_transfers_id_seq", sequenceName = "scheduled_transfers_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "scheduled_id", unique = true, nullable = false, length = 36)
@@ -1,7 +1,6 @@
 package com.digitalbank.core.entity;
 
 import jakarta.persistence.*;
-import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -23,7 +22,8 @@ import java.time.Instant;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_seq")
+    @SequenceGenerator(name = "transactions_id_seq", sequenceName = "transactions_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "transaction_id", nullable = false, unique = true, length = 32)
@@ -38,6 +38,12 @@ public class Transaction {
     @Column(name = "amount", nullable = false, precision = 19, scale = 2)
     private BigDecimal amount;
 
+    /**
+     * 本笔记账后账户余额（在账户锁内得出）；分片账户、非 completed 流水与未回填的历史流水为 null
+     */
+    @Column(name = "balance_after", precision = 19, scale = 2)
+    private BigDecimal balanceAfter;
+
     @Column(name = "transaction_type", nullable = false, length = 20)
     private String transactionType;
 
@@ -50,8 +56,11 @@ public class Transaction {
     @Column(name = "ref_id", length = 64)
     private String refId;
 
-    @CreatedDate
-    @Column(name = "created_at", nullable = false, updatable = false)
+    /**
+     * 由数据库默认值 clock_timestamp() 在 INSERT 时写入（V21，晚于账户加锁），保证同一账户按记账顺序递增；
+     * 新插入的实体在本持久化上下文内为 null
+     */
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
     private Instant createdAt;
 
     @LastModifiedDate
@@ -98,6 +107,14 @@ public class Transaction {
         this.amount = amount;
     }
 
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public void setBalanceAfter(BigDecimal balanceAfter) {
+        this.balanceAfter = balanceAfter;
+    }
+
     public String getTransactionType() {
         return transactionType;
     }
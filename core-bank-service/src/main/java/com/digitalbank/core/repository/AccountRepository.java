@@ -5,20 +5,23 @@ import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
- * 银行账户 Repository，表 bank_accounts。
+ * 银行账户 Repository，表 bank_accounts。可选条件组合查询使用 {@link AccountSpecifications}。
  *
  * @author Digital Bank POC Team
  */
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, JpaSpecificationExecutor<Account>, AccountRepositoryCustom {
 
     /**
      * 按 ID 加写锁查询（用于 debit/transfer 扣款、加款，避免并发覆盖）
@@ -27,6 +30,32 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     @Query("SELECT a FROM Account a WHERE a.id = :id")
     Optional<Account> findByIdForUpdate(@Param("id") Long id);
 
+    /**
+     * 按 ID 集合一次性加写锁，按 id 升序锁定（批量转账轧差模式：整批账户只加锁一次，顺序与单笔路径一致）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 仅查询账户状态（快速路径条件更新未命中时，用于还原 CBB001/CBB003/CBB002）
+     */
+    @Query("SELECT a.status FROM Account a WHERE a.id = :id")
+    Optional<String> findStatusById(@Param("id") Long id);
+
+    /**
+     * 以 FOR SHARE 锁主行并读取状态（转入分片账户：不排斥其它转入，但阻塞并发的冻结/扣款直到本事务结束）。
+     * FOR KEY SHARE 不与非键列 UPDATE 冲突，挡不住冻结，故用 FOR SHARE
+     */
+    @Query(value = "SELECT status FROM bank_accounts WHERE id = :id FOR SHARE", nativeQuery = true)
+    Optional<String> findStatusByIdForShare(@Param("id") Long id);
+
+    /**
+     * 仅查询分片数（条件更新未命中时判断是否为分片账户；0 表示未分片）
+     */
+    @Query("SELECT a.shardCount FROM Account a WHERE a.id = :id")
+    Optional<Integer> findShardCountById(@Param("id") Long id);
+
     /**
      * 按账号查询
      */
@@ -56,10 +85,4 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      * 按账号判断是否存在
      */
     boolean existsByAccountNumber(String accountNumber);
-
-    /**
-     * 按客户ID、状态可选分页查询；参数为 null 时该条件不过滤。
-     */
-    @Query("SELECT a FROM Account a WHERE (:customerId IS NULL OR a.customerId = :customerId) AND (:status IS NULL OR a.status = :status)")
-    Page<Account> findByCustomerIdAndStatusOptional(@Param("customerId") Long customerId, @Param("status") String status, Pageable pageable);
 }
@@ -0,0 +1,52 @@
+package com.digitalbank.core.repository;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 账户自定义仓储：单语句条件更新余额（UPDATE ... RETURNING），用于 debit/transfer 快速路径；
+ * 以及热点账户余额分片（account_balance_shards，V10）的读写。
+ */
+public interface AccountRepositoryCustom {
+
+    /**
+     * 条件扣款：仅当账户 active、未分片（shard_count = 0）且余额充足时扣减，返回扣减后余额。
+     * 未命中（账户不存在/冻结/余额不足/分片账户）返回 empty，由调用方判定具体错误码或改走加锁扣款。
+     * 需要在事务内调用。
+     */
+    Optional<BigDecimal> debitIfSufficient(Long id, BigDecimal amount);
+
+    /**
+     * 条件入账：仅当账户 active 且未分片（shard_count = 0）时增加余额，返回入账后余额。
+     * 未命中（账户不存在/冻结/分片账户）返回 empty。需要在事务内调用。
+     */
+    Optional<BigDecimal> creditIfActive(Long id, BigDecimal amount);
+
+    /**
+     * 分片入账：指定分片行余额增加 amount，返回命中行数（分片不存在时为 0）。
+     * 只锁分片行，不锁 bank_accounts 主行。需要在事务内调用。
+     */
+    int creditShard(Long accountId, int slot, BigDecimal amount);
+
+    /**
+     * 归集分片：按 slot 顺序锁定该账户全部分片行并清零，返回清零前余额合计（调用方负责加到主行）。
+     * 需要在事务内调用，且调用方应已持有主行锁。
+     */
+    BigDecimal drainShards(Long accountId);
+
+    /**
+     * 创建分片行 [0, shardCount)，已存在的分片保持不变。需要在事务内调用。
+     */
+    void createShards(Long accountId, int shardCount);
+
+    /**
+     * 账户总余额 = 主行余额 + 分片余额合计；单条语句聚合，读到同一快照下的精确值。
+     */
+    Optional<BigDecimal> findTotalBalance(Long accountId);
+
+    /**
+     * 已开启分片的账户：accountId -> shardCount。
+     */
+    Map<Long, Integer> findShardCounts();
+}
@@ -0,0 +1,130 @@
+package com.digitalbank.core.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 账户自定义仓储实现：状态/余额校验与扣减合并为一条条件 UPDATE，
+ * 省去 SELECT ... FOR UPDATE 与 JVM 内校验的往返，缩短行锁持有时间。
+ * 条件 UPDATE 只命中未分片账户：分片账户主行余额不是总余额，需加锁后按 shard_count 归集分片。
+ */
+@Repository
+public class AccountRepositoryImpl implements AccountRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Optional<BigDecimal> debitIfSufficient(Long id, BigDecimal amount) {
+        String sql = """
+                UPDATE bank_accounts
+                SET balance = balance - :amount, updated_at = NOW()
+                WHERE id = :id AND status = 'active' AND shard_count = 0 AND balance >= :amount
+                RETURNING balance
+                """;
+        return singleBalance(em.createNativeQuery(sql)
+                .setParameter("id", id)
+                .setParameter("amount", amount)
+                .getResultList());
+    }
+
+    @Override
+    public Optional<BigDecimal> creditIfActive(Long id, BigDecimal amount) {
+        String sql = """
+                UPDATE bank_accounts
+                SET balance = balance + :amount, updated_at = NOW()
+                WHERE id = :id AND status = 'active' AND shard_count = 0
+                RETURNING balance
+                """;
+        return singleBalance(em.createNativeQuery(sql)
+                .setParameter("id", id)
+                .setParameter("amount", amount)
+                .getResultList());
+    }
+
+    @Override
+    public int creditShard(Long accountId, int slot, BigDecimal amount) {
+        String sql = """
+                UPDATE account_balance_shards
+                SET balance = balance + :amount, updated_at = NOW()
+                WHERE account_id = :id AND slot = :slot
+                """;
+        return em.createNativeQuery(sql)
+                .setParameter("id", accountId)
+                .setParameter("slot", slot)
+                .setParameter("amount", amount)
+                .executeUpdate();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public BigDecimal drainShards(Long accountId) {
+        String sql = """
+                WITH locked AS (
+                  SELECT slot, balance
+                  FROM account_balance_shards
+                  WHERE account_id = :id
+                  ORDER BY slot
+                  FOR UPDATE
+                )
+                UPDATE account_balance_shards s
+                SET balance = 0, updated_at = NOW()
+                FROM locked
+                WHERE s.account_id = :id AND s.slot = locked.slot AND locked.balance > 0
+                RETURNING locked.balance
+                """;
+        List<BigDecimal> drained = em.createNativeQuery(sql)
+                .setParameter("id", accountId)
+                .getResultList();
+        return drained.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Override
+    public void createShards(Long accountId, int shardCount) {
+        String sql = """
+                INSERT INTO account_balance_shards (account_id, slot, balance)
+                SELECT :id, slot, 0 FROM generate_series(0, :shardCount - 1) AS slot
+                ON CONFLICT (account_id, slot) DO NOTHING
+                """;
+        em.createNativeQuery(sql)
+                .setParameter("id", accountId)
+                .setParameter("shardCount", shardCount)
+                .executeUpdate();
+    }
+
+    @Override
+    public Optional<BigDecimal> findTotalBalance(Long accountId) {
+        String sql = """
+                SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_shards s WHERE s.account_id = a.id), 0)
+                FROM bank_accounts a
+                WHERE a.id = :id
+                """;
+        return singleBalance(em.createNativeQuery(sql)
+                .setParameter("id", accountId)
+                .getResultList());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Long, Integer> findShardCounts() {
+        List<Object[]> rows = em.createNativeQuery("SELECT id, shard_count FROM bank_accounts WHERE shard_count > 0")
+                .getResultList();
+        Map<Long, Integer> result = new HashMap<>();
+        for (Object[] row : rows) {
+            result.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+        }
+        return result;
+    }
+
+    private static Optional<BigDecimal> singleBalance(List<?> rows) {
+        if (rows.isEmpty()) return Optional.empty();
+        return Optional.of((BigDecimal) rows.get(0));
+    }
+}
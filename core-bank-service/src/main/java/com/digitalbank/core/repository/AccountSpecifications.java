@@ -0,0 +1,36 @@
+package com.digitalbank.core.repository;
+
+import com.digitalbank.core.entity.Account;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 账户查询条件。只为实际传入的条件生成谓词，使 customerId / customerId+status 查询
+ * 能以 idx_bank_accounts_customer_id_status 作为索引条件。
+ *
+ * @author Digital Bank POC Team
+ */
+public final class AccountSpecifications {
+
+    private AccountSpecifications() {
+    }
+
+    /**
+     * customerId、status 均可为 null，为 null 的条件不出现在 SQL 中
+     */
+    public static Specification<Account> matching(Long customerId, String status) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(2);
+            if (customerId != null) {
+                predicates.add(cb.equal(root.get("customerId"), customerId));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package com.digitalbank.core.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 历史流水 balance_after 回填仓储（transactions.balance_after / balance_after_backfill_progress，V14），原生 SQL，不经实体。
+ * 借贷方向与日终快照一致：deposit/transfer_in 为贷方（+），withdrawal/transfer_out/payment 为借方（-），只计 completed。
+ *
+ * @author Digital Bank POC Team
+ */
+@Repository
+public class BalanceAfterBackfillRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * 回填水位：lastAccountId 及之前的账户已回填；completed 表示已完成一轮
+     */
+    public record Progress(Long lastAccountId, boolean completed) {
+    }
+
+    /**
+     * 锁定水位行（FOR UPDATE SKIP LOCKED），需在事务内调用。
+     *
+     * @return 水位；其它实例正在回填时为空
+     */
+    public Optional<Progress> lockProgress() {
+        List<?> rows = em.createNativeQuery(
+                        "SELECT last_account_id, completed_at FROM balance_after_backfill_progress WHERE id = 1 FOR UPDATE SKIP LOCKED")
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = (Object[]) rows.get(0);
+        Long lastAccountId = row[0] == null ? null : ((Number) row[0]).longValue();
+        return Optional.of(new Progress(lastAccountId, row[1] != null));
+    }
+
+    /**
+     * 水位之后按 id 升序的下一批账户 id
+     */
+    public List<Long> nextAccountIds(long afterAccountId, int limit) {
+        List<?> rows = em.createNativeQuery("SELECT id FROM bank_accounts WHERE id > :after ORDER BY id LIMIT :limit")
+                .setParameter("after", afterAccountId)
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream().map(id -> ((Number) id).longValue()).toList();
+    }
+
+    /**
+     * 回填 (fromAccountId, toAccountId] 内未分片账户早于 cutoff 的已完成流水，只写 balance_after 为 NULL 的行，可重复执行。
+     * balance_after = 期初余额 + 按 (created_at, id) 累计的净发生额；期初余额 = 当前余额 - 全部已完成流水净额，
+     * 由同一条语句的快照读出（余额与流水同事务提交，二者一致），导入数据的非零开户余额因此计入。
+     * 分片账户跳过：主行余额不是总余额，其流水 balance_after 保持 NULL（V14/V20 约定）。
+     * 回填对象是 V14 之前的历史流水，其 created_at 为事务开始时间或实例时钟，同一账户并发重叠时的中间余额为近似值
+     * （累计终值不受影响）；V21 起新流水的 created_at 在加锁后写入，顺序即记账顺序。
+     *
+     * @return 回填的流水行数
+     */
+    public int backfill(long fromAccountId, long toAccountId, Instant cutoff) {
+        String sql = """
+                WITH flows AS (
+                    SELECT id, account_id, created_at, balance_after,
+                           CASE WHEN transaction_type IN ('deposit', 'transfer_in') THEN amount
+                                WHEN transaction_type IN ('withdrawal', 'transfer_out', 'payment') THEN -amount
+                                ELSE 0 END AS delta
+                    FROM transactions
+                    WHERE account_id > :fromId AND account_id <= :toId AND status = 'completed'
+                ), opening AS (
+                    SELECT a.id AS account_id,
+                           a.balance - COALESCE((SELECT SUM(f.delta) FROM flows f WHERE f.account_id = a.id), 0) AS balance
+                    FROM bank_accounts a
+                    WHERE a.id > :fromId AND a.id <= :toId AND a.shard_count = 0
+                ), running AS (
+                    SELECT f.id, f.created_at, f.balance_after,
+                           o.balance + SUM(f.delta) OVER (PARTITION BY f.account_id ORDER BY f.created_at, f.id) AS balance
+                    FROM flows f
+                    JOIN opening o ON o.account_id = f.account_id
+                )
+                UPDATE transactions t
+                SET balance_after = r.balance
+                FROM running r
+                WHERE t.id = r.id AND t.created_at = r.created_at
+                  AND r.balance_after IS NULL AND r.created_at < :cutoff
+                """;
+        return em.createNativeQuery(sql)
+                .setParameter("fromId", fromAccountId)
+                .setParameter("toId", toAccountId)
+                .setParameter("cutoff", cutoff)
+                .executeUpdate();
+    }
+
+    public void advanceProgress(long lastAccountId) {
+        em.createNativeQuery("UPDATE balance_after_backfill_progress SET last_account_id = :id, updated_at = NOW() WHERE id = 1")
+                .setParameter("id", lastAccountId)
+                .executeUpdate();
+    }
+
+    public void markCompleted() {
+        em.createNativeQuery("UPDATE balance_after_backfill_progress SET completed_at = NOW(), updated_at = NOW() WHERE id = 1")
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,253 @@
+package com.digitalbank.core.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 日终余额快照仓储（account_daily_balances / balance_snapshot_progress，V13），原生 SQL，不经实体。
+ * 借贷方向：deposit/transfer_in 为贷方（+），withdrawal/transfer_out/payment 为借方（-），只计 completed。
+ *
+ * @author Digital Bank POC Team
+ */
+@Repository
+public class BalanceSnapshotRepository {
+
+    private static final String SIGNED_AMOUNT = """
+            CASE WHEN transaction_type IN ('deposit', 'transfer_in') THEN amount
+                 WHEN transaction_type IN ('withdrawal', 'transfer_out', 'payment') THEN -amount
+                 ELSE 0 END""";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * 快照水位：lastBusinessDate 及之前的营业日均已生成快照；为 null 表示尚未生成过。
+     * anchorBusinessDate 为期初锚点营业日（V24），当时已存在的账户在该日均有一行快照
+     */
+    public record Progress(LocalDate lastBusinessDate, LocalDate anchorBusinessDate) {
+    }
+
+    /**
+     * 某账户在某营业日（含）之前最近的一行快照
+     */
+    public record DailyBalance(LocalDate businessDate, BigDecimal closingBalance) {
+    }
+
+    /**
+     * 锁定水位行（FOR UPDATE SKIP LOCKED），需在事务内调用。
+     *
+     * @return 水位；其它实例正在生成快照时为空
+     */
+    public Optional<Progress> lockProgress() {
+        List<?> rows = em.createNativeQuery("SELECT last_business_date, anchor_business_date "
+                        + "FROM balance_snapshot_progress WHERE id = 1 FOR UPDATE SKIP LOCKED")
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(toProgress((Object[]) rows.get(0)));
+    }
+
+    /**
+     * 读取水位（不加锁）
+     */
+    public Progress currentProgress() {
+        List<?> rows = em.createNativeQuery(
+                        "SELECT last_business_date, anchor_business_date FROM balance_snapshot_progress WHERE id = 1")
+                .getResultList();
+        return rows.isEmpty() ? new Progress(null, null) : toProgress((Object[]) rows.get(0));
+    }
+
+    public void advanceProgress(LocalDate businessDate) {
+        em.createNativeQuery("UPDATE balance_snapshot_progress SET last_business_date = CAST(:day AS DATE), updated_at = NOW() WHERE id = 1")
+                .setParameter("day", businessDate)
+                .executeUpdate();
+    }
+
+    /**
+     * 记录期初锚点营业日，水位同时推进到该日
+     */
+    public void markAnchored(LocalDate businessDate) {
+        em.createNativeQuery("UPDATE balance_snapshot_progress SET last_business_date = CAST(:day AS DATE), "
+                        + "anchor_business_date = CAST(:day AS DATE), updated_at = NOW() WHERE id = 1")
+                .setParameter("day", businessDate)
+                .executeUpdate();
+    }
+
+    /**
+     * 首次生成快照：为全部账户写入 businessDate 的快照作为期初锚点。
+     * closing = 当前总余额（主行 + 分片）- end 及之后的已完成交易净额；余额与流水取自同一条语句的快照，
+     * 导入数据的非零开户余额因此计入。当日借贷合计照常统计 [start, end) 内交易。重复执行覆盖同日快照。
+     *
+     * @return 写入的账户数
+     */
+    public int seedDay(LocalDate businessDate, Instant start, Instant end) {
+        String sql = """
+                INSERT INTO account_daily_balances
+                  (account_id, business_date, closing_balance, debit_total, credit_total, txn_count)
+                SELECT a.id, CAST(:day AS DATE),
+                       a.balance + COALESCE(sh.total, 0) - COALESCE(later.delta, 0),
+                       COALESCE(d.debit_total, 0), COALESCE(d.credit_total, 0), COALESCE(d.txn_count, 0)
+                FROM bank_accounts a
+                LEFT JOIN (
+                    SELECT account_id, SUM(balance) AS total FROM account_balance_shards GROUP BY account_id
+                ) sh ON sh.account_id = a.id
+                LEFT JOIN (
+                    SELECT account_id,
+                           SUM(CASE WHEN transaction_type IN ('deposit', 'transfer_in') THEN amount
+                                    WHEN transaction_type IN ('withdrawal', 'transfer_out', 'payment') THEN -amount
+                                    ELSE 0 END) AS delta
+                    FROM transactions
+                    WHERE status = 'completed' AND created_at >= :end
+                    GROUP BY account_id
+                ) later ON later.account_id = a.id
+                LEFT JOIN (
+                    SELECT account_id,
+                           COALESCE(SUM(amount) FILTER (WHERE transaction_type IN ('withdrawal', 'transfer_out', 'payment')), 0) AS debit_total,
+                           COALESCE(SUM(amount) FILTER (WHERE transaction_type IN ('deposit', 'transfer_in')), 0) AS credit_total,
+                           COUNT(*) AS txn_count
+                    FROM transactions
+                    WHERE status = 'completed' AND created_at >= :start AND created_at < :end
+                    GROUP BY account_id
+                ) d ON d.account_id = a.id
+                ON CONFLICT (account_id, business_date) DO UPDATE
+                   SET closing_balance = EXCLUDED.closing_balance,
+                       debit_total = EXCLUDED.debit_total,
+                       credit_total = EXCLUDED.credit_total,
+                       txn_count = EXCLUDED.txn_count,
+                       created_at = NOW()
+                """;
+        return em.createNativeQuery(sql)
+                .setParameter("day", businessDate)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .executeUpdate();
+    }
+
+    /**
+     * 为 [start, end) 内有已完成交易的账户写入 businessDate 的快照：
+     * closing = 此前最近快照的 closing + 当日贷方 - 当日借方。
+     * 此前没有快照的账户（期初锚点之后开户）以当前总余额倒推当日期初余额
+     * （当前总余额 - start 及之后的已完成交易净额）。重复执行覆盖同日快照。
+     *
+     * @return 写入的账户数
+     */
+    public int snapshotDay(LocalDate businessDate, Instant start, Instant end) {
+        String sql = """
+                INSERT INTO account_daily_balances
+                  (account_id, business_date, closing_balance, debit_total, credit_total, txn_count)
+                SELECT d.account_id, CAST(:day AS DATE), COALESCE(p.closing_balance, o.opening) + d.credit_total - d.debit_total,
+                       d.debit_total, d.credit_total, d.txn_count
+                FROM (
+                    SELECT account_id,
+                           COALESCE(SUM(amount) FILTER (WHERE transaction_type IN ('withdrawal', 'transfer_out', 'payment')), 0) AS debit_total,
+                           COALESCE(SUM(amount) FILTER (WHERE transaction_type IN ('deposit', 'transfer_in')), 0) AS credit_total,
+                           COUNT(*) AS txn_count
+                    FROM transactions
+                    WHERE status = 'completed' AND created_at >= :start AND created_at < :end
+                    GROUP BY account_id
+                ) d
+                LEFT JOIN LATERAL (
+                    SELECT s.closing_balance FROM account_daily_balances s
+                    WHERE s.account_id = d.account_id AND s.business_date < CAST(:day AS DATE)
+                    ORDER BY s.business_date DESC
+                    LIMIT 1
+                ) p ON TRUE
+                LEFT JOIN LATERAL (
+                    SELECT a.balance
+                           + COALESCE((SELECT SUM(sh.balance) FROM account_balance_shards sh WHERE sh.account_id = a.id), 0)
+                           - COALESCE((SELECT SUM(CASE WHEN t.transaction_type IN ('deposit', 'transfer_in') THEN t.amount
+                                                       WHEN t.transaction_type IN ('withdrawal', 'transfer_out', 'payment') THEN -t.amount
+                                                       ELSE 0 END)
+                                       FROM transactions t
+                                       WHERE t.account_id = a.id AND t.status = 'completed' AND t.created_at >= :start), 0)
+                           AS opening
+                    FROM bank_accounts a
+                    WHERE a.id = d.account_id AND p.closing_balance IS NULL
+                ) o ON TRUE
+                ON CONFLICT (account_id, business_date) DO UPDATE
+                   SET closing_balance = EXCLUDED.closing_balance,
+                       debit_total = EXCLUDED.debit_total,
+                       credit_total = EXCLUDED.credit_total,
+                       txn_count = EXCLUDED.txn_count,
+                       created_at = NOW()
+                """;
+        return em.createNativeQuery(sql)
+                .setParameter("day", businessDate)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .executeUpdate();
+    }
+
+    /**
+     * 账户在 businessDate（含）之前最近的快照，由主键 (account_id, business_date) 倒序定位
+     */
+    public Optional<DailyBalance> findLatestOnOrBefore(Long accountId, LocalDate businessDate) {
+        List<?> rows = em.createNativeQuery("""
+                        SELECT business_date, closing_balance FROM account_daily_balances
+                        WHERE account_id = :accountId AND business_date <= CAST(:day AS DATE)
+                        ORDER BY business_date DESC
+                        LIMIT 1
+                        """)
+                .setParameter("accountId", accountId)
+                .setParameter("day", businessDate)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = (Object[]) rows.get(0);
+        return Optional.of(new DailyBalance(toLocalDate(row[0]), (BigDecimal) row[1]));
+    }
+
+    /**
+     * 账户在 [from, to] 内已完成交易的净发生额（贷方为正），
+     * 由 idx_transactions_account_created_id（INCLUDE transaction_type, amount, status）索引扫描完成
+     */
+    public BigDecimal sumDelta(Long accountId, Instant from, Instant to) {
+        Object sum = em.createNativeQuery("SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) FROM transactions "
+                        + "WHERE account_id = :accountId AND status = 'completed' AND created_at >= :from AND created_at <= :to")
+                .setParameter("accountId", accountId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getSingleResult();
+        return (BigDecimal) sum;
+    }
+
+    /**
+     * 账户在 T（含）之前最后一笔已完成流水的记账后余额（V14），沿 idx_transactions_account_created_id 倒序取一行。
+     * created_at 在持有账户行锁后由数据库时钟写入（V21），同一账户的 (created_at, id) 顺序即记账顺序；
+     * V21 之前的流水在并发重叠的毫秒级窗口内可能不一致。
+     * 该行 balance_after 为 null（分片账户、未回填）或 T 之前没有流水时返回空，由调用方退回快照推算
+     */
+    public Optional<BigDecimal> findBalanceAfterAsOf(Long accountId, Instant at) {
+        List<?> rows = em.createNativeQuery("""
+                        SELECT balance_after FROM transactions
+                        WHERE account_id = :accountId AND status = 'completed' AND created_at <= :at
+                        ORDER BY created_at DESC, id DESC
+                        LIMIT 1
+                        """)
+                .setParameter("accountId", accountId)
+                .setParameter("at", at)
+                .getResultList();
+        return rows.isEmpty() ? Optional.empty() : Optional.ofNullable((BigDecimal) rows.get(0));
+    }
+
+    private static Progress toProgress(Object[] row) {
+        return new Progress(toLocalDate(row[0]), toLocalDate(row[1]));
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Date d ? d.toLocalDate() : (LocalDate) value;
+    }
+}
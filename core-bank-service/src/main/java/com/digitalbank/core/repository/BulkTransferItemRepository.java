@@ -0,0 +1,50 @@
+package com.digitalbank.core.repository;
+
+import com.digitalbank.core.entity.BulkTransferItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 大批量文件转账暂存行/逐笔结果 Repository，表 bulk_transfer_items。
+ * 读取一律按 (job_id, seq) 键集分页，不做 OFFSET/COUNT。
+ *
+ * @author Digital Bank POC Team
+ */
+@Repository
+public interface BulkTransferItemRepository extends JpaRepository<BulkTransferItem, BulkTransferItem.Key>, BulkTransferItemRepositoryCustom {
+
+    /**
+     * 下一分块：按 seq 顺序取未执行行（走部分索引 idx_bulk_transfer_items_pending）
+     */
+    @Query("SELECT i FROM BulkTransferItem i WHERE i.jobId = :jobId AND i.status = 'pending' ORDER BY i.seq")
+    List<BulkTransferItem> findPendingChunk(@Param("jobId") Long jobId, Pageable pageable);
+
+    /**
+     * 逐笔结果分页：seq 大于 afterSeq 的下一页
+     */
+    List<BulkTransferItem> findByJobIdAndSeqGreaterThanOrderBySeq(Long jobId, Long afterSeq, Pageable pageable);
+
+    /**
+     * 逐笔结果分页（按状态过滤，如只看 failed）
+     */
+    List<BulkTransferItem> findByJobIdAndStatusAndSeqGreaterThanOrderBySeq(Long jobId, String status, Long afterSeq, Pageable pageable);
+
+    /**
+     * 写入单笔结果；仅 pending 行可写，返回 0 表示已被执行过
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_transfer_items
+            SET status = :status, transaction_id = :transactionId, error_code = :errorCode, message = :message, processed_at = NOW()
+            WHERE job_id = :jobId AND seq = :seq AND status = 'pending'
+            """, nativeQuery = true)
+    int markResult(@Param("jobId") Long jobId, @Param("seq") Long seq, @Param("status") String status,
+                   @Param("transactionId") String transactionId, @Param("errorCode") String errorCode,
+                   @Param("message") String message);
+}
@@ -0,0 +1,21 @@
+package com.digitalbank.core.repository;
+
+import java.io.Reader;
+
+/**
+ * 大批量文件转账暂存行自定义仓储：COPY 写入与进度汇总。
+ */
+public interface BulkTransferItemRepositoryCustom {
+
+    /**
+     * 以 COPY FROM STDIN (FORMAT csv) 流式写入暂存行，列顺序见实现。须在事务内调用。
+     *
+     * @return 写入行数
+     */
+    long copyIn(Reader csv);
+
+    /**
+     * 汇总任务进度：[已执行数, 成功数, 失败数, 已执行的最大 seq]
+     */
+    long[] summarize(Long jobId);
+}
@@ -0,0 +1,56 @@
+package com.digitalbank.core.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * 大批量文件转账暂存行自定义仓储实现：在当前事务连接上使用 PgJDBC CopyManager，数据不经实体/持久化上下文。
+ */
+@Repository
+public class BulkTransferItemRepositoryImpl implements BulkTransferItemRepositoryCustom {
+
+    static final String COPY_SQL = "COPY bulk_transfer_items "
+            + "(job_id, seq, from_account_id, to_account_id, amount, remark, status, error_code, message) "
+            + "FROM STDIN WITH (FORMAT csv)";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public long copyIn(Reader csv) {
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            try {
+                return conn.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, csv);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public long[] summarize(Long jobId) {
+        String sql = """
+                SELECT COUNT(*) FILTER (WHERE status <> 'pending'),
+                       COUNT(*) FILTER (WHERE status = 'completed'),
+                       COUNT(*) FILTER (WHERE status = 'failed'),
+                       COALESCE(MAX(seq) FILTER (WHERE status <> 'pending'), 0)
+                FROM bulk_transfer_items
+                WHERE job_id = :jobId
+                """;
+        Object[] row = (Object[]) em.createNativeQuery(sql)
+                .setParameter("jobId", jobId)
+                .getSingleResult();
+        long[] result = new long[row.length];
+        for (int i = 0; i < row.length; i++) {
+            result[i] = ((Number) row[i]).longValue();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,62 @@
+package com.digitalbank.core.repository;
+
+import com.digitalbank.core.entity.BulkTransferJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * 大批量文件转账任务 Repository，表 bulk_transfer_jobs。
+ * 进度/完成/释放均带 claimed_by 条件：租约已被其它实例接管时更新 0 行，调用方据此停止执行。
+ *
+ * @author Digital Bank POC Team
+ */
+@Repository
+public interface BulkTransferJobRepository extends JpaRepository<BulkTransferJob, Long>, BulkTransferJobRepositoryCustom {
+
+    /**
+     * 按业务任务号查询（上传幂等、状态查询）
+     */
+    Optional<BulkTransferJob> findByJobId(String jobId);
+
+    /**
+     * 分块提交后更新进度快照并续约
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_transfer_jobs
+            SET processed_count = :processed, success_count = :success, failed_count = :failed,
+                last_seq = :lastSeq, lease_until = :leaseUntil, updated_at = NOW()
+            WHERE id = :id AND claimed_by = :owner
+            """, nativeQuery = true)
+    int updateProgress(@Param("id") Long id, @Param("owner") String owner,
+                       @Param("processed") long processed, @Param("success") long success, @Param("failed") long failed,
+                       @Param("lastSeq") long lastSeq, @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * 全部行执行完毕，标记完成并释放租约
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_transfer_jobs
+            SET status = 'completed', completed_at = NOW(), claimed_by = NULL, lease_until = NULL, updated_at = NOW()
+            WHERE id = :id AND claimed_by = :owner
+            """, nativeQuery = true)
+    int markCompleted(@Param("id") Long id, @Param("owner") String owner);
+
+    /**
+     * 停机时主动释放租约，重启或其它实例可立即续跑
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_transfer_jobs
+            SET claimed_by = NULL, lease_until = NULL, updated_at = NOW()
+            WHERE id = :id AND claimed_by = :owner
+            """, nativeQuery = true)
+    int releaseLease(@Param("id") Long id, @Param("owner") String owner);
+}
@@ -0,0 +1,17 @@
+package com.digitalbank.core.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * 大批量文件转账任务自定义仓储：领取可执行任务。
+ */
+public interface BulkTransferJobRepositoryCustom {
+
+    /**
+     * 领取一个 pending 或租约已过期的 running 任务，置为 running 并写入租约。
+     *
+     * @return 领取到的任务主键；无可执行任务时为空
+     */
+    Optional<Long> claimRunnable(String owner, Instant leaseUntil);
+}
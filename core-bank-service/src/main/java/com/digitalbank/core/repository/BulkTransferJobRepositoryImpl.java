@@ -0,0 +1,46 @@
+package com.digitalbank.core.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 大批量文件转账任务自定义仓储实现：FOR UPDATE SKIP LOCKED 领取，多实例互不阻塞。
+ */
+@Repository
+public class BulkTransferJobRepositoryImpl implements BulkTransferJobRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    @Transactional
+    public Optional<Long> claimRunnable(String owner, Instant leaseUntil) {
+        String sql = """
+                WITH cte AS (
+                  SELECT id
+                  FROM bulk_transfer_jobs
+                  WHERE status IN ('pending', 'running')
+                    AND (lease_until IS NULL OR lease_until < NOW())
+                  ORDER BY id
+                  FOR UPDATE SKIP LOCKED
+                  LIMIT 1
+                )
+                UPDATE bulk_transfer_jobs j
+                SET status = 'running', claimed_by = :owner, lease_until = :leaseUntil, updated_at = NOW()
+                FROM cte
+                WHERE j.id = cte.id
+                RETURNING j.id
+                """;
+        List<?> ids = em.createNativeQuery(sql)
+                .setParameter("owner", owner)
+                .setParameter("leaseUntil", leaseUntil)
+                .getResultList();
+        return ids.isEmpty() ? Optional.empty() : Optional.of(((Number) ids.get(0)).longValue());
+    }
+}
@@ -2,17 +2,58 @@ package com.digitalbank.core.repository;
 
 import com.digitalbank.core.entity.OutboxEvent;
 
+import java.time.Instant;
 import java.util.List;
 
 /**
- * Outbox 自定义仓储：用于「领取」待处理事件（FOR UPDATE SKIP LOCKED）。
+ * Outbox 自定义仓储：用于带租约「领取」待处理事件（FOR UPDATE SKIP LOCKED）、续约与批量回写投递结果。
  */
 public interface OutboxEventRepositoryCustom {
 
     /**
-     * 领取一批待处理事件：将 pending -> processing，并返回领取到的事件列表。
-     * 需要在事务内调用。
+     * 一条事件的投递结果。status 为 sent / pending（待重试）/ failed；error 仅失败时有值；
+     * nextAttemptAt 仅待重试时有值（退避到期前不会被再次领取）
      */
-    List<OutboxEvent> claimPending(int limit);
-}
+    record DeliveryResult(long id, Instant createdAt, String status, String error, Instant nextAttemptAt) {
+
+        public static DeliveryResult sent(OutboxEvent e) {
+            return new DeliveryResult(e.getId(), e.getCreatedAt(), "sent", null, null);
+        }
+
+        public static DeliveryResult retry(OutboxEvent e, String error, Instant nextAttemptAt) {
+            return new DeliveryResult(e.getId(), e.getCreatedAt(), "pending", error, nextAttemptAt);
+        }
+
+        public static DeliveryResult failed(OutboxEvent e, String error) {
+            return new DeliveryResult(e.getId(), e.getCreatedAt(), "failed", error, null);
+        }
+    }
+
+    /**
+     * 领取一批到期事件：将退避已到期的 pending 及租约已过期的 processing 事件置为 processing，
+     * 写入持有者与租约到期时间，并返回领取到的事件列表。需要在事务内调用。
+     */
+    List<OutboxEvent> claimPending(String owner, Instant leaseUntil, int limit);
+
+    /**
+     * 心跳：延长本实例持有的 processing 事件的租约
+     *
+     * @return 续约行数
+     */
+    int renewLeases(String owner, Instant leaseUntil);
+
+    /**
+     * 批量回写投递结果：一条 UPDATE ... FROM unnest(...) 完成整批 sent / 重试 / failed 状态迁移，
+     * 每条事件的错误信息按数组下标对应，并清除租约。只更新仍处于 processing 且由 owner 持有的事件。
+     *
+     * @return 更新行数
+     */
+    int acknowledge(List<DeliveryResult> results, String owner, Instant now);
 
+    /**
+     * 同一事务内回写上一批结果并领取下一批：省一次提交往返，
+     * 且上一批已 sent 的事件在领取时即可见，同一聚合的后续事件可在本批领取。
+     */
+    List<OutboxEvent> acknowledgeAndClaim(List<DeliveryResult> results, String owner, Instant now,
+                                          Instant leaseUntil, int limit);
+}
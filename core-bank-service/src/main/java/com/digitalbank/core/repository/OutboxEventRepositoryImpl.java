@@ -1,15 +1,31 @@
 package com.digitalbank.core.repository;
 
+import com.digitalbank.core.config.OutboxRetryProperties;
 import com.digitalbank.core.entity.OutboxEvent;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Outbox 自定义仓储实现：使用 Postgres 的 FOR UPDATE SKIP LOCKED 领取任务。
+ * 每个聚合（aggregate_type + aggregate_id）只领取最早一条未完成事件：存在更早的 pending/processing 事件
+ * （含被其它实例锁定、尚未提交领取的）时跳过，保证同一聚合按 created_at 顺序逐条投递；
+ * aggregate_id 为空的事件不参与排序约束。
+ * 领取带租约（claimed_by / lease_until，V18）：持有者投递期间续约，租约过期的 processing 事件可被重新领取，
+ * 重领计一次尝试，达到该事件类型的 max-attempts（{@link OutboxRetryProperties}）时直接标记 failed。
+ * 只领取已到期的事件（V19）：pending 按 next_attempt_at（失败退避），processing 按 lease_until，
+ * 到期时间表达式与 idx_outbox_events_due 一致，领取为索引范围扫描。
+ * 投递结果按批回写：在当前事务连接上以数组参数执行一条 UPDATE ... FROM unnest(...)，
+ * 只回写仍由本实例持有的事件（租约已被接管的结果丢弃，由新持有者重新投递）。
  */
 @Repository
 public class OutboxEventRepositoryImpl implements OutboxEventRepositoryCustom {
@@ -17,29 +33,157 @@ public class OutboxEventRepositoryImpl implements OutboxEventRepositoryCustom {
     @PersistenceContext
     private EntityManager em;
 
+    private final String maxAttemptsJson;
+    private final int defaultMaxAttempts;
+
+    public OutboxEventRepositoryImpl(OutboxRetryProperties retryProperties) {
+        // 归一化后的事件类型只含字母数字，可直接拼成 JSON 对象
+        this.maxAttemptsJson = retryProperties.maxAttemptsByEventType().entrySet().stream()
+                .map(e -> "\"" + e.getKey() + "\":" + e.getValue())
+                .collect(Collectors.joining(",", "{", "}"));
+        this.defaultMaxAttempts = retryProperties.policyFor(null).maxAttempts();
+    }
+
     @Override
     @Transactional
     @SuppressWarnings("unchecked")
-    public List<OutboxEvent> claimPending(int limit) {
+    public List<OutboxEvent> claimPending(String owner, Instant leaseUntil, int limit) {
         int safeLimit = Math.max(1, Math.min(200, limit));
+        // 租约过期的 processing 事件重新领取时计一次尝试（上一持有者可能已投递，也可能因该事件崩溃）；
+        // 计数后达到该事件类型的 max-attempts 时在同一 UPDATE 内标记 failed 并不返回，与投递失败用尽重试一致，
+        // 避免反复让持有者崩溃的事件被无限重领
         String sql = """
                 WITH cte AS (
-                  SELECT id
-                  FROM outbox_events
-                  WHERE status = 'pending'
-                  ORDER BY created_at
-                  FOR UPDATE SKIP LOCKED
+                  SELECT id, created_at,
+                         COALESCE(CAST(CAST(:maxAttempts AS JSONB)
+                                       ->> UPPER(REGEXP_REPLACE(COALESCE(event_type, ''), '[^A-Za-z0-9]', '', 'g')) AS INT),
+                                  :defaultMaxAttempts) AS max_attempts
+                  FROM outbox_events o
+                  WHERE status IN ('pending', 'processing')
+                    AND (CASE WHEN status = 'pending' THEN COALESCE(next_attempt_at, created_at)
+                              ELSE COALESCE(lease_until, created_at) END) <= NOW()
+                    AND NOT EXISTS (
+                      SELECT 1
+                      FROM outbox_events p
+                      WHERE p.aggregate_id = o.aggregate_id
+                        AND p.aggregate_type IS NOT DISTINCT FROM o.aggregate_type
+                        AND p.status IN ('pending', 'processing')
+                        AND (p.created_at, p.id) < (o.created_at, o.id)
+                    )
+                  ORDER BY (CASE WHEN status = 'pending' THEN COALESCE(next_attempt_at, created_at)
+                                 ELSE COALESCE(lease_until, created_at) END)
+                  FOR UPDATE OF o SKIP LOCKED
                   LIMIT :limit
+                ),
+                claimed AS (
+                  UPDATE outbox_events o
+                  SET attempts = CASE WHEN o.status = 'processing' THEN o.attempts + 1 ELSE o.attempts END,
+                      last_error = CASE WHEN o.status = 'processing'
+                                        THEN 'lease expired, claimed_by=' || COALESCE(o.claimed_by, '')
+                                        ELSE o.last_error END,
+                      status = CASE WHEN o.status = 'processing' AND o.attempts + 1 >= cte.max_attempts
+                                    THEN 'failed' ELSE 'processing' END,
+                      claimed_by = CASE WHEN o.status = 'processing' AND o.attempts + 1 >= cte.max_attempts
+                                        THEN NULL ELSE :owner END,
+                      lease_until = CASE WHEN o.status = 'processing' AND o.attempts + 1 >= cte.max_attempts
+                                         THEN NULL ELSE CAST(:leaseUntil AS TIMESTAMPTZ) END,
+                      updated_at = NOW()
+                  FROM cte
+                  WHERE o.id = cte.id AND o.created_at = cte.created_at
+                  RETURNING o.*
                 )
-                UPDATE outbox_events o
-                SET status = 'processing', updated_at = NOW()
-                FROM cte
-                WHERE o.id = cte.id
-                RETURNING o.*
+                SELECT * FROM claimed WHERE status = 'processing'
                 """;
         return em.createNativeQuery(sql, OutboxEvent.class)
+                .setParameter("owner", owner)
+                .setParameter("leaseUntil", leaseUntil)
                 .setParameter("limit", safeLimit)
+                .setParameter("maxAttempts", maxAttemptsJson)
+                .setParameter("defaultMaxAttempts", defaultMaxAttempts)
                 .getResultList();
     }
-}
 
+    @Override
+    @Transactional
+    public int renewLeases(String owner, Instant leaseUntil) {
+        return em.createNativeQuery("""
+                        UPDATE outbox_events
+                        SET lease_until = :leaseUntil
+                        WHERE status = 'processing' AND claimed_by = :owner
+                        """)
+                .setParameter("owner", owner)
+                .setParameter("leaseUntil", leaseUntil)
+                .executeUpdate();
+    }
+
+    static final String ACK_SQL = """
+            UPDATE outbox_events o
+            SET status = a.status,
+                attempts = CASE WHEN a.status = 'sent' THEN o.attempts ELSE o.attempts + 1 END,
+                last_error = CASE WHEN a.status = 'sent' THEN o.last_error ELSE a.error END,
+                sent_at = CASE WHEN a.status = 'sent' THEN CAST(? AS TIMESTAMPTZ) ELSE o.sent_at END,
+                next_attempt_at = a.next_attempt_at,
+                claimed_by = NULL, lease_until = NULL,
+                updated_at = CAST(? AS TIMESTAMPTZ)
+            FROM unnest(CAST(? AS BIGINT[]), CAST(? AS TIMESTAMPTZ[]), CAST(? AS TEXT[]), CAST(? AS TEXT[]),
+                        CAST(? AS TIMESTAMPTZ[]))
+                 AS a(id, created_at, status, error, next_attempt_at)
+            WHERE o.id = a.id AND o.created_at = a.created_at
+              AND o.status = 'processing' AND o.claimed_by = ?
+            """;
+
+    @Override
+    @Transactional
+    public int acknowledge(List<DeliveryResult> results, String owner, Instant now) {
+        if (results.isEmpty()) {
+            return 0;
+        }
+        int n = results.size();
+        Long[] ids = new Long[n];
+        String[] createdAts = new String[n];
+        String[] statuses = new String[n];
+        String[] errors = new String[n];
+        String[] nextAttemptAts = new String[n];
+        for (int i = 0; i < n; i++) {
+            DeliveryResult r = results.get(i);
+            ids[i] = r.id();
+            createdAts[i] = r.createdAt().toString();
+            statuses[i] = r.status();
+            errors[i] = r.error();
+            nextAttemptAts[i] = r.nextAttemptAt() != null ? r.nextAttemptAt().toString() : null;
+        }
+        Timestamp ts = Timestamp.from(now);
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            Array idArray = conn.createArrayOf("int8", ids);
+            Array createdAtArray = conn.createArrayOf("text", createdAts);
+            Array statusArray = conn.createArrayOf("text", statuses);
+            Array errorArray = conn.createArrayOf("text", errors);
+            Array nextAttemptAtArray = conn.createArrayOf("text", nextAttemptAts);
+            try (PreparedStatement ps = conn.prepareStatement(ACK_SQL)) {
+                ps.setTimestamp(1, ts);
+                ps.setTimestamp(2, ts);
+                ps.setArray(3, idArray);
+                ps.setArray(4, createdAtArray);
+                ps.setArray(5, statusArray);
+                ps.setArray(6, errorArray);
+                ps.setArray(7, nextAttemptAtArray);
+                ps.setString(8, owner);
+                return ps.executeUpdate();
+            } finally {
+                idArray.free();
+                createdAtArray.free();
+                statusArray.free();
+                errorArray.free();
+                nextAttemptAtArray.free();
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public List<OutboxEvent> acknowledgeAndClaim(List<DeliveryResult> results, String owner, Instant now,
+                                                 Instant leaseUntil, int limit) {
+        acknowledge(results, owner, now);
+        return claimPending(owner, leaseUntil, limit);
+    }
+}
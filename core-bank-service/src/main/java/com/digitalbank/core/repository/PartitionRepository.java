@@ -0,0 +1,103 @@
+package com.digitalbank.core.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 月度分区维护（V15：transactions / outbox_events）。
+ * 使用 JdbcTemplate 而非 EntityManager：DETACH PARTITION ... CONCURRENTLY 不能在事务块内执行，
+ * 须在自动提交连接上直接发出；其余语句在调用方事务内执行时同样加入该事务。
+ * 表名/分区名只来自常量与 pg_inherits，拼接前仍按标识符转义。
+ *
+ * @author Digital Bank POC Team
+ */
+@Repository
+public class PartitionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 父表下的一个分区；detachPending 表示上次 DETACH ... CONCURRENTLY 中断，需要 FINALIZE
+     */
+    public record Partition(String name, boolean detachPending) {
+    }
+
+    /**
+     * 建 [from, to] 各月的分区（已存在的跳过），返回新建个数。需要在事务内调用，调用方负责设置 lock_timeout
+     */
+    public int ensureMonthlyPartitions(String parent, LocalDate from, LocalDate to) {
+        Integer created = jdbcTemplate.queryForObject("SELECT ensure_monthly_partitions(?, ?, ?)", Integer.class,
+                parent, Date.valueOf(from), Date.valueOf(to));
+        return created != null ? created : 0;
+    }
+
+    /**
+     * 在当前事务内设置锁等待上限，避免建分区外键、ATTACH 排在长事务之后阻塞
+     */
+    public void setLocalLockTimeout(long millis) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + Math.max(1, millis));
+    }
+
+    public List<Partition> listPartitions(String parent) {
+        return jdbcTemplate.query("""
+                        SELECT c.relname, i.inhdetachpending
+                        FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = CAST(? AS regclass)
+                        ORDER BY c.relname
+                        """,
+                (rs, n) -> new Partition(rs.getString(1), rs.getBoolean(2)), parent);
+    }
+
+    /**
+     * outbox 分区中是否还有非 sent 的事件（pending / processing 未投递完，failed 需保留供排查）
+     */
+    public boolean hasUnsentEvents(String partition) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + quote(partition) + " WHERE status <> 'sent')",
+                Boolean.class);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * 两阶段分离：对父表只取 SHARE UPDATE EXCLUSIVE 锁并等待在途查询结束，不阻塞读写。
+     * 不能在事务内调用
+     */
+    public void detachConcurrently(String parent, String partition) {
+        jdbcTemplate.execute("ALTER TABLE " + quote(parent) + " DETACH PARTITION " + quote(partition) + " CONCURRENTLY");
+    }
+
+    /**
+     * 完成被中断的 DETACH ... CONCURRENTLY
+     */
+    public void finalizeDetach(String parent, String partition) {
+        jdbcTemplate.execute("ALTER TABLE " + quote(parent) + " DETACH PARTITION " + quote(partition) + " FINALIZE");
+    }
+
+    /**
+     * 删除 before（UTC 零点）之前登记的 outbox 幂等键（V22），在对应 outbox 分区删除后调用
+     *
+     * @return 删除行数
+     */
+    public int deleteOutboxIdempotencyKeysBefore(LocalDate before) {
+        return jdbcTemplate.update(
+                "DELETE FROM outbox_idempotency_keys WHERE created_at < CAST(? AS DATE)::TIMESTAMP AT TIME ZONE 'UTC'",
+                Date.valueOf(before));
+    }
+
+    public void dropTable(String table) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + quote(table));
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
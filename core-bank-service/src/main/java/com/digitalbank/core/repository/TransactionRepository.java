@@ -4,20 +4,25 @@ import com.digitalbank.core.entity.Transaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
- * 交易 Repository，表 transactions。
+ * 交易 Repository，表 transactions（按 created_at 月度分区，V15）。可选条件组合查询使用 {@link TransactionSpecifications}；
+ * 带时间范围/键集游标的查询由 created_at 条件裁剪分区，无时间条件的按账户查询沿分区顺序逐个走索引。
  *
  * @author Digital Bank POC Team
  */
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction>,
+        TransactionRepositoryCustom {
 
     /**
      * 按业务流水号查询
@@ -25,9 +30,25 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     Optional<Transaction> findByTransactionId(String transactionId);
 
     /**
-     * 按幂等引用号查询（用于 debit 幂等，同一 refId 返回同一交易）
+     * 按幂等引用号查询（用于 debit 幂等，同一 refId 返回同一交易）。
+     * 先由 transaction_ref_ids 主键取得流水的 created_at，关联分区表时按分区键裁剪，只访问一个分区
      */
-    Optional<Transaction> findByRefId(String refId);
+    @Query(value = """
+            SELECT t.* FROM transaction_ref_ids r
+            JOIN transactions t ON t.ref_id = r.ref_id AND t.created_at = r.created_at
+            WHERE r.ref_id = :refId
+            """, nativeQuery = true)
+    Optional<Transaction> findByRefId(@Param("refId") String refId);
+
+    /**
+     * 按幂等引用号批量查询（合并提交扣款时一次查出整批已存在的 refId），分区裁剪同 {@link #findByRefId}
+     */
+    @Query(value = """
+            SELECT t.* FROM transaction_ref_ids r
+            JOIN transactions t ON t.ref_id = r.ref_id AND t.created_at = r.created_at
+            WHERE r.ref_id IN (:refIds)
+            """, nativeQuery = true)
+    List<Transaction> findByRefIdIn(@Param("refIds") Collection<String> refIds);
 
     /**
      * 按账户ID分页查询
@@ -54,10 +75,4 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
      * 按业务流水号判断是否存在
      */
     boolean existsByTransactionId(String transactionId);
-
-    /**
-     * 按 accountId、status 可选分页查询（listTransactions）
-     */
-    @Query("SELECT t FROM Transaction t WHERE (:accountId IS NULL OR t.accountId = :accountId) AND (:status IS NULL OR t.status = :status)")
-    Page<Transaction> findWithFilters(@Param("accountId") Long accountId, @Param("status") String status, Pageable pageable);
 }
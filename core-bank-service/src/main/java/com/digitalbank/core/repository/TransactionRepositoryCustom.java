@@ -0,0 +1,105 @@
+package com.digitalbank.core.repository;
+
+import com.digitalbank.core.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 交易自定义仓储：调用数据库端转账函数 execute_transfer（V8/V14）；支付扣款流水 insert-first 幂等写入；
+ * 交易列表/历史分页（只读投影）；按账户流式导出。
+ */
+public interface TransactionRepositoryCustom {
+
+    /**
+     * 合并提交中的一笔支付扣款：调用方生成的流水号、账户、金额、备注与 refId
+     */
+    record PaymentClaim(String transactionId, Long accountId, BigDecimal amount, String remark, String refId) {
+    }
+
+    /**
+     * {@link #debitPaymentsBatch} 的逐笔结果。id 为空表示 refId 已被占用（未扣款）；
+     * balanceAfter 为空表示已占位但条件扣款未命中（分片账户/余额不足/冻结）
+     */
+    record ClaimedPayment(Long id, BigDecimal balanceAfter) {
+
+        public boolean duplicate() {
+            return id == null;
+        }
+
+        public boolean debited() {
+            return balanceAfter != null;
+        }
+    }
+
+    /**
+     * 服务端执行行内转账：一次调用完成加锁、校验、余额更新、两条流水与 outbox 事件写入。
+     * 需要在事务内调用；返回非 OK 时数据库未做任何修改，调用方抛异常回滚即可释放行锁。
+     *
+     * @return OK；或错误码 CBB001 / CBB002 / CBB003_FROM / CBB003_TO
+     */
+    String executeTransfer(Long fromAccountId, Long toAccountId, BigDecimal amount,
+                           String remark, String txOutId, String txInId);
+
+    /**
+     * 支付扣款流水先行写入：数据库函数 insert_payment_if_absent（V15/V21）先锁账户行，再以 ON CONFLICT DO NOTHING 占住
+     * transaction_ref_ids.ref_id 并写入分区表 transactions，created_at 取加锁之后的 clock_timestamp()。
+     * 并发的同 refId 请求等待先到者提交后返回空。
+     * 需要在事务内调用；后续扣款失败时随事务回滚。
+     *
+     * @return 新流水主键；refId 已存在时为空
+     */
+    Optional<Long> insertPaymentIfAbsent(String transactionId, Long accountId, BigDecimal amount,
+                                         String remark, String refId);
+
+    /**
+     * 合并提交整批扣款：数据库函数 debit_payments_batch（V26）按传入顺序逐笔执行与 {@link #insertPaymentIfAbsent}
+     * 相同的加锁占位，再以条件 UPDATE 扣款，流水直接带 balance_after 写入，一次往返返回整批结果。
+     * 调用方需按账户 id 排序传入；需要在事务内调用。
+     *
+     * @return 与 claims 一一对应的结果
+     */
+    List<ClaimedPayment> debitPaymentsBatch(List<PaymentClaim> claims);
+
+    /**
+     * 补记 insert-first 占位流水的记账后余额（扣款在占位之后执行）。需要在事务内调用。
+     */
+    void updateBalanceAfter(Long id, BigDecimal balanceAfter);
+
+    /**
+     * 撤销本事务内 insert-first 的占位（流水及其 transaction_ids、transaction_ref_ids 登记），用于同一事务内多笔占位、
+     * 其中某笔扣款失败而其余照常提交的场景（合并提交）。需要在事务内调用。
+     */
+    void releasePaymentClaim(Long id, String refId);
+
+    /**
+     * 键集分页：按 (created_at DESC, id DESC) 取游标之后的 limit 条，不做 OFFSET 与 count。
+     * 指定 accountId 时由 idx_transactions_account_created_id 直接定位到游标位置。
+     * 条件参数为 null 表示不过滤；afterCreatedAt/afterId 为 null 表示第一页。
+     * 返回只读投影 {@link TransactionView}，不加载实体。
+     */
+    List<TransactionView> findKeysetPage(Long accountId, String status, Instant from, Instant to,
+                                         Instant afterCreatedAt, Long afterId, int limit);
+
+    /**
+     * 页码分页：按 (created_at DESC, id DESC) 跳过 offset 条后取 limit 条，返回只读投影。
+     * 总数由调用方按需通过 {@link #countMatching} 获取。
+     */
+    List<TransactionView> findOffsetPage(Long accountId, String status, Instant from, Instant to,
+                                         int offset, int limit);
+
+    /**
+     * 与 {@link #findKeysetPage} 相同过滤条件下的总条数（仅在调用方要求 total 时使用）
+     */
+    long countMatching(Long accountId, String status, Instant from, Instant to);
+
+    /**
+     * 流式导出：按 (created_at, id) 正序逐行读取，PgJDBC 按 fetchSize 分批从服务端游标取数，
+     * 内存占用与结果行数无关。必须在事务内调用（自动提交模式下驱动会一次取回全部结果），
+     * 调用方负责关闭返回的 Stream。
+     */
+    Stream<TransactionView> streamForExport(Long accountId, Instant from, Instant to, int fetchSize);
+}
@@ -0,0 +1,213 @@
+package com.digitalbank.core.repository;
+
+import com.digitalbank.core.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.jpa.AvailableHints;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 交易自定义仓储实现：SELECT execute_transfer(...) 单次往返执行转账；支付流水经 insert_payment_if_absent 幂等写入，
+ * 合并提交整批经 debit_payments_batch 以数组参数一次调用；
+ * 列表/历史分页只读投影与流式导出（条件见 {@link TransactionSpecifications}）。
+ */
+@Repository
+public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public String executeTransfer(Long fromAccountId, Long toAccountId, BigDecimal amount,
+                                  String remark, String txOutId, String txInId) {
+        String sql = "SELECT execute_transfer(:fromId, :toId, CAST(:amount AS DECIMAL(19, 2)), CAST(:remark AS TEXT), :txOutId, :txInId)";
+        // remark 可为 null：显式声明类型，避免驱动无法推断 null 参数类型
+        NativeQuery<?> query = em.createNativeQuery(sql).unwrap(NativeQuery.class);
+        Object code = query
+                .setParameter("fromId", fromAccountId)
+                .setParameter("toId", toAccountId)
+                .setParameter("amount", amount)
+                .setParameter("remark", remark, StandardBasicTypes.STRING)
+                .setParameter("txOutId", txOutId)
+                .setParameter("txInId", txInId)
+                .getSingleResult();
+        return String.valueOf(code);
+    }
+
+    @Override
+    public Optional<Long> insertPaymentIfAbsent(String transactionId, Long accountId, BigDecimal amount,
+                                                String remark, String refId) {
+        String sql = "SELECT insert_payment_if_absent(:transactionId, :accountId, CAST(:amount AS DECIMAL(19, 2)), CAST(:remark AS TEXT), :refId)";
+        NativeQuery<?> query = em.createNativeQuery(sql).unwrap(NativeQuery.class);
+        Object id = query
+                .setParameter("transactionId", transactionId)
+                .setParameter("accountId", accountId)
+                .setParameter("amount", amount)
+                .setParameter("remark", remark, StandardBasicTypes.STRING)
+                .setParameter("refId", refId)
+                .getSingleResult();
+        return id == null ? Optional.empty() : Optional.of(((Number) id).longValue());
+    }
+
+    static final String DEBIT_PAYMENTS_BATCH_SQL = """
+            SELECT ord, id, balance_after
+            FROM debit_payments_batch(CAST(? AS VARCHAR[]), CAST(? AS BIGINT[]), CAST(? AS DECIMAL[]),
+                                      CAST(? AS TEXT[]), CAST(? AS VARCHAR[]))
+            ORDER BY ord
+            """;
+
+    @Override
+    public List<ClaimedPayment> debitPaymentsBatch(List<PaymentClaim> claims) {
+        if (claims.isEmpty()) {
+            return List.of();
+        }
+        int n = claims.size();
+        String[] transactionIds = new String[n];
+        Long[] accountIds = new Long[n];
+        BigDecimal[] amounts = new BigDecimal[n];
+        String[] remarks = new String[n];
+        String[] refIds = new String[n];
+        for (int i = 0; i < n; i++) {
+            PaymentClaim c = claims.get(i);
+            transactionIds[i] = c.transactionId();
+            accountIds[i] = c.accountId();
+            amounts[i] = c.amount();
+            remarks[i] = c.remark();
+            refIds[i] = c.refId();
+        }
+        return em.unwrap(Session.class).doReturningWork(conn -> {
+            Array transactionIdArray = conn.createArrayOf("varchar", transactionIds);
+            Array accountIdArray = conn.createArrayOf("int8", accountIds);
+            Array amountArray = conn.createArrayOf("numeric", amounts);
+            Array remarkArray = conn.createArrayOf("text", remarks);
+            Array refIdArray = conn.createArrayOf("varchar", refIds);
+            try (PreparedStatement ps = conn.prepareStatement(DEBIT_PAYMENTS_BATCH_SQL)) {
+                ps.setArray(1, transactionIdArray);
+                ps.setArray(2, accountIdArray);
+                ps.setArray(3, amountArray);
+                ps.setArray(4, remarkArray);
+                ps.setArray(5, refIdArray);
+                List<ClaimedPayment> results = new ArrayList<>(n);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong(2);
+                        Long claimedId = rs.wasNull() ? null : id;
+                        results.add(new ClaimedPayment(claimedId, rs.getBigDecimal(3)));
+                    }
+                }
+                return results;
+            } finally {
+                transactionIdArray.free();
+                accountIdArray.free();
+                amountArray.free();
+                remarkArray.free();
+                refIdArray.free();
+            }
+        });
+    }
+
+    @Override
+    public void updateBalanceAfter(Long id, BigDecimal balanceAfter) {
+        // 占位流水在本事务内写入，created_at（加锁后的 clock_timestamp()）不早于事务开始时间 NOW()：带上分区键下界裁剪分区
+        em.createNativeQuery("UPDATE transactions SET balance_after = :balanceAfter WHERE id = :id AND created_at >= NOW()")
+                .setParameter("balanceAfter", balanceAfter)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    @Override
+    public void releasePaymentClaim(Long id, String refId) {
+        em.createNativeQuery("WITH removed AS ("
+                        + "DELETE FROM transactions WHERE id = :id AND created_at >= NOW() RETURNING transaction_id) "
+                        + "DELETE FROM transaction_ids WHERE transaction_id IN (SELECT transaction_id FROM removed)")
+                .setParameter("id", id)
+                .executeUpdate();
+        em.createNativeQuery("DELETE FROM transaction_ref_ids WHERE ref_id = :refId")
+                .setParameter("refId", refId)
+                .executeUpdate();
+    }
+
+    @Override
+    public List<TransactionView> findKeysetPage(Long accountId, String status, Instant from, Instant to,
+                                                Instant afterCreatedAt, Long afterId, int limit) {
+        Specification<Transaction> spec = TransactionSpecifications.matching(accountId, status, from, to);
+        if (afterCreatedAt != null) {
+            spec = spec.and(TransactionSpecifications.before(afterCreatedAt, afterId));
+        }
+        return findViews(spec, 0, limit);
+    }
+
+    @Override
+    public List<TransactionView> findOffsetPage(Long accountId, String status, Instant from, Instant to,
+                                                int offset, int limit) {
+        return findViews(TransactionSpecifications.matching(accountId, status, from, to), offset, limit);
+    }
+
+    @Override
+    public long countMatching(Long accountId, String status, Instant from, Instant to) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        query.select(cb.count(root))
+                .where(TransactionSpecifications.matching(accountId, status, from, to).toPredicate(root, query, cb));
+        return em.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public Stream<TransactionView> streamForExport(Long accountId, Instant from, Instant to, int fetchSize) {
+        return viewQuery(TransactionSpecifications.matching(accountId, null, from, to), false)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private List<TransactionView> findViews(Specification<Transaction> spec, int offset, int limit) {
+        return viewQuery(spec, true)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 构造器投影：SELECT 只含 TransactionView 的列，Hibernate 直接构造 record，不水合实体。
+     * newestFirst 为 true 时按 (createdAt, id) 倒序，否则正序
+     */
+    private TypedQuery<TransactionView> viewQuery(Specification<Transaction> spec, boolean newestFirst) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<TransactionView> query = cb.createQuery(TransactionView.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        query.select(cb.construct(TransactionView.class,
+                        root.get("id"),
+                        root.get("transactionId"),
+                        root.get("accountId"),
+                        root.get("counterAccountId"),
+                        root.get("amount"),
+                        root.get("balanceAfter"),
+                        root.get("transactionType"),
+                        root.get("status"),
+                        root.get("remark"),
+                        root.get("createdAt")))
+                .where(spec.toPredicate(root, query, cb))
+                .orderBy(newestFirst
+                        ? List.of(cb.desc(root.get("createdAt")), cb.desc(root.get("id")))
+                        : List.of(cb.asc(root.get("createdAt")), cb.asc(root.get("id"))));
+        return em.createQuery(query);
+    }
+}
@@ -0,0 +1,55 @@
+package com.digitalbank.core.repository;
+
+import com.digitalbank.core.entity.Transaction;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 交易查询条件。只为实际传入的条件生成谓词，每种条件组合得到一条专用 SQL，
+ * 避免 "(:x IS NULL OR col = :x)" 写法下 PostgreSQL 通用计划用不上
+ * idx_transactions_account_status_created / idx_transactions_account_created_id。
+ *
+ * @author Digital Bank POC Team
+ */
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    /**
+     * accountId、status、from、to 均可为 null，为 null 的条件不出现在 SQL 中
+     */
+    public static Specification<Transaction> matching(Long accountId, String status, Instant from, Instant to) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(4);
+            if (accountId != null) {
+                predicates.add(cb.equal(root.get("accountId"), accountId));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            if (from != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<Instant>get("createdAt"), from));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<Instant>get("createdAt"), to));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * 键集分页游标条件：排在 (createdAt, id) 之后（倒序）的记录。
+     * 冗余的 createdAt <= 条件让索引扫描从游标处开始，OR 部分处理同一时间戳的 id 次序。
+     */
+    public static Specification<Transaction> before(Instant createdAt, Long id) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.<Instant>get("createdAt"), createdAt),
+                cb.or(cb.lessThan(root.<Instant>get("createdAt"), createdAt),
+                        cb.lessThan(root.<Long>get("id"), id)));
+    }
+}
@@ -0,0 +1,23 @@
+package com.digitalbank.core.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * 交易列表/历史只读投影：仅选取响应所需列（含分页游标用的 id），
+ * 结果不进入持久化上下文，没有实体水合、快照与脏检查开销。
+ *
+ * @author Digital Bank POC Team
+ */
+public record TransactionView(
+        Long id,
+        String transactionId,
+        Long accountId,
+        Long counterAccountId,
+        BigDecimal amount,
+        BigDecimal balanceAfter,
+        String transactionType,
+        String status,
+        String remark,
+        Instant createdAt) {
+}
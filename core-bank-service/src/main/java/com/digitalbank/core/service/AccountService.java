@@ -4,6 +4,7 @@ import com.digitalbank.core.dto.*;
 import com.digitalbank.core.entity.Account;
 import com.digitalbank.core.exception.BusinessException;
 import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.AccountSpecifications;
 import com.digitalbank.core.repository.CustomerRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,8 +16,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.security.SecureRandom;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -30,13 +31,18 @@ public class AccountService {
 
     private static final Logger log = LoggerFactory.getLogger(AccountService.class);
     private static final int ACCOUNT_NUMBER_RETRY = 5;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final SecureRandom ACCOUNT_NUMBER_RANDOM = new SecureRandom();
 
     private final AccountRepository accountRepository;
     private final CustomerRepository customerRepository;
+    private final BalanceCache balanceCache;
 
-    public AccountService(AccountRepository accountRepository, CustomerRepository customerRepository) {
+    public AccountService(AccountRepository accountRepository, CustomerRepository customerRepository,
+                          BalanceCache balanceCache) {
         this.accountRepository = accountRepository;
         this.customerRepository = customerRepository;
+        this.balanceCache = balanceCache;
     }
 
     /**
@@ -88,15 +94,28 @@ public class AccountService {
     }
 
     /**
-     * 余额查询。
+     * 余额查询。启用 account.balance-cache 时先读进程内缓存，写路径提交后失效。
      *
      * @param id 账户 ID
      * @return 余额响应（accountId、balance、currency）
      * @throws BusinessException CBB001 账户不存在
      */
     public BalanceResponse getBalance(Long id) {
-        Account a = getAccountById(id);
-        return new BalanceResponse(a.getId(), a.getBalance(), a.getCurrency());
+        return balanceCache.get(id, () -> {
+            Account a = getAccountById(id);
+            return new BalanceResponse(a.getId(), currentBalance(a), a.getCurrency());
+        });
+    }
+
+    /**
+     * 账户响应；分片账户的余额为主行与各分片之和。
+     */
+    public AccountResponse toResponse(Account a) {
+        AccountResponse r = AccountResponse.from(a);
+        if (a.getShardCount() > 0) {
+            r.setBalance(currentBalance(a));
+        }
+        return r;
     }
 
     /**
@@ -108,17 +127,29 @@ public class AccountService {
      * @param pageSize   每页条数
      * @return 列表响应（items、total、page、pageSize）
      */
+    @Transactional(readOnly = true)
     public AccountListResponse listAccounts(Long customerId, String status, int page, int pageSize) {
         Pageable p = PageRequest.of(Math.max(0, page - 1), Math.min(100, Math.max(1, pageSize)),
                 Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<Account> slice = accountRepository.findByCustomerIdAndStatusOptional(customerId, status, p);
-        List<AccountResponse> items = slice.getContent().stream().map(AccountResponse::from).collect(Collectors.toList());
+        Page<Account> slice = accountRepository.findAll(AccountSpecifications.matching(customerId, status), p);
+        List<AccountResponse> items = slice.getContent().stream().map(this::toResponse).collect(Collectors.toList());
         return new AccountListResponse(items, slice.getTotalElements(), slice.getNumber() + 1, slice.getSize());
     }
 
+    /**
+     * 当前余额：普通账户即主行余额；分片账户由单条语句聚合主行与分片，读到同一快照下的精确值。
+     */
+    private BigDecimal currentBalance(Account a) {
+        if (a.getShardCount() == 0) {
+            return a.getBalance();
+        }
+        return accountRepository.findTotalBalance(a.getId())
+                .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
+    }
+
     private String generateUniqueAccountNumber() {
         for (int i = 0; i < ACCOUNT_NUMBER_RETRY; i++) {
-            String cand = "62" + UUID.randomUUID().toString().replace("-", "").substring(0, 14);
+            String cand = "62" + randomHex(14);
             if (!accountRepository.existsByAccountNumber(cand)) {
                 return cand;
             }
@@ -126,4 +157,15 @@ public class AccountService {
         }
         throw new BusinessException("CBS001", "生成账号失败，请重试", 500);
     }
+
+    /**
+     * 账号随机部分：不可由相邻账号推算（不用时间有序单号），56 位随机数下冲突由重试兜底
+     */
+    private static String randomHex(int digits) {
+        char[] buf = new char[digits];
+        for (int i = 0; i < digits; i++) {
+            buf[i] = HEX[ACCOUNT_NUMBER_RANDOM.nextInt(16)];
+        }
+        return new String(buf);
+    }
 }
@@ -0,0 +1,41 @@
+package com.digitalbank.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 历史流水 balance_after 回填任务：每轮最多处理 max-chunks-per-run 块账户，一轮完成（水位越过最大账户 id）后不再执行写入。
+ * 多实例部署时由水位行锁保证同一时刻只有一个实例在回填。默认关闭，需显式开启。
+ */
+@Component
+@ConditionalOnProperty(prefix = "transaction.balance-after-backfill", name = "enabled", havingValue = "true")
+public class BalanceAfterBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceAfterBackfillJob.class);
+
+    private final BalanceAfterBackfillService backfillService;
+    private final int maxChunksPerRun;
+
+    public BalanceAfterBackfillJob(BalanceAfterBackfillService backfillService,
+                                   @Value("${transaction.balance-after-backfill.max-chunks-per-run:50}") int maxChunksPerRun) {
+        this.backfillService = backfillService;
+        this.maxChunksPerRun = Math.max(1, maxChunksPerRun);
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.balance-after-backfill.interval-ms:60000}")
+    public void run() {
+        try {
+            for (int i = 0; i < maxChunksPerRun; i++) {
+                if (backfillService.backfillNextChunk().isEmpty()) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("balance_after 回填失败, err={}", e.getMessage());
+        }
+    }
+}
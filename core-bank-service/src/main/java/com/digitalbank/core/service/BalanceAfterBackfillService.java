@@ -0,0 +1,73 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.repository.BalanceAfterBackfillRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 历史流水 balance_after 回填。新流水在账户锁内写入 balance_after，V14 之前的流水由本服务按账户 id 分块补齐：
+ * 每块一个事务，块内按账户以当前余额倒推期初余额，再对已完成流水做 (created_at, id) 累计求和，只写 NULL 行，
+ * 水位与回填同事务提交。
+ * 只处理早于 now - settle-delay 的流水，避免在途事务（如分片账户入账）提交后打乱累计顺序。
+ *
+ * @author Digital Bank POC Team
+ */
+@Service
+public class BalanceAfterBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceAfterBackfillService.class);
+
+    private final BalanceAfterBackfillRepository backfillRepository;
+    private final int accountsPerChunk;
+    private final Duration settleDelay;
+    private final Clock clock;
+
+    @Autowired
+    public BalanceAfterBackfillService(BalanceAfterBackfillRepository backfillRepository,
+                                       @Value("${transaction.balance-after-backfill.accounts-per-chunk:200}") int accountsPerChunk,
+                                       @Value("${transaction.balance-after-backfill.settle-delay-seconds:600}") long settleDelaySeconds) {
+        this(backfillRepository, accountsPerChunk, Duration.ofSeconds(Math.max(0, settleDelaySeconds)), Clock.systemUTC());
+    }
+
+    BalanceAfterBackfillService(BalanceAfterBackfillRepository backfillRepository, int accountsPerChunk,
+                                Duration settleDelay, Clock clock) {
+        this.backfillRepository = backfillRepository;
+        this.accountsPerChunk = Math.max(1, accountsPerChunk);
+        this.settleDelay = settleDelay;
+        this.clock = clock;
+    }
+
+    /**
+     * 回填水位之后的一块账户并推进水位。其它实例持有水位锁、或本轮已完成时返回空。
+     *
+     * @return 本块回填的流水行数
+     */
+    @Transactional
+    public Optional<Integer> backfillNextChunk() {
+        Optional<BalanceAfterBackfillRepository.Progress> progress = backfillRepository.lockProgress();
+        if (progress.isEmpty() || progress.get().completed()) {
+            return Optional.empty();
+        }
+        long after = progress.get().lastAccountId() != null ? progress.get().lastAccountId() : 0L;
+        List<Long> accountIds = backfillRepository.nextAccountIds(after, accountsPerChunk);
+        if (accountIds.isEmpty()) {
+            backfillRepository.markCompleted();
+            log.info("balance_after 回填完成, lastAccountId={}", after);
+            return Optional.empty();
+        }
+        long last = accountIds.get(accountIds.size() - 1);
+        int rows = backfillRepository.backfill(after, last, clock.instant().minus(settleDelay));
+        backfillRepository.advanceProgress(last);
+        log.debug("balance_after 回填分块, accounts=({}, {}], rows={}", after, last, rows);
+        return Optional.of(rows);
+    }
+}
@@ -0,0 +1,144 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.dto.BalanceResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 进程内余额读缓存（有界 LRU + TTL），供余额轮询接口使用。
+ * <p>
+ * 写路径在事务提交后（afterCommit）调用 {@link #evictAfterCommit} 失效对应账户；回滚不影响缓存。
+ * 每个账户映射到一个版本号分段（striped generation），失效时递增：读未命中时先记下版本号再查库，
+ * 写回缓存前版本号已变说明期间有提交，丢弃本次结果，避免"查库读到旧值、失效之后才写回"的竞态。
+ * 写请求在返回前已完成失效，因此同一实例上调用方随后的查询不会读到早于自己已提交写入的余额；
+ * 多实例部署时其它实例的缓存只受 TTL 约束。
+ * </p>
+ */
+@Component
+public class BalanceCache {
+
+    private static final int STRIPES = 1024;
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<Long, Entry> entries;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public BalanceCache(@Value("${account.balance-cache.enabled:false}") boolean enabled,
+                        @Value("${account.balance-cache.max-size:50000}") int maxSize,
+                        @Value("${account.balance-cache.ttl-ms:2000}") long ttlMillis,
+                        MeterRegistry meterRegistry) {
+        this.enabled = enabled && maxSize > 0;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = Math.max(1, ttlMillis);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > BalanceCache.this.maxSize;
+            }
+        };
+        FunctionCounter.builder("corebank.balance.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("corebank.balance.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("corebank.balance.cache.hit.ratio", this, BalanceCache::hitRatio).register(meterRegistry);
+        Gauge.builder("corebank.balance.cache.size", this, BalanceCache::size).register(meterRegistry);
+    }
+
+    /**
+     * 命中直接返回；未命中调用 loader 查库，期间无提交时写回缓存。loader 抛出的异常原样抛出，不缓存。
+     */
+    public BalanceResponse get(Long accountId, Supplier<BalanceResponse> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry e = entries.get(accountId);
+            if (e != null && e.expiresAt > now) {
+                hits.increment();
+                return e.response;
+            }
+        }
+        misses.increment();
+        int stripe = stripe(accountId);
+        long generation = generations.get(stripe);
+        BalanceResponse loaded = loader.get();
+        synchronized (entries) {
+            if (generations.get(stripe) == generation) {
+                entries.put(accountId, new Entry(loaded, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 当前事务提交后失效这些账户的缓存；无事务时立即失效
+     */
+    public void evictAfterCommit(Long... accountIds) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(accountIds);
+                }
+            });
+        } else {
+            evict(accountIds);
+        }
+    }
+
+    private void evict(Long... accountIds) {
+        synchronized (entries) {
+            for (Long id : accountIds) {
+                if (id != null) {
+                    generations.incrementAndGet(stripe(id));
+                    entries.remove(id);
+                }
+            }
+        }
+    }
+
+    double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static int stripe(Long accountId) {
+        return Long.hashCode(accountId) & (STRIPES - 1);
+    }
+
+    private static final class Entry {
+        final BalanceResponse response;
+        final long expiresAt;
+
+        Entry(BalanceResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.digitalbank.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 日终余额快照任务：定期补齐水位之后已可结算的营业日，每个营业日一个事务；
+ * 首次启用时从最早一笔交易所在营业日开始，每轮最多处理 max-days-per-run 天。
+ * 多实例部署时由水位行锁保证同一营业日只有一个实例在处理。
+ */
+@Component
+@ConditionalOnProperty(prefix = "account.balance-snapshot", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceSnapshotJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceSnapshotJob.class);
+
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final int maxDaysPerRun;
+
+    public BalanceSnapshotJob(BalanceSnapshotService balanceSnapshotService,
+                              @Value("${account.balance-snapshot.max-days-per-run:31}") int maxDaysPerRun) {
+        this.balanceSnapshotService = balanceSnapshotService;
+        this.maxDaysPerRun = Math.max(1, maxDaysPerRun);
+    }
+
+    @Scheduled(fixedDelayString = "${account.balance-snapshot.interval-ms:60000}")
+    public void run() {
+        try {
+            for (int i = 0; i < maxDaysPerRun; i++) {
+                if (balanceSnapshotService.snapshotNextDay().isEmpty()) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("日终余额快照失败, err={}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.dto.TransferItem;
+import com.digitalbank.core.dto.TransferResult;
+import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.entity.OutboxEvent;
+import com.digitalbank.core.entity.Transaction;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 批量转账轧差引擎，ADR-008 的可选执行模式。
+ * 一个事务内：按 id 升序一次锁定整批涉及的账户（SELECT ... WHERE id IN (...) ORDER BY id FOR UPDATE），
+ * 在内存中按 index 顺序逐笔校验并累计各账户净头寸，最后每个净额非零的账户只更新一次余额，
+ * 成功笔数的流水与 outbox 事件批量写入。
+ * <p>
+ * 逐笔校验与逐笔模式按 index 顺序串行执行的结果一致：某笔失败（冻结/余额不足）只影响该笔，
+ * 后续笔数基于已成功笔数之后的余额继续校验。
+ * <p>
+ * 轧差只按主行余额计算，不处理分片账户：加锁后任一账户 shard_count &gt; 0 即整批拒绝（不产生写入），
+ * 由调用方回退逐笔模式。
+ *
+ * @author Digital Bank POC Team
+ */
+@Service
+public class BatchNettingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchNettingEngine.class);
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final OutboxService outboxService;
+    private final TransactionIdGenerator idGenerator;
+    private final BalanceCache balanceCache;
+
+    public BatchNettingEngine(AccountRepository accountRepository,
+                              TransactionRepository transactionRepository,
+                              OutboxService outboxService,
+                              TransactionIdGenerator idGenerator,
+                              BalanceCache balanceCache) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.outboxService = outboxService;
+        this.idGenerator = idGenerator;
+        this.balanceCache = balanceCache;
+    }
+
+    /**
+     * 轧差执行已通过基本校验与风控的笔数。
+     *
+     * @param items index -> 转账项，按 index 升序
+     * @return 每笔的执行结果（与入参同序）
+     * @throws IllegalStateException 批内含分片账户（事务回滚，无写入）
+     */
+    @Transactional
+    public List<TransferResult> execute(Map<Integer, TransferItem> items) {
+        TreeSet<Long> accountIds = new TreeSet<>();
+        for (TransferItem item : items.values()) {
+            accountIds.add(item.getFromAccountId());
+            accountIds.add(item.getToAccountId());
+        }
+        Map<Long, Account> locked = accountRepository.findAllByIdForUpdate(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        // 以加锁行为准：预读之后才开启分片的账户同样拒绝
+        if (locked.values().stream().anyMatch(a -> a.getShardCount() > 0)) {
+            throw new IllegalStateException("批内含分片账户，不适用轧差模式");
+        }
+
+        // 账户 id -> 批内已成功笔数累计后的余额（即 原余额 + 净头寸）
+        Map<Long, BigDecimal> balances = new TreeMap<>();
+        List<TransferResult> results = new ArrayList<>(items.size());
+        List<Transaction> records = new ArrayList<>(items.size() * 2);
+        List<OutboxEvent> events = new ArrayList<>(items.size());
+
+        items.forEach((index, item) -> {
+            Long fromId = item.getFromAccountId();
+            Long toId = item.getToAccountId();
+            BigDecimal amount = item.getAmount();
+            Account from = locked.get(fromId);
+            Account to = locked.get(toId);
+
+            if (from == null) {
+                results.add(TransferResult.failed(index, "CBB001", "转出账户不存在"));
+                return;
+            }
+            if (to == null) {
+                results.add(TransferResult.failed(index, "CBB001", "转入账户不存在"));
+                return;
+            }
+            if (!"active".equals(from.getStatus())) {
+                results.add(TransferResult.failed(index, "CBB003", "转出账户已冻结"));
+                return;
+            }
+            if (!"active".equals(to.getStatus())) {
+                results.add(TransferResult.failed(index, "CBB003", "转入账户已冻结"));
+                return;
+            }
+            BigDecimal fromBalance = balances.getOrDefault(fromId, from.getBalance());
+            if (fromBalance.compareTo(amount) < 0) {
+                results.add(TransferResult.failed(index, "CBB002", "余额不足"));
+                return;
+            }
+            BigDecimal fromAfter = fromBalance.subtract(amount);
+            BigDecimal toAfter = balances.getOrDefault(toId, to.getBalance()).add(amount);
+            balances.put(fromId, fromAfter);
+            balances.put(toId, toAfter);
+
+            String baseId = idGenerator.nextBaseId();
+            String txOutId = "TX" + baseId + "O";
+            String txInId = "TX" + baseId + "I";
+            // 逐笔记账后余额即按 index 顺序累计到该笔为止的余额，与逐笔模式一致
+            records.addAll(BatchTransferService.transferRecords(txOutId, txInId, item, fromAfter, toAfter));
+            events.add(outboxService.buildEvent(
+                    BatchTransferService.EVENT_ITEM_COMPLETED,
+                    "batch-transfer",
+                    txOutId,
+                    txOutId,
+                    BatchTransferService.itemPayload(txOutId, txInId, item)));
+            results.add(TransferResult.success(index, txOutId));
+        });
+
+        // 每个净额非零的账户一次 UPDATE（按 id 顺序；净额为 0 的账户不产生写入）
+        List<Account> changed = new ArrayList<>();
+        balances.forEach((id, balance) -> {
+            Account a = locked.get(id);
+            if (a.getBalance().compareTo(balance) != 0) {
+                a.setBalance(balance);
+                changed.add(a);
+            }
+        });
+        accountRepository.saveAll(changed);
+        balanceCache.evictAfterCommit(changed.stream().map(Account::getId).toArray(Long[]::new));
+
+        if (!records.isEmpty()) {
+            transactionRepository.saveAll(records);
+            outboxService.recordEvents(events);
+        }
+
+        log.info("批量转账轧差完成, items={}, success={}, lockedAccounts={}, updatedAccounts={}",
+                items.size(), events.size(), locked.size(), changed.size());
+        return results;
+    }
+}
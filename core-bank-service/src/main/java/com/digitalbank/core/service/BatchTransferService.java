@@ -1,6 +1,7 @@
 package com.digitalbank.core.service;
 
 import com.digitalbank.core.client.RiskClient;
+import com.digitalbank.core.config.ConnectionAwareExecutor;
 import com.digitalbank.core.dto.*;
 import com.digitalbank.core.entity.Account;
 import com.digitalbank.core.entity.BatchTransfer;
@@ -12,22 +13,26 @@ import com.digitalbank.core.repository.TransactionRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * 批量转账服务，ADR-008。
- * 支持批量转账（单笔独立事务）、幂等控制（batchId）、并行处理（最多10并发）。
+ * 支持批量转账（单笔独立短事务，TransactionTemplate 显式边界）、幂等控制（batchId）、
+ * 并行处理（共享执行器，并发受连接预算限制，见 BatchExecutorConfig）。
+ * 可选轧差模式（transaction.batch-transfer.netting.enabled）：整批一次加锁、每账户一次余额更新。
  *
  * @author Digital Bank POC Team
  */
@@ -35,32 +40,60 @@ import java.util.stream.Collectors;
 public class BatchTransferService {
 
     private static final Logger log = LoggerFactory.getLogger(BatchTransferService.class);
-    private static final int MAX_PARALLEL = 10;
     private static final String TYPE_TRANSFER_OUT = "transfer_out";
     private static final String TYPE_TRANSFER_IN = "transfer_in";
     private static final String STATUS_COMPLETED = "completed";
+    static final String EVENT_ITEM_COMPLETED = "BATCH_TRANSFER_ITEM_COMPLETED";
 
     private final BatchTransferRepository batchTransferRepository;
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final RiskClient riskClient;
     private final OutboxService outboxService;
+    private final TransactionIdGenerator idGenerator;
+    private final BalanceCache balanceCache;
+    private final ShardedAccountService shardedAccountService;
+    private final BatchNettingEngine batchNettingEngine;
     private final ObjectMapper objectMapper;
-    private final ExecutorService executor;
+    private final boolean nettingEnabled;
+    private final TransactionTemplate itemTransactionTemplate;
+    private final Timer itemTransactionTimer;
+    private final ConnectionAwareExecutor executor;
 
     public BatchTransferService(BatchTransferRepository batchTransferRepository,
                                  AccountRepository accountRepository,
                                  TransactionRepository transactionRepository,
                                  RiskClient riskClient,
                                  OutboxService outboxService,
-                                 ObjectMapper objectMapper) {
+                                 TransactionIdGenerator idGenerator,
+                                 BalanceCache balanceCache,
+                                 ShardedAccountService shardedAccountService,
+                                 BatchNettingEngine batchNettingEngine,
+                                 ObjectMapper objectMapper,
+                                 ConnectionAwareExecutor batchTransferExecutor,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${transaction.batch-transfer.netting.enabled:false}") boolean nettingEnabled,
+                                 @Value("${transaction.batch-transfer.item-timeout-seconds:5}") int itemTimeoutSeconds) {
         this.batchTransferRepository = batchTransferRepository;
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionRepository;
         this.riskClient = riskClient;
         this.outboxService = outboxService;
+        this.idGenerator = idGenerator;
+        this.balanceCache = balanceCache;
+        this.shardedAccountService = shardedAccountService;
+        this.batchNettingEngine = batchNettingEngine;
         this.objectMapper = objectMapper;
-        this.executor = Executors.newFixedThreadPool(MAX_PARALLEL);
+        this.nettingEnabled = nettingEnabled;
+        this.itemTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.itemTransactionTemplate.setTimeout(Math.max(1, itemTimeoutSeconds));
+        // 单笔事务耗时（含等锁与持锁），用于观察批内账户重叠时的锁竞争
+        this.itemTransactionTimer = Timer.builder("corebank.batch.item.transaction")
+                .description("批量转账单笔事务耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.executor = batchTransferExecutor;
     }
 
     /**
@@ -95,26 +128,13 @@ public class BatchTransferService {
         Map<Long, Account> accountMap = accountRepository.findAllById(accountIds)
                 .stream().collect(Collectors.toMap(Account::getId, a -> a));
 
-        // 并行处理每笔转账
-        List<CompletableFuture<TransferResult>> futures = new ArrayList<>();
-        for (int i = 0; i < transfers.size(); i++) {
-            final int index = i;
-            final TransferItem item = transfers.get(i);
-            CompletableFuture<TransferResult> future = CompletableFuture.supplyAsync(() -> {
-                return executeSingleTransfer(index, item, accountMap);
-            }, executor);
-            futures.add(future);
-        }
-
-        // 等待所有完成
-        List<TransferResult> results = new ArrayList<>();
-        for (CompletableFuture<TransferResult> f : futures) {
-            try {
-                results.add(f.get(30, TimeUnit.SECONDS));
-            } catch (Exception e) {
-                log.error("批量转账执行异常", e);
-                results.add(TransferResult.failed(results.size(), "CBS001", "执行超时或异常"));
-            }
+        // 分片账户入账落分片行、扣款需归集分片，含分片账户的批次保持逐笔模式
+        // （按刚读出的 shard_count 判断；读后才开启分片的账户由轧差引擎加锁后拒绝，回退逐笔）
+        List<TransferResult> results;
+        if (nettingEnabled && accountMap.values().stream().allMatch(a -> a.getShardCount() == 0)) {
+            results = executeNetted(transfers, accountMap);
+        } else {
+            results = executeParallel(transfers, accountMap);
         }
 
         // 按 index 排序
@@ -144,115 +164,252 @@ public class BatchTransferService {
     }
 
     /**
-     * 执行单笔转账（独立事务）
+     * 逐笔模式：每笔独立事务并行执行
      */
-    @Transactional
-    public TransferResult executeSingleTransfer(int index, TransferItem item, Map<Long, Account> accountMap) {
-        try {
-            Long fromId = item.getFromAccountId();
-            Long toId = item.getToAccountId();
-            BigDecimal amount = item.getAmount();
+    private List<TransferResult> executeParallel(List<TransferItem> transfers, Map<Long, Account> accountMap) {
+        List<CompletableFuture<TransferResult>> futures = new ArrayList<>();
+        for (int i = 0; i < transfers.size(); i++) {
+            final int index = i;
+            final TransferItem item = transfers.get(i);
+            CompletableFuture<TransferResult> future = CompletableFuture.supplyAsync(() -> {
+                return executeSingleTransfer(index, item, accountMap);
+            }, executor);
+            futures.add(future);
+        }
 
-            // 基本校验
-            if (fromId.equals(toId)) {
-                return TransferResult.failed(index, "CBB005", "同账户转账");
-            }
-            if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-                return TransferResult.failed(index, "CBB004", "转账金额无效");
+        // 等待所有完成
+        List<TransferResult> results = new ArrayList<>();
+        for (CompletableFuture<TransferResult> f : futures) {
+            try {
+                results.add(f.get(30, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                log.error("批量转账执行异常", e);
+                results.add(TransferResult.failed(results.size(), "CBS001", "执行超时或异常"));
             }
+        }
+        return results;
+    }
 
-            // 检查账户存在性
-            Account fromAcc = accountMap.get(fromId);
-            Account toAcc = accountMap.get(toId);
-            if (fromAcc == null) {
-                return TransferResult.failed(index, "CBB001", "转出账户不存在");
+    /**
+     * 轧差模式：事务外完成基本校验与风控，通过的笔数交给 {@link BatchNettingEngine} 在一个事务内执行。
+     * 轧差事务整体失败（非业务原因）时不会有任何写入，回退到逐笔模式。
+     */
+    private List<TransferResult> executeNetted(List<TransferItem> transfers, Map<Long, Account> accountMap) {
+        List<TransferResult> results = new ArrayList<>();
+        Map<Integer, TransferItem> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferItem item = transfers.get(i);
+            TransferResult rejected = precheck(i, item, accountMap);
+            if (rejected != null) {
+                results.add(rejected);
+            } else {
+                candidates.put(i, item);
             }
-            if (toAcc == null) {
-                return TransferResult.failed(index, "CBB001", "转入账户不存在");
+        }
+        if (candidates.isEmpty()) {
+            return results;
+        }
+
+        try {
+            results.addAll(batchNettingEngine.execute(candidates));
+        } catch (Exception e) {
+            log.warn("批量转账轧差执行失败，回退逐笔模式, count={}, err={}", candidates.size(), e.getMessage());
+            // 逐笔回退（executeSingleTransfer 内会重复校验与风控，结果一致）
+            List<TransferItem> items = new ArrayList<>(candidates.values());
+            List<Integer> indexes = new ArrayList<>(candidates.keySet());
+            List<TransferResult> fallback = executeParallel(items, accountMap);
+            for (TransferResult r : fallback) {
+                r.setIndex(indexes.get(r.getIndex()));
+                results.add(r);
             }
+        }
+        return results;
+    }
+
+    /**
+     * 事务外的单笔基本校验与风控检查；通过返回 null
+     */
+    TransferResult precheck(int index, TransferItem item, Map<Long, Account> accountMap) {
+        Long fromId = item.getFromAccountId();
+        Long toId = item.getToAccountId();
+        BigDecimal amount = item.getAmount();
 
-            // 风控检查
+        if (fromId.equals(toId)) {
+            return TransferResult.failed(index, "CBB005", "同账户转账");
+        }
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return TransferResult.failed(index, "CBB004", "转账金额无效");
+        }
+        Account fromAcc = accountMap.get(fromId);
+        if (fromAcc == null) {
+            return TransferResult.failed(index, "CBB001", "转出账户不存在");
+        }
+        if (accountMap.get(toId) == null) {
+            return TransferResult.failed(index, "CBB001", "转入账户不存在");
+        }
+        try {
+            riskClient.checkTransfer(fromAcc.getCustomerId(), fromId, amount, toId);
+        } catch (BusinessException e) {
+            return TransferResult.failed(index, e.getErrorCode(), e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 执行单笔转账（独立事务）。
+     * 校验与风控在事务外完成；加锁、余额变更、流水与 outbox 在一个带超时的短事务内完成，
+     * 业务失败时回滚该笔事务。事务通过 TransactionTemplate 显式开启，不依赖自调用的 @Transactional 代理。
+     */
+    public TransferResult executeSingleTransfer(int index, TransferItem item, Map<Long, Account> accountMap) {
+        TransferResult rejected = precheck(index, item, accountMap);
+        if (rejected != null) {
+            return rejected;
+        }
+        long start = System.nanoTime();
+        try {
+            return itemTransactionTemplate.execute(status -> {
+                TransferResult r = applyTransfer(index, item);
+                if (!STATUS_COMPLETED.equals(r.getStatus())) {
+                    status.setRollbackOnly();
+                }
+                return r;
+            });
+        } catch (Exception e) {
+            log.error("批量转账单笔失败, index={}", index, e);
+            return TransferResult.failed(index, "CBS001", "系统错误: " + e.getMessage());
+        } finally {
+            itemTransactionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 在当前事务内加锁并变更余额、写入流水；业务失败返回失败结果，由调用方回滚
+     */
+    TransferResult applyTransfer(int index, TransferItem item) {
+        Long fromId = item.getFromAccountId();
+        Long toId = item.getToAccountId();
+        BigDecimal amount = item.getAmount();
+
+        if (shardedAccountService.isSharded(fromId) || shardedAccountService.isSharded(toId)) {
+            // 热点分片账户：入账落分片行，不争用主行锁
             try {
-                riskClient.checkTransfer(fromAcc.getCustomerId(), fromId, amount, toId);
+                shardedAccountService.transfer(fromId, toId, amount);
             } catch (BusinessException e) {
                 return TransferResult.failed(index, e.getErrorCode(), e.getMessage());
             }
+            // 分片账户余额分散在分片行上，不记录 balance_after
+            return recordTransfer(index, item, null, null);
+        }
 
-            // 按 id 顺序加锁，避免死锁
-            Long id1 = fromId < toId ? fromId : toId;
-            Long id2 = fromId < toId ? toId : fromId;
-            Account a1 = accountRepository.findByIdForUpdate(id1).orElse(null);
-            Account a2 = accountRepository.findByIdForUpdate(id2).orElse(null);
-            if (a1 == null || a2 == null) {
-                return TransferResult.failed(index, "CBB001", "账户不存在");
-            }
-            Account lockedFrom = fromId.equals(id1) ? a1 : a2;
-            Account lockedTo = toId.equals(id1) ? a1 : a2;
+        // 按 id 顺序加锁，避免死锁
+        Long id1 = fromId < toId ? fromId : toId;
+        Long id2 = fromId < toId ? toId : fromId;
+        Account a1 = accountRepository.findByIdForUpdate(id1).orElse(null);
+        Account a2 = accountRepository.findByIdForUpdate(id2).orElse(null);
+        if (a1 == null || a2 == null) {
+            return TransferResult.failed(index, "CBB001", "账户不存在");
+        }
+        Account lockedFrom = fromId.equals(id1) ? a1 : a2;
+        Account lockedTo = toId.equals(id1) ? a1 : a2;
 
-            // 状态检查
-            if (!"active".equals(lockedFrom.getStatus())) {
-                return TransferResult.failed(index, "CBB003", "转出账户已冻结");
-            }
-            if (!"active".equals(lockedTo.getStatus())) {
-                return TransferResult.failed(index, "CBB003", "转入账户已冻结");
+        // 状态检查
+        if (!"active".equals(lockedFrom.getStatus())) {
+            return TransferResult.failed(index, "CBB003", "转出账户已冻结");
+        }
+        if (!"active".equals(lockedTo.getStatus())) {
+            return TransferResult.failed(index, "CBB003", "转入账户已冻结");
+        }
+
+        // 执行转账：是否分片以加锁行的 shard_count 为准（本实例分片缓存可能滞后），分片账户不记录 balance_after
+        BigDecimal fromAfter = null;
+        if (lockedFrom.getShardCount() > 0) {
+            try {
+                shardedAccountService.debitLocked(lockedFrom, amount);
+            } catch (BusinessException e) {
+                return TransferResult.failed(index, e.getErrorCode(), e.getMessage());
             }
+        } else {
             if (lockedFrom.getBalance().compareTo(amount) < 0) {
                 return TransferResult.failed(index, "CBB002", "余额不足");
             }
-
-            // 执行转账
-            lockedFrom.setBalance(lockedFrom.getBalance().subtract(amount));
-            lockedTo.setBalance(lockedTo.getBalance().add(amount));
+            fromAfter = lockedFrom.getBalance().subtract(amount);
+            lockedFrom.setBalance(fromAfter);
             accountRepository.save(lockedFrom);
-            accountRepository.save(lockedTo);
-
-            // 创建交易记录
-            String baseId = UUID.randomUUID().toString().replace("-", "").substring(0, 24);
-            String txOutId = "TX" + baseId + "O";
-            String txInId = "TX" + baseId + "I";
-
-            Transaction out = new Transaction();
-            out.setTransactionId(txOutId);
-            out.setAccountId(fromId);
-            out.setCounterAccountId(toId);
-            out.setAmount(amount);
-            out.setTransactionType(TYPE_TRANSFER_OUT);
-            out.setStatus(STATUS_COMPLETED);
-            out.setRemark(item.getRemark());
-            transactionRepository.save(out);
-
-            Transaction in = new Transaction();
-            in.setTransactionId(txInId);
-            in.setAccountId(toId);
-            in.setCounterAccountId(fromId);
-            in.setAmount(amount);
-            in.setTransactionType(TYPE_TRANSFER_IN);
-            in.setStatus(STATUS_COMPLETED);
-            in.setRemark(item.getRemark());
-            transactionRepository.save(in);
-
-            // 写入 outbox 事件
-            outboxService.recordEvent(
-                    "BATCH_TRANSFER_ITEM_COMPLETED",
-                    "batch-transfer",
-                    txOutId,
-                    txOutId,
-                    Map.of(
-                            "txOutId", txOutId,
-                            "txInId", txInId,
-                            "fromAccountId", fromId,
-                            "toAccountId", toId,
-                            "amount", amount,
-                            "status", STATUS_COMPLETED
-                    ));
-
-            log.debug("批量转账单笔成功, index={}, txId={}", index, txOutId);
-            return TransferResult.success(index, txOutId);
-
-        } catch (Exception e) {
-            log.error("批量转账单笔失败, index={}", index, e);
-            return TransferResult.failed(index, "CBS001", "系统错误: " + e.getMessage());
         }
+        BigDecimal toBalance = lockedTo.getBalance().add(amount);
+        lockedTo.setBalance(toBalance);
+        accountRepository.save(lockedTo);
+        BigDecimal toAfter = lockedTo.getShardCount() > 0 ? null : toBalance;
+
+        return recordTransfer(index, item, fromAfter, toAfter);
+    }
+
+    /**
+     * 余额变更完成后写入两条流水与 outbox 事件（与余额变更同一事务）；fromAfter/toAfter 为双方记账后余额，可为 null
+     */
+    private TransferResult recordTransfer(int index, TransferItem item, BigDecimal fromAfter, BigDecimal toAfter) {
+        balanceCache.evictAfterCommit(item.getFromAccountId(), item.getToAccountId());
+        String baseId = idGenerator.nextBaseId();
+        String txOutId = "TX" + baseId + "O";
+        String txInId = "TX" + baseId + "I";
+
+        // 两条流水一起持久化：pooled 序列主键下 flush 时按 JDBC 批次写入
+        transactionRepository.saveAll(transferRecords(txOutId, txInId, item, fromAfter, toAfter));
+
+        // 写入 outbox 事件
+        outboxService.recordEvent(
+                EVENT_ITEM_COMPLETED,
+                "batch-transfer",
+                txOutId,
+                txOutId,
+                itemPayload(txOutId, txInId, item));
+
+        log.debug("批量转账单笔成功, index={}, txId={}", index, txOutId);
+        return TransferResult.success(index, txOutId);
+    }
+
+    /**
+     * 单笔转账的转出/转入两条流水（含双方记账后余额），逐笔与轧差模式共用
+     */
+    static List<Transaction> transferRecords(String txOutId, String txInId, TransferItem item,
+                                             BigDecimal fromAfter, BigDecimal toAfter) {
+        Long fromId = item.getFromAccountId();
+        Long toId = item.getToAccountId();
+
+        Transaction out = new Transaction();
+        out.setTransactionId(txOutId);
+        out.setAccountId(fromId);
+        out.setCounterAccountId(toId);
+        out.setAmount(item.getAmount());
+        out.setBalanceAfter(fromAfter);
+        out.setTransactionType(TYPE_TRANSFER_OUT);
+        out.setStatus(STATUS_COMPLETED);
+        out.setRemark(item.getRemark());
+
+        Transaction in = new Transaction();
+        in.setTransactionId(txInId);
+        in.setAccountId(toId);
+        in.setCounterAccountId(fromId);
+        in.setAmount(item.getAmount());
+        in.setBalanceAfter(toAfter);
+        in.setTransactionType(TYPE_TRANSFER_IN);
+        in.setStatus(STATUS_COMPLETED);
+        in.setRemark(item.getRemark());
+        return List.of(out, in);
+    }
+
+    /**
+     * BATCH_TRANSFER_ITEM_COMPLETED 事件 payload
+     */
+    static Map<String, Object> itemPayload(String txOutId, String txInId, TransferItem item) {
+        return Map.of(
+                "txOutId", txOutId,
+                "txInId", txInId,
+                "fromAccountId", item.getFromAccountId(),
+                "toAccountId", item.getToAccountId(),
+                "amount", item.getAmount(),
+                "status", STATUS_COMPLETED
+        );
     }
 
     /**
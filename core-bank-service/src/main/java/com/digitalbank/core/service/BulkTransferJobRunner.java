@@ -0,0 +1,84 @@
+package com.digitalbank.core.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * 大批量文件转账执行器：独立线程轮询领取任务并分块执行，不占用 @Scheduled 共享线程。
+ * 停机时在当前分块结束后释放租约，重启或其它实例从剩余 pending 行续跑；
+ * 进程异常退出时租约到期后由任一实例接管。
+ */
+@Component
+@ConditionalOnProperty(prefix = "transaction.bulk-transfer.runner", name = "enabled", havingValue = "true")
+public class BulkTransferJobRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkTransferJobRunner.class);
+
+    private final BulkTransferService bulkTransferService;
+    private final long pollIntervalMs;
+    private final String owner;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public BulkTransferJobRunner(BulkTransferService bulkTransferService,
+                                 @Value("${transaction.bulk-transfer.runner.poll-interval-ms:2000}") long pollIntervalMs) {
+        this.bulkTransferService = bulkTransferService;
+        this.pollIntervalMs = Math.max(100, pollIntervalMs);
+        this.owner = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::loop, "bulk-transfer-runner");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("批量文件转账执行器启动, owner={}", owner);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            // 不中断：等待当前分块提交并释放租约
+            worker.join(30_000);
+        }
+    }
+
+    private void loop() {
+        while (running) {
+            boolean claimed = false;
+            try {
+                claimed = bulkTransferService.runNext(owner, () -> running);
+            } catch (Exception e) {
+                // 租约到期后任务会被重新领取并续跑
+                log.error("批量文件转账执行异常, owner={}, err={}", owner, e.getMessage(), e);
+            }
+            if (!claimed && running) {
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "core-bank";
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.dto.BulkTransferItemPageResponse;
+import com.digitalbank.core.dto.BulkTransferItemResponse;
+import com.digitalbank.core.dto.BulkTransferJobResponse;
+import com.digitalbank.core.dto.TransferItem;
+import com.digitalbank.core.dto.TransferResult;
+import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.entity.BulkTransferItem;
+import com.digitalbank.core.entity.BulkTransferJob;
+import com.digitalbank.core.exception.BusinessException;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.BulkTransferItemRepository;
+import com.digitalbank.core.repository.BulkTransferJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * 大批量文件转账服务（代发工资/供应商付款，突破批量转账 100 笔限制）。
+ * <ul>
+ *   <li>上传：请求体先落盘到临时文件（不占连接、不开事务，客户端上传再慢也不影响连接池），
+ *       再流式解析 NDJSON/CSV，经 COPY 写入 bulk_transfer_items，与任务行同一事务提交</li>
+ *   <li>执行：按 seq 顺序分块；每笔转账与其结果行在同一短事务内提交，成功即不会被重复执行；
+ *       租约按耗时续约（每 lease-seconds/3），不受单块内逐笔风控耗时影响</li>
+ *   <li>续跑：进度以结果行为准，接管任务时重新汇总计数并从剩余 pending 行继续</li>
+ *   <li>查询：任务状态/进度，逐笔结果按 seq 键集分页</li>
+ * </ul>
+ * 上传、执行、查询的内存占用均与文件大小无关。
+ *
+ * @author Digital Bank POC Team
+ */
+@Service
+public class BulkTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkTransferService.class);
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final BulkTransferJobRepository jobRepository;
+    private final BulkTransferItemRepository itemRepository;
+    private final AccountRepository accountRepository;
+    private final BatchTransferService batchTransferService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate uploadTransactionTemplate;
+    private final long maxItems;
+    private final int chunkSize;
+    private final long leaseSeconds;
+    private final long renewIntervalNanos;
+    private final Path spoolDir;
+    private final long maxUploadBytes;
+
+    public BulkTransferService(BulkTransferJobRepository jobRepository,
+                               BulkTransferItemRepository itemRepository,
+                               AccountRepository accountRepository,
+                               BatchTransferService batchTransferService,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${transaction.bulk-transfer.max-items:500000}") long maxItems,
+                               @Value("${transaction.bulk-transfer.chunk-size:500}") int chunkSize,
+                               @Value("${transaction.bulk-transfer.lease-seconds:60}") long leaseSeconds,
+                               @Value("${transaction.batch-transfer.item-timeout-seconds:5}") int itemTimeoutSeconds,
+                               @Value("${transaction.bulk-transfer.spool-dir:}") String spoolDir,
+                               @Value("${transaction.bulk-transfer.max-upload-bytes:536870912}") long maxUploadBytes) {
+        this.jobRepository = jobRepository;
+        this.itemRepository = itemRepository;
+        this.accountRepository = accountRepository;
+        this.batchTransferService = batchTransferService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(Math.max(1, itemTimeoutSeconds));
+        // 上传事务只含 COPY 本地文件，耗时与文件大小相关，不套用单笔超时
+        this.uploadTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxItems = Math.max(1, maxItems);
+        this.chunkSize = Math.max(1, Math.min(5000, chunkSize));
+        this.leaseSeconds = Math.max(10, leaseSeconds);
+        this.renewIntervalNanos = TimeUnit.SECONDS.toNanos(this.leaseSeconds) / 3;
+        this.spoolDir = spoolDir != null && !spoolDir.isBlank() ? Path.of(spoolDir.trim()) : null;
+        this.maxUploadBytes = Math.max(1, maxUploadBytes);
+    }
+
+    /**
+     * 上传批量文件并创建任务。同一 jobId 重复上传直接返回已有任务（不再读取请求体）。
+     * 请求体先完整落盘，之后才取连接开事务 COPY，事务时长与客户端上传速度无关。
+     *
+     * @param jobId  客户端任务号，可空（自动生成）
+     * @param format ndjson | csv
+     * @param body   文件内容（UTF-8）
+     * @throws BusinessException CBV003 格式不支持/文件为空/表头缺失；CBB015 超过笔数或大小限制
+     */
+    public BulkTransferJobResponse submit(String jobId, String format, InputStream body) {
+        String id = jobId != null && !jobId.isBlank() ? jobId.trim() : UUID.randomUUID().toString();
+        if (id.length() > 64) {
+            throw new BusinessException("CBV003", "jobId 最长 64 字符", 400);
+        }
+        var existing = jobRepository.findByJobId(id);
+        if (existing.isPresent()) {
+            log.info("bulkTransfer 幂等返回, jobId={}", id);
+            return BulkTransferJobResponse.from(existing.get());
+        }
+        String fmt = format != null ? format.trim().toLowerCase(Locale.ROOT) : "";
+        if (!BulkTransferStagingReader.FORMAT_NDJSON.equals(fmt) && !BulkTransferStagingReader.FORMAT_CSV.equals(fmt)) {
+            throw new BusinessException("CBV003", "仅支持 ndjson 或 csv 格式", 400);
+        }
+
+        Path spooled = spool(body);
+        try {
+            return uploadTransactionTemplate.execute(status -> stage(id, fmt, spooled));
+        } finally {
+            deleteQuietly(spooled);
+        }
+    }
+
+    /**
+     * 上传事务：建任务行并从已落盘的文件 COPY 暂存逐笔数据
+     */
+    private BulkTransferJobResponse stage(String id, String fmt, Path spooled) {
+        // 落盘期间同一 jobId 可能已被并发上传创建
+        var existing = jobRepository.findByJobId(id);
+        if (existing.isPresent()) {
+            log.info("bulkTransfer 幂等返回, jobId={}", id);
+            return BulkTransferJobResponse.from(existing.get());
+        }
+
+        BulkTransferJob job = new BulkTransferJob();
+        job.setJobId(id);
+        job.setFormat(fmt);
+        job.setStatus("pending");
+        job = jobRepository.saveAndFlush(job);
+
+        long staged;
+        long rejected;
+        try (BufferedReader reader = Files.newBufferedReader(spooled, StandardCharsets.UTF_8);
+             BulkTransferStagingReader stager = new BulkTransferStagingReader(reader, fmt, job.getId(), maxItems, objectMapper)) {
+            staged = itemRepository.copyIn(stager);
+            rejected = stager.rejected();
+        } catch (IOException e) {
+            throw new BusinessException("CBS001", "读取上传文件失败: " + e.getMessage(), 500);
+        }
+        if (staged == 0) {
+            throw new BusinessException("CBV003", "文件中没有转账数据", 400);
+        }
+
+        // 解析失败的行已以 failed 暂存，计入进度
+        job.setTotalCount(staged);
+        job.setProcessedCount(rejected);
+        job.setFailedCount(rejected);
+        job = jobRepository.save(job);
+        log.info("bulkTransfer 上传完成, jobId={}, format={}, total={}, rejected={}", id, fmt, staged, rejected);
+        return BulkTransferJobResponse.from(job);
+    }
+
+    /**
+     * 将请求体写入临时文件，超过 max-upload-bytes 即中止
+     *
+     * @throws BusinessException CBB015 超过大小限制；CBS001 读取/写入失败
+     */
+    Path spool(InputStream body) {
+        Path file = null;
+        try {
+            file = spoolDir != null ? Files.createTempFile(spoolDir, "bulk-", ".upload")
+                    : Files.createTempFile("bulk-", ".upload");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                byte[] buffer = new byte[64 * 1024];
+                long total = 0;
+                int n;
+                while ((n = body.read(buffer)) != -1) {
+                    total += n;
+                    if (total > maxUploadBytes) {
+                        throw new BusinessException("CBB015", "批量文件超过大小限制（最大" + maxUploadBytes + "字节）", 400);
+                    }
+                    out.write(buffer, 0, n);
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new BusinessException("CBS001", "读取上传文件失败: " + e.getMessage(), 500);
+        } catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("bulkTransfer 临时文件删除失败, file={}, err={}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 任务状态与进度
+     *
+     * @throws BusinessException CBB014 任务不存在
+     */
+    @Transactional(readOnly = true)
+    public BulkTransferJobResponse getJob(String jobId) {
+        return BulkTransferJobResponse.from(requireJob(jobId));
+    }
+
+    /**
+     * 逐笔结果分页：返回 seq 大于 afterSeq 的至多 limit 条，可按状态过滤
+     */
+    @Transactional(readOnly = true)
+    public BulkTransferItemPageResponse listItems(String jobId, long afterSeq, int limit, String status) {
+        BulkTransferJob job = requireJob(jobId);
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(MAX_PAGE_SIZE, limit)));
+        long after = Math.max(0, afterSeq);
+        List<BulkTransferItem> rows = status != null && !status.isBlank()
+                ? itemRepository.findByJobIdAndStatusAndSeqGreaterThanOrderBySeq(job.getId(), status.trim(), after, page)
+                : itemRepository.findByJobIdAndSeqGreaterThanOrderBySeq(job.getId(), after, page);
+        List<BulkTransferItemResponse> items = rows.stream().map(BulkTransferItemResponse::from).collect(Collectors.toList());
+        Long next = rows.size() < page.getPageSize() ? null : rows.get(rows.size() - 1).getSeq();
+        return new BulkTransferItemPageResponse(job.getJobId(), items, next);
+    }
+
+    /**
+     * 领取并执行一个任务，直到完成、租约丢失或 keepRunning 返回 false。
+     *
+     * @return 是否领取到任务
+     */
+    public boolean runNext(String owner, BooleanSupplier keepRunning) {
+        Long id = jobRepository.claimRunnable(owner, leaseUntil()).orElse(null);
+        if (id == null) {
+            return false;
+        }
+
+        // 续跑：计数以结果行为准（上次执行可能在分块中途中断）
+        long[] summary = itemRepository.summarize(id);
+        long processed = summary[0];
+        long success = summary[1];
+        long failed = summary[2];
+        long lastSeq = summary[3];
+        log.info("bulkTransfer 开始执行, jobId={}, owner={}, processed={}", id, owner, processed);
+        long renewedAt = System.nanoTime();
+
+        while (true) {
+            if (!keepRunning.getAsBoolean()) {
+                inTransaction(() -> jobRepository.releaseLease(id, owner));
+                log.info("bulkTransfer 暂停并释放租约, jobId={}, processed={}", id, processed);
+                return true;
+            }
+            List<BulkTransferItem> chunk = itemRepository.findPendingChunk(id, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                long p = processed, s = success, f = failed, last = lastSeq;
+                inTransaction(() -> jobRepository.updateProgress(id, owner, p, s, f, last, leaseUntil())
+                        + jobRepository.markCompleted(id, owner));
+                log.info("bulkTransfer 执行完成, jobId={}, success={}, failed={}", id, success, failed);
+                return true;
+            }
+
+            Map<Long, Account> accountMap = loadAccounts(chunk);
+            for (BulkTransferItem item : chunk) {
+                TransferResult r = executeItem(item, accountMap);
+                if (r != null) {
+                    processed++;
+                    if ("completed".equals(r.getStatus())) {
+                        success++;
+                    } else {
+                        failed++;
+                    }
+                    lastSeq = item.getSeq();
+                }
+                // 块内逐笔风控可能很慢：按耗时续约，不等整块结束
+                if (System.nanoTime() - renewedAt >= renewIntervalNanos) {
+                    if (!saveProgress(id, owner, processed, success, failed, lastSeq)) {
+                        return true;
+                    }
+                    renewedAt = System.nanoTime();
+                }
+            }
+
+            if (!saveProgress(id, owner, processed, success, failed, lastSeq)) {
+                return true;
+            }
+            renewedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * 写入进度并续约
+     *
+     * @return false 表示租约已被接管，调用方应停止执行
+     */
+    private boolean saveProgress(Long id, String owner, long processed, long success, long failed, long lastSeq) {
+        int updated = inTransaction(() -> jobRepository.updateProgress(id, owner, processed, success, failed, lastSeq, leaseUntil()));
+        if (updated == 0) {
+            log.warn("bulkTransfer 租约已被接管，停止执行, jobId={}, owner={}", id, owner);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 执行单笔：事务外校验/风控；转账与结果行同一事务提交。业务失败回滚转账后单独记录失败结果。
+     *
+     * @return 本次写入的结果；该行已被执行过时为 null
+     */
+    TransferResult executeItem(BulkTransferItem item, Map<Long, Account> accountMap) {
+        int index = Math.toIntExact(item.getSeq());
+        TransferItem transfer = new TransferItem();
+        transfer.setFromAccountId(item.getFromAccountId());
+        transfer.setToAccountId(item.getToAccountId());
+        transfer.setAmount(item.getAmount());
+        transfer.setRemark(item.getRemark());
+
+        TransferResult result = batchTransferService.precheck(index, transfer, accountMap);
+        if (result == null) {
+            try {
+                result = transactionTemplate.execute(status -> {
+                    TransferResult r = batchTransferService.applyTransfer(index, transfer);
+                    if (!"completed".equals(r.getStatus())) {
+                        status.setRollbackOnly();
+                        return r;
+                    }
+                    int n = itemRepository.markResult(item.getJobId(), item.getSeq(), "completed", r.getTransactionId(), null, null);
+                    if (n == 0) {
+                        // 已由其它执行者完成：回滚本次转账
+                        status.setRollbackOnly();
+                        return null;
+                    }
+                    return r;
+                });
+            } catch (Exception e) {
+                log.error("bulkTransfer 单笔失败, jobId={}, seq={}", item.getJobId(), item.getSeq(), e);
+                result = TransferResult.failed(index, "CBS001", "系统错误: " + e.getMessage());
+            }
+            if (result == null || "completed".equals(result.getStatus())) {
+                return result;
+            }
+        }
+
+        TransferResult failed = result;
+        int n = inTransaction(() -> itemRepository.markResult(item.getJobId(), item.getSeq(), "failed",
+                null, failed.getErrorCode(), failed.getMessage()));
+        return n == 0 ? null : failed;
+    }
+
+    private Map<Long, Account> loadAccounts(List<BulkTransferItem> chunk) {
+        Set<Long> ids = new HashSet<>();
+        for (BulkTransferItem item : chunk) {
+            ids.add(item.getFromAccountId());
+            ids.add(item.getToAccountId());
+        }
+        return accountRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+    }
+
+    private BulkTransferJob requireJob(String jobId) {
+        return jobRepository.findByJobId(jobId)
+                .orElseThrow(() -> new BusinessException("CBB014", "批量文件任务不存在", 404));
+    }
+
+    private Instant leaseUntil() {
+        return Instant.now().plusSeconds(leaseSeconds);
+    }
+
+    private int inTransaction(IntSupplier work) {
+        Integer n = transactionTemplate.execute(status -> work.getAsInt());
+        return n != null ? n : 0;
+    }
+}
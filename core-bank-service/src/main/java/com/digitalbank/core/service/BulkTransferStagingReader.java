@@ -0,0 +1,261 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.exception.BusinessException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 批量转账文件流式解析器：逐行读取上传的 NDJSON/CSV，转换为 COPY (FORMAT csv) 输入。
+ * 任意时刻只持有当前一行，内存占用与文件大小无关。
+ * <p>
+ * 每个数据行对应一条暂存行（seq 从 1 递增）；格式错误的行不中断上传，直接以 failed/CBV003 暂存，
+ * 保证逐笔结果与文件行一一对应。超过 maxItems 时抛 CBB015，整个上传事务回滚。
+ * <p>
+ * NDJSON 每行一个对象：{"fromAccountId":1,"toAccountId":2,"amount":"10.00","remark":"..."}；
+ * CSV 首行为表头（fromAccountId,toAccountId,amount[,remark]，顺序不限），字段可用双引号包裹。
+ */
+class BulkTransferStagingReader extends Reader {
+
+    static final String FORMAT_NDJSON = "ndjson";
+    static final String FORMAT_CSV = "csv";
+
+    private static final int MAX_REMARK_LENGTH = 255;
+
+    private final BufferedReader in;
+    private final String format;
+    private final long jobId;
+    private final long maxItems;
+    private final ObjectMapper objectMapper;
+
+    private Map<String, Integer> csvColumns;
+    private String current = "";
+    private int pos;
+    private long seq;
+    private long rejected;
+    private long lineNo;
+
+    BulkTransferStagingReader(BufferedReader in, String format, long jobId, long maxItems, ObjectMapper objectMapper) {
+        this.in = in;
+        this.format = format;
+        this.jobId = jobId;
+        this.maxItems = maxItems;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 已输出的数据行数
+     */
+    long count() {
+        return seq;
+    }
+
+    /**
+     * 解析失败、以 failed 暂存的行数
+     */
+    long rejected() {
+        return rejected;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int written = 0;
+        while (written < len) {
+            if (pos >= current.length() && !advance()) {
+                break;
+            }
+            int n = Math.min(len - written, current.length() - pos);
+            current.getChars(pos, pos + n, cbuf, off + written);
+            pos += n;
+            written += n;
+        }
+        return written == 0 ? -1 : written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * 读取下一个非空数据行并转换为一行 COPY 输入；文件结束返回 false
+     */
+    private boolean advance() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) {
+                return false;
+            }
+            lineNo++;
+            if (lineNo == 1 && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                line = line.substring(1);
+            }
+        } while (line.isBlank());
+
+        if (FORMAT_CSV.equals(format) && csvColumns == null) {
+            csvColumns = parseHeader(line);
+            return advance();
+        }
+
+        seq++;
+        if (seq > maxItems) {
+            throw new BusinessException("CBB015", "批量文件超过限制（最多" + maxItems + "笔）", 400);
+        }
+        String[] row;
+        try {
+            row = FORMAT_CSV.equals(format) ? fromCsv(line) : fromNdjson(line);
+        } catch (IllegalArgumentException e) {
+            rejected++;
+            current = copyRow(null, null, null, null, "failed", "CBV003", "第 " + lineNo + " 行格式错误: " + e.getMessage());
+            pos = 0;
+            return true;
+        }
+        current = copyRow(row[0], row[1], row[2], row[3], "pending", null, null);
+        pos = 0;
+        return true;
+    }
+
+    private String[] fromNdjson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("不是合法的 JSON 对象");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("不是合法的 JSON 对象");
+        }
+        return normalize(text(node, "fromAccountId"), text(node, "toAccountId"), text(node, "amount"), text(node, "remark"));
+    }
+
+    private String[] fromCsv(String line) {
+        List<String> fields = splitCsv(line);
+        return normalize(field(fields, "fromaccountid"), field(fields, "toaccountid"),
+                field(fields, "amount"), field(fields, "remark"));
+    }
+
+    /**
+     * 校验并规范化字段；账户存在性、状态、余额等在执行阶段逐笔校验
+     */
+    private static String[] normalize(String from, String to, String amount, String remark) {
+        long fromId = parseId(from, "fromAccountId");
+        long toId = parseId(to, "toAccountId");
+        if (amount == null || amount.isBlank()) {
+            throw new IllegalArgumentException("amount 不能为空");
+        }
+        BigDecimal value;
+        try {
+            value = new BigDecimal(amount.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("amount 不是合法金额");
+        }
+        if (value.signum() <= 0 || value.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("amount 必须大于 0 且最多两位小数");
+        }
+        if (remark != null && remark.length() > MAX_REMARK_LENGTH) {
+            throw new IllegalArgumentException("remark 超过 " + MAX_REMARK_LENGTH + " 字符");
+        }
+        return new String[]{Long.toString(fromId), Long.toString(toId), value.setScale(2).toPlainString(), remark};
+    }
+
+    private static long parseId(String value, String name) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(name + " 不能为空");
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " 不是合法账户 ID");
+        }
+    }
+
+    private static String text(JsonNode node, String name) {
+        JsonNode v = node.get(name);
+        return v == null || v.isNull() ? null : v.asText();
+    }
+
+    private Map<String, Integer> parseHeader(String line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("fromaccountid") || !columns.containsKey("toaccountid") || !columns.containsKey("amount")) {
+            throw new BusinessException("CBV003", "CSV 表头需包含 fromAccountId,toAccountId,amount", 400);
+        }
+        return columns;
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer idx = csvColumns.get(column);
+        return idx == null || idx >= fields.size() ? null : fields.get(idx);
+    }
+
+    /**
+     * 单行 CSV 拆分：支持双引号包裹与 "" 转义，不支持跨行字段
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        sb.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    sb.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("引号未闭合");
+        }
+        fields.add(sb.toString());
+        return fields;
+    }
+
+    /**
+     * 一行 COPY 输入：job_id, seq, from_account_id, to_account_id, amount, remark, status, error_code, message。
+     * null 输出为未加引号的空字段（COPY csv 视为 NULL），文本字段一律加引号。
+     */
+    private String copyRow(String from, String to, String amount, String remark,
+                           String status, String errorCode, String message) {
+        return jobId + "," + seq + ","
+                + nullable(from) + "," + nullable(to) + "," + nullable(amount) + ","
+                + quote(remark) + "," + status + "," + quote(errorCode) + "," + quote(message) + "\n";
+    }
+
+    private static String nullable(String v) {
+        return v == null ? "" : v;
+    }
+
+    private static String quote(String v) {
+        return v == null ? "" : "\"" + v.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -60,6 +60,7 @@ public class CustomerService {
      *
      * @throws BusinessException CBB006 客户不存在
      */
+    @Transactional(readOnly = true)
     public Customer getCustomerById(Long id) {
         return customerRepository.findById(id)
                 .orElseThrow(() -> {
@@ -0,0 +1,431 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.dto.DebitRequest;
+import com.digitalbank.core.dto.DebitResponse;
+import com.digitalbank.core.entity.OutboxEvent;
+import com.digitalbank.core.entity.Transaction;
+import com.digitalbank.core.exception.BusinessException;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.TransactionRepository;
+import com.digitalbank.core.repository.TransactionRepositoryCustom.ClaimedPayment;
+import com.digitalbank.core.repository.TransactionRepositoryCustom.PaymentClaim;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 支付扣款合并提交（group commit，可选）。
+ * 并发到达的 debit 请求入队，由单个调度线程按时间窗口（window-ms）或条数（max-batch-size）凑批，
+ * 整批在一个数据库事务内完成：按账户 id 顺序的幂等占位与条件 UPDATE 扣款、outbox 事件（及先查后写模式下的流水）
+ * 批量写入（pooled 序列 + reWriteBatchedInserts 下为多行 INSERT），一次提交。
+ * <p>
+ * 幂等与单笔路径一致：近期已提交的 refId 由 {@link RecentRefIdCache} 在入事务前直接返回；
+ * insert-first（transaction.idempotency.insert-first，默认）下整批经 debit_payments_batch（V26）一次调用完成
+ * 占位、条件扣款与带 balance_after 的流水写入；条件扣款未命中的笔数逐笔走单笔路径，失败时在同一事务内撤销占位，
+ * 其余照常提交。先查后写模式下一次批量查询整批 refId。
+ * <p>
+ * 每个调用方仍拿到自己的 DebitResponse 或 BusinessException；批内余额不足/冻结等只影响该笔。
+ * 整批事务失败（如并发单笔请求抢先写入同一 refId）时逐笔回退到 {@link TransactionService#debit}，
+ * 由单笔路径保证幂等与错误码一致。关闭（transaction.group-commit.enabled=false）时直接走单笔路径。
+ *
+ * @author Digital Bank POC Team
+ */
+@Service
+public class DebitGroupCommitter {
+
+    private static final Logger log = LoggerFactory.getLogger(DebitGroupCommitter.class);
+
+    private final TransactionService transactionService;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final OutboxService outboxService;
+    private final ShardedAccountService shardedAccountService;
+    private final TransactionIdGenerator idGenerator;
+    private final BalanceCache balanceCache;
+    private final RecentRefIdCache recentRefIdCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean insertFirstIdempotency;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutMs;
+    private final BlockingQueue<PendingDebit> queue;
+
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    public DebitGroupCommitter(TransactionService transactionService,
+                               AccountRepository accountRepository,
+                               TransactionRepository transactionRepository,
+                               OutboxService outboxService,
+                               ShardedAccountService shardedAccountService,
+                               TransactionIdGenerator idGenerator,
+                               BalanceCache balanceCache,
+                               RecentRefIdCache recentRefIdCache,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${transaction.group-commit.enabled:false}") boolean enabled,
+                               @Value("${transaction.group-commit.window-ms:2}") long windowMs,
+                               @Value("${transaction.group-commit.max-batch-size:64}") int maxBatchSize,
+                               @Value("${transaction.group-commit.queue-capacity:10000}") int queueCapacity,
+                               @Value("${transaction.group-commit.timeout-ms:5000}") long timeoutMs,
+                               @Value("${transaction.idempotency.insert-first:true}") boolean insertFirstIdempotency) {
+        this.transactionService = transactionService;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.outboxService = outboxService;
+        this.shardedAccountService = shardedAccountService;
+        this.idGenerator = idGenerator;
+        this.balanceCache = balanceCache;
+        this.recentRefIdCache = recentRefIdCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(50, windowMs)));
+        this.maxBatchSize = Math.max(1, Math.min(500, maxBatchSize));
+        this.timeoutMs = Math.max(100, timeoutMs);
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+        this.insertFirstIdempotency = insertFirstIdempotency;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "debit-group-commit");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("debit 合并提交已启用, windowNanos={}, maxBatchSize={}", windowNanos, maxBatchSize);
+    }
+
+    /**
+     * 关闭时停止接收新请求，已入队的请求由调度线程处理完再退出。
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.join(timeoutMs);
+        }
+    }
+
+    /**
+     * 支付扣款入口：启用时入队等待所在批次提交，否则（或队列已满/正在关闭）走单笔事务。
+     *
+     * @throws BusinessException 与 {@link TransactionService#debit} 相同；等待超时抛 CBS001（504），可用同一 refId 重试
+     */
+    public DebitResponse debit(DebitRequest request) {
+        if (!running || shardedAccountService.isSharded(request.getAccountId())) {
+            // 已知分片账户扣款需要归集分片，保持单笔路径；缓存未覆盖的分片账户在批内条件扣款未命中后加锁处理
+            return transactionService.debit(request);
+        }
+        PendingDebit pending = new PendingDebit(request);
+        if (!queue.offer(pending)) {
+            log.debug("debit 合并队列已满，走单笔路径, refId={}", request.getRefId());
+            return transactionService.debit(request);
+        }
+        try {
+            return pending.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BusinessException be) {
+                throw be;
+            }
+            throw new BusinessException("CBS001", "扣款执行失败: " + e.getCause().getMessage(), 500);
+        } catch (TimeoutException e) {
+            throw new BusinessException("CBS001", "扣款处理超时，请使用同一 refId 重试", 504);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("CBS001", "扣款处理被中断，请使用同一 refId 重试", 503);
+        }
+    }
+
+    private void dispatchLoop() {
+        List<PendingDebit> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingDebit first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingDebit next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commitBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                // commitBatch 已兜底；此处仅防止调度线程意外退出
+                log.error("debit 合并调度异常, err={}", e.getMessage(), e);
+                batch.forEach(p -> p.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        // 中断退出时仍在队列中的请求逐笔处理，不让调用方空等
+        PendingDebit left;
+        while ((left = queue.poll()) != null) {
+            runSingle(left);
+        }
+    }
+
+    /**
+     * 提交一批扣款。校验失败的请求立即返回；其余在一个事务中执行，提交成功后再逐个完成调用方。
+     */
+    void commitBatch(List<PendingDebit> batch) {
+        // 同批同 refId 只执行一次，后续请求共享结果
+        Map<String, List<PendingDebit>> byRefId = new LinkedHashMap<>();
+        for (PendingDebit p : batch) {
+            BusinessException invalid = validate(p.request);
+            if (invalid != null) {
+                p.future.completeExceptionally(invalid);
+                continue;
+            }
+            DebitResponse cached = recentRefIdCache.get(p.refId);
+            if (cached != null) {
+                p.future.complete(cached);
+                continue;
+            }
+            byRefId.computeIfAbsent(p.refId, k -> new ArrayList<>()).add(p);
+        }
+        if (byRefId.isEmpty()) {
+            return;
+        }
+
+        Map<String, Outcome> outcomes;
+        try {
+            outcomes = transactionTemplate.execute(status -> applyInTransaction(byRefId));
+        } catch (Exception e) {
+            log.warn("debit 合并提交失败，逐笔回退, size={}, err={}", byRefId.size(), e.getMessage());
+            byRefId.values().forEach(group -> {
+                PendingDebit leader = group.get(0);
+                runSingle(leader);
+                group.subList(1, group.size()).forEach(p -> leader.future.whenComplete((r, ex) -> {
+                    if (ex != null) {
+                        p.future.completeExceptionally(ex);
+                    } else {
+                        p.future.complete(r);
+                    }
+                }));
+            });
+            return;
+        }
+
+        outcomes.forEach((refId, outcome) -> byRefId.get(refId).forEach(p -> {
+            if (outcome.error != null) {
+                p.future.completeExceptionally(outcome.error);
+            } else {
+                p.future.complete(outcome.response);
+            }
+        }));
+        log.debug("debit 合并提交完成, requests={}, distinctRefIds={}", batch.size(), outcomes.size());
+    }
+
+    private Map<String, Outcome> applyInTransaction(Map<String, List<PendingDebit>> byRefId) {
+        Map<String, Outcome> outcomes = new LinkedHashMap<>();
+
+        if (!insertFirstIdempotency) {
+            // 先查后写：一次查出整批已存在的 refId
+            for (Transaction t : transactionRepository.findByRefIdIn(byRefId.keySet())) {
+                outcomes.put(t.getRefId(), replay(t));
+            }
+        }
+
+        // 按账户 id 顺序占位与加锁（条件 UPDATE 隐式行锁），与转账路径一致避免死锁；同账户内保持到达顺序
+        List<PendingDebit> todo = new ArrayList<>();
+        byRefId.forEach((refId, group) -> {
+            if (!outcomes.containsKey(refId)) {
+                todo.add(group.get(0));
+            }
+        });
+        todo.sort(Comparator.comparing(p -> p.request.getAccountId()));
+
+        List<Transaction> records = new ArrayList<>(todo.size());
+        List<OutboxEvent> events = new ArrayList<>(todo.size());
+        if (insertFirstIdempotency) {
+            applyInsertFirst(todo, outcomes, events);
+        } else {
+            for (PendingDebit p : todo) {
+                Long accountId = p.request.getAccountId();
+                BigDecimal amount = p.request.getAmount();
+                String txId = idGenerator.nextId();
+                BigDecimal balanceAfter;
+                Optional<BigDecimal> after = accountRepository.debitIfSufficient(accountId, amount);
+                if (after.isPresent()) {
+                    balanceAfter = after.get();
+                } else {
+                    // 条件 UPDATE 不命中分片账户：由单笔路径锁主行并按加锁行的 shard_count 归集分片，或还原错误码
+                    try {
+                        balanceAfter = transactionService.debitOnGuardMiss(accountId, amount, "账户已冻结");
+                    } catch (BusinessException e) {
+                        outcomes.put(p.refId, Outcome.failed(e));
+                        continue;
+                    }
+                }
+                records.add(TransactionService.paymentRecord(txId, accountId, amount, balanceAfter,
+                        p.request.getRemark(), p.refId));
+                completed(p, txId, outcomes, events);
+            }
+        }
+
+        if (!records.isEmpty()) {
+            transactionRepository.saveAll(records);
+        }
+        if (!events.isEmpty()) {
+            outboxService.recordEvents(events);
+        }
+        return outcomes;
+    }
+
+    /**
+     * insert-first：整批占位、扣款与流水写入经 debit_payments_batch 一次往返完成，
+     * 只有条件扣款未命中的笔数（分片账户/余额不足/冻结）再逐笔走单笔路径归集或还原错误码。
+     */
+    private void applyInsertFirst(List<PendingDebit> todo, Map<String, Outcome> outcomes, List<OutboxEvent> events) {
+        List<PaymentClaim> claims = new ArrayList<>(todo.size());
+        for (PendingDebit p : todo) {
+            claims.add(new PaymentClaim(idGenerator.nextId(), p.request.getAccountId(), p.request.getAmount(),
+                    p.request.getRemark(), p.refId));
+        }
+        // 账户不存在时外键异常使整批事务失败，逐笔回退由单笔路径返回 CBB001
+        List<ClaimedPayment> results = transactionRepository.debitPaymentsBatch(claims);
+
+        List<String> duplicates = new ArrayList<>();
+        for (int i = 0; i < todo.size(); i++) {
+            PendingDebit p = todo.get(i);
+            PaymentClaim claim = claims.get(i);
+            ClaimedPayment result = results.get(i);
+            if (result.duplicate()) {
+                // refId 已被（已提交的）先到请求占用：返回其结果，不扣款
+                duplicates.add(p.refId);
+                continue;
+            }
+            if (!result.debited()) {
+                BigDecimal balanceAfter;
+                try {
+                    balanceAfter = transactionService.debitOnGuardMiss(claim.accountId(), claim.amount(), "账户已冻结");
+                } catch (BusinessException e) {
+                    transactionRepository.releasePaymentClaim(result.id(), p.refId);
+                    outcomes.put(p.refId, Outcome.failed(e));
+                    continue;
+                }
+                if (balanceAfter != null) {
+                    transactionRepository.updateBalanceAfter(result.id(), balanceAfter);
+                }
+            }
+            completed(p, claim.transactionId(), outcomes, events);
+        }
+
+        if (!duplicates.isEmpty()) {
+            for (Transaction t : transactionRepository.findByRefIdIn(duplicates)) {
+                outcomes.put(t.getRefId(), replay(t));
+            }
+            for (String refId : duplicates) {
+                if (!outcomes.containsKey(refId)) {
+                    throw new BusinessException("CBS001", "幂等记录读取失败", 500);
+                }
+            }
+        }
+    }
+
+    /**
+     * 扣款已记账：提交后失效余额缓存与记录 refId 结果，并加入本批 outbox 事件
+     */
+    private void completed(PendingDebit p, String txId, Map<String, Outcome> outcomes, List<OutboxEvent> events) {
+        Long accountId = p.request.getAccountId();
+        BigDecimal amount = p.request.getAmount();
+        balanceCache.evictAfterCommit(accountId);
+        events.add(outboxService.buildEvent(
+                TransactionService.EVENT_PAYMENT_DEBIT_COMPLETED,
+                "payment",
+                p.refId,
+                p.refId,
+                TransactionService.paymentPayload(txId, accountId, amount, p.refId)));
+        DebitResponse response = new DebitResponse(txId, accountId, amount, TransactionService.STATUS_COMPLETED);
+        recentRefIdCache.putAfterCommit(p.refId, response);
+        outcomes.put(p.refId, Outcome.ok(response));
+    }
+
+    private Outcome replay(Transaction t) {
+        DebitResponse response = new DebitResponse(t.getTransactionId(), t.getAccountId(), t.getAmount(), t.getStatus());
+        recentRefIdCache.putAfterCommit(t.getRefId(), response);
+        return Outcome.ok(response);
+    }
+
+    private void runSingle(PendingDebit p) {
+        try {
+            p.future.complete(transactionService.debit(p.request));
+        } catch (Exception e) {
+            p.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 与单笔路径相同的入参校验，失败时不进入批次。
+     */
+    private static BusinessException validate(DebitRequest request) {
+        if (request.getRefId() == null || request.getRefId().trim().isEmpty()) {
+            return new BusinessException("CBV003", "refId 不能为空", 400);
+        }
+        BigDecimal amount = request.getAmount();
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return new BusinessException("CBV002", "金额必须大于 0", 400);
+        }
+        return null;
+    }
+
+    static final class PendingDebit {
+        final DebitRequest request;
+        final String refId;
+        final CompletableFuture<DebitResponse> future = new CompletableFuture<>();
+
+        PendingDebit(DebitRequest request) {
+            this.request = request;
+            this.refId = request.getRefId() != null ? request.getRefId().trim() : "";
+        }
+    }
+
+    private static final class Outcome {
+        final DebitResponse response;
+        final BusinessException error;
+
+        private Outcome(DebitResponse response, BusinessException error) {
+            this.response = response;
+            this.error = error;
+        }
+
+        static Outcome ok(DebitResponse response) {
+            return new Outcome(response, null);
+        }
+
+        static Outcome failed(BusinessException error) {
+            return new Outcome(null, error);
+        }
+    }
+}
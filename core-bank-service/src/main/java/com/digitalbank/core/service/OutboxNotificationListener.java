@@ -0,0 +1,130 @@
+package com.digitalbank.core.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Outbox 写入通知监听：写入事务提交后由 {@link OutboxWakeup} 合并发出 NOTIFY outbox_events（V25 起不再由表触发器发出）。
+ * <p>
+ * 独占一条直连主库的 LISTEN 连接（不占用 Hikari 连接池，也不经过读副本路由），
+ * 收到通知即在本线程调用 {@link OutboxPublisher#drain()}，新事件无需等待轮询间隔。
+ * 投递期间到达的通知在连接上排队，drain 结束后立即再收一轮。
+ * 连接断开时按 reconnect-delay-ms 重连，重连成功后先 drain 一次补上断线期间漏收的通知；
+ * publisher 的定时轮询仍保留为低频兜底。
+ *
+ * @author Digital Bank POC Team
+ */
+@Component
+@ConditionalOnProperty(prefix = "outbox.publisher", name = {"enabled", "listen-enabled"}, havingValue = "true")
+public class OutboxNotificationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxNotificationListener.class);
+
+    public static final String CHANNEL = "outbox_events";
+
+    private final OutboxPublisher outboxPublisher;
+    private final DataSourceProperties dataSourceProperties;
+    private final int waitTimeoutMs;
+    private final long reconnectDelayMs;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread listener;
+
+    public OutboxNotificationListener(OutboxPublisher outboxPublisher,
+                                      DataSourceProperties dataSourceProperties,
+                                      @Value("${outbox.publisher.listen-wait-timeout-ms:10000}") int waitTimeoutMs,
+                                      @Value("${outbox.publisher.listen-reconnect-delay-ms:5000}") long reconnectDelayMs) {
+        this.outboxPublisher = outboxPublisher;
+        this.dataSourceProperties = dataSourceProperties;
+        this.waitTimeoutMs = Math.max(100, waitTimeoutMs);
+        this.reconnectDelayMs = Math.max(100, reconnectDelayMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = new Thread(this::listenLoop, "outbox-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        closeQuietly(connection);
+        if (listener != null) {
+            listener.interrupt();
+            listener.join(waitTimeoutMs);
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection c = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                connection = c;
+                c.setAutoCommit(true);
+                try (Statement statement = c.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("outbox 通知监听已连接, channel={}", CHANNEL);
+                PGConnection pg = c.unwrap(PGConnection.class);
+                drainQuietly();
+                while (running) {
+                    // 超时返回空数组；连接已断开时抛 SQLException
+                    PGNotification[] notifications = pg.getNotifications(waitTimeoutMs);
+                    if (notifications != null && notifications.length > 0) {
+                        drainQuietly();
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("outbox 通知监听连接异常，{}ms 后重连, err={}", reconnectDelayMs, e.getMessage());
+                }
+            } finally {
+                connection = null;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void drainQuietly() {
+        try {
+            outboxPublisher.drain();
+        } catch (Exception e) {
+            log.warn("outbox 唤醒投递失败，等待下次通知或轮询, err={}", e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        if (c == null) {
+            return;
+        }
+        try {
+            c.close();
+        } catch (SQLException ignore) {
+            // 关闭时忽略
+        }
+    }
+}
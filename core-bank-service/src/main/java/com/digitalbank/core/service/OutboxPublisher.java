@@ -2,10 +2,18 @@ package com.digitalbank.core.service;
 
 import com.digitalbank.core.client.PaymentCallbackRequestDto;
 import com.digitalbank.core.client.PaymentClient;
+import com.digitalbank.core.config.ConnectionAwareExecutor;
+import com.digitalbank.core.config.OutboxRetryProperties;
 import com.digitalbank.core.entity.OutboxEvent;
 import com.digitalbank.core.repository.OutboxEventRepository;
+import com.digitalbank.core.repository.OutboxEventRepositoryCustom.DeliveryResult;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,13 +22,34 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.net.InetAddress;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Outbox 轮询发布器（可选）：从 outbox_events 领取 pending 事件并投递到下游。
- * - 使用 FOR UPDATE SKIP LOCKED 避免多实例竞争
- * - 失败时重试（maxAttempts 达到后标记 failed）
+ * Outbox 发布器（可选）：从 outbox_events 领取 pending 事件并投递到下游。
+ * - 事件驱动：{@link OutboxNotificationListener} 收到写入唤醒（{@link OutboxWakeup} 提交后合并发出的 NOTIFY）后立即 {@link #drain()}；
+ *   定时轮询（poll-interval-ms）仅作兜底，覆盖漏收通知与待重试事件
+ * - 使用 FOR UPDATE SKIP LOCKED 避免多实例及通知/轮询并发领取同一事件
+ * - 领取带租约（V18，lease-seconds）：投递期间按 heartbeat-interval-ms 续约；实例宕机后其持有的 processing 事件
+ *   在租约到期时由任一实例重新领取（计一次尝试），不再需要人工重置。单条投递耗时应远小于租约时长
+ * - 并行投递：领取时每个聚合（aggregate_type + aggregate_id）只取最早一条未完成事件（V17），
+ *   因此同一批内的事件互不相关，全部提交到 dispatch 执行器并行投递（虚拟线程可用时使用，并发上限 concurrency）；
+ *   同一聚合的后续事件要等前一条 sent/failed 后才能被领取，保证聚合内严格有序（含多实例）
+ * - 失败时按事件类型的重试策略（{@link OutboxRetryProperties}）退避：写入 next_attempt_at（V19），到期前不会被领取，
+ *   下游故障期间不再每轮反复领取同一批队首事件；失败次数达到 max-attempts 后标记 failed，不再阻塞同一聚合的后续事件
+ * - 投递结果按批回写（一条 UPDATE ... FROM unnest），并与下一批领取合并为一个事务
+ * 暴露 corebank.outbox.dispatch.in_flight / queued 与 corebank.outbox.delivery{eventType,outcome} 指标。
  */
 @Component
 @ConditionalOnProperty(prefix = "outbox.publisher", name = "enabled", havingValue = "true")
@@ -31,43 +60,186 @@ public class OutboxPublisher {
     private final OutboxEventRepository outboxEventRepository;
     private final PaymentClient paymentClient;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ConnectionAwareExecutor dispatchExecutor;
     private final int batchSize;
-    private final int maxAttempts;
+    private final OutboxRetryProperties retryProperties;
+    private final long leaseSeconds;
+    private final String owner;
+    private final long heartbeatIntervalMs;
+    private final ScheduledExecutorService heartbeatScheduler;
+    private final AtomicInteger activeDrains = new AtomicInteger();
+    private final Map<TimerKey, Timer> deliveryTimers = new ConcurrentHashMap<>();
 
     public OutboxPublisher(OutboxEventRepository outboxEventRepository,
                            PaymentClient paymentClient,
                            ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           OutboxRetryProperties retryProperties,
                            @Value("${outbox.publisher.batch-size:50}") int batchSize,
-                           @Value("${outbox.publisher.max-attempts:10}") int maxAttempts) {
+                           @Value("${outbox.publisher.lease-seconds:60}") long leaseSeconds,
+                           @Value("${outbox.publisher.heartbeat-interval-ms:20000}") long heartbeatIntervalMs,
+                           @Value("${outbox.publisher.dispatch.concurrency:8}") int concurrency,
+                           @Value("${outbox.publisher.dispatch.virtual-threads:true}") boolean virtualThreads,
+                           @Value("${outbox.publisher.dispatch.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
         this.outboxEventRepository = outboxEventRepository;
         this.paymentClient = paymentClient;
         this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
         this.batchSize = Math.max(1, Math.min(200, batchSize));
-        this.maxAttempts = Math.max(1, Math.min(100, maxAttempts));
+        this.retryProperties = retryProperties;
+        this.leaseSeconds = Math.max(5, leaseSeconds);
+        this.owner = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        // 续约间隔不超过租约的 1/3，留出两次失败的余量
+        this.heartbeatIntervalMs = Math.max(100, Math.min(heartbeatIntervalMs, this.leaseSeconds * 1000 / 3));
+        this.heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "outbox-lease-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        this.dispatchExecutor = new ConnectionAwareExecutor("outbox-dispatch", concurrency, virtualThreads, shutdownTimeoutMs);
+        Gauge.builder("corebank.outbox.dispatch.in_flight", dispatchExecutor, ConnectionAwareExecutor::getInFlight)
+                .description("正在投递的 outbox 事件数")
+                .register(meterRegistry);
+        Gauge.builder("corebank.outbox.dispatch.queued", dispatchExecutor, ConnectionAwareExecutor::getQueued)
+                .description("已领取、等待投递许可的 outbox 事件数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        heartbeatScheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs,
+                TimeUnit.MILLISECONDS);
+        log.info("outbox 发布器启动, owner={}, leaseSeconds={}, heartbeatIntervalMs={}", owner, leaseSeconds, heartbeatIntervalMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatchExecutor.shutdown();
+        heartbeatScheduler.shutdownNow();
     }
 
     @Scheduled(fixedDelayString = "${outbox.publisher.poll-interval-ms:1000}")
     public void pollAndPublish() {
-        List<OutboxEvent> events = outboxEventRepository.claimPending(batchSize);
-        if (events.isEmpty()) return;
+        drain();
+    }
+
+    /**
+     * 心跳：有批次在投递时延长本实例持有事件的租约。
+     * 在独立线程上执行：@Scheduled 默认单线程，轮询触发的长时间 drain 会挡住同一调度器上的续约
+     */
+    void heartbeat() {
+        if (activeDrains.get() == 0) {
+            return;
+        }
+        try {
+            int renewed = outboxEventRepository.renewLeases(owner, leaseUntil());
+            log.debug("outbox 租约续约, owner={}, renewed={}", owner, renewed);
+        } catch (Exception e) {
+            log.warn("outbox 租约续约失败, owner={}, err={}", owner, e.getMessage());
+        }
+    }
+
+    /**
+     * 连续领取并投递，直到领取为空（同一聚合的后续事件在前一条投递后才可领取，故不以“不满一批”为止）。
+     * 失败事件回写时带上退避后的 next_attempt_at，本轮内不会被再次领取，因此失败不中断本轮。
+     * <p>
+     * 投递结果不逐条回写：整批结果缓冲到批次结束，与下一批的领取合并在同一事务内提交
+     * （{@link OutboxEventRepository#acknowledgeAndClaim}），最后一批的结果随返回为空的那次领取一并提交。
+     *
+     * @return 本轮领取的事件数
+     */
+    public int drain() {
+        activeDrains.incrementAndGet();
+        try {
+            int claimed = 0;
+            List<OutboxEvent> events = outboxEventRepository.claimPending(owner, leaseUntil(), batchSize);
+            while (!events.isEmpty()) {
+                claimed += events.size();
+                List<DeliveryResult> results = deliverBatch(events);
+                events = outboxEventRepository.acknowledgeAndClaim(results, owner, Instant.now(),
+                        leaseUntil(), batchSize);
+            }
+            return claimed;
+        } finally {
+            activeDrains.decrementAndGet();
+        }
+    }
+
+    String getOwner() {
+        return owner;
+    }
+
+    private Instant leaseUntil() {
+        return Instant.now().plusSeconds(leaseSeconds);
+    }
 
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "core-bank";
+        }
+    }
+
+    /**
+     * 并行投递一批（批内事件分属不同聚合），等待全部完成，按领取顺序返回结果
+     */
+    private List<DeliveryResult> deliverBatch(List<OutboxEvent> events) {
+        List<CompletableFuture<DeliveryResult>> futures = new ArrayList<>(events.size());
         for (OutboxEvent e : events) {
-            try {
-                publishOne(e);
-                outboxEventRepository.markSent(e.getId(), Instant.now());
-            } catch (Exception ex) {
-                String err = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
-                if (e.getAttempts() + 1 >= maxAttempts) {
-                    outboxEventRepository.markFailed(e.getId(), err, Instant.now());
-                    log.warn("outbox 投递失败(已达最大重试), id={}, eventType={}, err={}", e.getId(), e.getEventType(), err);
-                } else {
-                    outboxEventRepository.markRetry(e.getId(), err, Instant.now());
-                    log.warn("outbox 投递失败(将重试), id={}, eventType={}, err={}", e.getId(), e.getEventType(), err);
-                }
+            futures.add(CompletableFuture.supplyAsync(() -> deliver(e), dispatchExecutor));
+        }
+        List<DeliveryResult> results = new ArrayList<>(events.size());
+        for (CompletableFuture<DeliveryResult> f : futures) {
+            results.add(f.join());
+        }
+        return results;
+    }
+
+    private DeliveryResult deliver(OutboxEvent e) {
+        long start = System.nanoTime();
+        String outcome = "sent";
+        try {
+            publishOne(e);
+            return DeliveryResult.sent(e);
+        } catch (Exception ex) {
+            String err = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+            OutboxRetryProperties.Policy policy = retryProperties.policyFor(e.getEventType());
+            int failures = e.getAttempts() + 1;
+            if (policy.exhausted(failures)) {
+                outcome = "failed";
+                log.warn("outbox 投递失败(已达最大重试), id={}, eventType={}, err={}", e.getId(), e.getEventType(), err);
+                return DeliveryResult.failed(e, err);
             }
+            outcome = "retry";
+            Instant nextAttemptAt = policy.nextAttemptAt(Instant.now(), failures, ThreadLocalRandom.current().nextDouble());
+            log.warn("outbox 投递失败(将重试), id={}, eventType={}, nextAttemptAt={}, err={}",
+                    e.getId(), e.getEventType(), nextAttemptAt, err);
+            return DeliveryResult.retry(e, err, nextAttemptAt);
+        } finally {
+            deliveryTimer(e.getEventType() != null ? e.getEventType() : "", outcome)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
+    /**
+     * 每个 (eventType, outcome) 只注册一次：Timer.builder(...).register 每次都要构造 Meter.Id 并查注册表，
+     * 投递热路径上改为查本地缓存
+     */
+    private Timer deliveryTimer(String eventType, String outcome) {
+        return deliveryTimers.computeIfAbsent(new TimerKey(eventType, outcome),
+                k -> Timer.builder("corebank.outbox.delivery")
+                        .description("outbox 单条事件投递耗时（不含结果回写）")
+                        .tag("eventType", k.eventType())
+                        .tag("outcome", k.outcome())
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry));
+    }
+
+    private record TimerKey(String eventType, String outcome) {
+    }
+
     private void publishOne(OutboxEvent e) throws Exception {
         String type = e.getEventType() != null ? e.getEventType() : "";
         if ("PAYMENT_DEBIT_COMPLETED".equalsIgnoreCase(type)) {
@@ -9,10 +9,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Map;
 
 /**
  * Outbox 写入服务：与业务数据同事务落库，保证最终一致性。
+ * 写入后登记提交后唤醒（{@link OutboxWakeup}），publisher 无需等待轮询间隔。
  */
 @Service
 public class OutboxService {
@@ -21,10 +23,12 @@ public class OutboxService {
 
     private final OutboxEventRepository outboxEventRepository;
     private final ObjectMapper objectMapper;
+    private final OutboxWakeup outboxWakeup;
 
-    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper, OutboxWakeup outboxWakeup) {
         this.outboxEventRepository = outboxEventRepository;
         this.objectMapper = objectMapper;
+        this.outboxWakeup = outboxWakeup;
     }
 
     @Transactional
@@ -33,19 +37,48 @@ public class OutboxService {
                                    String aggregateId,
                                    String idempotencyKey,
                                    Map<String, Object> payload) {
-        String payloadJson = toJson(payload);
+        OutboxEvent saved = outboxEventRepository.save(buildEvent(eventType, aggregateType, aggregateId, idempotencyKey, payload));
+        outboxWakeup.signalAfterCommit();
+        log.debug("outbox 事件写入, id={}, eventType={}, aggregateType={}, aggregateId={}",
+                saved.getId(), eventType, aggregateType, aggregateId);
+        return saved;
+    }
+
+    /**
+     * 批量写入 outbox 事件（同事务）。pooled 序列 + JDBC 批处理下 flush 时合并为多行 INSERT。
+     */
+    @Transactional
+    public List<OutboxEvent> recordEvents(List<OutboxEvent> events) {
+        List<OutboxEvent> saved = outboxEventRepository.saveAll(events);
+        outboxWakeup.signalAfterCommit();
+        log.debug("outbox 事件批量写入, count={}", saved.size());
+        return saved;
+    }
+
+    /**
+     * 事件由 SQL 函数（如 execute_transfer）在数据库内写入时，由调用方在同一事务内登记提交后唤醒
+     */
+    public void wakeupAfterCommit() {
+        outboxWakeup.signalAfterCommit();
+    }
+
+    /**
+     * 构造待写入的 pending 事件（不落库），供 {@link #recordEvents(List)} 批量写入。
+     */
+    public OutboxEvent buildEvent(String eventType,
+                                  String aggregateType,
+                                  String aggregateId,
+                                  String idempotencyKey,
+                                  Map<String, Object> payload) {
         OutboxEvent e = new OutboxEvent();
         e.setEventType(eventType);
         e.setAggregateType(aggregateType);
         e.setAggregateId(aggregateId);
         e.setIdempotencyKey(idempotencyKey);
-        e.setPayload(payloadJson);
+        e.setPayload(toJson(payload));
         e.setHeaders(null);
         e.setStatus("pending");
-        OutboxEvent saved = outboxEventRepository.save(e);
-        log.debug("outbox 事件写入, id={}, eventType={}, aggregateType={}, aggregateId={}",
-                saved.getId(), eventType, aggregateType, aggregateId);
-        return saved;
+        return e;
     }
 
     private String toJson(Object obj) {
@@ -0,0 +1,95 @@
+package com.digitalbank.core.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Outbox 写入后的唤醒信号，替代 V16 的表触发器（V25 已移除）。
+ * <p>
+ * 调用 NOTIFY 的事务在提交时要取全局通知队列锁，提交因此串行化；触发器让每笔扣款/转账事务都带上这把锁。
+ * 改为写入事务提交后只置位，由单个发送线程在 coalesce-ms 内合并，以一条独立的自动提交语句
+ * {@code SELECT pg_notify('outbox_events', '')} 发出（多实例的 publisher 均可收到），支付事务本身不再 NOTIFY。
+ * 发送失败只记日志：通知只是唤醒信号，漏发由 publisher 的兜底轮询覆盖。
+ *
+ * @author Digital Bank POC Team
+ */
+@Component
+public class OutboxWakeup {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxWakeup.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long coalesceMs;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final ScheduledExecutorService sender;
+
+    @Autowired
+    public OutboxWakeup(JdbcTemplate jdbcTemplate,
+                        @Value("${outbox.wakeup.enabled:true}") boolean enabled,
+                        @Value("${outbox.wakeup.coalesce-ms:20}") long coalesceMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.coalesceMs = Math.max(0, coalesceMs);
+        this.sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "outbox-wakeup");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * 当前事务提交后发出唤醒（回滚不发）；不在事务内时立即发出
+     */
+    public void signalAfterCommit() {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    signal();
+                }
+            });
+        } else {
+            signal();
+        }
+    }
+
+    /**
+     * 合并窗口内已有待发信号时不再排队
+     */
+    void signal() {
+        if (pending.compareAndSet(false, true)) {
+            sender.schedule(this::send, coalesceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void send() {
+        // 先清标志再发送：发送期间提交的写入会排入下一条通知
+        pending.set(false);
+        try {
+            jdbcTemplate.execute("SELECT pg_notify('" + OutboxNotificationListener.CHANNEL + "', '')");
+        } catch (Exception e) {
+            log.debug("outbox 唤醒通知发送失败，等待兜底轮询, err={}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.digitalbank.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 启动时检查当月与下月的 transactions / outbox_events 分区。没有 DEFAULT 分区，缺失月份的写入（含支付事务）会失败，
+ * 因此缺失时启动失败，不带着必然失败的写入路径接流量。分区维护开启时先预建一次（预建失败不中断，以检查结果为准）。
+ */
+@Component
+public class PartitionCoverageVerifier implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionCoverageVerifier.class);
+
+    private final PartitionMaintenanceService partitionMaintenanceService;
+    private final boolean maintenanceEnabled;
+    private final boolean verifyOnStartup;
+
+    public PartitionCoverageVerifier(PartitionMaintenanceService partitionMaintenanceService,
+                                     @Value("${partition.maintenance.enabled:true}") boolean maintenanceEnabled,
+                                     @Value("${partition.maintenance.verify-on-startup:true}") boolean verifyOnStartup) {
+        this.partitionMaintenanceService = partitionMaintenanceService;
+        this.maintenanceEnabled = maintenanceEnabled;
+        this.verifyOnStartup = verifyOnStartup;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!verifyOnStartup) {
+            return;
+        }
+        if (maintenanceEnabled) {
+            try {
+                partitionMaintenanceService.ensureFuturePartitions();
+            } catch (Exception e) {
+                log.warn("启动时预建分区失败, err={}", e.getMessage());
+            }
+        }
+        List<String> missing = partitionMaintenanceService.missingRequiredPartitions();
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("当月/下月分区缺失，写入将失败: " + missing
+                    + "；请执行 SELECT ensure_monthly_partitions(...) 或检查分区维护任务");
+        }
+    }
+}
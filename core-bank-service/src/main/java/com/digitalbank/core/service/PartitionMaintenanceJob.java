@@ -0,0 +1,49 @@
+package com.digitalbank.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 分区维护任务：启动后立即执行一次，之后按 interval-ms 周期预建未来分区、分离过期分区。
+ * 预建与分离各自失败互不影响；多实例同时执行时建分区函数对已存在分区直接跳过。
+ * 预建后当月/下月分区仍缺失时记错误日志（如预建持续因锁超时失败）。
+ */
+@Component
+@ConditionalOnProperty(prefix = "partition.maintenance", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PartitionMaintenanceJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceJob.class);
+
+    private final PartitionMaintenanceService partitionMaintenanceService;
+
+    public PartitionMaintenanceJob(PartitionMaintenanceService partitionMaintenanceService) {
+        this.partitionMaintenanceService = partitionMaintenanceService;
+    }
+
+    @Scheduled(fixedDelayString = "${partition.maintenance.interval-ms:3600000}")
+    public void run() {
+        try {
+            partitionMaintenanceService.ensureFuturePartitions();
+        } catch (Exception e) {
+            log.warn("预建分区失败, err={}", e.getMessage());
+        }
+        try {
+            List<String> missing = partitionMaintenanceService.missingRequiredPartitions();
+            if (!missing.isEmpty()) {
+                log.error("当月/下月分区缺失，落在这些月份的写入将失败, missing={}", missing);
+            }
+        } catch (Exception e) {
+            log.warn("检查分区失败, err={}", e.getMessage());
+        }
+        try {
+            partitionMaintenanceService.detachExpiredPartitions();
+        } catch (Exception e) {
+            log.warn("分离过期分区失败, err={}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.repository.PartitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * transactions / outbox_events 月度分区维护（V15，分区边界为 UTC 自然月）：
+ * <ul>
+ *   <li>预建：确保当月及之后 premake-months 个月的分区存在（没有 DEFAULT 分区，写入落在未建分区会失败）；
+ *       每张表一个短事务，带 lock_timeout。新分区先以独立表建好指向 bank_accounts 的外键（V22：NOT VALID 后 VALIDATE，
+ *       空表无需扫描），这一步对 bank_accounts 取 SHARE ROW EXCLUSIVE 锁直到事务提交，期间阻塞余额 UPDATE，
+ *       因此事务只建分区、不做其他事；随后 ATTACH 复用该外键，对父表取 SHARE UPDATE EXCLUSIVE 锁</li>
+ *   <li>分离：早于保留月数的分区以 DETACH ... CONCURRENTLY 分离，不阻塞读写。
+ *       交易分区分离后保留为独立表供归档（默认不分离）；outbox 分区（默认不分离）仅在全部事件均已 sent 时分离并删除，
+ *       failed 事件是运维排查的审计记录，所在分区一直保留；删除后清理该月及之前登记的幂等键</li>
+ * </ul>
+ * 分离中断（实例重启、超时）的分区下一轮先 FINALIZE。
+ * <p>
+ * 不建 DEFAULT 分区：父表有 DEFAULT 分区时不能 DETACH ... CONCURRENTLY，且每次 ATTACH 都要扫描 DEFAULT 分区。
+ * 写入落在未建分区的月份会失败，因此当月与下月分区由 {@link #missingRequiredPartitions()} 检查：
+ * 启动时缺失则启动失败（{@link PartitionCoverageVerifier}），运行中缺失由维护任务记错误日志。
+ *
+ * @author Digital Bank POC Team
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    public static final String TRANSACTIONS = "transactions";
+    public static final String OUTBOX_EVENTS = "outbox_events";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final PartitionRepository partitionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int premakeMonths;
+    private final int transactionsRetentionMonths;
+    private final int outboxRetentionMonths;
+    private final long lockTimeoutMs;
+    private final Clock clock;
+
+    @Autowired
+    public PartitionMaintenanceService(PartitionRepository partitionRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${partition.maintenance.premake-months:3}") int premakeMonths,
+                                       @Value("${partition.maintenance.transactions-retention-months:0}") int transactionsRetentionMonths,
+                                       @Value("${partition.maintenance.outbox-retention-months:0}") int outboxRetentionMonths,
+                                       @Value("${partition.maintenance.lock-timeout-ms:5000}") long lockTimeoutMs) {
+        this(partitionRepository, new TransactionTemplate(transactionManager), premakeMonths, transactionsRetentionMonths,
+                outboxRetentionMonths, lockTimeoutMs, Clock.systemUTC());
+    }
+
+    PartitionMaintenanceService(PartitionRepository partitionRepository, TransactionTemplate transactionTemplate,
+                                int premakeMonths, int transactionsRetentionMonths, int outboxRetentionMonths,
+                                long lockTimeoutMs, Clock clock) {
+        this.partitionRepository = partitionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.premakeMonths = Math.max(1, premakeMonths);
+        this.transactionsRetentionMonths = Math.max(0, transactionsRetentionMonths);
+        this.outboxRetentionMonths = Math.max(0, outboxRetentionMonths);
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.clock = clock;
+    }
+
+    /**
+     * 预建当月至 premake-months 个月后的分区
+     *
+     * @return 新建分区数
+     */
+    public int ensureFuturePartitions() {
+        YearMonth current = currentMonth();
+        int created = 0;
+        for (String parent : List.of(TRANSACTIONS, OUTBOX_EVENTS)) {
+            Integer n = transactionTemplate.execute(status -> {
+                partitionRepository.setLocalLockTimeout(lockTimeoutMs);
+                return partitionRepository.ensureMonthlyPartitions(parent, current.atDay(1),
+                        current.plusMonths(premakeMonths).atDay(1));
+            });
+            if (n != null && n > 0) {
+                log.info("预建分区, table={}, created={}, through={}", parent, n, current.plusMonths(premakeMonths));
+                created += n;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * 分离超过保留月数的分区
+     *
+     * @return 已分离的分区名
+     */
+    public List<String> detachExpiredPartitions() {
+        List<String> detached = new ArrayList<>();
+        if (transactionsRetentionMonths > 0) {
+            detached.addAll(detachExpired(TRANSACTIONS, transactionsRetentionMonths, false));
+        }
+        if (outboxRetentionMonths > 0) {
+            detached.addAll(detachExpired(OUTBOX_EVENTS, outboxRetentionMonths, true));
+        }
+        return detached;
+    }
+
+    private List<String> detachExpired(String parent, int retentionMonths, boolean dropAfterDetach) {
+        YearMonth oldestKept = currentMonth().minusMonths(retentionMonths);
+        List<String> detached = new ArrayList<>();
+        for (PartitionRepository.Partition p : partitionRepository.listPartitions(parent)) {
+            Optional<YearMonth> month = monthOf(parent, p.name());
+            if (month.isEmpty() || !month.get().isBefore(oldestKept)) {
+                continue;
+            }
+            if (p.detachPending()) {
+                partitionRepository.finalizeDetach(parent, p.name());
+            } else {
+                if (dropAfterDetach && partitionRepository.hasUnsentEvents(p.name())) {
+                    log.warn("分区仍有未发送成功（pending/processing/failed）的事件，暂不分离, partition={}", p.name());
+                    continue;
+                }
+                partitionRepository.detachConcurrently(parent, p.name());
+            }
+            if (dropAfterDetach) {
+                partitionRepository.dropTable(p.name());
+                partitionRepository.deleteOutboxIdempotencyKeysBefore(month.get().plusMonths(1).atDay(1));
+                log.info("已分离并删除过期分区, partition={}", p.name());
+            } else {
+                log.info("已分离过期分区（保留为独立表待归档）, partition={}", p.name());
+            }
+            detached.add(p.name());
+        }
+        return detached;
+    }
+
+    /**
+     * 当月与下月中尚未建立的分区（写入按 created_at 路由，缺失月份的写入会失败）
+     *
+     * @return 缺失的分区名
+     */
+    public List<String> missingRequiredPartitions() {
+        YearMonth current = currentMonth();
+        List<String> missing = new ArrayList<>();
+        for (String parent : List.of(TRANSACTIONS, OUTBOX_EVENTS)) {
+            Set<String> existing = partitionRepository.listPartitions(parent).stream()
+                    .map(PartitionRepository.Partition::name)
+                    .collect(Collectors.toSet());
+            for (YearMonth month : List.of(current, current.plusMonths(1))) {
+                String name = parent + "_p" + month.format(SUFFIX);
+                if (!existing.contains(name)) {
+                    missing.add(name);
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * 由分区名 {parent}_pYYYYMM 解析月份；不符合命名的分区不处理
+     */
+    static Optional<YearMonth> monthOf(String parent, String partition) {
+        String prefix = parent + "_p";
+        if (!partition.startsWith(prefix) || partition.length() != prefix.length() + 6) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(partition.substring(prefix.length()), SUFFIX));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    YearMonth currentMonth() {
+        return YearMonth.now(clock.withZone(ZoneOffset.UTC));
+    }
+}
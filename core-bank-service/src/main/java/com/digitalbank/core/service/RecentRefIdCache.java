@@ -0,0 +1,90 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.dto.DebitResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 进程内近期 refId -> DebitResponse 缓存（有界 LRU + TTL），支付服务重放同一 refId 时不访问数据库。
+ * 只缓存已提交的结果：事务内写入在 afterCommit 时才生效，回滚的扣款不会被缓存。
+ * 未命中（含其它实例处理过的 refId）仍由数据库幂等保证。
+ */
+@Component
+public class RecentRefIdCache {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public RecentRefIdCache(@Value("${transaction.idempotency.cache.max-size:10000}") int maxSize,
+                            @Value("${transaction.idempotency.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlMillis = Math.max(1, ttlSeconds) * 1000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > RecentRefIdCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return 未过期的缓存结果；未命中返回 null
+     */
+    public DebitResponse get(String refId) {
+        if (maxSize == 0) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry e = entries.get(refId);
+            if (e == null) {
+                return null;
+            }
+            if (e.expiresAt < System.currentTimeMillis()) {
+                entries.remove(refId);
+                return null;
+            }
+            return e.response;
+        }
+    }
+
+    /**
+     * 在当前事务提交后缓存；无事务时立即缓存（调用方保证数据已提交）
+     */
+    public void putAfterCommit(String refId, DebitResponse response) {
+        if (maxSize == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(refId, response);
+                }
+            });
+        } else {
+            put(refId, response);
+        }
+    }
+
+    private void put(String refId, DebitResponse response) {
+        synchronized (entries) {
+            entries.put(refId, new Entry(response, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    private static final class Entry {
+        final DebitResponse response;
+        final long expiresAt;
+
+        Entry(DebitResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
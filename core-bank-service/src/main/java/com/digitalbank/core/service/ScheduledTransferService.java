@@ -18,7 +18,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -36,13 +35,16 @@ public class ScheduledTransferService {
     private final ScheduledTransferRepository scheduledTransferRepository;
     private final AccountRepository accountRepository;
     private final TransactionService transactionService;
+    private final TransactionIdGenerator idGenerator;
 
     public ScheduledTransferService(ScheduledTransferRepository scheduledTransferRepository,
                                      AccountRepository accountRepository,
-                                     TransactionService transactionService) {
+                                     TransactionService transactionService,
+                                     TransactionIdGenerator idGenerator) {
         this.scheduledTransferRepository = scheduledTransferRepository;
         this.accountRepository = accountRepository;
         this.transactionService = transactionService;
+        this.idGenerator = idGenerator;
     }
 
     /**
@@ -75,7 +77,7 @@ public class ScheduledTransferService {
 
         // 创建预约
         ScheduledTransfer scheduled = new ScheduledTransfer();
-        scheduled.setScheduledId(UUID.randomUUID().toString());
+        scheduled.setScheduledId(idGenerator.nextId());
         scheduled.setFromAccountId(fromId);
         scheduled.setToAccountId(toId);
         scheduled.setAmount(request.getAmount());
@@ -93,6 +95,7 @@ public class ScheduledTransferService {
     /**
      * 查询预约转账列表
      */
+    @Transactional(readOnly = true)
     public ScheduledTransferListResponse listScheduledTransfers(Long accountId, String status, int page, int pageSize) {
         Pageable pageable = PageRequest.of(Math.max(0, page - 1), Math.min(100, Math.max(1, pageSize)));
         Page<ScheduledTransfer> slice;
@@ -131,6 +134,7 @@ public class ScheduledTransferService {
     /**
      * 查询单个预约转账
      */
+    @Transactional(readOnly = true)
     public ScheduledTransferResponse getScheduledTransfer(String scheduledId) {
         ScheduledTransfer scheduled = scheduledTransferRepository.findByScheduledId(scheduledId)
                 .orElseThrow(() -> new BusinessException("CBB012", "预约不存在", 404));
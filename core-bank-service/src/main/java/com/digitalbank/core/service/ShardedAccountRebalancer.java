@@ -0,0 +1,41 @@
+package com.digitalbank.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * 分片账户后台重平衡：定期刷新分片账户列表，并将各分片余额归集回主行，
+ * 使扣款大多只需主行余额即可完成，无需在扣款路径上锁全部分片。
+ * 每个账户独立短事务，失败不影响其它账户。
+ */
+@Component
+@ConditionalOnProperty(prefix = "account.sharding", name = "enabled", havingValue = "true")
+public class ShardedAccountRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedAccountRebalancer.class);
+
+    private final ShardedAccountService shardedAccountService;
+
+    public ShardedAccountRebalancer(ShardedAccountService shardedAccountService) {
+        this.shardedAccountService = shardedAccountService;
+    }
+
+    @Scheduled(fixedDelayString = "${account.sharding.rebalance-interval-ms:5000}")
+    public void rebalance() {
+        for (Long accountId : shardedAccountService.refreshShardedAccounts()) {
+            try {
+                BigDecimal drained = shardedAccountService.rebalance(accountId);
+                if (drained.signum() > 0) {
+                    log.debug("分片余额归集, accountId={}, amount={}", accountId, drained);
+                }
+            } catch (Exception e) {
+                log.warn("分片余额归集失败, accountId={}, err={}", accountId, e.getMessage());
+            }
+        }
+    }
+}
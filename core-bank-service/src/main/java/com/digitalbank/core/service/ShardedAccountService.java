@@ -0,0 +1,241 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.exception.BusinessException;
+import com.digitalbank.core.repository.AccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 热点账户余额分片服务（可选，account.sharding.enabled）。
+ * <p>
+ * 分片账户总余额 = bank_accounts.balance（主行）+ account_balance_shards 各分片余额。
+ * 入账随机落到一个分片行并只对主行加共享锁（FOR SHARE，锁住状态），大量客户向同一商户/清算账户付款时不再串行在主行锁上；
+ * 扣款锁主行，主行余额不足时归集全部分片后再扣减；{@link ShardedAccountRebalancer} 定期归集。
+ * </p>
+ * <p>
+ * 是否分片以加锁主行上的 bank_accounts.shard_count 为准：所有扣款路径（含条件 UPDATE 未命中后的回退、
+ * 轧差、合并提交、server-side 函数）都在持有主行锁后按该值决定是否归集分片，shard_count &gt; 0 的账户
+ * 不会只按主行余额判定余额不足，也不会记录只含主行的 balance_after。本实例的分片账户缓存只用于入账路由，
+ * 缓存滞后（重启后、其它实例刚开启分片、关闭 account.sharding.enabled）时入账落主行，总余额仍正确。
+ * </p>
+ * <p>
+ * 锁顺序：同一事务内先按 id 顺序获取主行锁，再按账户 id、slot 顺序获取分片行锁，
+ * 分片行锁总在主行锁之后，与扣款、重平衡一致，避免环路等待。
+ * </p>
+ *
+ * @author Digital Bank POC Team
+ */
+@Service
+public class ShardedAccountService {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedAccountService.class);
+    private static final int MAX_SHARDS = 64;
+
+    private final AccountRepository accountRepository;
+    private final boolean enabled;
+
+    /**
+     * 本实例已知的分片账户：accountId -> shardCount，由重平衡任务定期刷新。
+     * 仅决定入账路由；刷新前的短暂不一致不影响余额正确性（主行入账同样计入总余额，扣款以加锁行为准）。
+     */
+    private final Map<Long, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    public ShardedAccountService(AccountRepository accountRepository,
+                                 @Value("${account.sharding.enabled:false}") boolean enabled) {
+        this.accountRepository = accountRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 本实例缓存中该账户是否为分片账户，仅作路由提示（入账落分片行、跳过合并提交/轧差）；
+     * 返回 false 不代表未分片，扣款路径需以加锁行的 shard_count 为准。
+     */
+    public boolean isSharded(Long accountId) {
+        return enabled && shardCounts.containsKey(accountId);
+    }
+
+    /**
+     * 从数据库刷新分片账户列表，返回当前分片账户 id。
+     */
+    public Set<Long> refreshShardedAccounts() {
+        Map<Long, Integer> latest = accountRepository.findShardCounts();
+        shardCounts.keySet().retainAll(latest.keySet());
+        shardCounts.putAll(latest);
+        return latest.keySet();
+    }
+
+    /**
+     * 开启（或扩容）账户余额分片。分片数只增不减；提交后本实例立即按分片路由入账。
+     *
+     * @throws BusinessException CBB001 账户不存在；CBV003 分片数无效
+     */
+    @Transactional
+    public int enableSharding(Long accountId, int shardCount) {
+        if (shardCount < 2 || shardCount > MAX_SHARDS) {
+            throw new BusinessException("CBV003", "shardCount 需在 2-" + MAX_SHARDS + " 之间", 400);
+        }
+        Account a = accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
+        if (a.getShardCount() >= shardCount) {
+            return a.getShardCount();
+        }
+        accountRepository.createShards(accountId, shardCount);
+        a.setShardCount(shardCount);
+        accountRepository.save(a);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    shardCounts.put(accountId, shardCount);
+                }
+            });
+        }
+        log.info("账户开启余额分片, accountId={}, shardCount={}", accountId, shardCount);
+        return shardCount;
+    }
+
+    /**
+     * 涉及分片账户的转账余额变更（不含流水/outbox，由调用方在同一事务内写入）。
+     *
+     * @throws BusinessException CBB001 账户不存在；CBB002 余额不足；CBB003 冻结
+     */
+    @Transactional
+    public void transfer(Long fromId, Long toId, BigDecimal amount) {
+        boolean toSharded = isSharded(toId);
+
+        // 1) 主行锁（按 id 顺序）：转出账户 FOR UPDATE；转入账户为分片账户时只加 FOR SHARE 并读取状态，
+        //    多笔转入互不阻塞，冻结等主行 UPDATE 要等本事务结束，入账时读到的状态在提交前保持有效
+        Account from;
+        Account to = null;
+        String toStatus;
+        if (toSharded) {
+            if (fromId < toId) {
+                from = accountRepository.findByIdForUpdate(fromId).orElse(null);
+                toStatus = accountRepository.findStatusByIdForShare(toId).orElse(null);
+            } else {
+                toStatus = accountRepository.findStatusByIdForShare(toId).orElse(null);
+                from = accountRepository.findByIdForUpdate(fromId).orElse(null);
+            }
+            if (toStatus == null) {
+                throw new BusinessException("CBB001", "账户不存在", 404);
+            }
+        } else {
+            Long id1 = fromId < toId ? fromId : toId;
+            Long id2 = fromId < toId ? toId : fromId;
+            Account a1 = accountRepository.findByIdForUpdate(id1).orElse(null);
+            Account a2 = accountRepository.findByIdForUpdate(id2).orElse(null);
+            from = fromId.equals(id1) ? a1 : a2;
+            to = toId.equals(id1) ? a1 : a2;
+            if (to == null) {
+                throw new BusinessException("CBB001", "账户不存在", 404);
+            }
+            toStatus = to.getStatus();
+        }
+        if (from == null) {
+            throw new BusinessException("CBB001", "账户不存在", 404);
+        }
+
+        if (!"active".equals(from.getStatus())) {
+            throw new BusinessException("CBB003", "转出账户已冻结", 400);
+        }
+        if (!"active".equals(toStatus)) {
+            throw new BusinessException("CBB003", "转入账户已冻结", 400);
+        }
+
+        // 2) 分片行锁：按账户 id 顺序
+        if (fromId < toId) {
+            debitLocked(from, amount);
+            credit(toId, to, amount);
+        } else {
+            credit(toId, to, amount);
+            debitLocked(from, amount);
+        }
+    }
+
+    /**
+     * 分片账户扣款（支付 debit）。
+     *
+     * @throws BusinessException CBB001 账户不存在；CBB002 余额不足；CBB003 账户已冻结
+     */
+    @Transactional
+    public void debit(Long accountId, BigDecimal amount) {
+        Account a = accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
+        if (!"active".equals(a.getStatus())) {
+            throw new BusinessException("CBB003", "账户已冻结", 400);
+        }
+        debitLocked(a, amount);
+    }
+
+    /**
+     * 将分片余额归集到主行，返回归集金额。
+     */
+    @Transactional
+    public BigDecimal rebalance(Long accountId) {
+        Account a = accountRepository.findByIdForUpdate(accountId).orElse(null);
+        if (a == null || a.getShardCount() == 0) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal drained = accountRepository.drainShards(accountId);
+        if (drained.signum() > 0) {
+            a.setBalance(a.getBalance().add(drained));
+            accountRepository.save(a);
+        }
+        return drained;
+    }
+
+    /**
+     * 已持有主行锁的扣款：主行余额不足且加锁行 shard_count &gt; 0 时，先归集分片再判断。需要在事务内调用。
+     *
+     * @throws BusinessException CBB002 余额不足
+     */
+    public void debitLocked(Account a, BigDecimal amount) {
+        BigDecimal available = a.getBalance();
+        if (available.compareTo(amount) < 0 && a.getShardCount() > 0) {
+            available = available.add(accountRepository.drainShards(a.getId()));
+        }
+        if (available.compareTo(amount) < 0) {
+            throw new BusinessException("CBB002", "余额不足", 400);
+        }
+        a.setBalance(available.subtract(amount));
+        accountRepository.save(a);
+    }
+
+    /**
+     * 入账：分片账户写随机分片（分片行缺失时回落到加锁主行）；普通账户更新已加锁的主行。
+     */
+    private void credit(Long accountId, Account lockedAccount, BigDecimal amount) {
+        if (lockedAccount != null) {
+            lockedAccount.setBalance(lockedAccount.getBalance().add(amount));
+            accountRepository.save(lockedAccount);
+            return;
+        }
+        int slot = ThreadLocalRandom.current().nextInt(shardCounts.getOrDefault(accountId, 1));
+        if (accountRepository.creditShard(accountId, slot, amount) == 0) {
+            Account a = accountRepository.findByIdForUpdate(accountId)
+                    .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
+            if (!"active".equals(a.getStatus())) {
+                throw new BusinessException("CBB003", "转入账户已冻结", 400);
+            }
+            a.setBalance(a.getBalance().add(amount));
+            accountRepository.save(a);
+        }
+    }
+}
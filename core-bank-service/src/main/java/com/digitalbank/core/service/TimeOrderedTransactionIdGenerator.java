@@ -0,0 +1,108 @@
+package com.digitalbank.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时间有序单号（Snowflake/ULID 风格），小写十六进制：
+ * <pre>
+ *   nextId     = 毫秒时间戳(12) + 节点号(4) + 序号(16)   共 32 位
+ *   nextBaseId = 毫秒时间戳(12) + 节点号(4) + 序号低 32 位(8)   共 24 位
+ * </pre>
+ * 新单号落在唯一索引 B-tree 的最右侧，避免随机 UUID 造成的页分裂与索引膨胀。
+ * 序号为进程内全局自增计数（启动时随机起点），时钟回拨时时间戳取已见最大值，唯一性由序号保证。
+ * 每次调用无 SecureRandom、仅分配一个 char[] 与结果 String。
+ * 多实例部署需为每个实例配置不同的 {@code transaction.id.node-id}：主机名哈希只有 16 位，不同 Pod 可能相同，
+ * 而 nextBaseId 只含序号低 32 位，节点号相同的两个实例会产生重复单号（写入时被 transaction_ids 登记表拒绝，见 V22）。
+ * Kubernetes 部署以 StatefulSet 的 Pod 序号作节点号。
+ * {@code transaction.id.require-node-id=true}（多实例部署）时未配置节点号启动失败；否则取主机名哈希（单实例/开发）。
+ */
+@Component
+public class TimeOrderedTransactionIdGenerator implements TransactionIdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(TimeOrderedTransactionIdGenerator.class);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final int nodeId;
+    private final AtomicLong lastMillis = new AtomicLong();
+    private final AtomicLong sequence;
+
+    public TimeOrderedTransactionIdGenerator(int nodeId) {
+        this(nodeId, false);
+    }
+
+    @Autowired
+    public TimeOrderedTransactionIdGenerator(@Value("${transaction.id.node-id:-1}") int nodeId,
+                                             @Value("${transaction.id.require-node-id:false}") boolean requireNodeId) {
+        if (nodeId < 0 && requireNodeId) {
+            throw new IllegalStateException("多实例部署须为每个实例配置不同的 transaction.id.node-id（0-65535）");
+        }
+        if (nodeId > 0xFFFF) {
+            log.warn("transaction.id.node-id={} 超出 0-65535，按低 16 位取值", nodeId);
+        }
+        this.nodeId = nodeId >= 0 ? nodeId & 0xFFFF : hostNodeId();
+        this.sequence = new AtomicLong(new SecureRandom().nextLong());
+        log.info("TransactionIdGenerator 节点号: {}", this.nodeId);
+    }
+
+    @Override
+    public String nextId() {
+        long millis = currentMillis();
+        long seq = sequence.getAndIncrement();
+        char[] buf = new char[32];
+        writeHex(buf, 0, millis, 12);
+        writeHex(buf, 12, nodeId, 4);
+        writeHex(buf, 16, seq, 16);
+        return new String(buf);
+    }
+
+    @Override
+    public String nextBaseId() {
+        long millis = currentMillis();
+        long seq = sequence.getAndIncrement();
+        char[] buf = new char[24];
+        writeHex(buf, 0, millis, 12);
+        writeHex(buf, 12, nodeId, 4);
+        writeHex(buf, 16, seq, 8);
+        return new String(buf);
+    }
+
+    int nodeId() {
+        return nodeId;
+    }
+
+    private long currentMillis() {
+        long now = System.currentTimeMillis();
+        long last = lastMillis.get();
+        if (now > last) {
+            // 竞争失败说明其它线程已推进到不小于 now 的值，取最新值即可
+            return lastMillis.compareAndSet(last, now) ? now : Math.max(now, lastMillis.get());
+        }
+        return last;
+    }
+
+    /**
+     * 将 value 的低 digits*4 位按十六进制写入 buf[offset, offset+digits)
+     */
+    private static void writeHex(char[] buf, int offset, long value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buf[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    private static int hostNodeId() {
+        try {
+            return InetAddress.getLocalHost().getHostName().hashCode() & 0xFFFF;
+        } catch (Exception e) {
+            return new SecureRandom().nextInt(0x10000);
+        }
+    }
+}
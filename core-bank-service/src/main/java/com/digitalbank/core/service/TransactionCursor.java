@@ -0,0 +1,55 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.exception.BusinessException;
+import com.digitalbank.core.repository.TransactionView;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * 交易列表键集分页游标：最后一条记录的 (created_at, id)，对外为不透明的 URL 安全 Base64 串。
+ * 游标不携带过滤条件，翻页时调用方须传入与首页相同的过滤参数。
+ */
+final class TransactionCursor {
+
+    private final Instant createdAt;
+    private final long id;
+
+    private TransactionCursor(Instant createdAt, long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    Instant createdAt() {
+        return createdAt;
+    }
+
+    long id() {
+        return id;
+    }
+
+    static String encode(TransactionView last) {
+        Instant at = last.createdAt();
+        String raw = at.getEpochSecond() + ":" + at.getNano() + ":" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @throws BusinessException CBV003 游标格式无效
+     */
+    static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(raw);
+            }
+            Instant at = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new TransactionCursor(at, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new BusinessException("CBV003", "cursor 无效", 400);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.config.ReplicaRoutingContext;
+import com.digitalbank.core.exception.BusinessException;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.TransactionRepository;
+import com.digitalbank.core.repository.TransactionView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 账户交易流式导出（对账单、审计、监管报送）。
+ * <ul>
+ *   <li>在只读事务内打开服务端游标，按 fetch-size 分批取数，逐行写出 CSV / NDJSON</li>
+ *   <li>每取完一批刷出一次：写响应阻塞时不再向数据库取下一批，慢客户端只占用一条连接与一批行的内存</li>
+ *   <li>可选 gzip（同步刷出，压缩数据随批次推送）与脱敏</li>
+ * </ul>
+ * 内存占用与导出行数无关，但游标所在的只读事务与连接在整个导出期间保持打开：
+ * <ul>
+ *   <li>请求允许读副本（端点标注 {@link com.digitalbank.core.config.ReplicaRead}）时在副本上导出，不占主库连接池、
+ *       也不在主库上长时间持有快照（阻碍 VACUUM）；副本上长查询可能因复制冲突被取消（max_standby_streaming_delay），
+ *       开启 hot_standby_feedback 时则转为主库膨胀，两者都随导出时长增长</li>
+ *   <li>副本不可用或超出延迟预算时回落主库，此时每个导出占用一条主库连接</li>
+ *   <li>因此无论读哪个库，单次导出都受 max-rows 与 max-duration-seconds 限制：超出即中止（响应不完整，连接被断开），
+ *       大范围导出应由调用方按 from/to 分段</li>
+ * </ul>
+ *
+ * @author Digital Bank POC Team
+ */
+@Service
+public class TransactionExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionExportService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+    private final int fetchSize;
+    private final long maxRows;
+    private final long maxDurationNanos;
+
+    public TransactionExportService(TransactionRepository transactionRepository,
+                                    AccountRepository accountRepository,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${transaction.export.fetch-size:1000}") int fetchSize,
+                                    @Value("${transaction.export.max-rows:1000000}") long maxRows,
+                                    @Value("${transaction.export.max-duration-seconds:600}") int maxDurationSeconds) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        // 数据库侧兜底：游标查询的语句超时不超过导出时长上限
+        this.readOnlyTx.setTimeout(Math.max(1, maxDurationSeconds));
+        this.fetchSize = Math.max(1, fetchSize);
+        this.maxRows = Math.max(1, maxRows);
+        this.maxDurationNanos = TimeUnit.SECONDS.toNanos(Math.max(1, maxDurationSeconds));
+    }
+
+    /**
+     * 导出前校验参数（在开始写响应之前调用，错误仍以标准错误响应返回）。
+     *
+     * @return 规范化后的格式：csv | ndjson
+     * @throws BusinessException CBV003 格式不支持或 from 晚于 to；CBB001 账户不存在
+     */
+    public String validate(Long accountId, Instant from, Instant to, String format) {
+        String fmt = format != null ? format.trim().toLowerCase(Locale.ROOT) : TransactionExportWriter.FORMAT_CSV;
+        if (!TransactionExportWriter.FORMAT_CSV.equals(fmt) && !TransactionExportWriter.FORMAT_NDJSON.equals(fmt)) {
+            throw new BusinessException("CBV003", "仅支持 csv 或 ndjson 格式", 400);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BusinessException("CBV003", "from 不能晚于 to", 400);
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new BusinessException("CBB001", "账户不存在", 404);
+        }
+        return fmt;
+    }
+
+    /**
+     * 将账户在 [from, to] 内的交易按时间正序写出到 out（from/to 可空）。写出失败（如客户端断开）时游标随事务关闭；
+     * 超过 max-rows 或 max-duration-seconds 时抛 IOException 中止导出。
+     *
+     * @param format          {@link #validate} 返回的格式
+     * @param masked          是否脱敏
+     * @param gzip            是否 gzip 压缩
+     * @param replicaMaxLagMs 允许读副本时的复制延迟预算（请求线程上的 {@link ReplicaRoutingContext}，
+     *                        导出在异步线程执行，需显式传入）；null 表示读主库
+     * @return 导出行数
+     */
+    public long export(Long accountId, Instant from, Instant to, String format, boolean masked, boolean gzip,
+                       Long replicaMaxLagMs, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        if (replicaMaxLagMs != null) {
+            ReplicaRoutingContext.allowReplica(replicaMaxLagMs);
+        }
+        try {
+            Long rows = readOnlyTx.execute(status -> {
+                try (Stream<TransactionView> views = transactionRepository.streamForExport(accountId, from, to, fetchSize);
+                     TransactionExportWriter writer = new TransactionExportWriter(open(out, gzip), format, masked,
+                             objectMapper.getFactory())) {
+                    Iterator<TransactionView> it = views.iterator();
+                    while (it.hasNext()) {
+                        if (writer.count() >= maxRows) {
+                            throw new UncheckedIOException(new IOException("导出超过行数上限 " + maxRows + "，请缩小时间范围"));
+                        }
+                        if (System.nanoTime() - start > maxDurationNanos) {
+                            throw new UncheckedIOException(new IOException("导出超过时长上限，请缩小时间范围"));
+                        }
+                        writer.write(it.next());
+                        if (writer.count() % fetchSize == 0) {
+                            writer.flush();
+                        }
+                    }
+                    return writer.count();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("交易导出完成, accountId={}, format={}, masked={}, gzip={}, rows={}, elapsedMs={}",
+                    accountId, format, masked, gzip, rows, (System.nanoTime() - start) / 1_000_000);
+            return rows != null ? rows : 0;
+        } catch (UncheckedIOException e) {
+            log.warn("交易导出中断, accountId={}, error={}", accountId, e.getCause().getMessage());
+            throw e.getCause();
+        } finally {
+            ReplicaRoutingContext.clear();
+        }
+    }
+
+    private static BufferedWriter open(OutputStream out, boolean gzip) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : out;
+        return new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
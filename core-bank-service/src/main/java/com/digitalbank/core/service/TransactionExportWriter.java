@@ -0,0 +1,137 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.repository.TransactionView;
+import com.digitalbank.core.security.SensitiveDataMasker;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 交易导出行写出器：逐行写出 CSV（RFC 4180，首行表头）或 NDJSON（每行一个对象），不缓存已写出的行。
+ * masked 时交易号、账户 ID 与备注经 {@link SensitiveDataMasker} 脱敏（脱敏后账户 ID 为字符串）；金额、时间不脱敏。
+ */
+class TransactionExportWriter implements Closeable {
+
+    static final String FORMAT_CSV = "csv";
+    static final String FORMAT_NDJSON = "ndjson";
+
+    private static final String CSV_HEADER =
+            "transactionId,accountId,counterAccountId,amount,transactionType,status,remark,createdAt\r\n";
+
+    private final Writer out;
+    private final boolean masked;
+    private final JsonGenerator json;
+    private long count;
+
+    TransactionExportWriter(Writer out, String format, boolean masked, JsonFactory jsonFactory) throws IOException {
+        this.out = out;
+        this.masked = masked;
+        if (FORMAT_NDJSON.equals(format)) {
+            this.json = jsonFactory.createGenerator(out);
+            this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.json.setRootValueSeparator(new SerializedString("\n"));
+        } else {
+            this.json = null;
+            out.write(CSV_HEADER);
+        }
+    }
+
+    /**
+     * 已写出的数据行数
+     */
+    long count() {
+        return count;
+    }
+
+    void write(TransactionView v) throws IOException {
+        String transactionId = masked ? SensitiveDataMasker.maskTransactionId(v.transactionId()) : v.transactionId();
+        String remark = masked ? SensitiveDataMasker.autoMask(v.remark()) : v.remark();
+        if (json != null) {
+            json.writeStartObject();
+            json.writeStringField("transactionId", transactionId);
+            writeAccountId("accountId", v.accountId());
+            writeAccountId("counterAccountId", v.counterAccountId());
+            json.writeFieldName("amount");
+            json.writeNumber(v.amount());
+            json.writeStringField("transactionType", v.transactionType());
+            json.writeStringField("status", v.status());
+            if (remark != null) {
+                json.writeStringField("remark", remark);
+            }
+            json.writeStringField("createdAt", v.createdAt().toString());
+            json.writeEndObject();
+        } else {
+            csv(transactionId).append(',');
+            csv(accountId(v.accountId())).append(',');
+            csv(accountId(v.counterAccountId())).append(',');
+            csv(v.amount().toPlainString()).append(',');
+            csv(v.transactionType()).append(',');
+            csv(v.status()).append(',');
+            csv(remark).append(',');
+            csv(v.createdAt().toString()).append("\r\n");
+        }
+        count++;
+    }
+
+    /**
+     * 将已写出的内容推到下游（HTTP 响应），阻塞直到下游接收
+     */
+    void flush() throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (json != null) {
+            if (count > 0) {
+                json.writeRaw('\n');
+            }
+            json.close();
+        }
+        out.close();
+    }
+
+    private void writeAccountId(String field, Long id) throws IOException {
+        if (id == null) {
+            return;
+        }
+        if (masked) {
+            json.writeStringField(field, SensitiveDataMasker.maskAccountId(id));
+        } else {
+            json.writeNumberField(field, id);
+        }
+    }
+
+    private String accountId(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return masked ? SensitiveDataMasker.maskAccountId(id) : id.toString();
+    }
+
+    private Writer csv(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return out;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return out;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+        return out;
+    }
+}
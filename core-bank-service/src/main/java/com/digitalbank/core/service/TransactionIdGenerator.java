@@ -0,0 +1,20 @@
+package com.digitalbank.core.service;
+
+/**
+ * 交易/业务单号生成器。默认实现为 {@link TimeOrderedTransactionIdGenerator}；
+ * 需要其它策略时注册 {@code @Primary} 的实现即可替换。
+ */
+public interface TransactionIdGenerator {
+
+    /**
+     * @return 32 位单号（支付流水、预约单号等），按生成时间有序
+     */
+    String nextId();
+
+    /**
+     * 转账出入账两条流水共用的 24 位基础号：{@code "TX" + base + "O"/"I"}，与原格式等长。
+     *
+     * @return 24 位基础号，按生成时间有序
+     */
+    String nextBaseId();
+}
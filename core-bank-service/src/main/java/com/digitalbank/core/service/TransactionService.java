@@ -7,19 +7,24 @@ import com.digitalbank.core.entity.Transaction;
 import com.digitalbank.core.exception.BusinessException;
 import com.digitalbank.core.repository.AccountRepository;
 import com.digitalbank.core.repository.TransactionRepository;
+import com.digitalbank.core.repository.TransactionView;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -35,25 +40,51 @@ public class TransactionService {
     private static final String TYPE_PAYMENT = "payment";
     private static final String TYPE_TRANSFER_OUT = "transfer_out";
     private static final String TYPE_TRANSFER_IN = "transfer_in";
-    private static final String STATUS_COMPLETED = "completed";
+    static final String STATUS_COMPLETED = "completed";
+    private static final String FK_TRANSACTIONS_ACCOUNT = "fk_transactions_bank_accounts";
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+    static final String EVENT_PAYMENT_DEBIT_COMPLETED = "PAYMENT_DEBIT_COMPLETED";
 
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final RiskClient riskClient;
     private final OutboxService outboxService;
+    private final ShardedAccountService shardedAccountService;
+    private final TransactionIdGenerator idGenerator;
+    private final BalanceCache balanceCache;
+    private final boolean fastPathEnabled;
+    private final boolean serverSideTransferEnabled;
+    private final RecentRefIdCache recentRefIdCache;
+    private final boolean insertFirstIdempotency;
 
     public TransactionService(AccountRepository accountRepository,
                               TransactionRepository transactionRepository,
                               RiskClient riskClient,
-                              OutboxService outboxService) {
+                              OutboxService outboxService,
+                              ShardedAccountService shardedAccountService,
+                              TransactionIdGenerator idGenerator,
+                              BalanceCache balanceCache,
+                              @Value("${transaction.fast-path.enabled:false}") boolean fastPathEnabled,
+                              @Value("${transaction.server-side-transfer.enabled:false}") boolean serverSideTransferEnabled,
+                              RecentRefIdCache recentRefIdCache,
+                              @Value("${transaction.idempotency.insert-first:true}") boolean insertFirstIdempotency) {
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionRepository;
         this.riskClient = riskClient;
         this.outboxService = outboxService;
+        this.shardedAccountService = shardedAccountService;
+        this.idGenerator = idGenerator;
+        this.balanceCache = balanceCache;
+        this.fastPathEnabled = fastPathEnabled;
+        this.serverSideTransferEnabled = serverSideTransferEnabled;
+        this.recentRefIdCache = recentRefIdCache;
+        this.insertFirstIdempotency = insertFirstIdempotency;
     }
 
     /**
      * 支付扣款，ADR-005。同一 refId 多次请求返回同一 transactionId，不重复扣款。
+     * insert-first 模式下先占住 refId 并写入流水（insert_payment_if_absent），再扣余额；并发重复请求不会走到扣款，
+     * 也不会因唯一索引冲突返回 500。近期已提交的 refId 由 {@link RecentRefIdCache} 直接返回。
      *
      * @param request accountId, amount, refId, remark?
      * @return DebitResponse 201
@@ -66,12 +97,18 @@ public class TransactionService {
             throw new BusinessException("CBV003", "refId 不能为空", 400);
         }
 
-        // 幂等：同一 refId 已存在则直接返回
-        var existing = transactionRepository.findByRefId(refId);
-        if (existing.isPresent()) {
-            Transaction t = existing.get();
-            log.info("debit 幂等返回, refId={}, transactionId={}", refId, t.getTransactionId());
-            return new DebitResponse(t.getTransactionId(), t.getAccountId(), t.getAmount(), t.getStatus());
+        DebitResponse cached = recentRefIdCache.get(refId);
+        if (cached != null) {
+            log.info("debit 幂等返回(缓存), refId={}, transactionId={}", refId, cached.getTransactionId());
+            return cached;
+        }
+
+        if (!insertFirstIdempotency) {
+            // 幂等：同一 refId 已存在则直接返回
+            var existing = transactionRepository.findByRefId(refId);
+            if (existing.isPresent()) {
+                return replay(refId, existing.get());
+            }
         }
 
         Long accountId = request.getAccountId();
@@ -80,46 +117,89 @@ public class TransactionService {
             throw new BusinessException("CBV002", "金额必须大于 0", 400);
         }
 
-        Account a = accountRepository.findByIdForUpdate(accountId)
-                .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
-        if (!"active".equals(a.getStatus())) {
-            throw new BusinessException("CBB003", "账户已冻结", 400);
-        }
-        if (a.getBalance().compareTo(amount) < 0) {
-            throw new BusinessException("CBB002", "余额不足", 400);
+        String txId = idGenerator.nextId();
+        Long claimedId = null;
+        if (insertFirstIdempotency) {
+            Optional<Long> claimed = claimRefId(txId, accountId, amount, request.getRemark(), refId);
+            if (claimed.isEmpty()) {
+                // refId 已被（已提交的）先到请求占用：返回其结果，不扣款
+                Transaction t = transactionRepository.findByRefId(refId)
+                        .orElseThrow(() -> new BusinessException("CBS001", "幂等记录读取失败", 500));
+                return replay(refId, t);
+            }
+            claimedId = claimed.get();
         }
 
-        a.setBalance(a.getBalance().subtract(amount));
-        accountRepository.save(a);
+        // 余额缓存在提交后失效；业务失败回滚时不触发
+        balanceCache.evictAfterCommit(accountId);
+        // 分片账户余额分散在分片行上，不记录 balance_after（是否分片以加锁行的 shard_count 为准）
+        BigDecimal balanceAfter = null;
+        if (shardedAccountService.isSharded(accountId)) {
+            shardedAccountService.debit(accountId, amount);
+        } else if (fastPathEnabled) {
+            balanceAfter = guardedDebit(accountId, amount, "账户已冻结");
+        } else {
+            Account a = accountRepository.findByIdForUpdate(accountId)
+                    .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
+            if (!"active".equals(a.getStatus())) {
+                throw new BusinessException("CBB003", "账户已冻结", 400);
+            }
+            balanceAfter = debitLocked(a, amount);
+        }
 
-        String txId = UUID.randomUUID().toString().replace("-", "");
-        Transaction t = new Transaction();
-        t.setTransactionId(txId);
-        t.setAccountId(accountId);
-        t.setCounterAccountId(null);
-        t.setAmount(amount);
-        t.setTransactionType(TYPE_PAYMENT);
-        t.setStatus(STATUS_COMPLETED);
-        t.setRemark(request.getRemark());
-        t.setRefId(refId);
-        transactionRepository.save(t);
+        if (!insertFirstIdempotency) {
+            transactionRepository.save(paymentRecord(txId, accountId, amount, balanceAfter, request.getRemark(), refId));
+        } else if (balanceAfter != null) {
+            // 占位流水先于扣款写入，扣款后补记余额（同事务，仍在账户行锁内）
+            transactionRepository.updateBalanceAfter(claimedId, balanceAfter);
+        }
 
         // 分布式事务：写入 outbox 事件（同事务），供异步通知/回调/消息投递使用
         outboxService.recordEvent(
-                "PAYMENT_DEBIT_COMPLETED",
+                EVENT_PAYMENT_DEBIT_COMPLETED,
                 "payment",
                 refId,
                 refId,
-                java.util.Map.of(
-                        "transactionId", txId,
-                        "accountId", accountId,
-                        "amount", amount,
-                        "refId", refId,
-                        "status", STATUS_COMPLETED
-                ));
+                paymentPayload(txId, accountId, amount, refId));
 
         log.info("debit 成功, transactionId={}, accountId={}, amount={}, refId={}", txId, accountId, amount, refId);
-        return new DebitResponse(txId, accountId, amount, STATUS_COMPLETED);
+        DebitResponse response = new DebitResponse(txId, accountId, amount, STATUS_COMPLETED);
+        recentRefIdCache.putAfterCommit(refId, response);
+        return response;
+    }
+
+    /**
+     * insert-first 占位：写入支付流水。外键冲突即账户不存在。
+     *
+     * @return 占位流水主键；为空表示 refId 已存在
+     */
+    private Optional<Long> claimRefId(String txId, Long accountId, BigDecimal amount, String remark, String refId) {
+        try {
+            return transactionRepository.insertPaymentIfAbsent(txId, accountId, amount, remark, refId);
+        } catch (DataIntegrityViolationException e) {
+            // 只有流水指向账户的外键失败表示账户不存在；其它约束冲突（如 transaction_ids 流水号重复）原样抛出
+            if (isAccountForeignKeyViolation(e)) {
+                throw new BusinessException("CBB001", "账户不存在", 404);
+            }
+            throw e;
+        }
+    }
+
+    static boolean isAccountForeignKeyViolation(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve) {
+                return FOREIGN_KEY_VIOLATION.equals(cve.getSQLState())
+                        && FK_TRANSACTIONS_ACCOUNT.equalsIgnoreCase(cve.getConstraintName());
+            }
+        }
+        return false;
+    }
+
+    private DebitResponse replay(String refId, Transaction t) {
+        log.info("debit 幂等返回, refId={}, transactionId={}", refId, t.getTransactionId());
+        DebitResponse response = new DebitResponse(t.getTransactionId(), t.getAccountId(), t.getAmount(), t.getStatus());
+        recentRefIdCache.putAfterCommit(refId, response);
+        return response;
     }
 
     /**
@@ -147,54 +227,76 @@ public class TransactionService {
                 .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
         riskClient.checkTransfer(fromForRisk.getCustomerId(), fromId, amount, toId);
 
-        // 按 id 顺序加锁，避免死锁
-        Long id1 = fromId < toId ? fromId : toId;
-        Long id2 = fromId < toId ? toId : fromId;
-        Account a1 = accountRepository.findByIdForUpdate(id1)
-                .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
-        Account a2 = accountRepository.findByIdForUpdate(id2)
-                .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
-        Account fromAcc = fromId.equals(id1) ? a1 : a2;
-        Account toAcc = toId.equals(id1) ? a1 : a2;
+        String baseId = idGenerator.nextBaseId();
+        String txOutId = "TX" + baseId + "O";
+        String txInId = "TX" + baseId + "I";
 
-        if (!"active".equals(fromAcc.getStatus())) {
-            throw new BusinessException("CBB003", "转出账户已冻结", 400);
-        }
-        if (!"active".equals(toAcc.getStatus())) {
-            throw new BusinessException("CBB003", "转入账户已冻结", 400);
-        }
-        if (fromAcc.getBalance().compareTo(amount) < 0) {
-            throw new BusinessException("CBB002", "余额不足", 400);
-        }
+        balanceCache.evictAfterCommit(fromId, toId);
+        // 双方记账后余额；涉及分片账户时不记录
+        BigDecimal fromAfter = null;
+        BigDecimal toAfter = null;
+        if (shardedAccountService.isSharded(fromId) || shardedAccountService.isSharded(toId)) {
+            // 热点分片账户：入账落分片行，不争用主行锁；优先于 server-side / fast-path 模式
+            shardedAccountService.transfer(fromId, toId, amount);
+        } else if (serverSideTransferEnabled) {
+            // 服务端模式：加锁/校验/余额/流水/outbox 在数据库函数内一次完成
+            String code = transactionRepository.executeTransfer(fromId, toId, amount, request.getRemark(), txOutId, txInId);
+            rejectServerSideTransfer(code);
+            outboxService.wakeupAfterCommit();
+            log.info("transfer 成功(server-side), txOutId={}, from={}, to={}, amount={}", txOutId, fromId, toId, amount);
+            return new TransferResponse(txOutId, fromId, toId, amount, STATUS_COMPLETED);
+        } else if (fastPathEnabled) {
+            // 条件 UPDATE 同样按 id 顺序执行，避免死锁；任一未命中抛异常，整个事务回滚
+            if (fromId < toId) {
+                fromAfter = guardedDebit(fromId, amount, "转出账户已冻结");
+                toAfter = guardedCredit(toId, amount, "转入账户已冻结");
+            } else {
+                toAfter = guardedCredit(toId, amount, "转入账户已冻结");
+                fromAfter = guardedDebit(fromId, amount, "转出账户已冻结");
+            }
+        } else {
+            // 按 id 顺序加锁，避免死锁
+            Long id1 = fromId < toId ? fromId : toId;
+            Long id2 = fromId < toId ? toId : fromId;
+            Account a1 = accountRepository.findByIdForUpdate(id1)
+                    .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
+            Account a2 = accountRepository.findByIdForUpdate(id2)
+                    .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
+            Account fromAcc = fromId.equals(id1) ? a1 : a2;
+            Account toAcc = toId.equals(id1) ? a1 : a2;
 
-        fromAcc.setBalance(fromAcc.getBalance().subtract(amount));
-        toAcc.setBalance(toAcc.getBalance().add(amount));
-        accountRepository.save(fromAcc);
-        accountRepository.save(toAcc);
+            if (!"active".equals(fromAcc.getStatus())) {
+                throw new BusinessException("CBB003", "转出账户已冻结", 400);
+            }
+            if (!"active".equals(toAcc.getStatus())) {
+                throw new BusinessException("CBB003", "转入账户已冻结", 400);
+            }
 
-        String baseId = UUID.randomUUID().toString().replace("-", "").substring(0, 24);
-        String txOutId = "TX" + baseId + "O";
-        String txInId = "TX" + baseId + "I";
+            fromAfter = debitLocked(fromAcc, amount);
+            toAfter = creditLocked(toAcc, amount);
+        }
 
         Transaction out = new Transaction();
         out.setTransactionId(txOutId);
         out.setAccountId(fromId);
         out.setCounterAccountId(toId);
         out.setAmount(amount);
+        out.setBalanceAfter(fromAfter);
         out.setTransactionType(TYPE_TRANSFER_OUT);
         out.setStatus(STATUS_COMPLETED);
         out.setRemark(request.getRemark());
-        transactionRepository.save(out);
-
+        
         Transaction in = new Transaction();
         in.setTransactionId(txInId);
         in.setAccountId(toId);
         in.setCounterAccountId(fromId);
         in.setAmount(amount);
+        in.setBalanceAfter(toAfter);
         in.setTransactionType(TYPE_TRANSFER_IN);
         in.setStatus(STATUS_COMPLETED);
         in.setRemark(request.getRemark());
-        transactionRepository.save(in);
+        // 两条流水一起持久化：pooled 序列主键下 flush 时按 JDBC 批次写入
+        transactionRepository.saveAll(List.of(out, in));
 
         // 分布式事务：写入 outbox 事件（同事务）
         outboxService.recordEvent(
@@ -215,30 +317,235 @@ public class TransactionService {
         return new TransferResponse(txOutId, fromId, toId, amount, STATUS_COMPLETED);
     }
 
+    /**
+     * 快速路径扣款：单条条件 UPDATE（active、未分片且余额充足）直接扣减，不做 SELECT ... FOR UPDATE。
+     *
+     * @return 扣减后余额；分片账户为 null
+     * @throws BusinessException 未命中时见 {@link #debitOnGuardMiss}
+     */
+    private BigDecimal guardedDebit(Long accountId, BigDecimal amount, String frozenMessage) {
+        Optional<BigDecimal> after = accountRepository.debitIfSufficient(accountId, amount);
+        return after.isPresent() ? after.get() : debitOnGuardMiss(accountId, amount, frozenMessage);
+    }
+
+    /**
+     * 条件扣款未命中后的处理：分片账户（条件 UPDATE 不命中 shard_count &gt; 0 的行）改为锁主行扣款，
+     * 由加锁行决定是否归集分片；其余按账户现状还原 CBB001/CBB003/CBB002。单笔与合并提交共用。
+     *
+     * @return 分片账户扣款成功时为 null（不记录 balance_after）
+     * @throws BusinessException CBB001 账户不存在；CBB002 余额不足；CBB003 冻结
+     */
+    BigDecimal debitOnGuardMiss(Long accountId, BigDecimal amount, String frozenMessage) {
+        if (accountRepository.findShardCountById(accountId).orElse(0) == 0) {
+            // shard_count 只增不减：此刻为 0 则条件 UPDATE 时也未分片，未命中即冻结/不存在/余额不足
+            throw rejectGuardedUpdate(accountId, frozenMessage);
+        }
+        Account a = accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
+        if (!"active".equals(a.getStatus())) {
+            throw new BusinessException("CBB003", frozenMessage, 400);
+        }
+        return debitLocked(a, amount);
+    }
+
+    /**
+     * 快速路径入账：单条条件 UPDATE（active 且未分片）直接增加余额；分片账户未命中后锁主行入账。
+     *
+     * @return 入账后余额；分片账户为 null
+     * @throws BusinessException 未命中时按账户现状还原 CBB001/CBB003
+     */
+    private BigDecimal guardedCredit(Long accountId, BigDecimal amount, String frozenMessage) {
+        Optional<BigDecimal> after = accountRepository.creditIfActive(accountId, amount);
+        if (after.isPresent()) {
+            return after.get();
+        }
+        if (accountRepository.findShardCountById(accountId).orElse(0) == 0) {
+            throw rejectGuardedUpdate(accountId, frozenMessage);
+        }
+        Account a = accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new BusinessException("CBB001", "账户不存在", 404));
+        if (!"active".equals(a.getStatus())) {
+            throw new BusinessException("CBB003", frozenMessage, 400);
+        }
+        return creditLocked(a, amount);
+    }
+
+    /**
+     * 已持有主行锁的扣款：加锁行 shard_count &gt; 0 时交给 {@link ShardedAccountService#debitLocked} 归集分片。
+     *
+     * @return 扣减后余额；分片账户为 null
+     * @throws BusinessException CBB002 余额不足
+     */
+    private BigDecimal debitLocked(Account a, BigDecimal amount) {
+        if (a.getShardCount() > 0) {
+            shardedAccountService.debitLocked(a, amount);
+            return null;
+        }
+        if (a.getBalance().compareTo(amount) < 0) {
+            throw new BusinessException("CBB002", "余额不足", 400);
+        }
+        BigDecimal after = a.getBalance().subtract(amount);
+        a.setBalance(after);
+        accountRepository.save(a);
+        return after;
+    }
+
+    /**
+     * 已持有主行锁的入账（分片账户同样计入主行）。
+     *
+     * @return 入账后余额；分片账户为 null
+     */
+    private BigDecimal creditLocked(Account a, BigDecimal amount) {
+        BigDecimal after = a.getBalance().add(amount);
+        a.setBalance(after);
+        accountRepository.save(a);
+        return a.getShardCount() > 0 ? null : after;
+    }
+
+    /**
+     * 支付扣款流水（payment），单笔与合并提交共用。
+     */
+    static Transaction paymentRecord(String txId, Long accountId, BigDecimal amount, BigDecimal balanceAfter,
+                                     String remark, String refId) {
+        Transaction t = new Transaction();
+        t.setTransactionId(txId);
+        t.setAccountId(accountId);
+        t.setCounterAccountId(null);
+        t.setAmount(amount);
+        t.setBalanceAfter(balanceAfter);
+        t.setTransactionType(TYPE_PAYMENT);
+        t.setStatus(STATUS_COMPLETED);
+        t.setRemark(remark);
+        t.setRefId(refId);
+        return t;
+    }
+
+    /**
+     * PAYMENT_DEBIT_COMPLETED 事件 payload。
+     */
+    static Map<String, Object> paymentPayload(String txId, Long accountId, BigDecimal amount, String refId) {
+        return Map.of(
+                "transactionId", txId,
+                "accountId", accountId,
+                "amount", amount,
+                "refId", refId,
+                "status", STATUS_COMPLETED
+        );
+    }
+
+    /**
+     * 条件 UPDATE 命中 0 行时只在失败路径上补查一次状态，映射回与加锁路径一致的错误码。
+     */
+    BusinessException rejectGuardedUpdate(Long accountId, String frozenMessage) {
+        String status = accountRepository.findStatusById(accountId).orElse(null);
+        if (status == null) {
+            return new BusinessException("CBB001", "账户不存在", 404);
+        }
+        if (!"active".equals(status)) {
+            return new BusinessException("CBB003", frozenMessage, 400);
+        }
+        return new BusinessException("CBB002", "余额不足", 400);
+    }
+
+    /**
+     * 将 execute_transfer 返回码映射为与 JPA 路径一致的业务异常；OK 直接返回。
+     */
+    private static void rejectServerSideTransfer(String code) {
+        switch (code) {
+            case "OK":
+                return;
+            case "CBB001":
+                throw new BusinessException("CBB001", "账户不存在", 404);
+            case "CBB002":
+                throw new BusinessException("CBB002", "余额不足", 400);
+            case "CBB003_FROM":
+                throw new BusinessException("CBB003", "转出账户已冻结", 400);
+            case "CBB003_TO":
+                throw new BusinessException("CBB003", "转入账户已冻结", 400);
+            default:
+                throw new BusinessException("CBS001", "转账执行失败: " + code, 500);
+        }
+    }
+
     /**
      * 交易查询，支持 accountId、status 可选过滤，分页。
      */
     public TransactionListResponse listTransactions(Long accountId, String status, int page, int pageSize) {
-        Pageable p = PageRequest.of(Math.max(0, page - 1), Math.min(100, Math.max(1, pageSize)),
-                Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<Transaction> slice = transactionRepository.findWithFilters(accountId, status, p);
-        List<TransactionResponse> items = slice.getContent().stream().map(TransactionResponse::from).collect(Collectors.toList());
-        return new TransactionListResponse(items, slice.getTotalElements(), slice.getNumber() + 1, slice.getSize());
+        return listTransactions(accountId, status, page, pageSize, null, true);
+    }
+
+    /**
+     * 交易查询。cursor 非空时从游标处键集分页（忽略 page）；否则按页码分页。
+     * includeTotal=false 的第 1 页同样走键集查询，不做 count。每页都返回 nextCursor，深翻页应改用游标。
+     *
+     * @throws BusinessException CBV003 cursor 无效
+     */
+    @Transactional(readOnly = true)
+    public TransactionListResponse listTransactions(Long accountId, String status, int page, int pageSize,
+                                                    String cursor, boolean includeTotal) {
+        int size = Math.min(100, Math.max(1, pageSize));
+        if (useKeyset(page, cursor, includeTotal)) {
+            return keysetPage(accountId, status, null, null, cursor, size, includeTotal);
+        }
+        return offsetPage(accountId, status, null, null, page, size);
     }
 
     /**
      * 交易历史，accountId 必填，from/to 可选时间范围，分页。
      */
     public TransactionListResponse getTransactionHistory(Long accountId, Instant from, Instant to, int page, int pageSize) {
-        Pageable p = PageRequest.of(Math.max(0, page - 1), Math.min(100, Math.max(1, pageSize)),
-                Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<Transaction> slice;
-        if (from != null && to != null) {
-            slice = transactionRepository.findByAccountIdAndCreatedAtBetween(accountId, from, to, p);
-        } else {
-            slice = transactionRepository.findByAccountIdOrderByCreatedAtDesc(accountId, p);
+        return getTransactionHistory(accountId, from, to, page, pageSize, null, true);
+    }
+
+    /**
+     * 交易历史，分页方式同 {@link #listTransactions(Long, String, int, int, String, boolean)}；
+     * 由 idx_transactions_account_created_id 按 (created_at, id) 倒序直接定位，from/to 可单独生效。
+     *
+     * @throws BusinessException CBV003 cursor 无效
+     */
+    @Transactional(readOnly = true)
+    public TransactionListResponse getTransactionHistory(Long accountId, Instant from, Instant to, int page, int pageSize,
+                                                         String cursor, boolean includeTotal) {
+        int size = Math.min(100, Math.max(1, pageSize));
+        if (useKeyset(page, cursor, includeTotal)) {
+            return keysetPage(accountId, null, from, to, cursor, size, includeTotal);
         }
-        List<TransactionResponse> items = slice.getContent().stream().map(TransactionResponse::from).collect(Collectors.toList());
-        return new TransactionListResponse(items, slice.getTotalElements(), slice.getNumber() + 1, slice.getSize());
+        return offsetPage(accountId, null, from, to, page, size);
+    }
+
+    private static boolean useKeyset(int page, String cursor, boolean includeTotal) {
+        return (cursor != null && !cursor.isBlank()) || (!includeTotal && page <= 1);
+    }
+
+    /**
+     * 页码分页：只读投影取当前页，总数沿用 Spring Data 的规则（首页不满一页等情况下不 count）。
+     * 排序为 (createdAt, id) 倒序，与键集分页一致，页码结果可以接着用游标翻页
+     */
+    private TransactionListResponse offsetPage(Long accountId, String status, Instant from, Instant to,
+                                               int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(0, page - 1), size);
+        List<TransactionView> rows = transactionRepository.findOffsetPage(accountId, status, from, to,
+                (int) pageable.getOffset(), size);
+        Page<TransactionView> slice = PageableExecutionUtils.getPage(rows, pageable,
+                () -> transactionRepository.countMatching(accountId, status, from, to));
+        String next = slice.hasNext() && !rows.isEmpty() ? TransactionCursor.encode(rows.get(rows.size() - 1)) : null;
+        List<TransactionResponse> items = rows.stream().map(TransactionResponse::from).collect(Collectors.toList());
+        return new TransactionListResponse(items, slice.getTotalElements(), slice.getNumber() + 1, slice.getSize(), next);
+    }
+
+    /**
+     * 键集分页：多取一条判断是否有下一页；total 仅在要求时单独 count
+     */
+    private TransactionListResponse keysetPage(Long accountId, String status, Instant from, Instant to,
+                                               String cursor, int size, boolean includeTotal) {
+        TransactionCursor after = cursor != null && !cursor.isBlank() ? TransactionCursor.decode(cursor) : null;
+        List<TransactionView> rows = transactionRepository.findKeysetPage(accountId, status, from, to,
+                after != null ? after.createdAt() : null, after != null ? after.id() : null, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<TransactionView> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? TransactionCursor.encode(pageRows.get(size - 1)) : null;
+        Long total = includeTotal ? transactionRepository.countMatching(accountId, status, from, to) : null;
+        List<TransactionResponse> items = pageRows.stream().map(TransactionResponse::from).collect(Collectors.toList());
+        return new TransactionListResponse(items, total, after == null ? 1 : null, size, next);
     }
 }
@@ -0,0 +1,26 @@
+-- =============================================================================
+-- Flyway 迁移: V10__account_balance_shards.sql
+-- 描述: 热点账户余额分片（商户/清算等高扇入账户，可选开启）
+-- 说明:
+--  - bank_accounts.shard_count > 0 表示该账户已开启分片，0 为普通账户
+--  - 账户总余额 = bank_accounts.balance + SUM(account_balance_shards.balance)
+--  - 入账写入随机分片行，不再争用 bank_accounts 主行锁；扣款锁主行，
+--    主行余额不足时将分片余额归集到主行后再扣减；后台重平衡任务定期归集
+-- =============================================================================
+
+ALTER TABLE bank_accounts
+ADD COLUMN shard_count INT NOT NULL DEFAULT 0 CHECK (shard_count >= 0);
+
+COMMENT ON COLUMN bank_accounts.shard_count IS '余额分片数，0 表示未分片';
+
+CREATE TABLE account_balance_shards (
+    account_id BIGINT NOT NULL,
+    slot INT NOT NULL,
+    balance DECIMAL(19, 2) NOT NULL DEFAULT 0 CHECK (balance >= 0),
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_account_balance_shards PRIMARY KEY (account_id, slot),
+    CONSTRAINT fk_account_balance_shards_bank_accounts FOREIGN KEY (account_id) REFERENCES bank_accounts(id)
+);
+
+-- 重平衡任务扫描已分片账户
+CREATE INDEX IF NOT EXISTS idx_bank_accounts_sharded ON bank_accounts(id) WHERE shard_count > 0;
@@ -0,0 +1,51 @@
+-- =============================================================================
+-- Flyway 迁移: V11__bulk_transfer_jobs.sql
+-- 描述: 大批量文件转账任务（代发工资/供应商付款，1 万 ~ 50 万笔）
+-- 说明:
+--  - 上传的 NDJSON/CSV 流式解析后经 COPY 写入 bulk_transfer_items（暂存 + 逐笔结果）
+--  - 执行器按 seq 顺序分块执行；每笔转账与其结果行在同一事务内提交，重启后从 pending 行续跑
+--  - lease_until 为执行租约：持有者定期续约，过期后其它实例可接管
+-- =============================================================================
+
+CREATE TABLE bulk_transfer_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    job_id VARCHAR(64) NOT NULL,
+    format VARCHAR(10) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending',
+    total_count BIGINT NOT NULL DEFAULT 0,
+    processed_count BIGINT NOT NULL DEFAULT 0,
+    success_count BIGINT NOT NULL DEFAULT 0,
+    failed_count BIGINT NOT NULL DEFAULT 0,
+    last_seq BIGINT NOT NULL DEFAULT 0,
+    claimed_by VARCHAR(128),
+    lease_until TIMESTAMP WITH TIME ZONE,
+    error_message TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT uk_bulk_transfer_jobs_job_id UNIQUE (job_id),
+    CONSTRAINT chk_bulk_transfer_jobs_status CHECK (status IN ('pending', 'running', 'completed', 'failed'))
+);
+
+-- 执行器领取待执行/租约过期的任务
+CREATE INDEX idx_bulk_transfer_jobs_runnable ON bulk_transfer_jobs(id) WHERE status IN ('pending', 'running');
+
+-- 暂存行即逐笔结果；无外键，解析失败行的账户字段为空，直接以 failed 落库
+CREATE TABLE bulk_transfer_items (
+    job_id BIGINT NOT NULL,
+    seq BIGINT NOT NULL,
+    from_account_id BIGINT,
+    to_account_id BIGINT,
+    amount DECIMAL(19, 2),
+    remark TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending',
+    transaction_id VARCHAR(32),
+    error_code VARCHAR(20),
+    message TEXT,
+    processed_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT pk_bulk_transfer_items PRIMARY KEY (job_id, seq),
+    CONSTRAINT fk_bulk_transfer_items_job FOREIGN KEY (job_id) REFERENCES bulk_transfer_jobs(id) ON DELETE CASCADE
+);
+
+-- 分块领取：只索引未执行行，执行完即移出索引
+CREATE INDEX idx_bulk_transfer_items_pending ON bulk_transfer_items(job_id, seq) WHERE status = 'pending';
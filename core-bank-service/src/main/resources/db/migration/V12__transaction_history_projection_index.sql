@@ -0,0 +1,19 @@
+-- =============================================================================
+-- Flyway 迁移: V12__transaction_history_projection_index.sql
+-- 描述: 交易列表/历史投影查询索引，取代 V7 的 idx_transactions_account_created_covering
+-- 说明:
+--  - 键序与分页排序 (created_at DESC, id DESC) 完全一致：ORDER BY ... LIMIT 与键集游标直接按索引顺序读取，
+--    同一时间戳内不再需要额外的增量排序
+--  - INCLUDE 沿用 V7 的 transaction_type/amount/status：按账户的 count 与 status 过滤可做 Index Only Scan
+--  - remark 为不限长 TEXT，不放入索引（超过索引行上限约 2.7KB 的备注会导致写入失败），
+--    因此取页数据时每页仅回表 pageSize + 1 行
+-- =============================================================================
+
+CREATE INDEX IF NOT EXISTS idx_transactions_account_created_id
+    ON transactions(account_id, created_at DESC, id DESC)
+    INCLUDE (transaction_type, amount, status);
+
+-- 键为新索引前缀、INCLUDE 列相同，已被完全覆盖
+DROP INDEX IF EXISTS idx_transactions_account_created_covering;
+
+ANALYZE transactions;
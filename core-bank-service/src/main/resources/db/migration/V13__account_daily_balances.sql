@@ -0,0 +1,29 @@
+-- =============================================================================
+-- Flyway 迁移: V13__account_daily_balances.sql
+-- 描述: 账户日终余额快照，任意时点余额 = 最近快照 + 少量增量扫描
+-- 说明:
+--  - 仅为当日有已完成交易的账户写一行（稀疏）：无快照的日期沿用此前最近一行的 closing_balance
+--  - 余额按交易流水推算：deposit/transfer_in 记贷方，withdrawal/transfer_out/payment 记借方，只计 completed
+--  - balance_snapshot_progress 为单行水位：last_business_date 及之前的营业日均已生成快照；
+--    日终任务每次处理水位后一天，快照写入与水位推进在同一事务内提交
+-- =============================================================================
+
+CREATE TABLE account_daily_balances (
+    account_id BIGINT NOT NULL,
+    business_date DATE NOT NULL,
+    closing_balance DECIMAL(19, 2) NOT NULL,
+    debit_total DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    credit_total DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    txn_count INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_account_daily_balances PRIMARY KEY (account_id, business_date),
+    CONSTRAINT fk_account_daily_balances_bank_accounts FOREIGN KEY (account_id) REFERENCES bank_accounts(id)
+);
+
+CREATE TABLE balance_snapshot_progress (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    last_business_date DATE,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO balance_snapshot_progress (id, last_business_date) VALUES (1, NULL);
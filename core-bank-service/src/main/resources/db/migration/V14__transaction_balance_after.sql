@@ -0,0 +1,97 @@
+-- =============================================================================
+-- Flyway 迁移: V14__transaction_balance_after.sql
+-- 描述: 交易流水记录记账后余额（balance_after），任意时点余额 = 该时点前最后一笔已完成流水的 balance_after
+-- 说明:
+--  - 新流水在账户行锁内写入 balance_after（扣款/转账/批量转账/server-side 函数）；
+--    分片账户（入账落分片行，主行余额不完整）与非 completed 流水保持 NULL
+--  - 时点查询沿用 idx_transactions_account_created_id (account_id, created_at DESC, id DESC) 定位一行；
+--    balance_after 不进索引 INCLUDE，避免 insert-first 补记与回填的 UPDATE 失去 HOT
+--  - 历史流水由回填任务按账户 id 分块补齐：balance_after = 按 (created_at, id) 累计的已完成流水净额（开户余额为 0），
+--    只写 NULL 行；balance_after_backfill_progress 为单行水位，completed_at 非空表示已完成一轮，
+--    需重跑时将 last_account_id / completed_at 置 NULL
+-- =============================================================================
+
+ALTER TABLE transactions ADD COLUMN balance_after DECIMAL(19, 2);
+
+COMMENT ON COLUMN transactions.balance_after IS '本笔记账后账户余额；分片账户、非 completed 及未回填的历史流水为 NULL';
+
+CREATE TABLE balance_after_backfill_progress (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    last_account_id BIGINT,
+    completed_at TIMESTAMP WITH TIME ZONE,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO balance_after_backfill_progress (id, last_account_id, completed_at) VALUES (1, NULL, NULL);
+
+-- execute_transfer：签名与返回码不变，流水写入双方记账后余额
+CREATE OR REPLACE FUNCTION execute_transfer(
+    p_from_account_id BIGINT,
+    p_to_account_id BIGINT,
+    p_amount DECIMAL(19, 2),
+    p_remark TEXT,
+    p_tx_out_id VARCHAR(32),
+    p_tx_in_id VARCHAR(32)
+) RETURNS VARCHAR(20)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_from_status VARCHAR(20);
+    v_from_balance DECIMAL(19, 2);
+    v_to_status VARCHAR(20);
+    v_from_after DECIMAL(19, 2);
+    v_to_after DECIMAL(19, 2);
+BEGIN
+    PERFORM 1 FROM bank_accounts
+    WHERE id IN (p_from_account_id, p_to_account_id)
+    ORDER BY id
+    FOR UPDATE;
+
+    SELECT status, balance INTO v_from_status, v_from_balance
+    FROM bank_accounts WHERE id = p_from_account_id;
+    IF NOT FOUND THEN
+        RETURN 'CBB001';
+    END IF;
+
+    SELECT status INTO v_to_status
+    FROM bank_accounts WHERE id = p_to_account_id;
+    IF NOT FOUND THEN
+        RETURN 'CBB001';
+    END IF;
+
+    IF v_from_status <> 'active' THEN
+        RETURN 'CBB003_FROM';
+    END IF;
+    IF v_to_status <> 'active' THEN
+        RETURN 'CBB003_TO';
+    END IF;
+    IF v_from_balance < p_amount THEN
+        RETURN 'CBB002';
+    END IF;
+
+    UPDATE bank_accounts SET balance = balance - p_amount, updated_at = NOW()
+    WHERE id = p_from_account_id
+    RETURNING balance INTO v_from_after;
+    UPDATE bank_accounts SET balance = balance + p_amount, updated_at = NOW()
+    WHERE id = p_to_account_id
+    RETURNING balance INTO v_to_after;
+
+    INSERT INTO transactions (transaction_id, account_id, counter_account_id, amount, balance_after, transaction_type, status, remark)
+    VALUES (p_tx_out_id, p_from_account_id, p_to_account_id, p_amount, v_from_after, 'transfer_out', 'completed', p_remark),
+           (p_tx_in_id, p_to_account_id, p_from_account_id, p_amount, v_to_after, 'transfer_in', 'completed', p_remark);
+
+    INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, idempotency_key, payload, status)
+    VALUES ('TRANSFER_COMPLETED', 'transfer', p_tx_out_id, p_tx_out_id,
+            json_build_object(
+                'txOutId', p_tx_out_id,
+                'txInId', p_tx_in_id,
+                'fromAccountId', p_from_account_id,
+                'toAccountId', p_to_account_id,
+                'amount', p_amount,
+                'status', 'completed'
+            )::TEXT,
+            'pending');
+
+    RETURN 'OK';
+END;
+$$;
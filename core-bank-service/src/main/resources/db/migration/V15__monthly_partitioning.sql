@@ -0,0 +1,211 @@
+-- =============================================================================
+-- Flyway 迁移: V15__monthly_partitioning.sql
+-- 描述: transactions / outbox_events 按 created_at 月度范围分区
+-- 说明:
+--  - 分区边界为 UTC 自然月，分区名 {表名}_pYYYYMM；迁移时建现有数据最早月份至当月后 3 个月的分区，
+--    之后由 PartitionMaintenanceJob 调用 ensure_monthly_partitions 预建未来分区
+--  - 不设 DEFAULT 分区：新建分区无需扫描默认分区，DETACH PARTITION ... CONCURRENTLY 也要求没有默认分区
+--  - 新分区先建独立空表再 ATTACH：ATTACH 对父表只取 SHARE UPDATE EXCLUSIVE 锁，不阻塞读写
+--  - 分区表的主键/唯一约束必须包含分区键：主键改为 (id, created_at)。
+--    ref_id 全局唯一（debit 幂等）改由未分区的 transaction_ref_ids 承担：BEFORE INSERT 触发器登记，
+--    重复时抛 unique_violation（与原唯一索引一致，并发同 refId 等待先到者提交）；
+--    insert-first 写入改为函数 insert_payment_if_absent：先占 transaction_ref_ids，再插流水
+--  - transaction_id / idempotency_key 由时间有序单号与业务单号保证唯一，分区后只保留普通索引
+--  - 去掉被 idx_transactions_account_created_id 覆盖的 idx_transactions_account_id / idx_transactions_account_created、
+--    与唯一约束重复的 idx_transactions_transaction_id，以及已由部分索引 idx_outbox_status_created 覆盖的
+--    idx_outbox_events_status_created_at
+--  - 现有数据在迁移事务内整表复制到分区表（一次性），大表应在维护窗口执行
+-- =============================================================================
+
+-- 建 p_month 所在月的分区（已存在返回 FALSE）
+CREATE OR REPLACE FUNCTION create_monthly_partition(p_parent TEXT, p_month DATE)
+RETURNS BOOLEAN
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_start DATE := make_date(EXTRACT(YEAR FROM p_month)::INT, EXTRACT(MONTH FROM p_month)::INT, 1);
+    v_name TEXT := p_parent || '_p' || to_char(v_start, 'YYYYMM');
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name, p_parent);
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   p_parent, v_name,
+                   v_start::TIMESTAMP AT TIME ZONE 'UTC',
+                   (v_start + INTERVAL '1 month') AT TIME ZONE 'UTC');
+    RETURN TRUE;
+END;
+$$;
+
+-- 建 [p_from, p_to] 各月的分区，返回新建个数
+CREATE OR REPLACE FUNCTION ensure_monthly_partitions(p_parent TEXT, p_from DATE, p_to DATE)
+RETURNS INT
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_month DATE := make_date(EXTRACT(YEAR FROM p_from)::INT, EXTRACT(MONTH FROM p_from)::INT, 1);
+    v_created INT := 0;
+BEGIN
+    -- 多实例同时预建时串行化，后到者看到已存在的分区直接跳过
+    PERFORM pg_advisory_xact_lock(hashtext('ensure_monthly_partitions:' || p_parent));
+    WHILE v_month <= p_to LOOP
+        IF create_monthly_partition(p_parent, v_month) THEN
+            v_created := v_created + 1;
+        END IF;
+        v_month := (v_month + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN v_created;
+END;
+$$;
+
+-- -----------------------------------------------------------------------------
+-- transactions
+-- -----------------------------------------------------------------------------
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+
+CREATE TABLE transactions (
+    id BIGINT NOT NULL DEFAULT nextval('transactions_id_seq'),
+    transaction_id VARCHAR(32) NOT NULL,
+    account_id BIGINT NOT NULL,
+    counter_account_id BIGINT,
+    amount DECIMAL(19, 2) NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending',
+    remark TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ref_id VARCHAR(64),
+    balance_after DECIMAL(19, 2),
+    CONSTRAINT pk_transactions PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_transactions_bank_accounts FOREIGN KEY (account_id) REFERENCES bank_accounts(id),
+    CONSTRAINT fk_transactions_counter_accounts FOREIGN KEY (counter_account_id) REFERENCES bank_accounts(id)
+) PARTITION BY RANGE (created_at);
+
+COMMENT ON COLUMN transactions.ref_id IS '外部引用号，如 paymentId，用于 debit 幂等（全局唯一由 transaction_ref_ids 保证）';
+COMMENT ON COLUMN transactions.balance_after IS '本笔记账后账户余额；分片账户、非 completed 及未回填的历史流水为 NULL';
+
+SELECT ensure_monthly_partitions('transactions',
+        (SELECT COALESCE(MIN(created_at), NOW()) AT TIME ZONE 'UTC' FROM transactions_unpartitioned)::DATE,
+        ((NOW() AT TIME ZONE 'UTC') + INTERVAL '3 months')::DATE);
+
+INSERT INTO transactions (id, transaction_id, account_id, counter_account_id, amount, transaction_type, status,
+                          remark, created_at, updated_at, ref_id, balance_after)
+SELECT id, transaction_id, account_id, counter_account_id, amount, transaction_type, status,
+       remark, created_at, updated_at, ref_id, balance_after
+FROM transactions_unpartitioned;
+
+ALTER SEQUENCE transactions_id_seq OWNED BY transactions.id;
+DROP TABLE transactions_unpartitioned;
+
+CREATE INDEX idx_transactions_account_created_id
+    ON transactions(account_id, created_at DESC, id DESC)
+    INCLUDE (transaction_type, amount, status);
+CREATE INDEX idx_transactions_account_status_created ON transactions(account_id, status, created_at DESC);
+CREATE INDEX idx_transactions_counter_account_created ON transactions(counter_account_id, created_at DESC);
+CREATE INDEX idx_transactions_created_at ON transactions(created_at);
+CREATE INDEX idx_transactions_status ON transactions(status);
+CREATE INDEX idx_transactions_transaction_id ON transactions(transaction_id);
+CREATE INDEX idx_transactions_ref_id ON transactions(ref_id) WHERE ref_id IS NOT NULL;
+
+-- refId 全局唯一登记表：不分区，created_at 与流水一致，按 refId 查流水时据此裁剪分区
+CREATE TABLE transaction_ref_ids (
+    ref_id VARCHAR(64) NOT NULL,
+    transaction_id VARCHAR(32) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_transaction_ref_ids PRIMARY KEY (ref_id)
+);
+
+INSERT INTO transaction_ref_ids (ref_id, transaction_id, created_at)
+SELECT ref_id, transaction_id, created_at FROM transactions WHERE ref_id IS NOT NULL;
+
+-- 写入带 ref_id 的流水时登记 refId；已由 insert_payment_if_absent 为同一流水占位时跳过
+CREATE OR REPLACE FUNCTION register_transaction_ref_id()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF NEW.ref_id IS NULL THEN
+        RETURN NEW;
+    END IF;
+    PERFORM 1 FROM transaction_ref_ids WHERE ref_id = NEW.ref_id AND transaction_id = NEW.transaction_id;
+    IF NOT FOUND THEN
+        INSERT INTO transaction_ref_ids (ref_id, transaction_id, created_at)
+        VALUES (NEW.ref_id, NEW.transaction_id, NEW.created_at);
+    END IF;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER trg_transactions_register_ref_id
+    BEFORE INSERT ON transactions
+    FOR EACH ROW EXECUTE FUNCTION register_transaction_ref_id();
+
+-- insert-first 支付流水：refId 已存在返回 NULL；账户不存在抛外键异常
+CREATE OR REPLACE FUNCTION insert_payment_if_absent(
+    p_transaction_id VARCHAR(32),
+    p_account_id BIGINT,
+    p_amount DECIMAL(19, 2),
+    p_remark TEXT,
+    p_ref_id VARCHAR(64)
+) RETURNS BIGINT
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_id BIGINT;
+BEGIN
+    INSERT INTO transaction_ref_ids (ref_id, transaction_id, created_at)
+    VALUES (p_ref_id, p_transaction_id, NOW())
+    ON CONFLICT (ref_id) DO NOTHING;
+    IF NOT FOUND THEN
+        RETURN NULL;
+    END IF;
+
+    INSERT INTO transactions (transaction_id, account_id, amount, transaction_type, status, remark, ref_id, created_at, updated_at)
+    VALUES (p_transaction_id, p_account_id, p_amount, 'payment', 'completed', p_remark, p_ref_id, NOW(), NOW())
+    RETURNING id INTO v_id;
+    RETURN v_id;
+END;
+$$;
+
+-- -----------------------------------------------------------------------------
+-- outbox_events
+-- -----------------------------------------------------------------------------
+ALTER TABLE outbox_events RENAME TO outbox_events_unpartitioned;
+
+CREATE TABLE outbox_events (
+    id BIGINT NOT NULL DEFAULT nextval('outbox_events_id_seq'),
+    event_type VARCHAR(64) NOT NULL,
+    aggregate_type VARCHAR(64),
+    aggregate_id VARCHAR(128),
+    idempotency_key VARCHAR(128),
+    payload TEXT NOT NULL,
+    headers TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending', -- pending | processing | sent | failed
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+SELECT ensure_monthly_partitions('outbox_events',
+        (SELECT COALESCE(MIN(created_at), NOW()) AT TIME ZONE 'UTC' FROM outbox_events_unpartitioned)::DATE,
+        ((NOW() AT TIME ZONE 'UTC') + INTERVAL '3 months')::DATE);
+
+INSERT INTO outbox_events (id, event_type, aggregate_type, aggregate_id, idempotency_key, payload, headers,
+                           status, attempts, last_error, created_at, updated_at, sent_at)
+SELECT id, event_type, aggregate_type, aggregate_id, idempotency_key, payload, headers,
+       status, attempts, last_error, created_at, updated_at, sent_at
+FROM outbox_events_unpartitioned;
+
+ALTER SEQUENCE outbox_events_id_seq OWNED BY outbox_events.id;
+DROP TABLE outbox_events_unpartitioned;
+
+CREATE INDEX idx_outbox_status_created ON outbox_events(status, created_at) WHERE status = 'pending';
+CREATE INDEX idx_outbox_events_idempotency_key ON outbox_events(idempotency_key) WHERE idempotency_key IS NOT NULL;
+
+ANALYZE transactions;
+ANALYZE transaction_ref_ids;
+ANALYZE outbox_events;
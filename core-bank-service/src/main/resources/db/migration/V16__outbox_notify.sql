@@ -0,0 +1,22 @@
+-- =============================================================================
+-- Flyway 迁移: V16__outbox_notify.sql
+-- 描述: outbox_events 写入时 NOTIFY，唤醒 OutboxPublisher
+-- 说明:
+--  - 语句级 AFTER INSERT 触发器：覆盖 OutboxService 单条/批量写入以及 execute_transfer 等 SQL 函数内的写入
+--  - NOTIFY 在事务提交时才投递，回滚的事务不会唤醒；同一事务内同通道同 payload 的通知由 PostgreSQL 合并为一条
+--  - 通知不携带事件内容，只作唤醒信号；publisher 仍以 claimPending（SKIP LOCKED）领取，漏收通知由低频轮询兜底
+-- =============================================================================
+
+CREATE OR REPLACE FUNCTION notify_outbox_events()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    PERFORM pg_notify('outbox_events', '');
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_outbox_events_notify
+    AFTER INSERT ON outbox_events
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_outbox_events();
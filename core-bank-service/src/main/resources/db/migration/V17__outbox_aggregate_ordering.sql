@@ -0,0 +1,14 @@
+-- =============================================================================
+-- Flyway 迁移: V17__outbox_aggregate_ordering.sql
+-- 描述: outbox 按聚合有序领取的辅助索引
+-- 说明:
+--  - claimPending 对每条候选事件检查同一聚合（aggregate_type + aggregate_id）是否存在更早的 pending/processing 事件，
+--    存在则跳过，保证聚合内严格按 created_at 顺序投递，不同聚合之间并行
+--  - 部分索引只覆盖未完成事件，sent/failed 历史不占索引空间
+-- =============================================================================
+
+CREATE INDEX idx_outbox_events_aggregate_unfinished
+    ON outbox_events(aggregate_id, aggregate_type, created_at, id)
+    WHERE status IN ('pending', 'processing');
+
+ANALYZE outbox_events;
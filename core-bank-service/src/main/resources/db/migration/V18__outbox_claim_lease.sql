@@ -0,0 +1,25 @@
+-- =============================================================================
+-- Flyway 迁移: V18__outbox_claim_lease.sql
+-- 描述: outbox 领取租约（claimed_by / lease_until）
+-- 说明:
+--  - claimPending 领取时写入持有者与租约到期时间，投递期间由持有者定期续约（心跳）；
+--    持有者宕机后 processing 事件在租约到期时可被同一条 SKIP LOCKED 领取语句重新领取，无需人工重置
+--  - 部分索引谓词不能引用 NOW()，因此覆盖 pending 与 processing 全部未完成事件，按 created_at 有序，
+--    lease_until 放在索引列中供过滤；未完成事件只占全表极小比例，百万级历史（sent/failed）不进入索引
+--  - 替换仅覆盖 pending 的 idx_outbox_status_created
+--  - 升级前已处于 processing 的事件没有租约，视为已过期，升级后即可重新领取
+-- =============================================================================
+
+ALTER TABLE outbox_events ADD COLUMN claimed_by VARCHAR(128);
+ALTER TABLE outbox_events ADD COLUMN lease_until TIMESTAMP WITH TIME ZONE;
+
+COMMENT ON COLUMN outbox_events.claimed_by IS '领取实例（processing 期间有效）';
+COMMENT ON COLUMN outbox_events.lease_until IS '领取租约到期时间；processing 且已过期的事件可被重新领取';
+
+CREATE INDEX idx_outbox_events_claimable
+    ON outbox_events(created_at, lease_until)
+    WHERE status IN ('pending', 'processing');
+
+DROP INDEX IF EXISTS idx_outbox_status_created;
+
+ANALYZE outbox_events;
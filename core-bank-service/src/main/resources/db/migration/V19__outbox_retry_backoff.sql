@@ -0,0 +1,25 @@
+-- =============================================================================
+-- Flyway 迁移: V19__outbox_retry_backoff.sql
+-- 描述: outbox 投递失败后按退避时间重试（next_attempt_at）
+-- 说明:
+--  - 投递失败回到 pending 时写入 next_attempt_at = now + 退避（指数增长 + 随机抖动，按事件类型配置），
+--    到期前不会被领取；新写入事件为 NULL，即 created_at 起立即可领取
+--  - 领取条件统一为“到期时间 <= NOW()”：pending 取 COALESCE(next_attempt_at, created_at)，
+--    processing 取租约到期时间 COALESCE(lease_until, created_at)（V18 之前领取、没有租约的视为已过期）
+--  - 部分索引谓词不能引用 NOW()，改为对到期时间表达式建索引：领取时按到期时间范围扫描，
+--    只触及已到期的行，下游故障期间大量退避中的事件不再被反复扫描；替换 V18 的 idx_outbox_events_claimable
+--  - 表达式须与 OutboxEventRepositoryImpl 领取语句中的写法完全一致，规划器才能使用该索引
+-- =============================================================================
+
+ALTER TABLE outbox_events ADD COLUMN next_attempt_at TIMESTAMP WITH TIME ZONE;
+
+COMMENT ON COLUMN outbox_events.next_attempt_at IS '下次可投递时间（失败退避）；NULL 表示立即可投递';
+
+CREATE INDEX idx_outbox_events_due
+    ON outbox_events ((CASE WHEN status = 'pending' THEN COALESCE(next_attempt_at, created_at)
+                            ELSE COALESCE(lease_until, created_at) END))
+    WHERE status IN ('pending', 'processing');
+
+DROP INDEX IF EXISTS idx_outbox_events_claimable;
+
+ANALYZE outbox_events;
@@ -0,0 +1,116 @@
+-- =============================================================================
+-- Flyway 迁移: V20__execute_transfer_sharded_accounts.sql
+-- 描述: execute_transfer 按加锁行的 shard_count 处理分片账户
+-- 说明:
+--  - 是否分片以持有主行锁时读到的 bank_accounts.shard_count 为准，不依赖应用实例的分片账户缓存
+--  - 转出账户为分片账户且主行余额不足时，先按 slot 顺序锁定并清零全部分片、归集到主行再判断余额
+--    （与 ShardedAccountService.debitLocked 一致；分片行锁在主行锁之后，锁顺序不变）
+--  - 转入分片账户直接计入主行（总余额 = 主行 + 分片，同样正确）
+--  - 分片账户的流水 balance_after 保持 NULL（主行余额不是总余额，与 V14 约定一致）
+--  - 签名与返回码不变
+-- =============================================================================
+
+CREATE OR REPLACE FUNCTION execute_transfer(
+    p_from_account_id BIGINT,
+    p_to_account_id BIGINT,
+    p_amount DECIMAL(19, 2),
+    p_remark TEXT,
+    p_tx_out_id VARCHAR(32),
+    p_tx_in_id VARCHAR(32)
+) RETURNS VARCHAR(20)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_from_status VARCHAR(20);
+    v_from_balance DECIMAL(19, 2);
+    v_from_shards INT;
+    v_to_status VARCHAR(20);
+    v_to_shards INT;
+    v_drained DECIMAL(19, 2);
+    v_from_after DECIMAL(19, 2);
+    v_to_after DECIMAL(19, 2);
+BEGIN
+    PERFORM 1 FROM bank_accounts
+    WHERE id IN (p_from_account_id, p_to_account_id)
+    ORDER BY id
+    FOR UPDATE;
+
+    SELECT status, balance, shard_count INTO v_from_status, v_from_balance, v_from_shards
+    FROM bank_accounts WHERE id = p_from_account_id;
+    IF NOT FOUND THEN
+        RETURN 'CBB001';
+    END IF;
+
+    SELECT status, shard_count INTO v_to_status, v_to_shards
+    FROM bank_accounts WHERE id = p_to_account_id;
+    IF NOT FOUND THEN
+        RETURN 'CBB001';
+    END IF;
+
+    IF v_from_status <> 'active' THEN
+        RETURN 'CBB003_FROM';
+    END IF;
+    IF v_to_status <> 'active' THEN
+        RETURN 'CBB003_TO';
+    END IF;
+
+    IF v_from_balance < p_amount AND v_from_shards > 0 THEN
+        WITH locked AS (
+            SELECT slot, balance
+            FROM account_balance_shards
+            WHERE account_id = p_from_account_id
+            ORDER BY slot
+            FOR UPDATE
+        ), drained AS (
+            UPDATE account_balance_shards s
+            SET balance = 0, updated_at = NOW()
+            FROM locked
+            WHERE s.account_id = p_from_account_id AND s.slot = locked.slot AND locked.balance > 0
+            RETURNING locked.balance
+        )
+        SELECT COALESCE(SUM(balance), 0) INTO v_drained FROM drained;
+
+        IF v_drained > 0 THEN
+            UPDATE bank_accounts SET balance = balance + v_drained, updated_at = NOW()
+            WHERE id = p_from_account_id
+            RETURNING balance INTO v_from_balance;
+        END IF;
+    END IF;
+
+    IF v_from_balance < p_amount THEN
+        RETURN 'CBB002';
+    END IF;
+
+    UPDATE bank_accounts SET balance = balance - p_amount, updated_at = NOW()
+    WHERE id = p_from_account_id
+    RETURNING balance INTO v_from_after;
+    UPDATE bank_accounts SET balance = balance + p_amount, updated_at = NOW()
+    WHERE id = p_to_account_id
+    RETURNING balance INTO v_to_after;
+
+    IF v_from_shards > 0 THEN
+        v_from_after := NULL;
+    END IF;
+    IF v_to_shards > 0 THEN
+        v_to_after := NULL;
+    END IF;
+
+    INSERT INTO transactions (transaction_id, account_id, counter_account_id, amount, balance_after, transaction_type, status, remark)
+    VALUES (p_tx_out_id, p_from_account_id, p_to_account_id, p_amount, v_from_after, 'transfer_out', 'completed', p_remark),
+           (p_tx_in_id, p_to_account_id, p_from_account_id, p_amount, v_to_after, 'transfer_in', 'completed', p_remark);
+
+    INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, idempotency_key, payload, status)
+    VALUES ('TRANSFER_COMPLETED', 'transfer', p_tx_out_id, p_tx_out_id,
+            json_build_object(
+                'txOutId', p_tx_out_id,
+                'txInId', p_tx_in_id,
+                'fromAccountId', p_from_account_id,
+                'toAccountId', p_to_account_id,
+                'amount', p_amount,
+                'status', 'completed'
+            )::TEXT,
+            'pending');
+
+    RETURN 'OK';
+END;
+$$;
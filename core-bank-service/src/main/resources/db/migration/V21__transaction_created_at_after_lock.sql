@@ -0,0 +1,50 @@
+-- =============================================================================
+-- Flyway 迁移: V21__transaction_created_at_after_lock.sql
+-- 描述: 流水 created_at 在持有账户行锁之后由数据库时钟打点，使同一账户的 created_at 顺序即记账顺序
+-- 说明:
+--  - balance_after 按 (created_at, id) 取"某时刻之前最后一笔"（BalanceSnapshotRepository.findBalanceAfterAsOf）
+--    与回填累计（BalanceAfterBackfillRepository）都依赖 created_at 顺序 = 加锁记账顺序。原先：
+--      * NOW() / CURRENT_TIMESTAMP 是事务开始时间，早于等锁，后拿到锁的事务可能带更早的时间
+--      * JPA @CreatedDate 取各实例 JVM 时钟，实例间有偏差
+--  - 改为列默认值 clock_timestamp()：INSERT 执行时取值，各写入路径的流水 INSERT 都在账户行锁之后
+--    （execute_transfer 加锁后才插流水，沿用默认值；JPA 实体不再写 created_at，flush 时同样晚于加锁）。
+--    同一事务内多行按插入顺序递增，相同微秒时由 id（同序分配）区分
+--  - insert_payment_if_absent 先以 FOR NO KEY UPDATE（与扣款 UPDATE 同级，不阻塞外键 KEY SHARE）锁账户行再占位，
+--    created_at 即取自加锁之后；同 refId 的并发请求在账户行锁上等待先到者提交后返回空
+--  - 默认值在分区路由之前求值，不会出现 BEFORE 触发器改分区键导致的跨分区报错
+--  - 本迁移之前写入的历史流水仍按原时间戳排序，同一账户并发重叠的毫秒级窗口内顺序可能与记账顺序不一致
+-- =============================================================================
+
+ALTER TABLE transactions ALTER COLUMN created_at SET DEFAULT clock_timestamp();
+ALTER TABLE transactions ALTER COLUMN updated_at SET DEFAULT clock_timestamp();
+
+CREATE OR REPLACE FUNCTION insert_payment_if_absent(
+    p_transaction_id VARCHAR(32),
+    p_account_id BIGINT,
+    p_amount DECIMAL(19, 2),
+    p_remark TEXT,
+    p_ref_id VARCHAR(64)
+) RETURNS BIGINT
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_id BIGINT;
+    v_now TIMESTAMP WITH TIME ZONE;
+BEGIN
+    -- 账户不存在时不加锁，随后写流水触发外键异常（调用方还原为 CBB001）
+    PERFORM 1 FROM bank_accounts WHERE id = p_account_id FOR NO KEY UPDATE;
+    v_now := clock_timestamp();
+
+    INSERT INTO transaction_ref_ids (ref_id, transaction_id, created_at)
+    VALUES (p_ref_id, p_transaction_id, v_now)
+    ON CONFLICT (ref_id) DO NOTHING;
+    IF NOT FOUND THEN
+        RETURN NULL;
+    END IF;
+
+    INSERT INTO transactions (transaction_id, account_id, amount, transaction_type, status, remark, ref_id, created_at, updated_at)
+    VALUES (p_transaction_id, p_account_id, p_amount, 'payment', 'completed', p_remark, p_ref_id, v_now, v_now)
+    RETURNING id INTO v_id;
+    RETURN v_id;
+END;
+$$;
@@ -0,0 +1,143 @@
+-- =============================================================================
+-- Flyway 迁移: V22__global_uniqueness_registries_and_partition_fks.sql
+-- 描述: 恢复 transactions.transaction_id 与 outbox_events.idempotency_key 的全局唯一；新分区先建外键再 ATTACH
+-- 说明:
+--  - V15 分区后去掉了 uk_transactions_transaction_id 与唯一索引 idx_outbox_events_idempotency_key
+--    （分区表唯一约束必须含分区键）。单号唯一不能只靠生成器：节点号默认取 16 位主机名哈希，
+--    nextBaseId 只含序号低 32 位，节点号相同的实例可能生成重复单号；idempotency_key 来自业务单号。
+--    与 transaction_ref_ids（V15）相同，改由未分区的登记表 + BEFORE INSERT 触发器承担：
+--    重复时抛 unique_violation，并发写入同一值时等待先到者提交（与原唯一索引一致）
+--  - 历史数据按首次出现登记；V15 之后若已写入重复值，保留原行并以 NOTICE 报告重复个数
+--  - outbox 过期分区删除后由 PartitionMaintenanceService 清理对应的登记行（与原先删除事件行后幂等键可再用一致）；
+--    流水分区只分离归档，登记行保留
+--  - create_monthly_partition：V15 的 ATTACH 需要为新分区克隆指向 bank_accounts 的外键，在 ATTACH 所在事务内对
+--    bank_accounts 持有 SHARE ROW EXCLUSIVE 锁直到提交，期间（以及排队等锁期间）阻塞余额 UPDATE。
+--    改为先在独立空表上 ADD FOREIGN KEY ... NOT VALID 再 VALIDATE，ATTACH 复用已校验的同名外键，不再触及 bank_accounts。
+--    ADD FOREIGN KEY 本身仍短暂取 bank_accounts 的 SHARE ROW EXCLUSIVE（空表无需扫描，持有到事务提交），
+--    等锁时长由调用方 lock_timeout 限制；ATTACH 对父表取 SHARE UPDATE EXCLUSIVE
+-- =============================================================================
+
+-- -----------------------------------------------------------------------------
+-- transaction_id 登记表
+-- -----------------------------------------------------------------------------
+CREATE TABLE transaction_ids (
+    transaction_id VARCHAR(32) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_transaction_ids PRIMARY KEY (transaction_id)
+);
+
+DO $$
+DECLARE
+    v_duplicates BIGINT;
+BEGIN
+    INSERT INTO transaction_ids (transaction_id, created_at)
+    SELECT DISTINCT ON (transaction_id) transaction_id, created_at
+    FROM transactions
+    ORDER BY transaction_id, created_at, id;
+
+    SELECT COUNT(*) - COUNT(DISTINCT transaction_id) INTO v_duplicates FROM transactions;
+    IF v_duplicates > 0 THEN
+        RAISE NOTICE 'transactions 中已有 % 行重复 transaction_id，已按首次出现登记', v_duplicates;
+    END IF;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION register_transaction_id()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    INSERT INTO transaction_ids (transaction_id, created_at)
+    VALUES (NEW.transaction_id, NEW.created_at);
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER trg_transactions_register_transaction_id
+    BEFORE INSERT ON transactions
+    FOR EACH ROW EXECUTE FUNCTION register_transaction_id();
+
+-- -----------------------------------------------------------------------------
+-- outbox idempotency_key 登记表
+-- -----------------------------------------------------------------------------
+CREATE TABLE outbox_idempotency_keys (
+    idempotency_key VARCHAR(128) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_outbox_idempotency_keys PRIMARY KEY (idempotency_key)
+);
+
+-- 过期分区删除后按时间清理
+CREATE INDEX idx_outbox_idempotency_keys_created_at ON outbox_idempotency_keys(created_at);
+
+DO $$
+DECLARE
+    v_duplicates BIGINT;
+BEGIN
+    INSERT INTO outbox_idempotency_keys (idempotency_key, created_at)
+    SELECT DISTINCT ON (idempotency_key) idempotency_key, created_at
+    FROM outbox_events
+    WHERE idempotency_key IS NOT NULL
+    ORDER BY idempotency_key, created_at, id;
+
+    SELECT COUNT(idempotency_key) - COUNT(DISTINCT idempotency_key) INTO v_duplicates FROM outbox_events;
+    IF v_duplicates > 0 THEN
+        RAISE NOTICE 'outbox_events 中已有 % 行重复 idempotency_key，已按首次出现登记', v_duplicates;
+    END IF;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION register_outbox_idempotency_key()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF NEW.idempotency_key IS NOT NULL THEN
+        INSERT INTO outbox_idempotency_keys (idempotency_key, created_at)
+        VALUES (NEW.idempotency_key, NEW.created_at);
+    END IF;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER trg_outbox_events_register_idempotency_key
+    BEFORE INSERT ON outbox_events
+    FOR EACH ROW EXECUTE FUNCTION register_outbox_idempotency_key();
+
+ANALYZE transaction_ids;
+ANALYZE outbox_idempotency_keys;
+
+-- -----------------------------------------------------------------------------
+-- 新分区：先在独立表上建外键并校验，再 ATTACH
+-- -----------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION create_monthly_partition(p_parent TEXT, p_month DATE)
+RETURNS BOOLEAN
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_start DATE := make_date(EXTRACT(YEAR FROM p_month)::INT, EXTRACT(MONTH FROM p_month)::INT, 1);
+    v_name TEXT := p_parent || '_p' || to_char(v_start, 'YYYYMM');
+    v_fk RECORD;
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name, p_parent);
+
+    -- 与父表外键同名同定义：ATTACH 时直接挂接，不再克隆（克隆会在 ATTACH 事务内锁住被引用表）
+    FOR v_fk IN
+        SELECT conname, pg_get_constraintdef(oid) AS def
+        FROM pg_constraint
+        WHERE conrelid = p_parent::regclass AND contype = 'f' AND conparentid = 0
+        ORDER BY conname
+    LOOP
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I %s NOT VALID', v_name, v_fk.conname, v_fk.def);
+        EXECUTE format('ALTER TABLE %I VALIDATE CONSTRAINT %I', v_name, v_fk.conname);
+    END LOOP;
+
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   p_parent, v_name,
+                   v_start::TIMESTAMP AT TIME ZONE 'UTC',
+                   (v_start + INTERVAL '1 month') AT TIME ZONE 'UTC');
+    RETURN TRUE;
+END;
+$$;
@@ -0,0 +1,23 @@
+-- =============================================================================
+-- Flyway 迁移: V23__reset_balance_after_backfill.sql
+-- 描述: 清除按开户余额 0 回填的历史 balance_after，回填水位归零待重跑
+-- 说明:
+--  - 此前回填任务以 0 为期初余额累计净发生额，导入数据（database/scripts/import-pg-csv.sh）的账户开户余额非零，
+--    回填值整体偏移甚至为负。回填改为以当前余额倒推期初余额（BalanceAfterBackfillRepository.backfill）
+--  - 回填对象是 V14 安装之前写入的流水（之后的流水在账户锁内写入 balance_after），按 flyway_schema_history 中
+--    V14 的 installed_on 界定；只清除水位已覆盖的账户，未运行过回填的库不做改动
+--  - 回填任务默认关闭（transaction.balance-after-backfill.enabled），确认后按需开启重跑
+-- =============================================================================
+
+UPDATE transactions t
+SET balance_after = NULL
+FROM balance_after_backfill_progress p
+WHERE p.id = 1
+  AND p.last_account_id IS NOT NULL
+  AND t.account_id <= p.last_account_id
+  AND t.balance_after IS NOT NULL
+  AND t.created_at < (SELECT installed_on FROM flyway_schema_history WHERE version = '14');
+
+UPDATE balance_after_backfill_progress
+SET last_account_id = NULL, completed_at = NULL, updated_at = NOW()
+WHERE id = 1;
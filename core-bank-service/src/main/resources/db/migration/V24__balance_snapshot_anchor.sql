@@ -0,0 +1,18 @@
+-- =============================================================================
+-- Flyway 迁移: V24__balance_snapshot_anchor.sql
+-- 描述: 日终余额快照以当前账户余额倒推的期初锚点起算，清除按开户余额 0 推算的旧快照
+-- 说明:
+--  - 此前快照从最早一笔交易日起按 0 累计，导入数据（database/scripts/import-pg-csv.sh）的开户余额非零，
+--    closing_balance 与时点余额整体偏移，且与以真实余额为起点的 balance_after 不一致
+--  - 首次运行改为在最近可结算营业日为全部账户写一行快照（当前余额 - 其后交易净额），记入 anchor_business_date；
+--    此后按日增量累加。早于锚点的时点只能由 balance_after 回答，否则拒绝查询，不再从头扫描流水
+--  - 旧快照全部删除、水位归零，下次日终任务重新生成锚点
+-- =============================================================================
+
+ALTER TABLE balance_snapshot_progress ADD COLUMN anchor_business_date DATE;
+
+DELETE FROM account_daily_balances;
+
+UPDATE balance_snapshot_progress
+SET last_business_date = NULL, anchor_business_date = NULL, updated_at = NOW()
+WHERE id = 1;
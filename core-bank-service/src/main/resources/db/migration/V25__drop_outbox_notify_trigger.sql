@@ -0,0 +1,12 @@
+-- =============================================================================
+-- Flyway 迁移: V25__drop_outbox_notify_trigger.sql
+-- 描述: 移除 outbox_events 写入触发器中的 NOTIFY，改由应用在提交后合并发出唤醒
+-- 说明:
+--  - 调用过 NOTIFY 的事务提交时需持有全局通知队列锁，V16 触发器使每笔扣款/转账事务都参与这一串行化，
+--    抵消了热点路径上减少提交争用的优化
+--  - 改为写入事务提交后由 OutboxWakeup 在合并窗口（outbox.wakeup.coalesce-ms）内以独立语句发出一条
+--    pg_notify('outbox_events', '')；通道与 OutboxNotificationListener 不变，漏发由 publisher 兜底轮询覆盖
+-- =============================================================================
+
+DROP TRIGGER IF EXISTS trg_outbox_events_notify ON outbox_events;
+DROP FUNCTION IF EXISTS notify_outbox_events();
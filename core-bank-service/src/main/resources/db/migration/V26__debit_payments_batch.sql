@@ -0,0 +1,65 @@
+-- =============================================================================
+-- Flyway 迁移: V26__debit_payments_batch.sql
+-- 描述: 合并提交（DebitGroupCommitter）整批支付扣款的占位、扣款与流水写入合并为一次函数调用
+-- 说明:
+--  - 原先 insert-first 下每笔扣款各有 insert_payment_if_absent、条件扣款 UPDATE、补记 balance_after 三次往返，
+--    批内只有 outbox 事件是多行写入；改为以数组传入整批，函数内逐行处理、结果集一次返回
+--  - 逐行顺序即数组顺序（调用方按账户 id 排好，与转账路径一致避免死锁）；同一账户多笔按到达顺序依次扣减，
+--    这是单条 UPDATE ... FROM unnest 无法表达的（同一行在一条语句内只能更新一次）
+--  - 每行语义与单笔路径一致：FOR NO KEY UPDATE 锁账户行后以 ON CONFLICT DO NOTHING 占住 transaction_ref_ids，
+--    再以与 AccountRepositoryImpl.debitIfSufficient 相同的条件 UPDATE 扣款，流水 INSERT 时直接带 balance_after，
+--    created_at 取加锁之后的 clock_timestamp()
+--  - 返回 (ord, id, balance_after)：id 为空表示 refId 已被占用（未扣款）；balance_after 为空表示条件扣款未命中
+--    （分片账户/余额不足/冻结），占位已写入，由调用方按单笔路径归集分片或还原错误码并撤销占位
+--  - 账户不存在时写流水触发外键异常，整批事务失败，调用方逐笔回退到单笔路径返回 CBB001
+-- =============================================================================
+
+CREATE OR REPLACE FUNCTION debit_payments_batch(
+    p_transaction_ids VARCHAR(32)[],
+    p_account_ids BIGINT[],
+    p_amounts DECIMAL(19, 2)[],
+    p_remarks TEXT[],
+    p_ref_ids VARCHAR(64)[]
+) RETURNS TABLE (ord INT, id BIGINT, balance_after DECIMAL(19, 2))
+LANGUAGE plpgsql
+AS $$
+#variable_conflict use_column
+DECLARE
+    v_now TIMESTAMP WITH TIME ZONE;
+    v_balance DECIMAL(19, 2);
+    v_id BIGINT;
+BEGIN
+    FOR i IN 1 .. COALESCE(array_length(p_ref_ids, 1), 0) LOOP
+        PERFORM 1 FROM bank_accounts a WHERE a.id = p_account_ids[i] FOR NO KEY UPDATE;
+        v_now := clock_timestamp();
+
+        INSERT INTO transaction_ref_ids (ref_id, transaction_id, created_at)
+        VALUES (p_ref_ids[i], p_transaction_ids[i], v_now)
+        ON CONFLICT (ref_id) DO NOTHING;
+        IF NOT FOUND THEN
+            ord := i;
+            id := NULL;
+            balance_after := NULL;
+            RETURN NEXT;
+            CONTINUE;
+        END IF;
+
+        v_balance := NULL;
+        UPDATE bank_accounts a
+        SET balance = a.balance - p_amounts[i], updated_at = NOW()
+        WHERE a.id = p_account_ids[i] AND a.status = 'active' AND a.shard_count = 0 AND a.balance >= p_amounts[i]
+        RETURNING a.balance INTO v_balance;
+
+        INSERT INTO transactions (transaction_id, account_id, amount, balance_after, transaction_type, status,
+                                  remark, ref_id, created_at, updated_at)
+        VALUES (p_transaction_ids[i], p_account_ids[i], p_amounts[i], v_balance, 'payment', 'completed',
+                p_remarks[i], p_ref_ids[i], v_now, v_now)
+        RETURNING transactions.id INTO v_id;
+
+        ord := i;
+        id := v_id;
+        balance_after := v_balance;
+        RETURN NEXT;
+    END LOOP;
+END;
+$$;
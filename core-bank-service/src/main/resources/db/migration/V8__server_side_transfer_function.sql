@@ -0,0 +1,77 @@
+-- =============================================================================
+-- Flyway 迁移: V8__server_side_transfer_function.sql
+-- 描述: 行内转账服务端执行函数（一次调用完成 加锁/校验/扣款/入账/流水/outbox）
+-- 说明:
+--  - 按账户 id 顺序加锁，与 Java 路径一致，避免死锁
+--  - 校验失败不抛异常，返回错误码（CBB001 / CBB002 / CBB003_FROM / CBB003_TO），
+--    由调用方映射为 BusinessException 并回滚事务；成功返回 OK
+--  - outbox 事件 payload 与 TransactionService JPA 路径字段一致
+-- =============================================================================
+
+CREATE OR REPLACE FUNCTION execute_transfer(
+    p_from_account_id BIGINT,
+    p_to_account_id BIGINT,
+    p_amount DECIMAL(19, 2),
+    p_remark TEXT,
+    p_tx_out_id VARCHAR(32),
+    p_tx_in_id VARCHAR(32)
+) RETURNS VARCHAR(20)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_from_status VARCHAR(20);
+    v_from_balance DECIMAL(19, 2);
+    v_to_status VARCHAR(20);
+BEGIN
+    PERFORM 1 FROM bank_accounts
+    WHERE id IN (p_from_account_id, p_to_account_id)
+    ORDER BY id
+    FOR UPDATE;
+
+    SELECT status, balance INTO v_from_status, v_from_balance
+    FROM bank_accounts WHERE id = p_from_account_id;
+    IF NOT FOUND THEN
+        RETURN 'CBB001';
+    END IF;
+
+    SELECT status INTO v_to_status
+    FROM bank_accounts WHERE id = p_to_account_id;
+    IF NOT FOUND THEN
+        RETURN 'CBB001';
+    END IF;
+
+    IF v_from_status <> 'active' THEN
+        RETURN 'CBB003_FROM';
+    END IF;
+    IF v_to_status <> 'active' THEN
+        RETURN 'CBB003_TO';
+    END IF;
+    IF v_from_balance < p_amount THEN
+        RETURN 'CBB002';
+    END IF;
+
+    UPDATE bank_accounts SET balance = balance - p_amount, updated_at = NOW() WHERE id = p_from_account_id;
+    UPDATE bank_accounts SET balance = balance + p_amount, updated_at = NOW() WHERE id = p_to_account_id;
+
+    INSERT INTO transactions (transaction_id, account_id, counter_account_id, amount, transaction_type, status, remark)
+    VALUES (p_tx_out_id, p_from_account_id, p_to_account_id, p_amount, 'transfer_out', 'completed', p_remark),
+           (p_tx_in_id, p_to_account_id, p_from_account_id, p_amount, 'transfer_in', 'completed', p_remark);
+
+    INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, idempotency_key, payload, status)
+    VALUES ('TRANSFER_COMPLETED', 'transfer', p_tx_out_id, p_tx_out_id,
+            json_build_object(
+                'txOutId', p_tx_out_id,
+                'txInId', p_tx_in_id,
+                'fromAccountId', p_from_account_id,
+                'toAccountId', p_to_account_id,
+                'amount', p_amount,
+                'status', 'completed'
+            )::TEXT,
+            'pending');
+
+    RETURN 'OK';
+END;
+$$;
+
+COMMENT ON FUNCTION execute_transfer(BIGINT, BIGINT, DECIMAL, TEXT, VARCHAR, VARCHAR)
+    IS '行内转账服务端执行：一次往返完成加锁、校验、余额更新、流水与 outbox 写入';
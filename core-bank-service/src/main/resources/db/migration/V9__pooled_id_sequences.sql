@@ -0,0 +1,15 @@
+-- =============================================================================
+-- Flyway 迁移: V9__pooled_id_sequences.sql
+-- 描述: 高频写入表改用序列 + pooled 优化器分配主键（allocationSize = 50）
+-- 说明:
+--  - IDENTITY 主键需要逐行 INSERT 取回 id，Hibernate 因此禁用 JDBC 批量插入
+--  - 复用 BIGSERIAL 自带序列，仅将步长调整为 50，与实体 @SequenceGenerator 保持一致
+--    （Hibernate 启动时会校验序列步长与 allocationSize 是否一致）
+--  - 列默认值 nextval(...) 保留，数据库端直接插入（如 execute_transfer）仍可用，
+--    单次 nextval 取得的值不会落入 Hibernate 已分配的号段
+-- =============================================================================
+
+ALTER SEQUENCE transactions_id_seq INCREMENT BY 50;
+ALTER SEQUENCE outbox_events_id_seq INCREMENT BY 50;
+ALTER SEQUENCE batch_transfers_id_seq INCREMENT BY 50;
+ALTER SEQUENCE scheduled_transfers_id_seq INCREMENT BY 50;
@@ -0,0 +1,205 @@
+package com.digitalbank.core.benchmark;
+
+import com.digitalbank.core.client.RiskClient;
+import com.digitalbank.core.config.ConnectionAwareExecutor;
+import com.digitalbank.core.dto.BatchTransferRequest;
+import com.digitalbank.core.dto.TransferItem;
+import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.entity.Customer;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.BatchTransferRepository;
+import com.digitalbank.core.repository.CustomerRepository;
+import com.digitalbank.core.repository.TransactionRepository;
+import com.digitalbank.core.service.BatchNettingEngine;
+import com.digitalbank.core.service.BatchTransferService;
+import com.digitalbank.core.service.BalanceCache;
+import com.digitalbank.core.service.OutboxService;
+import com.digitalbank.core.service.ShardedAccountService;
+import com.digitalbank.core.service.TransactionIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 批量转账锁竞争基准：10/50/100 笔、账户高度重叠时，逐笔短事务 vs 轧差模式。
+ * <p>
+ * 默认不执行；运行方式：{@code mvn test -Dtest=BatchTransferContentionBenchmarkTest -Dbenchmark=true}（需 Docker）。
+ * 输出每批延迟 p50/p99、笔数吞吐，以及逐笔模式单笔事务耗时（等锁 + 持锁）的均值与最大值，并校验资金总额守恒。
+ * </p>
+ *
+ * @author Digital Bank POC Team
+ */
+@SpringBootTest
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BatchTransferContentionBenchmarkTest {
+
+    private static final int ACCOUNTS = 10;
+    private static final int CONCURRENT_BATCHES = 4;
+    private static final int BATCHES = 40;
+    private static final int[] BATCH_SIZES = {10, 50, 100};
+    private static final BigDecimal INITIAL = new BigDecimal("1000000.00");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("digitalbank")
+            .withUsername("digitalbank")
+            .withPassword("digitalbank");
+
+    @DynamicPropertySource
+    static void configure(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("services.risk.url", () -> "");
+        registry.add("logging.level.com.digitalbank", () -> "WARN");
+        registry.add("logging.level.org.hibernate.SQL", () -> "WARN");
+    }
+
+    @Autowired
+    BatchTransferRepository batchTransferRepository;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    RiskClient riskClient;
+
+    @Autowired
+    OutboxService outboxService;
+
+    @Autowired
+    ShardedAccountService shardedAccountService;
+
+    @Autowired
+    TransactionIdGenerator idGenerator;
+
+    @Autowired
+    BalanceCache balanceCache;
+
+    @Autowired
+    BatchNettingEngine batchNettingEngine;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ConnectionAwareExecutor batchTransferExecutor;
+
+    private final List<Long> accountIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        Customer c = new Customer();
+        c.setName("基准测试客户");
+        c.setStatus("active");
+        c = customerRepository.save(c);
+        accountIds.clear();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account a = new Account();
+            a.setAccountNumber("62" + (System.nanoTime() + i));
+            a.setCustomerId(c.getId());
+            a.setBalance(INITIAL);
+            a.setStatus("active");
+            accountIds.add(accountRepository.save(a).getId());
+        }
+    }
+
+    @Test
+    void compareContentionAcrossBatchSizes() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int size : BATCH_SIZES) {
+            for (boolean netted : new boolean[]{false, true}) {
+                SimpleMeterRegistry registry = new SimpleMeterRegistry();
+                BatchTransferService service = new BatchTransferService(batchTransferRepository, accountRepository,
+                        transactionRepository, riskClient, outboxService, idGenerator, balanceCache, shardedAccountService, batchNettingEngine,
+                        objectMapper, batchTransferExecutor, transactionManager, registry, netted, 5);
+                String mode = (netted ? "netted" : "per-item") + " x" + size;
+                run("warmup", service, size, CONCURRENT_BATCHES);
+
+                LatencyStats stats = run(mode, service, size, BATCHES);
+                Timer itemTx = registry.find("corebank.batch.item.transaction").timer();
+                lines.add(String.format("%s | items/s=%.0f | item tx mean=%.2fms max=%.2fms (n=%d)",
+                        stats.summary(), stats.tps() * size,
+                        itemTx.mean(TimeUnit.MILLISECONDS), itemTx.max(TimeUnit.MILLISECONDS), itemTx.count()));
+            }
+        }
+
+        System.out.println("==== BatchTransferContentionBenchmark: accounts=" + ACCOUNTS
+                + ", concurrentBatches=" + CONCURRENT_BATCHES + ", batches=" + BATCHES + " ====");
+        lines.forEach(System.out::println);
+
+        BigDecimal total = accountRepository.findAllById(accountIds).stream()
+                .map(Account::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(total).isEqualByComparingTo(INITIAL.multiply(BigDecimal.valueOf(ACCOUNTS)));
+    }
+
+    private LatencyStats run(String name, BatchTransferService service, int size, int batches) throws InterruptedException {
+        LatencyStats stats = new LatencyStats(name, batches);
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENT_BATCHES);
+        long start = System.nanoTime();
+        for (int i = 0; i < batches; i++) {
+            pool.execute(() -> {
+                BatchTransferRequest req = randomBatch(size);
+                long t0 = System.nanoTime();
+                service.batchTransfer(req);
+                stats.record(System.nanoTime() - t0);
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.MINUTES)).isTrue();
+        stats.wallTime(System.nanoTime() - start);
+        return stats;
+    }
+
+    private BatchTransferRequest randomBatch(int size) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        List<TransferItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int from = rnd.nextInt(ACCOUNTS);
+            int to = (from + 1 + rnd.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+            TransferItem item = new TransferItem();
+            item.setFromAccountId(accountIds.get(from));
+            item.setToAccountId(accountIds.get(to));
+            item.setAmount(new BigDecimal("1.00"));
+            item.setRemark("benchmark");
+            items.add(item);
+        }
+        BatchTransferRequest req = new BatchTransferRequest();
+        req.setBatchId(UUID.randomUUID().toString());
+        req.setTransfers(items);
+        return req;
+    }
+}
@@ -0,0 +1,185 @@
+package com.digitalbank.core.benchmark;
+
+import com.digitalbank.core.dto.DebitRequest;
+import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.entity.Customer;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.CustomerRepository;
+import com.digitalbank.core.repository.TransactionRepository;
+import com.digitalbank.core.service.BalanceCache;
+import com.digitalbank.core.service.DebitGroupCommitter;
+import com.digitalbank.core.service.OutboxService;
+import com.digitalbank.core.service.RecentRefIdCache;
+import com.digitalbank.core.service.ShardedAccountService;
+import com.digitalbank.core.service.TransactionIdGenerator;
+import com.digitalbank.core.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 支付扣款吞吐基准：逐笔事务 vs 合并提交（group commit）。
+ * <p>
+ * 默认不执行；运行方式：{@code mvn test -Dtest=DebitGroupCommitBenchmarkTest -Dbenchmark=true}（需 Docker）。
+ * 输出两种模式的 TPS、p50、p99，并校验扣款总额与流水条数一致。
+ * </p>
+ *
+ * @author Digital Bank POC Team
+ */
+@SpringBootTest
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DebitGroupCommitBenchmarkTest {
+
+    private static final int ACCOUNTS = 200;
+    private static final int THREADS = 32;
+    private static final int WARMUP = 500;
+    private static final int DEBITS = 5000;
+    private static final BigDecimal INITIAL = new BigDecimal("1000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("digitalbank")
+            .withUsername("digitalbank")
+            .withPassword("digitalbank");
+
+    @DynamicPropertySource
+    static void configure(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("logging.level.com.digitalbank", () -> "INFO");
+        registry.add("logging.level.org.hibernate.SQL", () -> "WARN");
+    }
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    TransactionService transactionService;
+
+    @Autowired
+    OutboxService outboxService;
+
+    @Autowired
+    ShardedAccountService shardedAccountService;
+
+    @Autowired
+    TransactionIdGenerator idGenerator;
+
+    @Autowired
+    BalanceCache balanceCache;
+
+    @Autowired
+    RecentRefIdCache recentRefIdCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private final List<Long> accountIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        Customer c = new Customer();
+        c.setName("基准测试客户");
+        c.setStatus("active");
+        c = customerRepository.save(c);
+        accountIds.clear();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account a = new Account();
+            a.setAccountNumber("62" + (System.nanoTime() + i));
+            a.setCustomerId(c.getId());
+            a.setBalance(INITIAL);
+            a.setStatus("active");
+            accountIds.add(accountRepository.save(a).getId());
+        }
+    }
+
+    @Test
+    void compareSingleVsGroupCommit() throws Exception {
+        DebitGroupCommitter single = committer(false);
+        DebitGroupCommitter grouped = committer(true);
+        grouped.start();
+        try {
+            run("warmup", single, WARMUP);
+            run("warmup", grouped, WARMUP);
+
+            long txBefore = transactionRepository.count();
+            List<LatencyStats> results = List.of(
+                    run("single transaction per debit", single, DEBITS),
+                    run("group commit (2ms / 64)", grouped, DEBITS));
+
+            System.out.println("==== DebitGroupCommitBenchmark: accounts=" + ACCOUNTS + ", threads=" + THREADS + " ====");
+            results.forEach(r -> System.out.println(r.summary()));
+
+            assertThat(transactionRepository.count() - txBefore).isEqualTo(2L * DEBITS);
+        } finally {
+            grouped.stop();
+        }
+
+        BigDecimal total = accountRepository.findAllById(accountIds).stream()
+                .map(Account::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal debited = AMOUNT.multiply(BigDecimal.valueOf(2L * (WARMUP + DEBITS)));
+        assertThat(total).isEqualByComparingTo(INITIAL.multiply(BigDecimal.valueOf(ACCOUNTS)).subtract(debited));
+    }
+
+    private DebitGroupCommitter committer(boolean enabled) {
+        return new DebitGroupCommitter(transactionService, accountRepository, transactionRepository, outboxService,
+                shardedAccountService, idGenerator, balanceCache, recentRefIdCache, transactionManager, enabled, 2, 64, 10000, 10000,
+                true);
+    }
+
+    private LatencyStats run(String name, DebitGroupCommitter committer, int count) throws InterruptedException {
+        LatencyStats stats = new LatencyStats(name, count);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            pool.execute(() -> {
+                DebitRequest req = randomDebit();
+                long t0 = System.nanoTime();
+                committer.debit(req);
+                stats.record(System.nanoTime() - t0);
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.MINUTES)).isTrue();
+        stats.wallTime(System.nanoTime() - start);
+        return stats;
+    }
+
+    private DebitRequest randomDebit() {
+        DebitRequest req = new DebitRequest();
+        req.setAccountId(accountIds.get(ThreadLocalRandom.current().nextInt(ACCOUNTS)));
+        req.setAmount(AMOUNT);
+        req.setRefId(UUID.randomUUID().toString());
+        req.setRemark("benchmark");
+        return req;
+    }
+}
@@ -0,0 +1,55 @@
+package com.digitalbank.core.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基准测试延迟统计：线程安全地记录单次调用耗时（纳秒），输出 p50/p99/max 与 TPS。
+ *
+ * @author Digital Bank POC Team
+ */
+final class LatencyStats {
+
+    private final String name;
+    private final long[] samples;
+    private final AtomicInteger size = new AtomicInteger();
+    private long wallNanos;
+
+    LatencyStats(String name, int capacity) {
+        this.name = name;
+        this.samples = new long[capacity];
+    }
+
+    void record(long nanos) {
+        int i = size.getAndIncrement();
+        if (i < samples.length) {
+            samples[i] = nanos;
+        }
+    }
+
+    void wallTime(long nanos) {
+        this.wallNanos = nanos;
+    }
+
+    int count() {
+        return Math.min(size.get(), samples.length);
+    }
+
+    double percentileMillis(double p) {
+        int n = count();
+        if (n == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, n);
+        Arrays.sort(sorted);
+        int idx = (int) Math.min(n - 1, Math.ceil(p / 100.0 * n) - 1);
+        return sorted[Math.max(0, idx)] / 1_000_000.0;
+    }
+
+    double tps() {
+        return wallNanos == 0 ? 0 : count() * 1_000_000_000.0 / wallNanos;
+    }
+
+    String summary() {
+        return String.format("%-24s n=%-6d tps=%-9.1f p50=%-7.2fms p99=%-7.2fms max=%.2fms",
+                name, count(), tps(), percentileMillis(50), percentileMillis(99), percentileMillis(100));
+    }
+}
@@ -0,0 +1,162 @@
+package com.digitalbank.core.benchmark;
+
+import com.digitalbank.core.dto.TransactionListResponse;
+import com.digitalbank.core.dto.TransactionResponse;
+import com.digitalbank.core.entity.Transaction;
+import com.digitalbank.core.repository.TransactionRepository;
+import com.digitalbank.core.repository.TransactionSpecifications;
+import com.digitalbank.core.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 交易历史分页基准：实体加载 + TransactionResponse::from vs 只读投影（TransactionView）。
+ * <p>
+ * 默认不执行；运行方式：{@code mvn test -Dtest=TransactionHistoryProjectionBenchmarkTest -Dbenchmark=true}（需 Docker）。
+ * 单线程对同一热点账户随机翻页，输出每页 p50/p99 延迟与每页堆分配字节数（ThreadMXBean），
+ * 并打印投影查询与 count 的 EXPLAIN (ANALYZE, BUFFERS)，确认 count 为 Index Only Scan。
+ * </p>
+ *
+ * @author Digital Bank POC Team
+ */
+@SpringBootTest
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransactionHistoryProjectionBenchmarkTest {
+
+    private static final int ROWS = 200_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_PAGE = 50;
+    private static final int WARMUP = 500;
+    private static final int PAGES = 3000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("digitalbank")
+            .withUsername("digitalbank")
+            .withPassword("digitalbank");
+
+    @DynamicPropertySource
+    static void configure(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("services.risk.url", () -> "");
+        registry.add("logging.level.com.digitalbank", () -> "INFO");
+        registry.add("logging.level.org.hibernate.SQL", () -> "WARN");
+    }
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    TransactionService transactionService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareEntityAndProjectionPages() {
+        long accountId = seed();
+        PageRequest sorted = PageRequest.of(0, PAGE_SIZE,
+                Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+
+        IntFunction<List<TransactionResponse>> entityPage = page -> {
+            Page<Transaction> slice = transactionRepository.findAll(
+                    TransactionSpecifications.matching(accountId, null, null, null), sorted.withPage(page - 1));
+            return slice.getContent().stream().map(TransactionResponse::from).collect(Collectors.toList());
+        };
+        IntFunction<List<TransactionResponse>> projectionPage = page -> {
+            TransactionListResponse res = transactionService.getTransactionHistory(accountId, null, null, page, PAGE_SIZE);
+            return res.getItems();
+        };
+
+        assertThat(entityPage.apply(3)).extracting(TransactionResponse::getTransactionId)
+                .containsExactlyElementsOf(projectionPage.apply(3).stream()
+                        .map(TransactionResponse::getTransactionId).collect(Collectors.toList()));
+
+        run(entityPage, WARMUP, new LatencyStats("warmup-entity", WARMUP));
+        run(projectionPage, WARMUP, new LatencyStats("warmup-projection", WARMUP));
+        LatencyStats entity = new LatencyStats("entity+from", PAGES);
+        LatencyStats projection = new LatencyStats("projection", PAGES);
+        long entityBytes = run(entityPage, PAGES, entity);
+        long projectionBytes = run(projectionPage, PAGES, projection);
+
+        System.out.println("==== TransactionHistoryProjectionBenchmark: rows=" + ROWS + ", pageSize=" + PAGE_SIZE
+                + ", pages=1.." + MAX_PAGE + " ====");
+        System.out.println(entity.summary() + String.format("  alloc=%d KB/page", entityBytes / PAGES / 1024));
+        System.out.println(projection.summary() + String.format("  alloc=%d KB/page", projectionBytes / PAGES / 1024));
+        System.out.println("---- projection page plan ----");
+        explain("""
+                SELECT id, transaction_id, account_id, counter_account_id, amount, transaction_type, status, remark, created_at
+                FROM transactions WHERE account_id = %d ORDER BY created_at DESC, id DESC OFFSET 200 LIMIT 20
+                """.formatted(accountId)).forEach(System.out::println);
+        System.out.println("---- count plan ----");
+        List<String> countPlan = explain("SELECT count(*) FROM transactions WHERE account_id = %d AND status = 'completed'"
+                .formatted(accountId));
+        countPlan.forEach(System.out::println);
+        assertThat(String.join("\n", countPlan)).contains("Index Only Scan");
+    }
+
+    /**
+     * @return 本线程在计时区间内的堆分配字节数
+     */
+    private long run(IntFunction<List<TransactionResponse>> pageFn, int pages, LatencyStats stats) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long wallStart = System.nanoTime();
+        for (int i = 0; i < pages; i++) {
+            int page = 1 + ThreadLocalRandom.current().nextInt(MAX_PAGE);
+            long start = System.nanoTime();
+            List<TransactionResponse> items = pageFn.apply(page);
+            stats.record(System.nanoTime() - start);
+            assertThat(items).hasSize(PAGE_SIZE);
+        }
+        stats.wallTime(System.nanoTime() - wallStart);
+        return threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+    }
+
+    private long seed() {
+        jdbcTemplate.update("INSERT INTO customers (name) VALUES ('history-bench')");
+        Long customerId = jdbcTemplate.queryForObject("SELECT id FROM customers WHERE name = 'history-bench'", Long.class);
+        jdbcTemplate.update("INSERT INTO bank_accounts (account_number, customer_id, status) VALUES ('HB00000001', ?, 'active')",
+                customerId);
+        Long accountId = jdbcTemplate.queryForObject(
+                "SELECT id FROM bank_accounts WHERE account_number = 'HB00000001'", Long.class);
+        jdbcTemplate.update("""
+                INSERT INTO transactions (transaction_id, account_id, counter_account_id, amount, transaction_type, status,
+                                          remark, created_at, updated_at)
+                SELECT 'HB' || g, ?, NULL, (g % 1000) + 0.01, 'payment',
+                       (ARRAY['completed', 'completed', 'completed', 'pending', 'failed'])[1 + (g % 5)],
+                       'history benchmark remark #' || g, NOW() - g * INTERVAL '1 second', NOW()
+                FROM generate_series(1, ?) g
+                """, accountId, ROWS);
+        // 刷新可见性映射，Index Only Scan 才能跳过回表
+        jdbcTemplate.execute("VACUUM ANALYZE transactions");
+        return accountId;
+    }
+
+    private List<String> explain(String sql) {
+        return jdbcTemplate.queryForList("EXPLAIN (ANALYZE, BUFFERS) " + sql, String.class);
+    }
+}
@@ -0,0 +1,134 @@
+package com.digitalbank.core.benchmark;
+
+import com.digitalbank.core.service.TimeOrderedTransactionIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 交易单号基准：随机 UUID 截断 vs 时间有序生成器。
+ * <p>
+ * 默认不执行；运行方式：{@code mvn test -Dtest=TransactionIdBenchmarkTest -Dbenchmark=true}（需 Docker）。
+ * 1) 多线程生成吞吐（ns/op）；2) 向带唯一索引的 VARCHAR(32) 列写入相同条数后比较索引大小与叶子页填充率。
+ * </p>
+ *
+ * @author Digital Bank POC Team
+ */
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransactionIdBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 2_000_000;
+    private static final int ROWS = 500_000;
+    private static final int INSERT_BATCH = 1_000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("digitalbank")
+            .withUsername("digitalbank")
+            .withPassword("digitalbank");
+
+    private final TimeOrderedTransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(1);
+
+    @Test
+    void compareGenerationThroughput() throws Exception {
+        Supplier<String> uuid = () -> "TX" + UUID.randomUUID().toString().replace("-", "").substring(0, 24) + "O";
+        Supplier<String> timeOrdered = () -> "TX" + generator.nextBaseId() + "O";
+
+        generate(uuid, IDS_PER_THREAD / 4);
+        generate(timeOrdered, IDS_PER_THREAD / 4);
+
+        double uuidNs = generate(uuid, IDS_PER_THREAD);
+        double orderedNs = generate(timeOrdered, IDS_PER_THREAD);
+
+        System.out.println("==== TransactionIdBenchmark: threads=" + THREADS + ", ids/thread=" + IDS_PER_THREAD + " ====");
+        System.out.printf("%-24s %.1f ns/op%n", "uuid substring", uuidNs);
+        System.out.printf("%-24s %.1f ns/op%n", "time-ordered", orderedNs);
+    }
+
+    @Test
+    void compareIndexGrowth() throws Exception {
+        try (Connection conn = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE EXTENSION IF NOT EXISTS pgstattuple");
+            }
+            long uuidBytes = loadAndMeasure(conn, "ids_uuid",
+                    () -> "TX" + UUID.randomUUID().toString().replace("-", "").substring(0, 24) + "O");
+            long orderedBytes = loadAndMeasure(conn, "ids_ordered", () -> "TX" + generator.nextBaseId() + "O");
+
+            System.out.println("==== TransactionIdBenchmark index growth: rows=" + ROWS + " ====");
+            System.out.printf("%-24s index=%d KB%n", "uuid substring", uuidBytes / 1024);
+            System.out.printf("%-24s index=%d KB%n", "time-ordered", orderedBytes / 1024);
+            assertThat(orderedBytes).isLessThanOrEqualTo(uuidBytes);
+        }
+    }
+
+    /**
+     * @return 平均每次生成耗时（ns，按总线程时间计）
+     */
+    private double generate(Supplier<String> ids, int perThread) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long[] sink = new long[THREADS];
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int slot = t;
+            pool.submit(() -> {
+                long h = 0;
+                for (int i = 0; i < perThread; i++) {
+                    h += ids.get().charAt(20);
+                }
+                sink[slot] = h;
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.MINUTES)).isTrue();
+        long elapsed = System.nanoTime() - start;
+        return (double) elapsed * THREADS / ((long) perThread * THREADS);
+    }
+
+    private long loadAndMeasure(Connection conn, String table, Supplier<String> ids) throws Exception {
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS " + table);
+            st.execute("CREATE TABLE " + table + " (transaction_id VARCHAR(32) NOT NULL, "
+                    + "CONSTRAINT uk_" + table + " UNIQUE (transaction_id))");
+        }
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO " + table + " (transaction_id) VALUES (?)")) {
+            for (int i = 1; i <= ROWS; i++) {
+                ps.setString(1, ids.get());
+                ps.addBatch();
+                if (i % INSERT_BATCH == 0) {
+                    ps.executeBatch();
+                    conn.commit();
+                }
+            }
+            ps.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT pg_relation_size('uk_" + table + "'), avg_leaf_density, leaf_pages "
+                     + "FROM pgstatindex('uk_" + table + "')")) {
+            rs.next();
+            System.out.printf("%-24s leaf_pages=%d avg_leaf_density=%.1f%%%n", table, rs.getLong(3), rs.getDouble(2));
+            return rs.getLong(1);
+        }
+    }
+}
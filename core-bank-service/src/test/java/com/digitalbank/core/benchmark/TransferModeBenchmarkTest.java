@@ -0,0 +1,173 @@
+package com.digitalbank.core.benchmark;
+
+import com.digitalbank.core.client.RiskClient;
+import com.digitalbank.core.dto.TransferRequest;
+import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.entity.Customer;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.CustomerRepository;
+import com.digitalbank.core.repository.TransactionRepository;
+import com.digitalbank.core.service.BalanceCache;
+import com.digitalbank.core.service.OutboxService;
+import com.digitalbank.core.service.RecentRefIdCache;
+import com.digitalbank.core.service.ShardedAccountService;
+import com.digitalbank.core.service.TransactionIdGenerator;
+import com.digitalbank.core.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 转账执行模式基准：JPA 加锁路径 vs 条件 UPDATE 快速路径 vs 服务端函数（execute_transfer）。
+ * <p>
+ * 默认不执行；运行方式：{@code mvn test -Dtest=TransferModeBenchmarkTest -Dbenchmark=true}（需 Docker）。
+ * 输出每种模式的 TPS、p50、p99，并校验资金总额守恒。
+ * </p>
+ *
+ * @author Digital Bank POC Team
+ */
+@SpringBootTest
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransferModeBenchmarkTest {
+
+    private static final int ACCOUNTS = 50;
+    private static final int THREADS = 8;
+    private static final int WARMUP = 300;
+    private static final int TRANSFERS = 3000;
+    private static final BigDecimal INITIAL = new BigDecimal("1000000.00");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("digitalbank")
+            .withUsername("digitalbank")
+            .withPassword("digitalbank");
+
+    @DynamicPropertySource
+    static void configure(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("services.risk.url", () -> "");
+        registry.add("logging.level.com.digitalbank", () -> "INFO");
+        registry.add("logging.level.org.hibernate.SQL", () -> "WARN");
+    }
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    RiskClient riskClient;
+
+    @Autowired
+    OutboxService outboxService;
+
+    @Autowired
+    ShardedAccountService shardedAccountService;
+
+    @Autowired
+    TransactionIdGenerator idGenerator;
+
+    @Autowired
+    BalanceCache balanceCache;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private final List<Long> accountIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        Customer c = new Customer();
+        c.setName("基准测试客户");
+        c.setStatus("active");
+        c = customerRepository.save(c);
+        accountIds.clear();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account a = new Account();
+            a.setAccountNumber("62" + (System.nanoTime() + i));
+            a.setCustomerId(c.getId());
+            a.setBalance(INITIAL);
+            a.setStatus("active");
+            accountIds.add(accountRepository.save(a).getId());
+        }
+    }
+
+    @Test
+    void compareTransferModes() throws Exception {
+        RecentRefIdCache refIdCache = new RecentRefIdCache(0, 600);
+        TransactionService jpa = new TransactionService(accountRepository, transactionRepository, riskClient, outboxService, shardedAccountService, idGenerator, balanceCache, false, false, refIdCache, false);
+        TransactionService fastPath = new TransactionService(accountRepository, transactionRepository, riskClient, outboxService, shardedAccountService, idGenerator, balanceCache, true, false, refIdCache, false);
+        TransactionService serverSide = new TransactionService(accountRepository, transactionRepository, riskClient, outboxService, shardedAccountService, idGenerator, balanceCache, false, true, refIdCache, false);
+
+        run("warmup", jpa, WARMUP);
+        run("warmup", serverSide, WARMUP);
+
+        List<LatencyStats> results = List.of(
+                run("jpa (FOR UPDATE)", jpa, TRANSFERS),
+                run("fast-path (guarded)", fastPath, TRANSFERS),
+                run("server-side function", serverSide, TRANSFERS));
+
+        System.out.println("==== TransferModeBenchmark: accounts=" + ACCOUNTS + ", threads=" + THREADS + " ====");
+        results.forEach(r -> System.out.println(r.summary()));
+
+        BigDecimal total = accountRepository.findAllById(accountIds).stream()
+                .map(Account::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(total).isEqualByComparingTo(INITIAL.multiply(BigDecimal.valueOf(ACCOUNTS)));
+    }
+
+    private LatencyStats run(String name, TransactionService service, int count) throws InterruptedException {
+        LatencyStats stats = new LatencyStats(name, count);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            pool.execute(() -> {
+                TransferRequest req = randomTransfer();
+                long t0 = System.nanoTime();
+                transactionTemplate.executeWithoutResult(s -> service.transfer(req));
+                stats.record(System.nanoTime() - t0);
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.MINUTES)).isTrue();
+        stats.wallTime(System.nanoTime() - start);
+        return stats;
+    }
+
+    private TransferRequest randomTransfer() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int from = rnd.nextInt(ACCOUNTS);
+        int to = (from + 1 + rnd.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        TransferRequest req = new TransferRequest();
+        req.setFromAccountId(accountIds.get(from));
+        req.setToAccountId(accountIds.get(to));
+        req.setAmount(new BigDecimal("1.00"));
+        req.setRemark("benchmark");
+        return req;
+    }
+}
@@ -0,0 +1,98 @@
+package com.digitalbank.core.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ConnectionAwareExecutor 单元测试：并发许可、MDC 透传、排队/在途计数、优雅关闭。
+ *
+ * @author Digital Bank POC Team
+ */
+class ConnectionAwareExecutorTest {
+
+    private ConnectionAwareExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void limitsConcurrencyToPermitsAndTracksQueueDepth() throws Exception {
+        executor = new ConnectionAwareExecutor("test", 2, true, 1000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            });
+        }
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.getInFlight()).isEqualTo(2);
+        assertThat(executor.getQueued()).isEqualTo(3);
+        release.countDown();
+        executor.shutdown();
+        assertThat(maxConcurrent.get()).isEqualTo(2);
+        assertThat(executor.getQueued()).isZero();
+        assertThat(executor.getInFlight()).isZero();
+    }
+
+    @Test
+    void propagatesMdcAndClearsItAfterwards() throws Exception {
+        executor = new ConnectionAwareExecutor("test", 1, false, 1000);
+        MDC.put("traceId", "t-1");
+        MDC.put("requestId", "r-1");
+        AtomicReference<String> seen = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(() -> {
+            seen.set(MDC.get("traceId") + "/" + MDC.get("requestId"));
+            done.countDown();
+        });
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen.get()).isEqualTo("t-1/r-1");
+
+        MDC.clear();
+        AtomicReference<String> after = new AtomicReference<>("unset");
+        CountDownLatch done2 = new CountDownLatch(1);
+        executor.execute(() -> {
+            after.set(MDC.get("traceId"));
+            done2.countDown();
+        });
+        assertThat(done2.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(after.get()).isNull();
+    }
+
+    @Test
+    void rejectsTasksAfterShutdown() {
+        executor = new ConnectionAwareExecutor("test", 1, false, 1000);
+        executor.shutdown();
+
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(executor.getQueued()).isZero();
+    }
+}
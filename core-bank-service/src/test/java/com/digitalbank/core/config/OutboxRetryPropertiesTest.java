@@ -0,0 +1,74 @@
+package com.digitalbank.core.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * OutboxRetryProperties 单元测试：指数退避与上限、抖动区间、按事件类型覆盖。
+ *
+ * @author Digital Bank POC Team
+ */
+class OutboxRetryPropertiesTest {
+
+    @Test
+    void backoff_growsExponentiallyUpToCap() {
+        OutboxRetryProperties.Policy policy = new OutboxRetryProperties.Policy(10, 1000, 2.0, 5000, 0.0);
+
+        assertThat(policy.backoff(1, 0.5)).isEqualTo(Duration.ofMillis(1000));
+        assertThat(policy.backoff(2, 0.5)).isEqualTo(Duration.ofMillis(2000));
+        assertThat(policy.backoff(3, 0.5)).isEqualTo(Duration.ofMillis(4000));
+        assertThat(policy.backoff(4, 0.5)).isEqualTo(Duration.ofMillis(5000));
+        assertThat(policy.backoff(50, 0.5)).isEqualTo(Duration.ofMillis(5000));
+    }
+
+    @Test
+    void backoff_jitterSpreadsDownwardWithinFraction() {
+        OutboxRetryProperties.Policy policy = new OutboxRetryProperties.Policy(10, 1000, 2.0, 60_000, 0.2);
+
+        assertThat(policy.backoff(3, 0.0)).isEqualTo(Duration.ofMillis(4000));
+        assertThat(policy.backoff(3, 0.5)).isEqualTo(Duration.ofMillis(3600));
+        assertThat(policy.backoff(3, 0.999)).isGreaterThanOrEqualTo(Duration.ofMillis(3200));
+    }
+
+    @Test
+    void policyFor_overridesPerEventTypeAndFallsBackToDefaults() {
+        OutboxRetryProperties properties = new OutboxRetryProperties();
+        properties.getDefaults().setMaxAttempts(5);
+        properties.getDefaults().setInitialBackoffMs(500L);
+        OutboxRetryProperties.Settings payment = new OutboxRetryProperties.Settings();
+        payment.setMaxAttempts(20);
+        // 未加方括号绑定时下划线被去掉
+        properties.getEventTypes().put("PAYMENTDEBITCOMPLETED", payment);
+
+        OutboxRetryProperties.Policy paymentPolicy = properties.policyFor("PAYMENT_DEBIT_COMPLETED");
+        assertThat(paymentPolicy.maxAttempts()).isEqualTo(20);
+        assertThat(paymentPolicy.initialBackoffMs()).isEqualTo(500);
+        assertThat(paymentPolicy.exhausted(19)).isFalse();
+        assertThat(paymentPolicy.exhausted(20)).isTrue();
+
+        OutboxRetryProperties.Policy other = properties.policyFor("ACCOUNT_OPENED");
+        assertThat(other.maxAttempts()).isEqualTo(5);
+        assertThat(other.multiplier()).isEqualTo(2.0);
+        assertThat(properties.policyFor(null).maxAttempts()).isEqualTo(5);
+    }
+
+    @Test
+    void maxAttemptsByEventType_resolvesEffectiveLimitPerNormalizedType() {
+        OutboxRetryProperties properties = new OutboxRetryProperties();
+        properties.getDefaults().setMaxAttempts(5);
+        OutboxRetryProperties.Settings payment = new OutboxRetryProperties.Settings();
+        payment.setMaxAttempts(20);
+        properties.getEventTypes().put("PAYMENT_DEBIT_COMPLETED", payment);
+        OutboxRetryProperties.Settings backoffOnly = new OutboxRetryProperties.Settings();
+        backoffOnly.setMaxBackoffMs(600_000L);
+        properties.getEventTypes().put("account-opened", backoffOnly);
+
+        assertThat(properties.maxAttemptsByEventType())
+                .containsEntry("PAYMENTDEBITCOMPLETED", 20)
+                .containsEntry("ACCOUNTOPENED", 5)
+                .hasSize(2);
+    }
+}
@@ -0,0 +1,194 @@
+package com.digitalbank.core.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 读副本路由集成测试：bitnami/postgresql 主库 + 流复制副本。
+ * <ul>
+ *   <li>只读事务 + 预算 → 连接落在副本（pg_is_in_recovery() = true），写事务始终落主库</li>
+ *   <li>副本暂停回放后主库继续写入，延迟超过预算 → 回落主库；恢复回放后重新读副本</li>
+ * </ul>
+ *
+ * @author Digital Bank POC Team
+ */
+@Testcontainers
+class ReadReplicaRoutingIntegrationTest {
+
+    private static final String IMAGE = "bitnami/postgresql:16";
+    private static final Network NETWORK = Network.newNetwork();
+
+    @Container
+    static GenericContainer<?> primary = new GenericContainer<>(IMAGE)
+            .withNetwork(NETWORK)
+            .withNetworkAliases("pg-primary")
+            .withEnv(Map.of(
+                    "POSTGRESQL_REPLICATION_MODE", "master",
+                    "POSTGRESQL_REPLICATION_USER", "repl_user",
+                    "POSTGRESQL_REPLICATION_PASSWORD", "repl_password",
+                    "POSTGRESQL_USERNAME", "digitalbank",
+                    "POSTGRESQL_PASSWORD", "digitalbank",
+                    "POSTGRESQL_DATABASE", "digitalbank",
+                    "POSTGRESQL_POSTGRES_PASSWORD", "postgres"))
+            .withExposedPorts(5432)
+            .waitingFor(Wait.forListeningPort().withStartupTimeout(Duration.ofMinutes(2)));
+
+    @Container
+    static GenericContainer<?> replica = new GenericContainer<>(IMAGE)
+            .withNetwork(NETWORK)
+            .dependsOn(primary)
+            .withEnv(Map.of(
+                    "POSTGRESQL_REPLICATION_MODE", "slave",
+                    "POSTGRESQL_REPLICATION_USER", "repl_user",
+                    "POSTGRESQL_REPLICATION_PASSWORD", "repl_password",
+                    "POSTGRESQL_MASTER_HOST", "pg-primary",
+                    "POSTGRESQL_MASTER_PORT_NUMBER", "5432",
+                    "POSTGRESQL_PASSWORD", "digitalbank",
+                    "POSTGRESQL_POSTGRES_PASSWORD", "postgres"))
+            .withExposedPorts(5432)
+            .waitingFor(Wait.forListeningPort().withStartupTimeout(Duration.ofMinutes(2)));
+
+    private static HikariDataSource primaryPool;
+    private static ReplicaLagMonitor monitor;
+    private static JdbcTemplate jdbc;
+    private static TransactionTemplate readOnlyTx;
+    private static TransactionTemplate writeTx;
+    private static JdbcTemplate replicaAdmin;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        primaryPool = pool(jdbcUrl(primary), false);
+        HikariDataSource replicaPool = pool(jdbcUrl(replica), true);
+        await(() -> canQuery(primaryPool) && canQuery(replicaPool), Duration.ofMinutes(1));
+
+        new JdbcTemplate(primaryPool).execute("CREATE TABLE IF NOT EXISTS replica_probe (id BIGSERIAL PRIMARY KEY, note TEXT)");
+        replicaAdmin = new JdbcTemplate(new DriverManagerDataSource(jdbcUrl(replica), "postgres", "postgres"));
+        await(() -> tableVisible(replicaPool), Duration.ofSeconds(30));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        monitor = new ReplicaLagMonitor(Map.of("replica-0", replicaPool), 200, meterRegistry);
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryPool, monitor, meterRegistry));
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(routing);
+        readOnlyTx = new TransactionTemplate(txManager);
+        readOnlyTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(txManager);
+        jdbc = new JdbcTemplate(routing);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (monitor != null) {
+            monitor.shutdown();
+        }
+        if (primaryPool != null) {
+            primaryPool.close();
+        }
+    }
+
+    @AfterEach
+    void clearContext() {
+        ReplicaRoutingContext.clear();
+        replicaAdmin.execute("SELECT pg_wal_replay_resume()");
+    }
+
+    @Test
+    void readOnlyTransactionWithinBudgetIsServedByReplica() {
+        monitor.checkNow();
+        ReplicaRoutingContext.allowReplica(1000);
+
+        assertThat(inRecovery(readOnlyTx)).isTrue();
+        assertThat(inRecovery(writeTx)).isFalse();
+
+        ReplicaRoutingContext.clear();
+        assertThat(inRecovery(readOnlyTx)).isFalse();
+    }
+
+    @Test
+    void fallsBackToPrimaryWhileReplicaLagsBeyondBudget() throws Exception {
+        replicaAdmin.execute("SELECT pg_wal_replay_pause()");
+        writeTx.executeWithoutResult(s -> jdbc.update("INSERT INTO replica_probe (note) VALUES ('lagging')"));
+        Thread.sleep(600);
+        monitor.checkNow();
+        ReplicaRoutingContext.allowReplica(300);
+
+        assertThat(inRecovery(readOnlyTx)).isFalse();
+
+        replicaAdmin.execute("SELECT pg_wal_replay_resume()");
+        await(() -> {
+            monitor.checkNow();
+            return inRecovery(readOnlyTx);
+        }, Duration.ofSeconds(10));
+        Long rows = readOnlyTx.execute(s -> jdbc.queryForObject(
+                "SELECT count(*) FROM replica_probe WHERE note = 'lagging'", Long.class));
+        assertThat(rows).isGreaterThanOrEqualTo(1L);
+    }
+
+    private static boolean inRecovery(TransactionTemplate tx) {
+        return Boolean.TRUE.equals(tx.execute(s -> jdbc.queryForObject("SELECT pg_is_in_recovery()", Boolean.class)));
+    }
+
+    private static String jdbcUrl(GenericContainer<?> container) {
+        return "jdbc:postgresql://" + container.getHost() + ":" + container.getMappedPort(5432) + "/digitalbank";
+    }
+
+    private static HikariDataSource pool(String url, boolean readOnly) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setJdbcUrl(url);
+        ds.setUsername("digitalbank");
+        ds.setPassword("digitalbank");
+        ds.setMaximumPoolSize(4);
+        ds.setReadOnly(readOnly);
+        ds.setInitializationFailTimeout(-1);
+        return ds;
+    }
+
+    private static boolean canQuery(DataSource ds) {
+        try {
+            new JdbcTemplate(ds).queryForObject("SELECT 1", Integer.class);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static boolean tableVisible(DataSource ds) {
+        try {
+            new JdbcTemplate(ds).queryForObject("SELECT count(*) FROM replica_probe", Long.class);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("等待条件超时: " + timeout);
+            }
+            Thread.sleep(200);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.digitalbank.core.controller;
 
 import com.digitalbank.core.dto.AccountListResponse;
+import com.digitalbank.core.dto.AccountResponse;
+import com.digitalbank.core.dto.BalanceAsOfResponse;
 import com.digitalbank.core.dto.BalanceResponse;
 import com.digitalbank.core.entity.Account;
 import com.digitalbank.core.exception.BusinessException;
 import com.digitalbank.core.exception.GlobalExceptionHandler;
 import com.digitalbank.core.service.AccountService;
+import com.digitalbank.core.service.BalanceSnapshotService;
+import com.digitalbank.core.service.ShardedAccountService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,13 +21,17 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Collections;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
@@ -44,6 +52,12 @@ class AccountControllerTest {
     @MockBean
     AccountService accountService;
 
+    @MockBean
+    ShardedAccountService shardedAccountService;
+
+    @MockBean
+    BalanceSnapshotService balanceSnapshotService;
+
     @Test
     void createAccount_returns400_whenValidationFails() throws Exception {
         mvc.perform(post("/api/v1/accounts")
@@ -90,6 +104,7 @@ class AccountControllerTest {
         a.setCreatedAt(Instant.now());
         a.setUpdatedAt(Instant.now());
         when(accountService.getAccountById(2L)).thenReturn(a);
+        when(accountService.toResponse(a)).thenReturn(AccountResponse.from(a));
 
         mvc.perform(get("/api/v1/accounts/2"))
                 .andExpect(status().isOk())
@@ -129,4 +144,34 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.data.page").value(1))
                 .andExpect(jsonPath("$.data.pageSize").value(20));
     }
+
+    @Test
+    void enableSharding_returns400_whenShardCountOutOfRange() throws Exception {
+        mvc.perform(put("/api/v1/accounts/2/sharding")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shardCount\":1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("CBV003"));
+        verify(shardedAccountService, never()).enableSharding(any(), org.mockito.ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    void getBalanceAsOf_returns200() throws Exception {
+        Instant at = Instant.parse("2026-03-08T04:00:00Z");
+        when(balanceSnapshotService.balanceAsOf(1L, at)).thenReturn(
+                new BalanceAsOfResponse(1L, at, new BigDecimal("69.50"), "CNY", LocalDate.of(2026, 3, 7)));
+
+        mvc.perform(get("/api/v1/accounts/1/balance/as-of").param("at", "2026-03-08T04:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.balance").value(69.5))
+                .andExpect(jsonPath("$.data.snapshotDate").value("2026-03-07"));
+    }
+
+    @Test
+    void getBalanceAsOf_returns400_whenAtMalformed() throws Exception {
+        mvc.perform(get("/api/v1/accounts/1/balance/as-of").param("at", "yesterday"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("CBV003"));
+        verify(balanceSnapshotService, never()).balanceAsOf(any(), any());
+    }
 }
@@ -13,6 +13,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -27,7 +28,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
- * TransactionController 集成测试：debit（含幂等）、transfer、listTransactions、history。
+ * TransactionController 集成测试：debit（含幂等）、transfer、listTransactions、history、export。
  * 风控 URL 未配置时跳过检查。
  *
  * @author Digital Bank POC Team
@@ -208,4 +209,41 @@ class TransactionControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data.items", hasSize(greaterThanOrEqualTo(1))));
     }
+
+    @Test
+    void exportTransactions_streamsCsvAndNdjson() throws Exception {
+        Map<String, Object> debitBody = new HashMap<>();
+        debitBody.put("accountId", accountId1);
+        debitBody.put("amount", 12.00);
+        debitBody.put("refId", "ref-export-" + System.nanoTime());
+        debitBody.put("remark", "导出, \"测试\"");
+        mvc.perform(post("/api/v1/transactions/debit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(debitBody)))
+                .andExpect(status().isCreated());
+
+        MvcResult csv = mvc.perform(get("/api/v1/transactions/export").param("accountId", String.valueOf(accountId1)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("transactions-" + accountId1 + ".csv")))
+                .andExpect(content().string(startsWith("transactionId,accountId,counterAccountId,amount")))
+                .andExpect(content().string(containsString("\"导出, \"\"测试\"\"\"")));
+
+        MvcResult ndjson = mvc.perform(get("/api/v1/transactions/export")
+                        .param("accountId", String.valueOf(accountId1))
+                        .param("format", "ndjson")
+                        .param("mask", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"accountId\":\"")))
+                .andExpect(content().string(endsWith("}\n")));
+
+        mvc.perform(get("/api/v1/transactions/export").param("accountId", "99999999"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorCode").value("CBB001"));
+    }
 }
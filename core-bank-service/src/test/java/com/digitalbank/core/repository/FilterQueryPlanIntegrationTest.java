@@ -0,0 +1,249 @@
+package com.digitalbank.core.repository;
+
+import com.digitalbank.core.config.JpaConfig;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 可选条件查询的执行计划回归测试。
+ * <p>
+ * 对每种条件组合截获 Hibernate 实际生成的 SQL，以 {@code EXPLAIN (GENERIC_PLAN)} 查看通用计划
+ * （连接池复用预编译语句后 PostgreSQL 最终采用的计划），断言：SQL 中不出现 "is null" 兜底写法，
+ * 带 accountId / customerId 的组合走对应复合索引而非顺序扫描。
+ * GENERIC_PLAN 需要 PostgreSQL 16，因此本测试使用 postgres:16-alpine。
+ * </p>
+ *
+ * @author Digital Bank POC Team
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JpaConfig.class, FilterQueryPlanIntegrationTest.SqlCaptureConfig.class})
+@ImportAutoConfiguration(FlywayAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FilterQueryPlanIntegrationTest {
+
+    /**
+     * V15 起 transactions 按月分区，计划中出现的是各分区上自动命名的索引
+     * （transactions_pYYYYMM_{列名}_idx，含 INCLUDE 列、超长时截断）
+     */
+    private static final List<String> ACCOUNT_TX_INDEXES = List.of(
+            "_account_id_status_created_at_idx",
+            "_account_id_created_at_id_");
+    private static final List<String> CUSTOMER_ACCOUNT_INDEXES = List.of(
+            "idx_bank_accounts_customer_id_status",
+            "idx_accounts_customer_status",
+            "idx_bank_accounts_customer_id");
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 20,
+            Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+    private static final Instant FROM = Instant.parse("2020-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2100-01-01T00:00:00Z");
+
+    private static boolean seeded;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("digitalbank")
+            .withUsername("digitalbank")
+            .withPassword("digitalbank");
+
+    @DynamicPropertySource
+    static void configureDatasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    SqlCapture sqlCapture;
+
+    @BeforeEach
+    void seed() {
+        if (!seeded) {
+            jdbcTemplate.execute("INSERT INTO customers (name) SELECT 'plan-' || g FROM generate_series(1, 2000) g");
+            jdbcTemplate.execute("""
+                    INSERT INTO bank_accounts (account_number, customer_id, status)
+                    SELECT 'P' || lpad(c.id::text, 8, '0') || k, c.id, CASE WHEN k = 3 THEN 'frozen' ELSE 'active' END
+                    FROM customers c CROSS JOIN generate_series(1, 3) k
+                    WHERE c.name LIKE 'plan-%'
+                    """);
+            jdbcTemplate.execute("""
+                    INSERT INTO transactions (transaction_id, account_id, amount, transaction_type, status, created_at, updated_at)
+                    SELECT 'PLAN' || g, a.ids[1 + (g % a.n)], 1.00, 'payment',
+                           (ARRAY['completed', 'completed', 'completed', 'pending', 'failed'])[1 + (g % 5)],
+                           NOW() - g * INTERVAL '1 second', NOW()
+                    FROM generate_series(1, 200000) g,
+                         (SELECT array_agg(id) AS ids, count(*)::int AS n FROM bank_accounts) a
+                    """);
+            jdbcTemplate.execute("ANALYZE customers, bank_accounts, transactions");
+            seeded = true;
+        }
+        sqlCapture.clear();
+    }
+
+    @Test
+    void transactions_byAccount() {
+        transactionRepository.findOffsetPage(1L, null, null, null, 0, 20);
+        assertUsesIndex(sqlCapture.first("from transactions"), "transactions", ACCOUNT_TX_INDEXES);
+    }
+
+    @Test
+    void transactions_byAccountAndStatus() {
+        transactionRepository.findOffsetPage(1L, "completed", null, null, 0, 20);
+        assertUsesIndex(sqlCapture.first("from transactions"), "transactions", ACCOUNT_TX_INDEXES);
+    }
+
+    @Test
+    void transactions_byAccountAndTimeRange() {
+        transactionRepository.findOffsetPage(1L, null, FROM, TO, 0, 20);
+        assertUsesIndex(sqlCapture.first("from transactions"), "transactions", ACCOUNT_TX_INDEXES);
+    }
+
+    @Test
+    void transactions_keysetPageByAccount() {
+        transactionRepository.findKeysetPage(1L, null, FROM, TO, TO, Long.MAX_VALUE, 21);
+        assertUsesIndex(sqlCapture.first("from transactions"), "transactions", ACCOUNT_TX_INDEXES);
+    }
+
+    @Test
+    void transactions_countByAccountAndStatus() {
+        transactionRepository.countMatching(1L, "completed", null, null);
+        assertUsesIndex(sqlCapture.first("count("), "transactions", ACCOUNT_TX_INDEXES);
+    }
+
+    @Test
+    void transactions_byStatusOnly_isSpecialised() {
+        transactionRepository.findAll(TransactionSpecifications.matching(null, "pending", null, null), FIRST_PAGE);
+        String sql = sqlCapture.first("from transactions");
+        assertSpecialised(sql);
+        System.out.println(explain(sql));
+    }
+
+    @Test
+    void transactions_noFilter_isSpecialised() {
+        transactionRepository.findAll(TransactionSpecifications.matching(null, null, null, null), FIRST_PAGE);
+        String sql = sqlCapture.first("from transactions");
+        assertSpecialised(sql);
+        System.out.println(explain(sql));
+    }
+
+    @Test
+    void accounts_byCustomer() {
+        accountRepository.findAll(AccountSpecifications.matching(1L, null), FIRST_PAGE);
+        assertUsesIndex(sqlCapture.first("from bank_accounts"), "bank_accounts", CUSTOMER_ACCOUNT_INDEXES);
+    }
+
+    @Test
+    void accounts_byCustomerAndStatus() {
+        accountRepository.findAll(AccountSpecifications.matching(1L, "active"), FIRST_PAGE);
+        assertUsesIndex(sqlCapture.first("from bank_accounts"), "bank_accounts", CUSTOMER_ACCOUNT_INDEXES);
+    }
+
+    @Test
+    void accounts_byStatusOnly_isSpecialised() {
+        accountRepository.findAll(AccountSpecifications.matching(null, "frozen"), FIRST_PAGE);
+        assertSpecialised(sqlCapture.first("from bank_accounts"));
+    }
+
+    private void assertUsesIndex(String sql, String table, List<String> allowedIndexes) {
+        assertSpecialised(sql);
+        String plan = explain(sql);
+        assertThat(plan).as(plan).doesNotContain("Seq Scan on " + table);
+        assertThat(allowedIndexes).as(plan).anyMatch(plan::contains);
+    }
+
+    private static void assertSpecialised(String sql) {
+        assertThat(sql.toLowerCase()).as(sql).doesNotContain("is null");
+    }
+
+    /**
+     * 把 JDBC 占位符 ? 换成 $n，取通用计划（不需要参数值）
+     */
+    private String explain(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int n = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++n);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numbered, String.class));
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer sqlCaptureCustomizer(SqlCapture sqlCapture) {
+            return props -> props.put(AvailableSettings.STATEMENT_INSPECTOR, sqlCapture);
+        }
+    }
+
+    /**
+     * 记录 Hibernate 发出的 SQL（不改写）
+     */
+    static class SqlCapture implements StatementInspector {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        void clear() {
+            statements.clear();
+        }
+
+        String first(String fragment) {
+            return statements.stream()
+                    .filter(s -> s.toLowerCase().contains(fragment))
+                    .findFirst()
+                    .orElseThrow(() -> new AssertionError("未截获包含 " + fragment + " 的 SQL: " + statements));
+        }
+    }
+}
@@ -5,14 +5,19 @@ import com.digitalbank.core.entity.Account;
 import com.digitalbank.core.exception.BusinessException;
 import com.digitalbank.core.repository.AccountRepository;
 import com.digitalbank.core.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -40,6 +45,9 @@ class AccountServiceTest {
     @Mock
     CustomerRepository customerRepository;
 
+    @Spy
+    BalanceCache balanceCache = new BalanceCache(false, 0, 1, new SimpleMeterRegistry());
+
     @InjectMocks
     AccountService accountService;
 
@@ -148,7 +156,7 @@ class AccountServiceTest {
         a.setCreatedAt(Instant.now());
         a.setUpdatedAt(Instant.now());
         PageImpl<Account> page = new PageImpl<>(List.of(a), PageRequest.of(0, 20), 1);
-        when(accountRepository.findByCustomerIdAndStatusOptional(any(), any(), any())).thenReturn(page);
+        when(accountRepository.findAll(ArgumentMatchers.<Specification<Account>>any(), any(Pageable.class))).thenReturn(page);
 
         var got = accountService.listAccounts(null, null, 1, 20);
 
@@ -0,0 +1,77 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.repository.BalanceAfterBackfillRepository;
+import com.digitalbank.core.repository.BalanceAfterBackfillRepository.Progress;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * BalanceAfterBackfillService 单元测试：按账户 id 分块推进水位、settle-delay 截止时间、一轮完成后停止。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class BalanceAfterBackfillServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-09T16:05:00Z");
+
+    @Mock
+    private BalanceAfterBackfillRepository backfillRepository;
+
+    private BalanceAfterBackfillService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BalanceAfterBackfillService(backfillRepository, 3, Duration.ofMinutes(10),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void backfillNextChunk_startsFromFirstAccountAndAdvancesWatermark() {
+        when(backfillRepository.lockProgress()).thenReturn(Optional.of(new Progress(null, false)));
+        when(backfillRepository.nextAccountIds(0L, 3)).thenReturn(List.of(1L, 5L, 7L));
+        when(backfillRepository.backfill(0L, 7L, NOW.minus(Duration.ofMinutes(10)))).thenReturn(42);
+
+        assertThat(service.backfillNextChunk()).contains(42);
+        verify(backfillRepository).advanceProgress(7L);
+    }
+
+    @Test
+    void backfillNextChunk_marksCompletedWhenNoAccountsLeft() {
+        when(backfillRepository.lockProgress()).thenReturn(Optional.of(new Progress(7L, false)));
+        when(backfillRepository.nextAccountIds(7L, 3)).thenReturn(List.of());
+
+        assertThat(service.backfillNextChunk()).isEmpty();
+        verify(backfillRepository).markCompleted();
+        verify(backfillRepository, never()).backfill(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void backfillNextChunk_skipsWhenCompletedOrLockedElsewhere() {
+        when(backfillRepository.lockProgress())
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new Progress(7L, true)));
+
+        assertThat(service.backfillNextChunk()).isEmpty();
+        assertThat(service.backfillNextChunk()).isEmpty();
+        verify(backfillRepository, never()).nextAccountIds(anyLong(), anyInt());
+    }
+}
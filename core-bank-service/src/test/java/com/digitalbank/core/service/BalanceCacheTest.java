@@ -0,0 +1,112 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.dto.BalanceResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * BalanceCache 单元测试：命中/未命中、提交后失效、查库期间有提交时不写回、LRU 上限、命中率指标。
+ */
+class BalanceCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_cachesLoadedBalanceAndReportsHitRatio() {
+        BalanceCache cache = new BalanceCache(true, 100, 60_000, registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, () -> balance(1L, "10.00", loads));
+        BalanceResponse second = cache.get(1L, () -> balance(1L, "99.00", loads));
+
+        assertThat(second.getBalance()).isEqualByComparingTo("10.00");
+        assertThat(loads).hasValue(1);
+        assertThat(registry.get("corebank.balance.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+        assertThat(registry.get("corebank.balance.cache.requests").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void evictAfterCommit_invalidatesOnlyWhenTransactionCommits() {
+        BalanceCache cache = new BalanceCache(true, 100, 60_000, registry);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, () -> balance(1L, "10.00", loads));
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterCommit(1L);
+        // 提交前仍返回旧值（写事务未提交，其它读者本就应看到旧余额）
+        assertThat(cache.get(1L, () -> balance(1L, "5.00", loads)).getBalance()).isEqualByComparingTo("10.00");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(cache.get(1L, () -> balance(1L, "5.00", loads)).getBalance()).isEqualByComparingTo("5.00");
+    }
+
+    @Test
+    void get_doesNotStoreValueLoadedAcrossAnEviction() {
+        BalanceCache cache = new BalanceCache(true, 100, 60_000, registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        // 查库读到旧值后、写回前，另一事务提交并失效
+        BalanceResponse stale = cache.get(1L, () -> {
+            BalanceResponse r = balance(1L, "10.00", loads);
+            cache.evictAfterCommit(1L);
+            return r;
+        });
+        BalanceResponse next = cache.get(1L, () -> balance(1L, "4.00", loads));
+
+        assertThat(stale.getBalance()).isEqualByComparingTo("10.00");
+        assertThat(next.getBalance()).isEqualByComparingTo("4.00");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_evictsLeastRecentlyUsedBeyondMaxSize() {
+        BalanceCache cache = new BalanceCache(true, 2, 60_000, registry);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, () -> balance(1L, "1.00", loads));
+        cache.get(2L, () -> balance(2L, "2.00", loads));
+        cache.get(1L, () -> balance(1L, "1.00", loads));
+        cache.get(3L, () -> balance(3L, "3.00", loads));
+
+        assertThat(cache.size()).isEqualTo(2);
+        cache.get(1L, () -> balance(1L, "1.00", loads));
+        assertThat(loads).hasValue(3);
+        cache.get(2L, () -> balance(2L, "2.00", loads));
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void disabled_alwaysLoadsAndPropagatesErrors() {
+        BalanceCache cache = new BalanceCache(false, 100, 60_000, registry);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, () -> balance(1L, "1.00", loads));
+        cache.get(1L, () -> balance(1L, "1.00", loads));
+
+        assertThat(loads).hasValue(2);
+        assertThatThrownBy(() -> cache.get(2L, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static BalanceResponse balance(Long id, String amount, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new BalanceResponse(id, new BigDecimal(amount), "CNY");
+    }
+}
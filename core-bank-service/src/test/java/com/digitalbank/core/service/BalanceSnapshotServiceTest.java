@@ -0,0 +1,185 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.exception.BusinessException;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.BalanceSnapshotRepository;
+import com.digitalbank.core.repository.BalanceSnapshotRepository.DailyBalance;
+import com.digitalbank.core.repository.BalanceSnapshotRepository.Progress;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * BalanceSnapshotService 单元测试：营业日边界与 settle-delay、水位推进、期初锚点、时点余额 = 流水 balance_after 或 快照 + 增量、锚点之前拒绝查询。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class BalanceSnapshotServiceTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    private static final LocalDate ANCHOR = LocalDate.of(2026, 3, 1);
+
+    @Mock
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private BalanceSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        // 北京时间 2026-03-10 00:05，settle-delay 10 分钟：3 月 9 日尚未可结算，最近可结算日为 3 月 8 日
+        Clock clock = Clock.fixed(Instant.parse("2026-03-09T16:05:00Z"), ZoneOffset.UTC);
+        service = new BalanceSnapshotService(snapshotRepository, accountRepository, ZONE, Duration.ofMinutes(10), clock);
+    }
+
+    @Test
+    void snapshotNextDay_seedsAnchorAtLatestClosableDayInBusinessZone() {
+        when(snapshotRepository.lockProgress()).thenReturn(Optional.of(new Progress(null, null)));
+        LocalDate day = LocalDate.of(2026, 3, 8);
+
+        assertThat(service.snapshotNextDay()).contains(day);
+
+        // 北京时间 3 月 8 日 = UTC 3 月 7 日 16:00 至 3 月 8 日 16:00
+        verify(snapshotRepository).seedDay(day, Instant.parse("2026-03-07T16:00:00Z"), Instant.parse("2026-03-08T16:00:00Z"));
+        verify(snapshotRepository).markAnchored(day);
+        verify(snapshotRepository, never()).snapshotDay(any(), any(), any());
+        verify(snapshotRepository, never()).advanceProgress(any());
+    }
+
+    @Test
+    void snapshotNextDay_processesDayAfterWatermark() {
+        when(snapshotRepository.lockProgress()).thenReturn(Optional.of(new Progress(LocalDate.of(2026, 3, 7), ANCHOR)));
+        LocalDate day = LocalDate.of(2026, 3, 8);
+
+        assertThat(service.snapshotNextDay()).contains(day);
+
+        verify(snapshotRepository).snapshotDay(day, Instant.parse("2026-03-07T16:00:00Z"), Instant.parse("2026-03-08T16:00:00Z"));
+        verify(snapshotRepository).advanceProgress(day);
+        verify(snapshotRepository, never()).seedDay(any(), any(), any());
+    }
+
+    @Test
+    void snapshotNextDay_waitsForSettleDelay() {
+        assertThat(service.latestClosableDate()).isEqualTo(LocalDate.of(2026, 3, 8));
+        when(snapshotRepository.lockProgress()).thenReturn(Optional.of(new Progress(LocalDate.of(2026, 3, 8), ANCHOR)));
+
+        assertThat(service.snapshotNextDay()).isEmpty();
+
+        verify(snapshotRepository, never()).snapshotDay(any(), any(), any());
+        verify(snapshotRepository, never()).advanceProgress(any());
+    }
+
+    @Test
+    void snapshotNextDay_skipsWhenAnotherInstanceHoldsProgress() {
+        when(snapshotRepository.lockProgress()).thenReturn(Optional.empty());
+
+        assertThat(service.snapshotNextDay()).isEmpty();
+
+        verify(snapshotRepository, never()).snapshotDay(any(), any(), any());
+    }
+
+    @Test
+    void balanceAsOf_addsDeltaAfterNearestSnapshot() {
+        mockAccount();
+        when(snapshotRepository.currentProgress()).thenReturn(new Progress(LocalDate.of(2026, 3, 8), ANCHOR));
+        when(snapshotRepository.findLatestOnOrBefore(1L, LocalDate.of(2026, 3, 7)))
+                .thenReturn(Optional.of(new DailyBalance(LocalDate.of(2026, 3, 5), new BigDecimal("100.00"))));
+        Instant at = Instant.parse("2026-03-08T04:00:00Z");
+        when(snapshotRepository.sumDelta(1L, Instant.parse("2026-03-07T16:00:00Z"), at)).thenReturn(new BigDecimal("-30.50"));
+
+        var res = service.balanceAsOf(1L, at);
+
+        assertThat(res.getBalance()).isEqualByComparingTo("69.50");
+        assertThat(res.getSnapshotDate()).isEqualTo(LocalDate.of(2026, 3, 7));
+        assertThat(res.getCurrency()).isEqualTo("CNY");
+    }
+
+    @Test
+    void balanceAsOf_neverUsesSnapshotsBeyondWatermark() {
+        mockAccount();
+        when(snapshotRepository.currentProgress()).thenReturn(new Progress(LocalDate.of(2026, 3, 8), ANCHOR));
+        when(snapshotRepository.findLatestOnOrBefore(1L, LocalDate.of(2026, 3, 8))).thenReturn(Optional.empty());
+        Instant at = Instant.parse("2026-03-09T15:00:00Z");
+        when(snapshotRepository.sumDelta(1L, Instant.parse("2026-03-08T16:00:00Z"), at)).thenReturn(new BigDecimal("5.00"));
+
+        var res = service.balanceAsOf(1L, at);
+
+        assertThat(res.getBalance()).isEqualByComparingTo("5.00");
+        assertThat(res.getSnapshotDate()).isEqualTo(LocalDate.of(2026, 3, 8));
+    }
+
+    @Test
+    void balanceAsOf_rejectsBeforeFirstSnapshotRun() {
+        mockAccount();
+        when(snapshotRepository.currentProgress()).thenReturn(new Progress(null, null));
+
+        assertThatThrownBy(() -> service.balanceAsOf(1L, Instant.parse("2026-03-09T15:00:00Z")))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("CBB016");
+        verify(snapshotRepository, never()).sumDelta(any(), any(), any());
+    }
+
+    @Test
+    void balanceAsOf_rejectsTimeBeforeAnchorWithoutSnapshot() {
+        mockAccount();
+        when(snapshotRepository.currentProgress()).thenReturn(new Progress(LocalDate.of(2026, 3, 8), LocalDate.of(2026, 3, 8)));
+        when(snapshotRepository.findLatestOnOrBefore(1L, LocalDate.of(2026, 3, 4))).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.balanceAsOf(1L, Instant.parse("2026-03-05T04:00:00Z")))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("CBB016");
+        verify(snapshotRepository, never()).sumDelta(any(), any(), any());
+    }
+
+    @Test
+    void balanceAsOf_usesRecordedBalanceAfterWithoutSnapshots() {
+        mockAccount();
+        Instant at = Instant.parse("2026-03-09T15:00:00Z");
+        when(snapshotRepository.findBalanceAfterAsOf(1L, at)).thenReturn(Optional.of(new BigDecimal("88.00")));
+
+        var res = service.balanceAsOf(1L, at);
+
+        assertThat(res.getBalance()).isEqualByComparingTo("88.00");
+        assertThat(res.getSnapshotDate()).isNull();
+        verify(snapshotRepository, never()).currentProgress();
+        verify(snapshotRepository, never()).sumDelta(any(), any(), any());
+    }
+
+    @Test
+    void balanceAsOf_throwsWhenAccountMissing() {
+        when(accountRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.balanceAsOf(9L, Instant.now()))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("CBB001");
+    }
+
+    private void mockAccount() {
+        Account a = new Account();
+        a.setId(1L);
+        a.setCurrency("CNY");
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(a));
+    }
+}
@@ -0,0 +1,177 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.dto.TransferItem;
+import com.digitalbank.core.dto.TransferResult;
+import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.entity.OutboxEvent;
+import com.digitalbank.core.entity.Transaction;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * BatchNettingEngine 单元测试：一次加锁、净额更新、逐笔失败语义。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class BatchNettingEngineTest {
+
+    @Mock
+    AccountRepository accountRepository;
+    @Mock
+    TransactionRepository transactionRepository;
+    @Mock
+    OutboxService outboxService;
+
+    BatchNettingEngine engine;
+
+    Account a1;
+    Account a2;
+    Account a3;
+
+    @BeforeEach
+    void setUp() {
+        engine = new BatchNettingEngine(accountRepository, transactionRepository, outboxService,
+                new TimeOrderedTransactionIdGenerator(1), new BalanceCache(false, 0, 1, new SimpleMeterRegistry()));
+        a1 = account(1L, "100.00", "active");
+        a2 = account(2L, "0.00", "active");
+        a3 = account(3L, "50.00", "frozen");
+        lenient().when(outboxService.buildEvent(anyString(), anyString(), anyString(), anyString(), anyMap()))
+                .thenAnswer(inv -> new OutboxEvent());
+    }
+
+    @Test
+    void execute_locksOnceInIdOrderAndWritesNetBalances() {
+        when(accountRepository.findAllByIdForUpdate(any())).thenReturn(List.of(a1, a2));
+        Map<Integer, TransferItem> items = new LinkedHashMap<>();
+        items.put(0, item(1L, 2L, "30.00"));
+        items.put(1, item(2L, 1L, "10.00"));
+        items.put(2, item(1L, 2L, "20.00"));
+
+        List<TransferResult> results = engine.execute(items);
+
+        assertThat(results).extracting(TransferResult::getStatus).containsOnly("completed");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(accountRepository, times(1)).findAllByIdForUpdate(ids.capture());
+        assertThat(new ArrayList<>(ids.getValue())).containsExactly(1L, 2L);
+        assertThat(a1.getBalance()).isEqualByComparingTo("60.00");
+        assertThat(a2.getBalance()).isEqualByComparingTo("40.00");
+        verify(accountRepository).saveAll(List.of(a1, a2));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> records = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAll(records.capture());
+        assertThat(records.getValue()).hasSize(6);
+        // 逐笔记账后余额按 index 顺序累计
+        assertThat(records.getValue()).extracting(Transaction::getBalanceAfter)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("70.00"), new BigDecimal("30.00"),
+                        new BigDecimal("20.00"), new BigDecimal("80.00"),
+                        new BigDecimal("60.00"), new BigDecimal("40.00"));
+        verify(outboxService).recordEvents(anyList());
+    }
+
+    @Test
+    void execute_failsOnlyItemsThatWouldOverdrawOrTouchFrozenAccounts() {
+        when(accountRepository.findAllByIdForUpdate(any())).thenReturn(List.of(a1, a2, a3));
+        Map<Integer, TransferItem> items = new LinkedHashMap<>();
+        items.put(0, item(2L, 1L, "5.00"));
+        items.put(3, item(1L, 2L, "80.00"));
+        items.put(4, item(1L, 2L, "30.00"));
+        items.put(6, item(1L, 3L, "1.00"));
+        items.put(7, item(2L, 1L, "5.00"));
+
+        List<TransferResult> results = engine.execute(items);
+
+        assertThat(results).extracting(TransferResult::getIndex).containsExactly(0, 3, 4, 6, 7);
+        assertThat(results).extracting(TransferResult::getErrorCode)
+                .containsExactly("CBB002", null, "CBB002", "CBB003", null);
+        assertThat(a1.getBalance()).isEqualByComparingTo("25.00");
+        assertThat(a2.getBalance()).isEqualByComparingTo("75.00");
+        assertThat(a3.getBalance()).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    void execute_skipsUpdateForZeroNetPositionAndMissingAccount() {
+        when(accountRepository.findAllByIdForUpdate(any())).thenReturn(List.of(a1, a2));
+        Map<Integer, TransferItem> items = new LinkedHashMap<>();
+        items.put(0, item(1L, 2L, "10.00"));
+        items.put(1, item(2L, 1L, "10.00"));
+        items.put(2, item(1L, 9L, "10.00"));
+
+        List<TransferResult> results = engine.execute(items);
+
+        assertThat(results.get(2).getErrorCode()).isEqualTo("CBB001");
+        verify(accountRepository).saveAll(List.of());
+        verify(transactionRepository).saveAll(anyList());
+    }
+
+    @Test
+    void execute_rejectsBatchWhenLockedAccountIsSharded() {
+        a2.setShardCount(4);
+        when(accountRepository.findAllByIdForUpdate(any())).thenReturn(List.of(a1, a2));
+        Map<Integer, TransferItem> items = new LinkedHashMap<>();
+        items.put(0, item(2L, 1L, "10.00"));
+
+        assertThatThrownBy(() -> engine.execute(items)).isInstanceOf(IllegalStateException.class);
+        verify(accountRepository, never()).saveAll(anyList());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void execute_writesNothingWhenAllItemsFail() {
+        when(accountRepository.findAllByIdForUpdate(any())).thenReturn(List.of(a2, a3));
+        Map<Integer, TransferItem> items = new LinkedHashMap<>();
+        items.put(0, item(3L, 2L, "1.00"));
+
+        List<TransferResult> results = engine.execute(items);
+
+        assertThat(results.get(0).getStatus()).isEqualTo("failed");
+        verify(transactionRepository, never()).saveAll(anyList());
+        verify(outboxService, never()).recordEvents(anyList());
+    }
+
+    private static TransferItem item(Long from, Long to, String amount) {
+        TransferItem i = new TransferItem();
+        i.setFromAccountId(from);
+        i.setToAccountId(to);
+        i.setAmount(new BigDecimal(amount));
+        return i;
+    }
+
+    private static Account account(Long id, String balance, String status) {
+        Account a = new Account();
+        a.setId(id);
+        a.setCustomerId(10L);
+        a.setBalance(new BigDecimal(balance));
+        a.setStatus(status);
+        return a;
+    }
+}
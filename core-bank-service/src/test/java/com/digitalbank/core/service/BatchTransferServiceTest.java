@@ -0,0 +1,141 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.client.RiskClient;
+import com.digitalbank.core.config.ConnectionAwareExecutor;
+import com.digitalbank.core.dto.TransferItem;
+import com.digitalbank.core.dto.TransferResult;
+import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.exception.BusinessException;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.BatchTransferRepository;
+import com.digitalbank.core.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * BatchTransferService 单元测试：单笔转账在显式事务内执行，业务失败回滚，事务外完成风控。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class BatchTransferServiceTest {
+
+    @Mock
+    BatchTransferRepository batchTransferRepository;
+    @Mock
+    AccountRepository accountRepository;
+    @Mock
+    TransactionRepository transactionRepository;
+    @Mock
+    RiskClient riskClient;
+    @Mock
+    OutboxService outboxService;
+    @Mock
+    ShardedAccountService shardedAccountService;
+    @Mock
+    BatchNettingEngine batchNettingEngine;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    BatchTransferService service;
+
+    Account from;
+    Account to;
+    Map<Long, Account> accountMap;
+
+    @BeforeEach
+    void setUp() {
+        service = new BatchTransferService(batchTransferRepository, accountRepository, transactionRepository,
+                riskClient, outboxService, new TimeOrderedTransactionIdGenerator(1),
+                new BalanceCache(false, 0, 1, new SimpleMeterRegistry()), shardedAccountService, batchNettingEngine, new ObjectMapper(),
+                new ConnectionAwareExecutor("test", 2, false, 1000),
+                transactionManager, new SimpleMeterRegistry(), false, 5);
+        from = account(1L, "100.00");
+        to = account(2L, "0.00");
+        accountMap = Map.of(1L, from, 2L, to);
+    }
+
+    @Test
+    void executeSingleTransfer_runsInsideCommittedTransaction() {
+        SimpleTransactionStatus status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(status);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(from));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(to));
+
+        TransferResult r = service.executeSingleTransfer(0, item("30.00"), accountMap);
+
+        assertThat(r.getStatus()).isEqualTo("completed");
+        assertThat(from.getBalance()).isEqualByComparingTo("70.00");
+        InOrder order = inOrder(riskClient, transactionManager, accountRepository, transactionRepository);
+        order.verify(riskClient).checkTransfer(10L, 1L, new BigDecimal("30.00"), 2L);
+        order.verify(transactionManager).getTransaction(any(TransactionDefinition.class));
+        order.verify(accountRepository).findByIdForUpdate(1L);
+        order.verify(transactionRepository).saveAll(anyList());
+        order.verify(transactionManager).commit(status);
+    }
+
+    @Test
+    void executeSingleTransfer_rollsBackOnBusinessFailure() {
+        SimpleTransactionStatus status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(status);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(from));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(to));
+
+        TransferResult r = service.executeSingleTransfer(3, item("300.00"), accountMap);
+
+        assertThat(r.getErrorCode()).isEqualTo("CBB002");
+        assertThat(r.getIndex()).isEqualTo(3);
+        assertThat(status.isRollbackOnly()).isTrue();
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void executeSingleTransfer_riskRejectionDoesNotOpenTransaction() {
+        doThrow(new BusinessException("RKB001", "风控拦截", 403))
+                .when(riskClient).checkTransfer(any(), any(), any(), any());
+
+        TransferResult r = service.executeSingleTransfer(0, item("30.00"), accountMap);
+
+        assertThat(r.getErrorCode()).isEqualTo("RKB001");
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    private static TransferItem item(String amount) {
+        TransferItem i = new TransferItem();
+        i.setFromAccountId(1L);
+        i.setToAccountId(2L);
+        i.setAmount(new BigDecimal(amount));
+        return i;
+    }
+
+    private static Account account(Long id, String balance) {
+        Account a = new Account();
+        a.setId(id);
+        a.setCustomerId(10L);
+        a.setBalance(new BigDecimal(balance));
+        a.setStatus("active");
+        return a;
+    }
+}
@@ -0,0 +1,182 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.dto.TransferResult;
+import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.entity.BulkTransferItem;
+import com.digitalbank.core.exception.BusinessException;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.BulkTransferItemRepository;
+import com.digitalbank.core.repository.BulkTransferJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * BulkTransferService 单元测试：逐笔结果与转账同事务、失败单独记录、续跑与租约丢失。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class BulkTransferServiceTest {
+
+    @Mock
+    BulkTransferJobRepository jobRepository;
+    @Mock
+    BulkTransferItemRepository itemRepository;
+    @Mock
+    AccountRepository accountRepository;
+    @Mock
+    BatchTransferService batchTransferService;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    BulkTransferService service;
+    Map<Long, Account> accounts = Map.of();
+
+    @BeforeEach
+    void setUp() {
+        service = new BulkTransferService(jobRepository, itemRepository, accountRepository, batchTransferService,
+                new ObjectMapper(), transactionManager, 1000, 2, 60, 5, "", 64);
+        lenient().when(transactionManager.getTransaction(any(TransactionDefinition.class)))
+                .thenAnswer(inv -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void executeItem_recordsSuccessInsideTransferTransaction() {
+        BulkTransferItem item = item(5L);
+        when(batchTransferService.applyTransfer(eq(5), any())).thenReturn(TransferResult.success(5, "TX1"));
+        when(itemRepository.markResult(7L, 5L, "completed", "TX1", null, null)).thenReturn(1);
+
+        TransferResult r = service.executeItem(item, accounts);
+
+        assertThat(r.getTransactionId()).isEqualTo("TX1");
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void executeItem_rollsBackTransferWhenRowAlreadyProcessed() {
+        BulkTransferItem item = item(5L);
+        when(batchTransferService.applyTransfer(eq(5), any())).thenReturn(TransferResult.success(5, "TX1"));
+        when(itemRepository.markResult(7L, 5L, "completed", "TX1", null, null)).thenReturn(0);
+        SimpleTransactionStatus status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(status);
+
+        TransferResult r = service.executeItem(item, accounts);
+
+        assertThat(r).isNull();
+        assertThat(status.isRollbackOnly()).isTrue();
+    }
+
+    @Test
+    void executeItem_recordsBusinessFailureSeparately() {
+        BulkTransferItem item = item(6L);
+        when(batchTransferService.applyTransfer(eq(6), any())).thenReturn(TransferResult.failed(6, "CBB002", "余额不足"));
+        when(itemRepository.markResult(7L, 6L, "failed", null, "CBB002", "余额不足")).thenReturn(1);
+
+        TransferResult r = service.executeItem(item, accounts);
+
+        assertThat(r.getErrorCode()).isEqualTo("CBB002");
+        verify(itemRepository, never()).markResult(anyLong(), anyLong(), eq("completed"), any(), isNull(), isNull());
+    }
+
+    @Test
+    void executeItem_precheckFailureSkipsTransaction() {
+        BulkTransferItem item = item(8L);
+        when(batchTransferService.precheck(eq(8), any(), eq(accounts)))
+                .thenReturn(TransferResult.failed(8, "CBB001", "转出账户不存在"));
+        when(itemRepository.markResult(7L, 8L, "failed", null, "CBB001", "转出账户不存在")).thenReturn(1);
+
+        service.executeItem(item, accounts);
+
+        verify(batchTransferService, never()).applyTransfer(eq(8), any());
+    }
+
+    @Test
+    void spool_writesBodyToTempFile() throws Exception {
+        Path file = service.spool(new ByteArrayInputStream("a,b\n".getBytes(StandardCharsets.UTF_8)));
+        try {
+            assertThat(Files.readString(file)).isEqualTo("a,b\n");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void submit_rejectsOversizedUploadBeforeOpeningTransaction() {
+        byte[] body = new byte[65];
+
+        assertThatThrownBy(() -> service.submit("J1", "csv", new ByteArrayInputStream(body)))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("CBB015");
+        verify(transactionManager, never()).getTransaction(any());
+        verify(jobRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void runNext_resumesFromSummaryAndCompletes() {
+        when(jobRepository.claimRunnable(eq("node"), any(Instant.class))).thenReturn(Optional.of(7L));
+        when(itemRepository.summarize(7L)).thenReturn(new long[]{3, 2, 1, 3});
+        when(itemRepository.findPendingChunk(eq(7L), any(Pageable.class)))
+                .thenReturn(List.of(item(4L)))
+                .thenReturn(List.of());
+        when(batchTransferService.applyTransfer(eq(4), any())).thenReturn(TransferResult.success(4, "TX4"));
+        when(itemRepository.markResult(7L, 4L, "completed", "TX4", null, null)).thenReturn(1);
+        when(jobRepository.updateProgress(eq(7L), eq("node"), eq(4L), eq(3L), eq(1L), eq(4L), any())).thenReturn(1);
+
+        assertThat(service.runNext("node", () -> true)).isTrue();
+
+        verify(jobRepository).markCompleted(7L, "node");
+    }
+
+    @Test
+    void runNext_stopsWhenLeaseLost() {
+        when(jobRepository.claimRunnable(eq("node"), any(Instant.class))).thenReturn(Optional.of(7L));
+        when(itemRepository.summarize(7L)).thenReturn(new long[]{0, 0, 0, 0});
+        when(itemRepository.findPendingChunk(eq(7L), any(Pageable.class))).thenReturn(List.of(item(1L)));
+        when(batchTransferService.applyTransfer(eq(1), any())).thenReturn(TransferResult.success(1, "TX1"));
+        when(itemRepository.markResult(7L, 1L, "completed", "TX1", null, null)).thenReturn(1);
+        when(jobRepository.updateProgress(eq(7L), eq("node"), anyLong(), anyLong(), anyLong(), anyLong(), any())).thenReturn(0);
+
+        assertThat(service.runNext("node", () -> true)).isTrue();
+
+        verify(jobRepository, never()).markCompleted(any(), any());
+    }
+
+    private static BulkTransferItem item(long seq) {
+        BulkTransferItem i = new BulkTransferItem();
+        i.setJobId(7L);
+        i.setSeq(seq);
+        i.setFromAccountId(1L);
+        i.setToAccountId(2L);
+        i.setAmount(new BigDecimal("10.00"));
+        return i;
+    }
+}
@@ -0,0 +1,89 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.exception.BusinessException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * BulkTransferStagingReader 单元测试：NDJSON/CSV 转 COPY 输入、格式错误行落 failed、笔数上限。
+ *
+ * @author Digital Bank POC Team
+ */
+class BulkTransferStagingReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void ndjson_convertsEachLineAndRejectsInvalidOnes() throws IOException {
+        String input = """
+                {"fromAccountId":1,"toAccountId":2,"amount":"10.5","remark":"工资, 3月"}
+
+                {"fromAccountId":1,"toAccountId":2,"amount":0}
+                not json
+                {"fromAccountId":3,"toAccountId":4,"amount":7}
+                """;
+        BulkTransferStagingReader reader = reader(input, "ndjson", 100);
+
+        String copy = drain(reader);
+
+        assertThat(copy.split("\n")).containsExactly(
+                "9,1,1,2,10.50,\"工资, 3月\",pending,,",
+                "9,2,,,,,failed,\"CBV003\",\"第 3 行格式错误: amount 必须大于 0 且最多两位小数\"",
+                "9,3,,,,,failed,\"CBV003\",\"第 4 行格式错误: 不是合法的 JSON 对象\"",
+                "9,4,3,4,7.00,,pending,,");
+        assertThat(reader.count()).isEqualTo(4);
+        assertThat(reader.rejected()).isEqualTo(2);
+    }
+
+    @Test
+    void csv_usesHeaderColumnsInAnyOrderAndQuotedFields() throws IOException {
+        String input = "﻿amount,toAccountId,fromAccountId,remark\n"
+                + "1.00,2,1,\"say \"\"hi\"\"\"\n"
+                + "2.00,4,3,\n";
+
+        String copy = drain(reader(input, "csv", 100));
+
+        assertThat(copy.split("\n")).containsExactly(
+                "9,1,1,2,1.00,\"say \"\"hi\"\"\",pending,,",
+                "9,2,3,4,2.00,\"\",pending,,");
+    }
+
+    @Test
+    void csv_requiresHeaderColumns() {
+        assertThatThrownBy(() -> drain(reader("a,b,c\n1,2,3\n", "csv", 100)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("表头");
+    }
+
+    @Test
+    void rejectsFilesOverTheItemLimit() {
+        String input = "{\"fromAccountId\":1,\"toAccountId\":2,\"amount\":1}\n".repeat(3);
+
+        assertThatThrownBy(() -> drain(reader(input, "ndjson", 2)))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("CBB015");
+    }
+
+    private BulkTransferStagingReader reader(String input, String format, long maxItems) {
+        return new BulkTransferStagingReader(new BufferedReader(new StringReader(input)), format, 9L, maxItems, objectMapper);
+    }
+
+    private static String drain(Reader reader) throws IOException {
+        StringWriter out = new StringWriter();
+        char[] buf = new char[7];
+        int n;
+        while ((n = reader.read(buf, 0, buf.length)) != -1) {
+            out.write(buf, 0, n);
+        }
+        return out.toString();
+    }
+}
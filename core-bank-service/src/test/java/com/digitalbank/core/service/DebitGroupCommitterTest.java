@@ -0,0 +1,260 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.dto.DebitRequest;
+import com.digitalbank.core.dto.DebitResponse;
+import com.digitalbank.core.entity.OutboxEvent;
+import com.digitalbank.core.entity.Transaction;
+import com.digitalbank.core.exception.BusinessException;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.TransactionRepository;
+import com.digitalbank.core.repository.TransactionRepositoryCustom.ClaimedPayment;
+import com.digitalbank.core.repository.TransactionRepositoryCustom.PaymentClaim;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * DebitGroupCommitter 单元测试：批内幂等、逐笔结果、按账户顺序扣款、批量写入与失败回退。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class DebitGroupCommitterTest {
+
+    @Mock
+    TransactionService transactionService;
+    @Mock
+    AccountRepository accountRepository;
+    @Mock
+    TransactionRepository transactionRepository;
+    @Mock
+    OutboxService outboxService;
+    @Mock
+    ShardedAccountService shardedAccountService;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    RecentRefIdCache recentRefIdCache = new RecentRefIdCache(100, 600);
+    DebitGroupCommitter committer;
+
+    @BeforeEach
+    void setUp() {
+        committer = committer(false);
+        lenient().when(outboxService.buildEvent(anyString(), anyString(), anyString(), anyString(), anyMap()))
+                .thenAnswer(inv -> new OutboxEvent());
+    }
+
+    @Test
+    void commitBatch_appliesDebitsInAccountOrderAndWritesOnce() throws Exception {
+        when(transactionRepository.findByRefIdIn(any())).thenReturn(List.of());
+        when(accountRepository.debitIfSufficient(any(), any())).thenReturn(Optional.of(BigDecimal.ONE));
+        DebitGroupCommitter.PendingDebit p1 = pending(2L, "10.00", "R1");
+        DebitGroupCommitter.PendingDebit p2 = pending(1L, "20.00", "R2");
+
+        committer.commitBatch(List.of(p1, p2));
+
+        InOrder order = inOrder(accountRepository);
+        order.verify(accountRepository).debitIfSufficient(1L, new BigDecimal("20.00"));
+        order.verify(accountRepository).debitIfSufficient(2L, new BigDecimal("10.00"));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> records = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAll(records.capture());
+        assertThat(records.getValue()).extracting(Transaction::getRefId).containsExactly("R2", "R1");
+        verify(outboxService).recordEvents(anyList());
+        assertThat(p1.future.get().getAccountId()).isEqualTo(2L);
+        assertThat(p2.future.get().getStatus()).isEqualTo("completed");
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void commitBatch_returnsExistingTransactionForKnownRefIdAndSharesDuplicates() throws Exception {
+        Transaction existing = new Transaction();
+        existing.setTransactionId("TXOLD");
+        existing.setAccountId(1L);
+        existing.setAmount(new BigDecimal("5.00"));
+        existing.setStatus("completed");
+        existing.setRefId("R1");
+        when(transactionRepository.findByRefIdIn(any())).thenReturn(List.of(existing));
+        DebitGroupCommitter.PendingDebit p1 = pending(1L, "5.00", "R1");
+        DebitGroupCommitter.PendingDebit dup = pending(1L, "5.00", " R1 ");
+
+        committer.commitBatch(List.of(p1, dup));
+
+        assertThat(p1.future.get().getTransactionId()).isEqualTo("TXOLD");
+        assertThat(dup.future.get().getTransactionId()).isEqualTo("TXOLD");
+        verify(accountRepository, never()).debitIfSufficient(any(), any());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void commitBatch_failsOnlyTheItemWithInsufficientBalance() throws Exception {
+        when(transactionRepository.findByRefIdIn(any())).thenReturn(List.of());
+        when(accountRepository.debitIfSufficient(eq(1L), any())).thenReturn(Optional.empty());
+        when(accountRepository.debitIfSufficient(eq(2L), any())).thenReturn(Optional.of(BigDecimal.TEN));
+        when(transactionService.debitOnGuardMiss(1L, new BigDecimal("999.00"), "账户已冻结"))
+                .thenThrow(new BusinessException("CBB002", "余额不足", 400));
+        DebitGroupCommitter.PendingDebit poor = pending(1L, "999.00", "R1");
+        DebitGroupCommitter.PendingDebit ok = pending(2L, "1.00", "R2");
+        DebitGroupCommitter.PendingDebit invalid = pending(2L, "1.00", " ");
+
+        committer.commitBatch(List.of(poor, ok, invalid));
+
+        assertThatThrownBy(poor.future::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(BusinessException.class)
+                .hasMessageContaining("余额不足");
+        assertThatThrownBy(invalid.future::get).hasMessageContaining("refId 不能为空");
+        assertThat(ok.future.get().getAccountId()).isEqualTo(2L);
+    }
+
+    @Test
+    void commitBatch_fallsBackToSingleDebitWhenBatchTransactionFails() throws Exception {
+        when(transactionRepository.findByRefIdIn(any())).thenThrow(new IllegalStateException("db down"));
+        DebitResponse single = new DebitResponse("TX1", 1L, BigDecimal.ONE, "completed");
+        when(transactionService.debit(any())).thenReturn(single);
+        DebitGroupCommitter.PendingDebit p1 = pending(1L, "1.00", "R1");
+        DebitGroupCommitter.PendingDebit dup = pending(1L, "1.00", "R1");
+
+        committer.commitBatch(List.of(p1, dup));
+
+        assertThat(p1.future.get()).isSameAs(single);
+        assertThat(dup.future.get()).isSameAs(single);
+        verify(transactionService, times(1)).debit(any());
+    }
+
+    @Test
+    void debit_usesSinglePathWhenNotStarted() {
+        DebitResponse single = new DebitResponse("TX1", 1L, BigDecimal.ONE, "completed");
+        DebitRequest req = request(1L, "1.00", "R1");
+        when(transactionService.debit(req)).thenReturn(single);
+
+        assertThat(committer.debit(req)).isSameAs(single);
+    }
+
+    @Test
+    void commitBatch_insertFirstClaimsAndDebitsWholeBatchInOneCall() throws Exception {
+        committer = committer(true);
+        when(transactionRepository.debitPaymentsBatch(anyList())).thenReturn(List.of(
+                new ClaimedPayment(11L, new BigDecimal("95.00")),
+                new ClaimedPayment(12L, new BigDecimal("80.00"))));
+        DebitGroupCommitter.PendingDebit p2 = pending(2L, "20.00", "R2");
+        DebitGroupCommitter.PendingDebit p1 = pending(1L, "5.00", "R1");
+
+        committer.commitBatch(List.of(p2, p1));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PaymentClaim>> claims = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).debitPaymentsBatch(claims.capture());
+        assertThat(claims.getValue()).extracting(PaymentClaim::refId).containsExactly("R1", "R2");
+        assertThat(p1.future.get().getTransactionId()).isEqualTo(claims.getValue().get(0).transactionId());
+        verify(accountRepository, never()).debitIfSufficient(any(), any());
+        verify(transactionRepository, never()).insertPaymentIfAbsent(any(), any(), any(), any(), any());
+        verify(transactionRepository, never()).updateBalanceAfter(any(), any());
+        verify(transactionRepository, never()).findByRefIdIn(any());
+        verify(transactionRepository, never()).saveAll(anyList());
+        verify(outboxService).recordEvents(anyList());
+        assertThat(p1.future.get().getStatus()).isEqualTo("completed");
+        // 无事务同步时立即缓存，之后同 refId 不再进入批次
+        DebitGroupCommitter.PendingDebit again = pending(1L, "5.00", "R1");
+        committer.commitBatch(List.of(again));
+        assertThat(again.future.get().getTransactionId()).isEqualTo(p1.future.get().getTransactionId());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void commitBatch_insertFirstReplaysClaimedRefIdWithoutDebit() throws Exception {
+        committer = committer(true);
+        Transaction existing = new Transaction();
+        existing.setTransactionId("TXOLD");
+        existing.setAccountId(1L);
+        existing.setAmount(new BigDecimal("5.00"));
+        existing.setStatus("completed");
+        existing.setRefId("R1");
+        when(transactionRepository.debitPaymentsBatch(anyList())).thenReturn(List.of(new ClaimedPayment(null, null)));
+        when(transactionRepository.findByRefIdIn(List.of("R1"))).thenReturn(List.of(existing));
+        DebitGroupCommitter.PendingDebit p1 = pending(1L, "5.00", "R1");
+
+        committer.commitBatch(List.of(p1));
+
+        assertThat(p1.future.get().getTransactionId()).isEqualTo("TXOLD");
+        verify(transactionService, never()).debitOnGuardMiss(any(), any(), anyString());
+        verify(outboxService, never()).recordEvents(anyList());
+    }
+
+    @Test
+    void commitBatch_insertFirstReleasesClaimWhenDebitFails() throws Exception {
+        committer = committer(true);
+        when(transactionRepository.debitPaymentsBatch(anyList())).thenReturn(List.of(
+                new ClaimedPayment(11L, null),
+                new ClaimedPayment(12L, BigDecimal.TEN)));
+        when(transactionService.debitOnGuardMiss(1L, new BigDecimal("999.00"), "账户已冻结"))
+                .thenThrow(new BusinessException("CBB002", "余额不足", 400));
+        DebitGroupCommitter.PendingDebit poor = pending(1L, "999.00", "R1");
+        DebitGroupCommitter.PendingDebit ok = pending(2L, "1.00", "R2");
+
+        committer.commitBatch(List.of(poor, ok));
+
+        verify(transactionRepository).releasePaymentClaim(11L, "R1");
+        verify(transactionRepository, never()).releasePaymentClaim(12L, "R2");
+        assertThatThrownBy(poor.future::get).hasMessageContaining("余额不足");
+        assertThat(ok.future.get().getAccountId()).isEqualTo(2L);
+    }
+
+    @Test
+    void commitBatch_insertFirstCompletesGuardMissThroughSinglePath() throws Exception {
+        committer = committer(true);
+        when(transactionRepository.debitPaymentsBatch(anyList())).thenReturn(List.of(new ClaimedPayment(11L, null)));
+        when(transactionService.debitOnGuardMiss(1L, new BigDecimal("5.00"), "账户已冻结"))
+                .thenReturn(new BigDecimal("45.00"));
+        DebitGroupCommitter.PendingDebit sharded = pending(1L, "5.00", "R1");
+
+        committer.commitBatch(List.of(sharded));
+
+        verify(transactionRepository).updateBalanceAfter(11L, new BigDecimal("45.00"));
+        verify(transactionRepository, never()).releasePaymentClaim(any(), any());
+        assertThat(sharded.future.get().getStatus()).isEqualTo("completed");
+    }
+
+    private DebitGroupCommitter committer(boolean insertFirst) {
+        return new DebitGroupCommitter(transactionService, accountRepository, transactionRepository,
+                outboxService, shardedAccountService, new TimeOrderedTransactionIdGenerator(1),
+                new BalanceCache(false, 0, 1, new SimpleMeterRegistry()), recentRefIdCache, transactionManager,
+                true, 2, 64, 100, 1000, insertFirst);
+    }
+
+    private static DebitGroupCommitter.PendingDebit pending(Long accountId, String amount, String refId) {
+        return new DebitGroupCommitter.PendingDebit(request(accountId, amount, refId));
+    }
+
+    private static DebitRequest request(Long accountId, String amount, String refId) {
+        DebitRequest r = new DebitRequest();
+        r.setAccountId(accountId);
+        r.setAmount(new BigDecimal(amount));
+        r.setRefId(refId);
+        return r;
+    }
+}
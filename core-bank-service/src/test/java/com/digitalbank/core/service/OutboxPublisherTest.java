@@ -0,0 +1,181 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.client.PaymentClient;
+import com.digitalbank.core.config.OutboxRetryProperties;
+import com.digitalbank.core.entity.OutboxEvent;
+import com.digitalbank.core.repository.OutboxEventRepository;
+import com.digitalbank.core.repository.OutboxEventRepositoryCustom.DeliveryResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * OutboxPublisher 单元测试：drain 连续领取直到领取为空、结果与下一批领取合并回写，
+ * 投递失败按退避写入下次投递时间、达到上限标记 failed，批内事件并行投递，投递期间续约。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class OutboxPublisherTest {
+
+    private static final Instant CREATED_AT = Instant.parse("2026-03-09T08:00:00Z");
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PaymentClient paymentClient;
+
+    private OutboxPublisher publisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        OutboxRetryProperties retry = new OutboxRetryProperties();
+        retry.getDefaults().setMaxAttempts(3);
+        retry.getDefaults().setInitialBackoffMs(1000L);
+        retry.getDefaults().setJitter(0.0);
+        publisher = new OutboxPublisher(outboxEventRepository, paymentClient, new ObjectMapper(),
+                meterRegistry, retry, 2, 60, 20000, 2, false, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void drain_mergesAcknowledgementWithNextClaimUntilNothingLeft() {
+        when(outboxEventRepository.claimPending(anyString(), any(), eq(2))).thenReturn(
+                List.of(event(1, "ACCOUNT_OPENED"), event(2, "ACCOUNT_OPENED")));
+        when(outboxEventRepository.acknowledgeAndClaim(anyList(), anyString(), any(), any(), eq(2)))
+                .thenReturn(List.of(event(3, "ACCOUNT_OPENED")))
+                .thenReturn(List.of());
+
+        assertThat(publisher.drain()).isEqualTo(3);
+        verify(outboxEventRepository, times(1)).claimPending(eq(publisher.getOwner()), any(), eq(2));
+        verify(outboxEventRepository).acknowledgeAndClaim(eq(List.of(sent(1), sent(2))), eq(publisher.getOwner()),
+                any(), any(), eq(2));
+        verify(outboxEventRepository).acknowledgeAndClaim(eq(List.of(sent(3))), eq(publisher.getOwner()),
+                any(), any(), eq(2));
+        verify(outboxEventRepository, never()).acknowledge(anyList(), anyString(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_schedulesRetryWithBackoffAndKeepsDraining() {
+        OutboxEvent secondFailure = event(3, "PAYMENT_DEBIT_COMPLETED");
+        secondFailure.setAttempts(1);
+        OutboxEvent exhausted = event(4, "PAYMENT_DEBIT_COMPLETED");
+        exhausted.setAttempts(2);
+        when(outboxEventRepository.claimPending(anyString(), any(), eq(2))).thenReturn(
+                List.of(event(1, "PAYMENT_DEBIT_COMPLETED"), event(2, "ACCOUNT_OPENED")));
+        when(outboxEventRepository.acknowledgeAndClaim(anyList(), anyString(), any(), any(), eq(2)))
+                .thenReturn(List.of(secondFailure, exhausted))
+                .thenReturn(List.of());
+        doThrow(new IllegalStateException("payment-service unavailable")).when(paymentClient).sendCallback(any());
+        Instant before = Instant.now();
+
+        assertThat(publisher.drain()).isEqualTo(4);
+        ArgumentCaptor<List<DeliveryResult>> acks = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository, times(2)).acknowledgeAndClaim(acks.capture(), eq(publisher.getOwner()),
+                any(), any(), eq(2));
+
+        List<DeliveryResult> first = acks.getAllValues().get(0);
+        assertThat(first.get(0).status()).isEqualTo("pending");
+        assertThat(first.get(0).error()).isEqualTo("payment-service unavailable");
+        assertThat(first.get(0).nextAttemptAt()).isBetween(before.plusMillis(1000), Instant.now().plusMillis(1000));
+        assertThat(first.get(1)).isEqualTo(sent(2));
+
+        List<DeliveryResult> second = acks.getAllValues().get(1);
+        assertThat(second.get(0).status()).isEqualTo("pending");
+        assertThat(second.get(0).nextAttemptAt()).isAfterOrEqualTo(before.plusMillis(2000));
+        assertThat(second.get(1)).isEqualTo(new DeliveryResult(4, CREATED_AT, "failed", "payment-service unavailable", null));
+    }
+
+    @Test
+    void drain_deliversBatchInParallel() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(outboxEventRepository.claimPending(anyString(), any(), eq(2))).thenReturn(
+                List.of(event(1, "PAYMENT_DEBIT_COMPLETED"), event(2, "PAYMENT_DEBIT_COMPLETED")));
+        doAnswer(inv -> {
+            bothStarted.countDown();
+            if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("not delivered in parallel");
+            }
+            return null;
+        }).when(paymentClient).sendCallback(any());
+
+        assertThat(publisher.drain()).isEqualTo(2);
+        verify(outboxEventRepository).acknowledgeAndClaim(eq(List.of(sent(1), sent(2))), eq(publisher.getOwner()),
+                any(), any(), eq(2));
+    }
+
+    @Test
+    void drain_recordsDeliveryTimePerEventTypeAndOutcome() {
+        when(outboxEventRepository.claimPending(anyString(), any(), eq(2))).thenReturn(
+                List.of(event(1, "PAYMENT_DEBIT_COMPLETED"), event(2, "PAYMENT_DEBIT_COMPLETED")));
+
+        publisher.drain();
+
+        assertThat(meterRegistry.find("corebank.outbox.delivery")
+                .tags("eventType", "PAYMENT_DEBIT_COMPLETED", "outcome", "sent").timers())
+                .singleElement()
+                .satisfies(t -> assertThat(t.count()).isEqualTo(2));
+    }
+
+    @Test
+    void heartbeat_renewsLeasesOnlyWhileDraining() {
+        publisher.heartbeat();
+        verify(outboxEventRepository, never()).renewLeases(anyString(), any());
+
+        when(outboxEventRepository.claimPending(anyString(), any(), eq(2))).thenReturn(
+                List.of(event(1, "PAYMENT_DEBIT_COMPLETED")));
+        doAnswer(inv -> {
+            publisher.heartbeat();
+            return null;
+        }).when(paymentClient).sendCallback(any());
+
+        publisher.drain();
+        verify(outboxEventRepository).renewLeases(eq(publisher.getOwner()), any());
+    }
+
+    private static DeliveryResult sent(long id) {
+        return new DeliveryResult(id, CREATED_AT, "sent", null, null);
+    }
+
+    private static OutboxEvent event(long id, String eventType) {
+        OutboxEvent e = new OutboxEvent();
+        e.setId(id);
+        e.setEventType(eventType);
+        e.setAggregateId("PAY" + id);
+        e.setPayload("{}");
+        e.setStatus("processing");
+        e.setCreatedAt(CREATED_AT);
+        return e;
+    }
+}
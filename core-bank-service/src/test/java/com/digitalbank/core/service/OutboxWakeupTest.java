@@ -0,0 +1,85 @@
+package com.digitalbank.core.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * OutboxWakeup 单元测试：提交后才发送、回滚不发送、合并窗口内只发一条。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class OutboxWakeupTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    OutboxWakeup wakeup;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (wakeup != null) {
+            wakeup.shutdown();
+        }
+    }
+
+    @Test
+    void signalAfterCommit_coalescesSignalsWithinWindow() {
+        wakeup = new OutboxWakeup(jdbcTemplate, true, 200);
+
+        wakeup.signalAfterCommit();
+        wakeup.signalAfterCommit();
+        wakeup.signalAfterCommit();
+
+        verify(jdbcTemplate, timeout(2000).times(1)).execute("SELECT pg_notify('outbox_events', '')");
+        verify(jdbcTemplate, after(300).times(1)).execute(anyString());
+    }
+
+    @Test
+    void signalAfterCommit_sendsOnlyAfterCommit() {
+        wakeup = new OutboxWakeup(jdbcTemplate, true, 0);
+        TransactionSynchronizationManager.initSynchronization();
+
+        wakeup.signalAfterCommit();
+
+        verify(jdbcTemplate, after(100).times(0)).execute(anyString());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(jdbcTemplate, timeout(2000)).execute(anyString());
+    }
+
+    @Test
+    void signalAfterCommit_skipsRolledBackTransaction() {
+        wakeup = new OutboxWakeup(jdbcTemplate, true, 0);
+        TransactionSynchronizationManager.initSynchronization();
+
+        wakeup.signalAfterCommit();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(jdbcTemplate, after(100).times(0)).execute(anyString());
+    }
+
+    @Test
+    void signalAfterCommit_disabledSendsNothing() {
+        wakeup = new OutboxWakeup(jdbcTemplate, false, 0);
+
+        wakeup.signalAfterCommit();
+
+        verify(jdbcTemplate, after(100).times(0)).execute(anyString());
+    }
+}
@@ -0,0 +1,53 @@
+package com.digitalbank.core.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * PartitionCoverageVerifier 单元测试：启动时预建后检查，缺失分区则启动失败。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class PartitionCoverageVerifierTest {
+
+    @Mock
+    private PartitionMaintenanceService partitionMaintenanceService;
+
+    @Test
+    void run_failsWhenRequiredPartitionsMissing() {
+        when(partitionMaintenanceService.ensureFuturePartitions()).thenThrow(new IllegalStateException("lock timeout"));
+        when(partitionMaintenanceService.missingRequiredPartitions()).thenReturn(List.of("transactions_p202604"));
+
+        assertThatThrownBy(() -> new PartitionCoverageVerifier(partitionMaintenanceService, true, true).run(null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("transactions_p202604");
+    }
+
+    @Test
+    void run_onlyChecksWhenMaintenanceDisabled() {
+        when(partitionMaintenanceService.missingRequiredPartitions()).thenReturn(List.of());
+
+        assertThatCode(() -> new PartitionCoverageVerifier(partitionMaintenanceService, false, true).run(null))
+                .doesNotThrowAnyException();
+        verify(partitionMaintenanceService, never()).ensureFuturePartitions();
+    }
+
+    @Test
+    void run_skipsWhenVerificationDisabled() {
+        new PartitionCoverageVerifier(partitionMaintenanceService, true, false).run(null);
+
+        verify(partitionMaintenanceService, never()).ensureFuturePartitions();
+        verify(partitionMaintenanceService, never()).missingRequiredPartitions();
+    }
+}
@@ -0,0 +1,112 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.repository.PartitionRepository;
+import com.digitalbank.core.repository.PartitionRepository.Partition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * PartitionMaintenanceService 单元测试：预建范围、按保留月数分离、含非 sent 事件的 outbox 分区跳过、当月/下月分区检查、中断分离的 FINALIZE。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class PartitionMaintenanceServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-31T23:30:00Z");
+
+    @Mock
+    private PartitionRepository partitionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PartitionMaintenanceService service(int transactionsRetention, int outboxRetention) {
+        return new PartitionMaintenanceService(partitionRepository, new TransactionTemplate(transactionManager),
+                3, transactionsRetention, outboxRetention, 2000, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void ensureFuturePartitions_coversCurrentMonthThroughPremakeMonths() {
+        LocalDate from = LocalDate.of(2026, 3, 1);
+        LocalDate to = LocalDate.of(2026, 6, 1);
+        when(partitionRepository.ensureMonthlyPartitions(PartitionMaintenanceService.TRANSACTIONS, from, to)).thenReturn(1);
+        when(partitionRepository.ensureMonthlyPartitions(PartitionMaintenanceService.OUTBOX_EVENTS, from, to)).thenReturn(0);
+
+        assertThat(service(0, 3).ensureFuturePartitions()).isEqualTo(1);
+        verify(partitionRepository, times(2)).setLocalLockTimeout(2000);
+    }
+
+    @Test
+    void detachExpiredPartitions_dropsOnlyFullySentOutboxPartitions() {
+        when(partitionRepository.listPartitions(PartitionMaintenanceService.OUTBOX_EVENTS)).thenReturn(List.of(
+                new Partition("outbox_events_p202510", false),
+                new Partition("outbox_events_p202511", false),
+                new Partition("outbox_events_p202512", false),
+                new Partition("outbox_events_p202603", false)));
+        when(partitionRepository.hasUnsentEvents("outbox_events_p202510")).thenReturn(false);
+        when(partitionRepository.hasUnsentEvents("outbox_events_p202511")).thenReturn(true);
+
+        assertThat(service(0, 3).detachExpiredPartitions()).containsExactly("outbox_events_p202510");
+        verify(partitionRepository).detachConcurrently(PartitionMaintenanceService.OUTBOX_EVENTS, "outbox_events_p202510");
+        verify(partitionRepository).dropTable("outbox_events_p202510");
+        verify(partitionRepository).deleteOutboxIdempotencyKeysBefore(LocalDate.of(2025, 11, 1));
+        verify(partitionRepository, never()).dropTable("outbox_events_p202511");
+        verify(partitionRepository, never()).listPartitions(PartitionMaintenanceService.TRANSACTIONS);
+    }
+
+    @Test
+    void missingRequiredPartitions_reportsCurrentAndNextMonth() {
+        when(partitionRepository.listPartitions(PartitionMaintenanceService.TRANSACTIONS)).thenReturn(List.of(
+                new Partition("transactions_p202603", false),
+                new Partition("transactions_p202604", false)));
+        when(partitionRepository.listPartitions(PartitionMaintenanceService.OUTBOX_EVENTS)).thenReturn(List.of(
+                new Partition("outbox_events_p202603", false)));
+
+        assertThat(service(0, 0).missingRequiredPartitions()).containsExactly("outbox_events_p202604");
+    }
+
+    @Test
+    void detachExpiredPartitions_finalizesPendingDetachAndKeepsTransactionArchive() {
+        when(partitionRepository.listPartitions(PartitionMaintenanceService.TRANSACTIONS)).thenReturn(List.of(
+                new Partition("transactions_p202501", true),
+                new Partition("transactions_p202502", false),
+                new Partition("transactions_p202603", false)));
+
+        assertThat(service(12, 0).detachExpiredPartitions())
+                .containsExactly("transactions_p202501", "transactions_p202502");
+        verify(partitionRepository).finalizeDetach(PartitionMaintenanceService.TRANSACTIONS, "transactions_p202501");
+        verify(partitionRepository).detachConcurrently(PartitionMaintenanceService.TRANSACTIONS, "transactions_p202502");
+        verify(partitionRepository, never()).dropTable(anyString());
+        verify(partitionRepository, never()).deleteOutboxIdempotencyKeysBefore(any());
+        verify(partitionRepository, never()).hasUnsentEvents(anyString());
+    }
+
+    @Test
+    void monthOf_parsesOnlyConformingPartitionNames() {
+        assertThat(PartitionMaintenanceService.monthOf("transactions", "transactions_p202602"))
+                .contains(YearMonth.of(2026, 2));
+        assertThat(PartitionMaintenanceService.monthOf("transactions", "transactions_archive")).isEmpty();
+        assertThat(PartitionMaintenanceService.monthOf("transactions", "transactions_p202613")).isEmpty();
+        assertThat(PartitionMaintenanceService.monthOf("transactions", "outbox_events_p202602")).isEmpty();
+    }
+}
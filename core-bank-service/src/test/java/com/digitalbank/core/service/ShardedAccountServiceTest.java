@@ -0,0 +1,158 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.entity.Account;
+import com.digitalbank.core.exception.BusinessException;
+import com.digitalbank.core.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ShardedAccountService 单元测试：分片入账不锁主行、扣款归集分片、重平衡。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class ShardedAccountServiceTest {
+
+    @Mock
+    AccountRepository accountRepository;
+
+    ShardedAccountService service;
+
+    Account customer;
+    Account merchant;
+
+    @BeforeEach
+    void setUp() {
+        service = new ShardedAccountService(accountRepository, true);
+        when(accountRepository.findShardCounts()).thenReturn(Map.of(9L, 8));
+        service.refreshShardedAccounts();
+
+        customer = account(1L, "100.00", 0);
+        merchant = account(9L, "10.00", 8);
+    }
+
+    @Test
+    void isSharded_onlyForRegisteredAccounts() {
+        assertThat(service.isSharded(9L)).isTrue();
+        assertThat(service.isSharded(1L)).isFalse();
+        assertThat(new ShardedAccountService(accountRepository, false).isSharded(9L)).isFalse();
+    }
+
+    @Test
+    void transfer_toShardedAccount_creditsShardHoldingOnlyShareLockOnMerchantRow() {
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(customer));
+        when(accountRepository.findStatusByIdForShare(9L)).thenReturn(Optional.of("active"));
+        when(accountRepository.creditShard(eq(9L), anyInt(), eq(new BigDecimal("30.00")))).thenReturn(1);
+
+        service.transfer(1L, 9L, new BigDecimal("30.00"));
+
+        assertThat(customer.getBalance()).isEqualByComparingTo("70.00");
+        verify(accountRepository, never()).findByIdForUpdate(9L);
+        verify(accountRepository).save(customer);
+        InOrder order = inOrder(accountRepository);
+        order.verify(accountRepository).findByIdForUpdate(1L);
+        order.verify(accountRepository).findStatusByIdForShare(9L);
+        order.verify(accountRepository).creditShard(eq(9L), anyInt(), any());
+    }
+
+    @Test
+    void transfer_toShardedAccount_locksRowsInIdOrderAndRejectsFrozenTarget() {
+        Account big = account(20L, "100.00", 0);
+        when(accountRepository.findStatusByIdForShare(9L)).thenReturn(Optional.of("frozen"));
+        when(accountRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(big));
+
+        assertThatThrownBy(() -> service.transfer(20L, 9L, new BigDecimal("30.00")))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("转入账户已冻结");
+        InOrder order = inOrder(accountRepository);
+        order.verify(accountRepository).findStatusByIdForShare(9L);
+        order.verify(accountRepository).findByIdForUpdate(20L);
+        verify(accountRepository, never()).creditShard(anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void transfer_fromShardedAccount_drainsShardsWhenMainRowInsufficient() {
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(customer));
+        when(accountRepository.findByIdForUpdate(9L)).thenReturn(Optional.of(merchant));
+        when(accountRepository.drainShards(9L)).thenReturn(new BigDecimal("50.00"));
+
+        service.transfer(9L, 1L, new BigDecimal("40.00"));
+
+        assertThat(merchant.getBalance()).isEqualByComparingTo("20.00");
+        assertThat(customer.getBalance()).isEqualByComparingTo("140.00");
+        InOrder order = inOrder(accountRepository);
+        order.verify(accountRepository).findByIdForUpdate(1L);
+        order.verify(accountRepository).findByIdForUpdate(9L);
+        order.verify(accountRepository).drainShards(9L);
+    }
+
+    @Test
+    void debit_throwsInsufficientWhenMainAndShardsNotEnough() {
+        when(accountRepository.findByIdForUpdate(9L)).thenReturn(Optional.of(merchant));
+        when(accountRepository.drainShards(9L)).thenReturn(new BigDecimal("5.00"));
+
+        assertThatThrownBy(() -> service.debit(9L, new BigDecimal("20.00")))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("余额不足");
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    void debit_usesMainRowOnlyWhenSufficient() {
+        when(accountRepository.findByIdForUpdate(9L)).thenReturn(Optional.of(merchant));
+
+        service.debit(9L, new BigDecimal("10.00"));
+
+        assertThat(merchant.getBalance()).isEqualByComparingTo("0.00");
+        verify(accountRepository, never()).drainShards(anyLong());
+    }
+
+    @Test
+    void rebalance_foldsShardsIntoMainRow() {
+        when(accountRepository.findByIdForUpdate(9L)).thenReturn(Optional.of(merchant));
+        when(accountRepository.drainShards(9L)).thenReturn(new BigDecimal("25.50"));
+
+        BigDecimal drained = service.rebalance(9L);
+
+        assertThat(drained).isEqualByComparingTo("25.50");
+        assertThat(merchant.getBalance()).isEqualByComparingTo("35.50");
+    }
+
+    @Test
+    void enableSharding_rejectsInvalidShardCount() {
+        assertThatThrownBy(() -> service.enableSharding(1L, 1))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("CBV003");
+        verify(accountRepository, never()).createShards(anyLong(), anyInt());
+    }
+
+    private static Account account(Long id, String balance, int shardCount) {
+        Account a = new Account();
+        a.setId(id);
+        a.setCustomerId(10L);
+        a.setBalance(new BigDecimal(balance));
+        a.setStatus("active");
+        a.setShardCount(shardCount);
+        return a;
+    }
+}
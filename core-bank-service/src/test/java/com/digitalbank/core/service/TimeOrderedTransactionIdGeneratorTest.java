@@ -0,0 +1,93 @@
+package com.digitalbank.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * TimeOrderedTransactionIdGenerator 单元测试：长度/字符集、节点号、时间有序、并发唯一。
+ */
+class TimeOrderedTransactionIdGeneratorTest {
+
+    @Test
+    void nextId_is32HexWithNodeSegment() {
+        TimeOrderedTransactionIdGenerator gen = new TimeOrderedTransactionIdGenerator(0x1a2b);
+
+        String id = gen.nextId();
+        String base = gen.nextBaseId();
+
+        assertThat(id).hasSize(32).matches("[0-9a-f]{32}");
+        assertThat(base).hasSize(24).matches("[0-9a-f]{24}");
+        assertThat(id.substring(12, 16)).isEqualTo("1a2b");
+        assertThat(base.substring(12, 16)).isEqualTo("1a2b");
+        assertThat(("TX" + base + "O")).hasSizeLessThanOrEqualTo(32);
+    }
+
+    @Test
+    void nextId_prefixFollowsWallClock() {
+        TimeOrderedTransactionIdGenerator gen = new TimeOrderedTransactionIdGenerator(1);
+        long before = System.currentTimeMillis();
+
+        long millis = Long.parseLong(gen.nextId().substring(0, 12), 16);
+
+        assertThat(millis).isBetween(before, System.currentTimeMillis());
+    }
+
+    @Test
+    void nextId_timestampPrefixNonDecreasingWithinThread() {
+        TimeOrderedTransactionIdGenerator gen = new TimeOrderedTransactionIdGenerator(1);
+        String prev = gen.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            String next = gen.nextId();
+            assertThat(next.substring(0, 12)).isGreaterThanOrEqualTo(prev.substring(0, 12));
+            prev = next;
+        }
+    }
+
+    @Test
+    void nextId_uniqueAcrossThreads() throws Exception {
+        TimeOrderedTransactionIdGenerator gen = new TimeOrderedTransactionIdGenerator(1);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        ids.add(gen.nextId());
+                        ids.add(gen.nextBaseId());
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(ids).hasSize(8 * 5_000 * 2);
+    }
+
+    @Test
+    void nodeId_isMaskedTo16Bits() {
+        assertThat(new TimeOrderedTransactionIdGenerator(0x12345).nodeId()).isEqualTo(0x2345);
+        assertThat(new TimeOrderedTransactionIdGenerator(-1).nodeId()).isBetween(0, 0xFFFF);
+    }
+
+    @Test
+    void constructor_failsWithoutNodeIdWhenRequired() {
+        assertThatThrownBy(() -> new TimeOrderedTransactionIdGenerator(-1, true))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("transaction.id.node-id");
+        assertThat(new TimeOrderedTransactionIdGenerator(7, true).nodeId()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,141 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.config.ReplicaRoutingContext;
+import com.digitalbank.core.exception.BusinessException;
+import com.digitalbank.core.repository.AccountRepository;
+import com.digitalbank.core.repository.TransactionRepository;
+import com.digitalbank.core.repository.TransactionView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+/**
+ * TransactionExportService 单元测试：参数校验、gzip 输出、写出失败时关闭游标。
+ *
+ * @author Digital Bank POC Team
+ */
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new TransactionExportService(transactionRepository, accountRepository, new ObjectMapper(),
+                transactionManager, 2, 8, 60);
+    }
+
+    private static Stream<TransactionView> rows(int n) {
+        return LongStream.rangeClosed(1, n).mapToObj(i -> new TransactionView(i, "tx-" + i, 1L, null,
+                new BigDecimal("1.00"), null, "payment", "completed", null, Instant.parse("2026-01-01T00:00:00Z").plusSeconds(i)));
+    }
+
+    @Test
+    void validate_rejectsUnknownFormatInvertedRangeAndMissingAccount() {
+        assertThatThrownBy(() -> exportService.validate(1L, null, null, "xml"))
+                .isInstanceOf(BusinessException.class).extracting("errorCode").isEqualTo("CBV003");
+        Instant now = Instant.now();
+        assertThatThrownBy(() -> exportService.validate(1L, now, now.minusSeconds(1), "csv"))
+                .isInstanceOf(BusinessException.class).extracting("errorCode").isEqualTo("CBV003");
+        when(accountRepository.existsById(1L)).thenReturn(false);
+        assertThatThrownBy(() -> exportService.validate(1L, null, null, "csv"))
+                .isInstanceOf(BusinessException.class).extracting("errorCode").isEqualTo("CBB001");
+
+        when(accountRepository.existsById(2L)).thenReturn(true);
+        assertThat(exportService.validate(2L, null, null, " NDJSON ")).isEqualTo("ndjson");
+    }
+
+    @Test
+    void export_writesGzipCsv() throws Exception {
+        when(transactionRepository.streamForExport(1L, null, null, 2)).thenReturn(rows(5));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.export(1L, null, null, "csv", false, true, null, out);
+
+        assertThat(count).isEqualTo(5);
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertThat(csv.split("\r\n")).hasSize(6);
+        assertThat(csv).contains("tx-5,1,,1.00,payment,completed,,");
+    }
+
+    @Test
+    void export_closesCursorWhenClientDisconnects() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(transactionRepository.streamForExport(anyLong(), isNull(),
+                isNull(), anyInt()))
+                .thenReturn(rows(10).onClose(() -> closed.set(true)));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> exportService.export(1L, null, null, "csv", false, false, null, broken))
+                .isInstanceOf(IOException.class).hasMessage("Broken pipe");
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void export_abortsWhenRowLimitExceeded() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(transactionRepository.streamForExport(1L, null, null, 2)).thenReturn(rows(20).onClose(() -> closed.set(true)));
+
+        assertThatThrownBy(() -> exportService.export(1L, null, null, "csv", false, false, null, new ByteArrayOutputStream()))
+                .isInstanceOf(IOException.class).hasMessageContaining("行数上限");
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void export_routesToReplicaInsideExportAndClearsAfterwards() throws Exception {
+        AtomicReference<Long> seen = new AtomicReference<>();
+        when(transactionRepository.streamForExport(1L, null, null, 2)).thenAnswer(inv -> {
+            seen.set(ReplicaRoutingContext.maxLagMs());
+            return rows(1);
+        });
+
+        exportService.export(1L, null, null, "csv", false, false, 5000L, new ByteArrayOutputStream());
+
+        assertThat(seen.get()).isEqualTo(5000L);
+        assertThat(ReplicaRoutingContext.maxLagMs()).isNull();
+    }
+}
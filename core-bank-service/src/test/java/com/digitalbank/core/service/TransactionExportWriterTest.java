@@ -0,0 +1,86 @@
+package com.digitalbank.core.service;
+
+import com.digitalbank.core.repository.TransactionView;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TransactionExportWriter 单元测试：CSV 转义、NDJSON 逐行对象、脱敏。
+ *
+ * @author Digital Bank POC Team
+ */
+class TransactionExportWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static TransactionView row(long id, Long counter, String remark) {
+        return new TransactionView(id, "TX1234567890abcdef" + id, 12345L, counter, new BigDecimal("100.50"), null,
+                "transfer_out", "completed", remark, Instant.parse("2026-01-02T03:04:05Z"));
+    }
+
+    @Test
+    void csvWritesHeaderAndQuotesSpecialCharacters() throws Exception {
+        StringWriter out = new StringWriter();
+        try (TransactionExportWriter writer = new TransactionExportWriter(out, "csv", false, objectMapper.getFactory())) {
+            writer.write(row(1, 67890L, "rent, \"March\""));
+            writer.write(row(2, null, null));
+            assertThat(writer.count()).isEqualTo(2);
+        }
+
+        String[] lines = out.toString().split("\r\n");
+        assertThat(lines).containsExactly(
+                "transactionId,accountId,counterAccountId,amount,transactionType,status,remark,createdAt",
+                "TX1234567890abcdef1,12345,67890,100.50,transfer_out,completed,\"rent, \"\"March\"\"\",2026-01-02T03:04:05Z",
+                "TX1234567890abcdef2,12345,,100.50,transfer_out,completed,,2026-01-02T03:04:05Z");
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws Exception {
+        StringWriter out = new StringWriter();
+        try (TransactionExportWriter writer = new TransactionExportWriter(out, "ndjson", false, objectMapper.getFactory())) {
+            writer.write(row(1, 67890L, "line1\nline2"));
+            writer.write(row(2, null, null));
+        }
+
+        String text = out.toString();
+        assertThat(text).endsWith("}\n");
+        String[] lines = text.split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("accountId").asLong()).isEqualTo(12345L);
+        assertThat(first.get("amount").decimalValue()).isEqualByComparingTo("100.50");
+        assertThat(first.get("remark").asText()).isEqualTo("line1\nline2");
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertThat(second.has("counterAccountId")).isFalse();
+        assertThat(second.has("remark")).isFalse();
+    }
+
+    @Test
+    void maskedOutputHidesIdentifiersAndSensitiveRemarks() throws Exception {
+        StringWriter out = new StringWriter();
+        try (TransactionExportWriter writer = new TransactionExportWriter(out, "ndjson", true, objectMapper.getFactory())) {
+            writer.write(row(1, 67890L, "手机 13812345678"));
+        }
+
+        JsonNode node = objectMapper.readTree(out.toString().trim());
+        assertThat(node.get("transactionId").asText()).contains("****");
+        assertThat(node.get("accountId").asText()).isEqualTo("123***");
+        assertThat(node.get("counterAccountId").asText()).isEqualTo("678***");
+        assertThat(node.get("remark").asText()).doesNotContain("13812345678");
+        assertThat(node.get("amount").decimalValue()).isEqualByComparingTo("100.50");
+    }
+
+    @Test
+    void emptyNdjsonExportWritesNothing() throws Exception {
+        StringWriter out = new StringWriter();
+        new TransactionExportWriter(out, "ndjson", false, objectMapper.getFactory()).close();
+        assertThat(out.toString()).isEmpty();
+    }
+}
@@ -10,16 +10,18 @@ import com.digitalbank.core.entity.Transaction;
 import com.digitalbank.core.exception.BusinessException;
 import com.digitalbank.core.repository.AccountRepository;
 import com.digitalbank.core.repository.TransactionRepository;
+import com.digitalbank.core.repository.TransactionView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
@@ -27,6 +29,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
@@ -54,13 +57,32 @@ class TransactionServiceTest {
     @Mock
     OutboxService outboxService;
 
-    @InjectMocks
+    @Mock
+    ShardedAccountService shardedAccountService;
+
     TransactionService transactionService;
 
+    TransactionService fastPathService;
+
+    TransactionService serverSideService;
+
+    TransactionService insertFirstService;
+
+    RecentRefIdCache refIdCache;
+
     Account account;
 
     @BeforeEach
     void setUp() {
+        TransactionIdGenerator idGenerator = new TimeOrderedTransactionIdGenerator(1);
+        BalanceCache balanceCache = new BalanceCache(false, 0, 1, new SimpleMeterRegistry());
+        RecentRefIdCache noCache = new RecentRefIdCache(0, 600);
+        transactionService = new TransactionService(accountRepository, transactionRepository, riskClient, outboxService, shardedAccountService, idGenerator, balanceCache, false, false, noCache, false);
+        fastPathService = new TransactionService(accountRepository, transactionRepository, riskClient, outboxService, shardedAccountService, idGenerator, balanceCache, true, false, noCache, false);
+        serverSideService = new TransactionService(accountRepository, transactionRepository, riskClient, outboxService, shardedAccountService, idGenerator, balanceCache, false, true, noCache, false);
+        refIdCache = new RecentRefIdCache(100, 600);
+        insertFirstService = new TransactionService(accountRepository, transactionRepository, riskClient, outboxService, shardedAccountService, idGenerator, balanceCache, false, false, refIdCache, true);
+
         account = new Account();
         account.setId(1L);
         account.setAccountNumber("6200123456789012");
@@ -89,7 +111,7 @@ class TransactionServiceTest {
         assertThat(res.getAmount()).isEqualByComparingTo("10.00");
         assertThat(res.getStatus()).isEqualTo("completed");
         assertThat(account.getBalance()).isEqualByComparingTo("90.00");
-        verify(transactionRepository).save(any(Transaction.class));
+        verify(transactionRepository).save(argThat((Transaction t) -> t.getBalanceAfter().compareTo(new BigDecimal("90.00")) == 0));
     }
 
     @Test
@@ -168,6 +190,95 @@ class TransactionServiceTest {
         verify(transactionRepository, never()).save(any());
     }
 
+    @Test
+    void debit_insertFirst_claimsRefIdBeforeDebitAndCachesResult() {
+        DebitRequest req = new DebitRequest();
+        req.setAccountId(1L);
+        req.setAmount(new BigDecimal("10.00"));
+        req.setRefId("pay-ref-if-001");
+        req.setRemark("test");
+
+        when(transactionRepository.insertPaymentIfAbsent(any(), eq(1L), eq(new BigDecimal("10.00")), eq("test"), eq("pay-ref-if-001")))
+                .thenReturn(Optional.of(100L));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.save(any(Account.class))).thenAnswer(i -> i.getArgument(0));
+
+        DebitResponse res = insertFirstService.debit(req);
+
+        assertThat(res.getStatus()).isEqualTo("completed");
+        assertThat(account.getBalance()).isEqualByComparingTo("90.00");
+        verify(transactionRepository, never()).findByRefId(any());
+        verify(transactionRepository, never()).save(any());
+        // 占位流水扣款后补记余额
+        verify(transactionRepository).updateBalanceAfter(100L, new BigDecimal("90.00"));
+
+        // 无事务同步时立即缓存：重放不再访问数据库
+        DebitResponse replay = insertFirstService.debit(req);
+        assertThat(replay.getTransactionId()).isEqualTo(res.getTransactionId());
+        verify(transactionRepository).insertPaymentIfAbsent(any(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void debit_insertFirst_conflictReturnsExistingWithoutDebit() {
+        Transaction existing = new Transaction();
+        existing.setTransactionId("tx-existing-002");
+        existing.setAccountId(1L);
+        existing.setAmount(new BigDecimal("10.00"));
+        existing.setStatus("completed");
+
+        DebitRequest req = new DebitRequest();
+        req.setAccountId(1L);
+        req.setAmount(new BigDecimal("10.00"));
+        req.setRefId("pay-ref-if-002");
+
+        when(transactionRepository.insertPaymentIfAbsent(any(), anyLong(), any(), any(), eq("pay-ref-if-002")))
+                .thenReturn(Optional.empty());
+        when(transactionRepository.findByRefId("pay-ref-if-002")).thenReturn(Optional.of(existing));
+
+        DebitResponse res = insertFirstService.debit(req);
+
+        assertThat(res.getTransactionId()).isEqualTo("tx-existing-002");
+        verify(accountRepository, never()).findByIdForUpdate(anyLong());
+        verify(outboxService, never()).recordEvent(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void debit_insertFirst_mapsForeignKeyViolationToAccountNotFound() {
+        DebitRequest req = new DebitRequest();
+        req.setAccountId(999L);
+        req.setAmount(new BigDecimal("10.00"));
+        req.setRefId("pay-ref-if-003");
+
+        when(transactionRepository.insertPaymentIfAbsent(any(), eq(999L), any(), any(), any()))
+                .thenThrow(constraintViolation("23503", "fk_transactions_bank_accounts"));
+
+        assertThatThrownBy(() -> insertFirstService.debit(req))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("CBB001");
+        assertThat(refIdCache.get("pay-ref-if-003")).isNull();
+    }
+
+    @Test
+    void debit_insertFirst_rethrowsOtherConstraintViolations() {
+        DebitRequest req = new DebitRequest();
+        req.setAccountId(1L);
+        req.setAmount(new BigDecimal("10.00"));
+        req.setRefId("pay-ref-if-004");
+
+        DataIntegrityViolationException duplicateId = constraintViolation("23505", "pk_transaction_ids");
+        when(transactionRepository.insertPaymentIfAbsent(any(), eq(1L), any(), any(), any()))
+                .thenThrow(duplicateId);
+
+        assertThatThrownBy(() -> insertFirstService.debit(req)).isSameAs(duplicateId);
+        verify(accountRepository, never()).debitIfSufficient(any(), any());
+    }
+
+    private static DataIntegrityViolationException constraintViolation(String sqlState, String constraintName) {
+        SQLException sql = new SQLException("violates constraint \"" + constraintName + "\"", sqlState);
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, constraintName));
+    }
+
     @Test
     void transfer_success() {
         Account to = new Account();
@@ -186,7 +297,6 @@ class TransactionServiceTest {
         when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
         when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(to));
         when(accountRepository.save(any(Account.class))).thenAnswer(i -> i.getArgument(0));
-        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
 
         TransferResponse res = transactionService.transfer(req);
 
@@ -198,7 +308,9 @@ class TransactionServiceTest {
         assertThat(account.getBalance()).isEqualByComparingTo("70.00");
         assertThat(to.getBalance()).isEqualByComparingTo("30.00");
         verify(riskClient).checkTransfer(10L, 1L, new BigDecimal("30.00"), 2L);
-        verify(transactionRepository, org.mockito.Mockito.times(2)).save(any(Transaction.class));
+        verify(transactionRepository).saveAll(org.mockito.ArgumentMatchers.<List<Transaction>>argThat(l -> l.size() == 2
+                && l.get(0).getBalanceAfter().compareTo(new BigDecimal("70.00")) == 0
+                && l.get(1).getBalanceAfter().compareTo(new BigDecimal("30.00")) == 0));
     }
 
     @Test
@@ -215,17 +327,145 @@ class TransactionServiceTest {
         verify(transactionRepository, never()).save(any());
     }
 
+    @Test
+    void debit_fastPath_usesGuardedUpdateWithoutRowLock() {
+        DebitRequest req = new DebitRequest();
+        req.setAccountId(1L);
+        req.setAmount(new BigDecimal("10.00"));
+        req.setRefId("pay-ref-fp-001");
+
+        when(transactionRepository.findByRefId("pay-ref-fp-001")).thenReturn(Optional.empty());
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("10.00"))).thenReturn(Optional.of(new BigDecimal("90.00")));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
+
+        DebitResponse res = fastPathService.debit(req);
+
+        assertThat(res.getStatus()).isEqualTo("completed");
+        verify(accountRepository, never()).findByIdForUpdate(anyLong());
+        verify(accountRepository, never()).save(any());
+        verify(transactionRepository).save(argThat((Transaction t) -> t.getBalanceAfter().compareTo(new BigDecimal("90.00")) == 0));
+    }
+
+    @Test
+    void debit_fastPath_mapsZeroRowsToErrorCodes() {
+        DebitRequest req = new DebitRequest();
+        req.setAccountId(1L);
+        req.setAmount(new BigDecimal("10.00"));
+        req.setRefId("pay-ref-fp-002");
+
+        when(transactionRepository.findByRefId("pay-ref-fp-002")).thenReturn(Optional.empty());
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("10.00"))).thenReturn(Optional.empty());
+
+        when(accountRepository.findStatusById(1L)).thenReturn(Optional.empty());
+        assertThatThrownBy(() -> fastPathService.debit(req))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("CBB001");
+
+        when(accountRepository.findStatusById(1L)).thenReturn(Optional.of("frozen"));
+        assertThatThrownBy(() -> fastPathService.debit(req))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("CBB003");
+
+        when(accountRepository.findStatusById(1L)).thenReturn(Optional.of("active"));
+        assertThatThrownBy(() -> fastPathService.debit(req))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("CBB002");
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void debit_fastPath_shardedAccountMissingFromCache_locksRowAndDrainsShards() {
+        DebitRequest req = new DebitRequest();
+        req.setAccountId(1L);
+        req.setAmount(new BigDecimal("10.00"));
+        req.setRefId("pay-ref-fp-003");
+        account.setShardCount(8);
+
+        when(transactionRepository.findByRefId("pay-ref-fp-003")).thenReturn(Optional.empty());
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("10.00"))).thenReturn(Optional.empty());
+        when(accountRepository.findShardCountById(1L)).thenReturn(Optional.of(8));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
+
+        fastPathService.debit(req);
+
+        verify(shardedAccountService).debitLocked(account, new BigDecimal("10.00"));
+        verify(accountRepository, never()).findStatusById(anyLong());
+        verify(transactionRepository).save(argThat((Transaction t) -> t.getBalanceAfter() == null));
+    }
+
+    @Test
+    void debit_lockedPath_decidesShardingFromLockedRow() {
+        DebitRequest req = new DebitRequest();
+        req.setAccountId(1L);
+        req.setAmount(new BigDecimal("150.00"));
+        req.setRefId("pay-ref-shard-001");
+        account.setShardCount(4);
+
+        when(transactionRepository.findByRefId("pay-ref-shard-001")).thenReturn(Optional.empty());
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
+
+        // 本实例缓存未记录该分片账户（isSharded 为 false），主行余额 100 不足，仍交给分片扣款归集分片
+        transactionService.debit(req);
+
+        verify(shardedAccountService).debitLocked(account, new BigDecimal("150.00"));
+        verify(transactionRepository).save(argThat((Transaction t) -> t.getBalanceAfter() == null));
+    }
+
+    @Test
+    void transfer_fastPath_appliesGuardedUpdatesInIdOrder() {
+        TransferRequest req = new TransferRequest();
+        req.setFromAccountId(2L);
+        req.setToAccountId(1L);
+        req.setAmount(new BigDecimal("30.00"));
+
+        Account from = new Account();
+        from.setId(2L);
+        from.setCustomerId(20L);
+        when(accountRepository.findById(2L)).thenReturn(Optional.of(from));
+        when(accountRepository.creditIfActive(1L, new BigDecimal("30.00"))).thenReturn(Optional.of(new BigDecimal("130.00")));
+        when(accountRepository.debitIfSufficient(2L, new BigDecimal("30.00"))).thenReturn(Optional.empty());
+        when(accountRepository.findStatusById(2L)).thenReturn(Optional.of("frozen"));
+
+        assertThatThrownBy(() -> fastPathService.transfer(req))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("转出账户已冻结");
+        var order = org.mockito.Mockito.inOrder(accountRepository);
+        order.verify(accountRepository).creditIfActive(1L, new BigDecimal("30.00"));
+        order.verify(accountRepository).debitIfSufficient(2L, new BigDecimal("30.00"));
+        verify(accountRepository, never()).findByIdForUpdate(anyLong());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void transfer_serverSide_singleCallAndErrorMapping() {
+        TransferRequest req = new TransferRequest();
+        req.setFromAccountId(1L);
+        req.setToAccountId(2L);
+        req.setAmount(new BigDecimal("30.00"));
+
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(transactionRepository.executeTransfer(eq(1L), eq(2L), any(), isNull(), any(), any()))
+                .thenReturn("OK", "CBB003_TO");
+
+        TransferResponse res = serverSideService.transfer(req);
+        assertThat(res.getTransactionId()).startsWith("TX").endsWith("O");
+        assertThat(res.getStatus()).isEqualTo("completed");
+
+        assertThatThrownBy(() -> serverSideService.transfer(req))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("转入账户已冻结");
+        verify(accountRepository, never()).findByIdForUpdate(anyLong());
+        verify(transactionRepository, never()).save(any());
+        verify(outboxService, never()).recordEvent(any(), any(), any(), any(), any());
+    }
+
     @Test
     void listTransactions_returnsPage() {
-        Transaction t = new Transaction();
-        t.setTransactionId("tx-1");
-        t.setAccountId(1L);
-        t.setAmount(new BigDecimal("10.00"));
-        t.setTransactionType("payment");
-        t.setStatus("completed");
-        t.setCreatedAt(Instant.now());
-        PageImpl<Transaction> page = new PageImpl<>(List.of(t), PageRequest.of(0, 20), 1);
-        when(transactionRepository.findWithFilters(eq(1L), isNull(), any())).thenReturn(page);
+        TransactionView t = new TransactionView(1L, "tx-1", 1L, null, new BigDecimal("10.00"), null,
+                "payment", "completed", null, Instant.now());
+        when(transactionRepository.findOffsetPage(1L, null, null, null, 0, 20)).thenReturn(List.of(t));
 
         var res = transactionService.listTransactions(1L, null, 1, 20);
 
@@ -234,23 +474,85 @@ class TransactionServiceTest {
         assertThat(res.getTotal()).isEqualTo(1);
         assertThat(res.getPage()).isEqualTo(1);
         assertThat(res.getPageSize()).isEqualTo(20);
+        verify(transactionRepository, never()).countMatching(any(), any(), any(), any());
     }
 
     @Test
     void getTransactionHistory_returnsPage() {
-        Transaction t = new Transaction();
-        t.setTransactionId("tx-h1");
-        t.setAccountId(1L);
-        t.setAmount(new BigDecimal("5.00"));
-        t.setTransactionType("payment");
-        t.setStatus("completed");
-        t.setCreatedAt(Instant.now());
-        PageImpl<Transaction> page = new PageImpl<>(List.of(t), PageRequest.of(0, 20), 1);
-        when(transactionRepository.findByAccountIdOrderByCreatedAtDesc(eq(1L), any())).thenReturn(page);
+        TransactionView t = new TransactionView(1L, "tx-h1", 1L, null, new BigDecimal("5.00"), null,
+                "payment", "completed", null, Instant.now());
+        when(transactionRepository.findOffsetPage(1L, null, null, null, 0, 20)).thenReturn(List.of(t));
 
         var res = transactionService.getTransactionHistory(1L, null, null, 1, 20);
 
         assertThat(res.getItems()).hasSize(1);
         assertThat(res.getItems().get(0).getTransactionId()).isEqualTo("tx-h1");
     }
+
+    @Test
+    void getTransactionHistory_appliesSingleTimeBound() {
+        Instant from = Instant.parse("2026-01-01T00:00:00Z");
+        when(transactionRepository.findOffsetPage(1L, null, from, null, 20, 20)).thenReturn(List.of());
+        when(transactionRepository.countMatching(1L, null, from, null)).thenReturn(20L);
+
+        var res = transactionService.getTransactionHistory(1L, from, null, 2, 20);
+
+        assertThat(res.getItems()).isEmpty();
+        assertThat(res.getTotal()).isEqualTo(20);
+        assertThat(res.getPage()).isEqualTo(2);
+    }
+
+    @Test
+    void getTransactionHistory_keysetPagesWithoutCount() {
+        Instant base = Instant.parse("2026-01-01T00:00:00.123456Z");
+        TransactionView t1 = historyRow(30L, base);
+        TransactionView t2 = historyRow(20L, base);
+        TransactionView t3 = historyRow(10L, base.minusSeconds(1));
+        when(transactionRepository.findKeysetPage(1L, null, null, null, null, null, 3))
+                .thenReturn(List.of(t1, t2, t3));
+
+        var first = transactionService.getTransactionHistory(1L, null, null, 1, 2, null, false);
+
+        assertThat(first.getItems()).extracting("transactionId").containsExactly("tx-30", "tx-20");
+        assertThat(first.getTotal()).isNull();
+        assertThat(first.getNextCursor()).isNotNull();
+        verify(transactionRepository, never()).countMatching(any(), any(), any(), any());
+
+        when(transactionRepository.findKeysetPage(1L, null, null, null, base, 20L, 3)).thenReturn(List.of(t3));
+
+        var second = transactionService.getTransactionHistory(1L, null, null, 1, 2, first.getNextCursor(), false);
+
+        assertThat(second.getItems()).extracting("transactionId").containsExactly("tx-10");
+        assertThat(second.getPage()).isNull();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void listTransactions_offsetPageReturnsCursorForNextPage() {
+        TransactionView t = historyRow(7L, Instant.now());
+        when(transactionRepository.findOffsetPage(1L, null, null, null, 0, 1)).thenReturn(List.of(t));
+        when(transactionRepository.findKeysetPage(eq(1L), isNull(), isNull(), isNull(), eq(t.createdAt()), eq(7L), eq(2)))
+                .thenReturn(List.of());
+        when(transactionRepository.countMatching(1L, null, null, null)).thenReturn(5L);
+
+        var res = transactionService.listTransactions(1L, null, 1, 1);
+        var next = transactionService.listTransactions(1L, null, 1, 1, res.getNextCursor(), true);
+
+        assertThat(res.getTotal()).isEqualTo(5);
+        assertThat(res.getNextCursor()).isNotNull();
+        assertThat(next.getItems()).isEmpty();
+        assertThat(next.getTotal()).isEqualTo(5);
+    }
+
+    @Test
+    void listTransactions_rejectsMalformedCursor() {
+        assertThatThrownBy(() -> transactionService.listTransactions(null, null, 1, 20, "not-a-cursor!", false))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("CBV003");
+    }
+
+    private static TransactionView historyRow(Long id, Instant createdAt) {
+        return new TransactionView(id, "tx-" + id, 1L, null, new BigDecimal("1.00"), null,
+                "payment", "completed", null, createdAt);
+    }
 }
@@ -33,15 +33,17 @@ fi
 # 应用 Kustomize（优先 overlays/<env>，否则 base）
 kubectl apply -k "$KUST_DIR" --namespace="$NAMESPACE" 2>/dev/null || true
 
-# 若有应用服务 Deployment，可在此按 IMAGE_TAG 更新镜像
-# 例: kubectl set image deployment/core-bank-service-deployment core-bank-service=${IMAGE_PREFIX}/core-bank-service:${IMAGE_TAG} -n "$NAMESPACE"
-for svc in core-bank-service payment-service risk-service frontend; do
-  dep="${svc}-deployment"
-  if kubectl get deployment "$dep" -n "$NAMESPACE" &>/dev/null; then
+# 若有应用服务工作负载，可在此按 IMAGE_TAG 更新镜像（core-bank-service 为 StatefulSet，Pod 序号作交易单号节点号）
+# 例: kubectl set image statefulset/core-bank-service-statefulset core-bank-service=${IMAGE_PREFIX}/core-bank-service:${IMAGE_TAG} -n "$NAMESPACE"
+for workload in statefulset/core-bank-service-statefulset deployment/payment-service-deployment \
+                deployment/risk-service-deployment deployment/frontend-deployment; do
+  name="${workload#*/}"
+  svc="${name%-*}"
+  if kubectl get "$workload" -n "$NAMESPACE" &>/dev/null; then
     img="${IMAGE_PREFIX}/${svc}:${IMAGE_TAG}"
-    echo "[deploy] set image $dep -> $img"
-    kubectl set image "deployment/$dep" "$svc=$img" -n "$NAMESPACE"
-    kubectl rollout status "deployment/$dep" -n "$NAMESPACE" --timeout=300s || true
+    echo "[deploy] set image $workload -> $img"
+    kubectl set image "$workload" "$svc=$img" -n "$NAMESPACE"
+    kubectl rollout status "$workload" -n "$NAMESPACE" --timeout=300s || true
   fi
 done
 
@@ -1,7 +1,7 @@
 #!/usr/bin/env bash
 # 部署验证与健康检查 - 数字银行 POC (Day 3 Agent 8)
 # 用法: ./verify-deploy.sh <env>
-# 验证: 构建产物(镜像)、部署(Deployment/Service)、健康检查(HTTP)
+# 验证: 构建产物(镜像)、部署(Deployment/StatefulSet/Service)、健康检查(HTTP)
 
 set -e
 
@@ -17,11 +17,11 @@ SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
 
 echo "[verify] env=$ENV namespace=$NAMESPACE"
 
-# 检查 deployment 是否就绪
+# 检查工作负载（kind/name）是否就绪
 check_deployment_ready() {
   local dep="$1"
   local ready
-  ready=$(kubectl get deployment "$dep" -n "$NAMESPACE" -o jsonpath='{.status.readyReplicas}' 2>/dev/null || echo "0")
+  ready=$(kubectl get "$dep" -n "$NAMESPACE" -o jsonpath='{.status.readyReplicas}' 2>/dev/null || echo "0")
   if [[ "${ready:-0}" -ge 1 ]]; then
     echo "[ok] $dep ready ${ready}/1"
     return 0
@@ -51,8 +51,9 @@ health_curl() {
 
 failed=0
 
-# 1) Deployment 就绪
-for dep in core-bank-service-deployment payment-service-deployment risk-service-deployment frontend-deployment; do
+# 1) 工作负载就绪（core-bank-service 为 StatefulSet）
+for dep in statefulset/core-bank-service-statefulset deployment/payment-service-deployment \
+           deployment/risk-service-deployment deployment/frontend-deployment; do
   if ! check_deployment_ready "$dep"; then
     ((failed++)) || true
   fi
@@ -66,7 +67,7 @@ health_curl "risk-service" "8000" "/health" || true
 health_curl "frontend" "80" "/" || true
 
 if [[ $failed -gt 0 ]]; then
-  echo "[verify] 有 $failed 个 Deployment 未就绪"
+  echo "[verify] 有 $failed 个工作负载未就绪"
   exit 1
 fi
 echo "[verify] 通过"